@@ -1,5 +1,7 @@
 package org.sagebionetworks.ids;
 
+import java.util.List;
+
 /**
  * 
  * @author jmhill
@@ -13,6 +15,17 @@ public interface IdGenerator {
 	 */
 	public Long generateNewId(IdType type);
 	
+	/**
+	 * Generate a batch of new IDs with a single call to the database. Each ID is
+	 * unique but the IDs are not guaranteed to be consecutive.
+	 * 
+	 * @param type
+	 * @param count The number of IDs to generate. Must be between 1 and
+	 *              {@link IdGeneratorImpl#MAX_BATCH_SIZE}
+	 * @return The new IDs in the order they were issued.
+	 */
+	public List<Long> generateNewIds(IdType type, int count);
+	
 	/**
 	 * Ensure that the given ID is reserved.  If the ID is not already reserved then, 
 	 * this method will reserve it and all values below it.
@@ -3,6 +3,8 @@ package org.sagebionetworks.ids;
 import java.io.IOException;
 import java.io.InputStream;
 import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.sql.DataSource;
 
@@ -20,6 +22,12 @@ import org.springframework.jdbc.core.JdbcTemplate;
  */
 public class IdGeneratorImpl implements IdGenerator, InitializingBean{
 	
+	/**
+	 * The maximum number of IDs that can be issued with a single call to
+	 * {@link #generateNewIds(IdType, int)}.
+	 */
+	public static final int MAX_BATCH_SIZE = 1000;
+
 	private static final String SELECT_COUNT_FROM_TYPE = "SELECT COUNT(*) FROM %1$S";
 
 	private static final String DELETE_LESS_THAN_MAX = "DELETE FROM %1$S WHERE ID < %2$d LIMIT %3$d";
@@ -53,6 +61,40 @@ public class IdGeneratorImpl implements IdGenerator, InitializingBean{
 		return idGeneratorJdbcTemplate.queryForObject("CALL generateNewId(?)", Long.class, type.name());
 	}
 	
+	/**
+	 * Note: This is a call to a separate database and does not participate in the
+	 * caller's transaction. Do not add transaction annotations to this method.
+	 */
+	@Override
+	public List<Long> generateNewIds(IdType type, int count) {
+		if (type == null) {
+			throw new IllegalArgumentException("Type cannot be null");
+		}
+		if (count < 1 || count > MAX_BATCH_SIZE) {
+			throw new IllegalArgumentException("Count must be between 1 and " + MAX_BATCH_SIZE);
+		}
+		String newIds = idGeneratorJdbcTemplate.queryForObject("CALL generateNewIds(?,?)", String.class, type.name(), count);
+		return parseIds(newIds);
+	}
+
+	/**
+	 * Parse the comma separated IDs returned by the generateNewIds procedure.
+	 * 
+	 * @param newIds
+	 * @return
+	 */
+	static List<Long> parseIds(String newIds) {
+		if (newIds == null || newIds.isEmpty()) {
+			throw new IllegalStateException("No IDs were generated");
+		}
+		String[] split = newIds.split(",");
+		List<Long> ids = new ArrayList<>(split.length);
+		for (String id : split) {
+			ids.add(Long.parseLong(id));
+		}
+		return ids;
+	}
+	
 	/**
 	 * Note: This is a call to a separate database and does not participate in the
 	 * caller's transaction. Do not add transaction annotations to this method.
@@ -93,6 +135,7 @@ public class IdGeneratorImpl implements IdGenerator, InitializingBean{
 		if(!con.getAutoCommit()) throw new RuntimeException("The connections from this datasources should be set to auto-commit");
 		
 		createStoredProcedure("generateNewId.ddl.sql");
+		createStoredProcedure("generateNewIds.ddl.sql");
 		createStoredProcedure("reserveId.ddl.sql");
 		
 		// Make sure we have a table for each type
@@ -0,0 +1,27 @@
+CREATE PROCEDURE generateNewIds(IN typeName VARCHAR(256), IN idCount INT)
+    MODIFIES SQL DATA
+    SQL SECURITY INVOKER
+BEGIN
+	DECLARE i INT DEFAULT 0;
+	DECLARE newIds TEXT DEFAULT '';
+	
+	SET SESSION TRANSACTION ISOLATION LEVEL READ COMMITTED;
+ 
+ 	/*
+ 	Issue a batch of IDs with a single round trip. Each ID is still issued by its own
+ 	INSERT so IDs issued concurrently by other connections are never duplicated. See
+ 	generateNewId for why a stored procedure is used for the INSERT and LAST_INSERT_ID().
+ 	The IDs are returned as a single comma separated string.
+ 	*/
+	SET @sql_text:=CONCAT('INSERT INTO ',typeName,' (CREATED_ON) VALUES (NOW())');
+	PREPARE stmt from @sql_text;
+	WHILE i < idCount DO
+		EXECUTE stmt;
+		SET newIds = CONCAT(newIds, IF(i = 0, '', ','), LAST_INSERT_ID());
+		SET i = i + 1;
+	END WHILE;
+    DEALLOCATE PREPARE stmt;
+	
+	SELECT newIds as NEW_IDS;
+	
+END
\ No newline at end of file
@@ -2,9 +2,12 @@ package org.sagebionetworks.ids;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import org.junit.jupiter.api.Test;
@@ -130,4 +133,64 @@ public class IdGeneratorImplTest {
 		// cleanup should not break the sequence
 		assertEquals(new Long(lastId+1L), idGenerator.generateNewId(type));
 	}
+	
+	@Test
+	public void testGenerateNewIds() {
+		IdType type = IdType.ACCESS_APPROVAL_ID;
+		Long start = idGenerator.generateNewId(type);
+		// call under test
+		List<Long> ids = idGenerator.generateNewIds(type, 5);
+		assertEquals(5, ids.size());
+		assertEquals(5, new HashSet<>(ids).size());
+		long previous = start;
+		for (Long id : ids) {
+			assertTrue(id > previous, "IDs must be issued in increasing order");
+			previous = id;
+		}
+		// the next ID must follow the batch.
+		assertTrue(idGenerator.generateNewId(type) > previous);
+	}
+	
+	@Test
+	public void testGenerateNewIdsWithSingleId() {
+		IdType type = IdType.ACCESS_APPROVAL_ID;
+		Long start = idGenerator.generateNewId(type);
+		// call under test
+		List<Long> ids = idGenerator.generateNewIds(type, 1);
+		assertEquals(1, ids.size());
+		assertTrue(ids.get(0) > start);
+	}
+	
+	@Test
+	public void testGenerateNewIdsWithNullType() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			idGenerator.generateNewIds(null, 1);
+		});
+	}
+	
+	@Test
+	public void testGenerateNewIdsWithZeroCount() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			idGenerator.generateNewIds(IdType.ACCESS_APPROVAL_ID, 0);
+		});
+	}
+	
+	@Test
+	public void testGenerateNewIdsOverMax() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			idGenerator.generateNewIds(IdType.ACCESS_APPROVAL_ID, IdGeneratorImpl.MAX_BATCH_SIZE + 1);
+		});
+	}
+	
+	@Test
+	public void testParseIds() {
+		assertEquals(Arrays.asList(1L, 22L, 333L), IdGeneratorImpl.parseIds("1,22,333"));
+	}
+	
+	@Test
+	public void testParseIdsWithEmpty() {
+		assertThrows(IllegalStateException.class, () -> {
+			IdGeneratorImpl.parseIds("");
+		});
+	}
 }
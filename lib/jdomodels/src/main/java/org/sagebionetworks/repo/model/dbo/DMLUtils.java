@@ -2,6 +2,7 @@ package org.sagebionetworks.repo.model.dbo;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.LinkedList;
 import java.util.List;
 
 import org.sagebionetworks.repo.model.dbo.migration.ChecksumTableResult;
@@ -176,6 +177,22 @@ public class DMLUtils {
 		throw new IllegalArgumentException("Table "+mapping.getTableName()+" has no primary key.");
 	}
 
+	/**
+	 * The names of all of the primary key columns, in the order of the mapping.
+	 * @param mapping
+	 * @return
+	 */
+	public static List<String> getPrimaryKeyColumnNames(TableMapping<?> mapping) {
+		List<String> names = new LinkedList<>();
+		for(FieldColumn fc: mapping.getFieldColumns()){
+			if(fc.isPrimaryKey()) names.add(fc.getColumnName());
+		}
+		if(names.isEmpty()){
+			throw new IllegalArgumentException("Table "+mapping.getTableName()+" has no primary key.");
+		}
+		return names;
+	}
+
 	public static String getBackupFieldColumnName(TableMapping<?> mapping) {
 		for(int i=0; i<mapping.getFieldColumns().length; i++){
 			FieldColumn fc = mapping.getFieldColumns()[i];
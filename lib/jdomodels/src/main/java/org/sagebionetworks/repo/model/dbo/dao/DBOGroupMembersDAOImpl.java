@@ -188,6 +188,7 @@ public class DBOGroupMembersDAOImpl implements GroupMembersDAO {
 		
 		// Use the affected UserGroup row as a lock 
 		userGroupDAO.getEtagForUpdate(groupId);
+		transactionalMessenger.sendMessageAfterCommit(groupId, ObjectType.PRINCIPAL, ChangeType.UPDATE);
 
 		// Delete some members
 		List<Long> sortedMemberIds = sortIds(memberIds);
@@ -1,10 +1,13 @@
 package org.sagebionetworks.repo.model.dbo.dao;
 
 import java.sql.ResultSet;
+import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 
@@ -34,6 +37,10 @@ import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 
 
 public class DBOMessageDAOImpl implements MessageDAO {
@@ -50,6 +57,9 @@ public class DBOMessageDAOImpl implements MessageDAO {
 	@Autowired
 	private IdGenerator idGenerator;
 	
+	@Autowired
+	private DataSourceTransactionManager txManager;
+	
 	private static final String MESSAGE_ID_PARAM_NAME = "messageId";
 	private static final String MESSAGE_SENT_PARAM_NAME = "sent";
 	private static final String USER_ID_PARAM_NAME = "userId";
@@ -58,6 +68,8 @@ public class DBOMessageDAOImpl implements MessageDAO {
 	private static final String INBOX_FILTER_PARAM_NAME = "inboxFilter";
 	private static final String TIMESTAMP_PARAM_NAME = "timestamp";
 	private static final String FILEHANDLE_PARAM_NAME = "filehandle";
+	private static final String RECIPIENT_IDS_PARAM_NAME = "recipientIds";
+	private static final String STATUS_PARAM_NAME = "status";
 	
 	private static final String SELECT_MESSAGE_BY_ID = 
 			"SELECT * FROM " + SqlConstants.TABLE_MESSAGE_CONTENT + "," + SqlConstants.TABLE_MESSAGE_TO_USER +
@@ -77,6 +89,12 @@ public class DBOMessageDAOImpl implements MessageDAO {
 			" SET " + SqlConstants.COL_MESSAGE_CONTENT_ETAG + "=:" + ETAG_PARAM_NAME + 
 			" WHERE " + SqlConstants.COL_MESSAGE_CONTENT_ID + "=:" + MESSAGE_ID_PARAM_NAME;
 	
+	private static final String UPDATE_MESSAGE_STATUS_FOR_RECIPIENTS =
+			"UPDATE " + SqlConstants.TABLE_MESSAGE_STATUS +
+			" SET " + SqlConstants.COL_MESSAGE_STATUS + "=:" + STATUS_PARAM_NAME +
+			" WHERE " + SqlConstants.COL_MESSAGE_STATUS_MESSAGE_ID + "=:" + MESSAGE_ID_PARAM_NAME +
+			" AND " + SqlConstants.COL_MESSAGE_STATUS_RECIPIENT_ID + " IN (:" + RECIPIENT_IDS_PARAM_NAME + ")";
+	
 	private static final String UPDATE_MESSAGE_SENT =
 			"UPDATE " + SqlConstants.TABLE_MESSAGE_TO_USER+
 			" SET " + SqlConstants.COL_MESSAGE_TO_USER_SENT+ "=:"+MESSAGE_SENT_PARAM_NAME+" WHERE "+ 
@@ -390,19 +408,68 @@ public class DBOMessageDAOImpl implements MessageDAO {
 	@Override
 	@NewWriteTransaction
 	public void createMessageStatus(String messageId, String userId, MessageStatusType status) {
-		if (status == null) {
-			status = MessageStatusType.UNREAD;
-		}
+		basicDAO.createNew(createMessageStatusDBO(messageId, userId, status));
 		
+		touch(messageId);
+		
+	}
+
+	@Override
+	public Map<String, String> createMessageStatus(String messageId, List<String> userIds, MessageStatusType status) {
+		Map<String, String> failures = new LinkedHashMap<String, String>();
+		if (userIds.isEmpty()) {
+			return failures;
+		}
+		// The method is not annotated since a failed batch must not roll back the single inserts that follow it
+		TransactionTemplate newWriteTransaction = createNewWriteTransactionTemplate(txManager);
+		try {
+			newWriteTransaction.execute(txStatus -> {
+				List<DBOMessageStatus> batch = new ArrayList<DBOMessageStatus>(userIds.size());
+				for (String userId : userIds) {
+					batch.add(createMessageStatusDBO(messageId, userId, status));
+				}
+				basicDAO.createBatch(batch);
+				touch(messageId);
+				return null;
+			});
+			return failures;
+		} catch (RuntimeException e) {
+			// The whole batch was rolled back, fall back to one insert per user
+		}
+		for (String userId : userIds) {
+			try {
+				newWriteTransaction.execute(txStatus -> {
+					basicDAO.createNew(createMessageStatusDBO(messageId, userId, status));
+					touch(messageId);
+					return null;
+				});
+			} catch (RuntimeException e) {
+				failures.put(userId, e.getMessage());
+			}
+		}
+		return failures;
+	}
+	
+	private static DBOMessageStatus createMessageStatusDBO(String messageId, String userId, MessageStatusType status) {
 		DBOMessageStatus dbo = new DBOMessageStatus();
 		dbo.setMessageId(Long.parseLong(messageId));
 		dbo.setRecipientId(Long.parseLong(userId));
-		dbo.setStatus(status);
+		// setting to null defaults the status to UNREAD
+		dbo.setStatus(status == null ? MessageStatusType.UNREAD : status);
 		MessageUtils.validateDBO(dbo);
-		basicDAO.createNew(dbo);
-		
-		touch(messageId);
-		
+		return dbo;
+	}
+	
+	/**
+	 * @return A template that runs each callback in a new transaction, as {@link NewWriteTransaction} does
+	 */
+	private static TransactionTemplate createNewWriteTransactionTemplate(DataSourceTransactionManager transactionManager) {
+		DefaultTransactionDefinition transactionDef = new DefaultTransactionDefinition();
+		transactionDef.setIsolationLevel(Connection.TRANSACTION_READ_COMMITTED);
+		transactionDef.setReadOnly(false);
+		transactionDef.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		transactionDef.setName("DBOMessageDAOImpl");
+		return new TransactionTemplate(transactionManager, transactionDef);
 	}
 
 	@Override
@@ -419,6 +486,21 @@ public class DBOMessageDAOImpl implements MessageDAO {
 		
 	}
 
+	@Override
+	@NewWriteTransaction
+	public void updateMessageStatus(String messageId, List<String> recipientIds, MessageStatusType status) {
+		if (recipientIds.isEmpty()) {
+			return;
+		}
+		MapSqlParameterSource params = new MapSqlParameterSource();
+		params.addValue(MESSAGE_ID_PARAM_NAME, messageId);
+		params.addValue(RECIPIENT_IDS_PARAM_NAME, recipientIds);
+		params.addValue(STATUS_PARAM_NAME, status.name());
+		namedJdbcTemplate.update(UPDATE_MESSAGE_STATUS_FOR_RECIPIENTS, params);
+		
+		touch(messageId);
+	}
+
 	@Override
 	public void deleteMessage(String messageId) {
 		MapSqlParameterSource params = new MapSqlParameterSource();
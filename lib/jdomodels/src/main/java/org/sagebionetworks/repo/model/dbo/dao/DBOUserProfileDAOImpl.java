@@ -212,14 +212,7 @@ public class DBOUserProfileDAOImpl implements UserProfileDAO {
 	
 	public List<UserProfile> list(List<Long> ids) throws DatastoreException, NotFoundException {
 		if (ids==null || ids.size()<1) return Collections.emptyList();
-		MapSqlParameterSource param = new MapSqlParameterSource();		
-		param.addValue(COL_USER_PROFILE_ID, ids);
-		List<DBOUserProfile> dbos = namedJdbcTemplate.query(LIST_FOR_IDS, param, USER_PROFILE_ROW_MAPPER);
-		Map<String,UserProfile> map = new HashMap<String,UserProfile>();
-		for (DBOUserProfile dbo : dbos) {
-			UserProfile dto = UserProfileUtils.convertDboToDto(dbo);
-			map.put(dto.getOwnerId(), dto);
-		}
+		Map<String,UserProfile> map = getUserProfilesByOwnerId(ids);
 		List<UserProfile> dtos = new ArrayList<UserProfile>();
 		for (Long id : ids) {
 			UserProfile userProfile = map.get(id.toString());
@@ -231,6 +224,20 @@ public class DBOUserProfileDAOImpl implements UserProfileDAO {
 		return dtos;
 	}
 
+	@Override
+	public Map<String, UserProfile> getUserProfilesByOwnerId(List<Long> ids) throws DatastoreException {
+		Map<String,UserProfile> map = new HashMap<String,UserProfile>();
+		if (ids==null || ids.isEmpty()) return map;
+		MapSqlParameterSource param = new MapSqlParameterSource();		
+		param.addValue(COL_USER_PROFILE_ID, ids);
+		List<DBOUserProfile> dbos = namedJdbcTemplate.query(LIST_FOR_IDS, param, USER_PROFILE_ROW_MAPPER);
+		for (DBOUserProfile dbo : dbos) {
+			UserProfile dto = UserProfileUtils.convertDboToDto(dbo);
+			map.put(dto.getOwnerId(), dto);
+		}
+		return map;
+	}
+
 	@Override
 	public long getCount() throws DatastoreException {
 		return basicDao.getCount(DBOUserProfile.class);
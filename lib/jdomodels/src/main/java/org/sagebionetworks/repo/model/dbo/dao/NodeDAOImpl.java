@@ -327,6 +327,10 @@ public class NodeDAOImpl implements NodeDAO, InitializingBean {
 			+ " N, " + TABLE_REVISION + " R WHERE N." + COL_NODE_ID + "= R." + COL_REVISION_OWNER_NODE + " AND N."
 			+ COL_NODE_CURRENT_REV + " = R." + COL_REVISION_NUMBER + " AND N." + COL_NODE_ID + "= ?";
 	
+	private static final String SQL_SELECT_CURRENT_NODES = SQL_SELECT_WITHOUT_ANNOTATIONS + " FROM " + TABLE_NODE
+			+ " N, " + TABLE_REVISION + " R WHERE N." + COL_NODE_ID + "= R." + COL_REVISION_OWNER_NODE + " AND N."
+			+ COL_NODE_CURRENT_REV + " = R." + COL_REVISION_NUMBER + " AND N." + COL_NODE_ID + " IN (:" + BIND_NODE_IDS + ")";
+	
 	private static final String SQL_SELECT_NODE_VERSION = SQL_SELECT_WITHOUT_ANNOTATIONS + " FROM " + TABLE_NODE
 			+ " N, " + TABLE_REVISION + " R WHERE N." + COL_NODE_ID + "= R." + COL_REVISION_OWNER_NODE + " AND R."
 			+ COL_REVISION_NUMBER + " = ? AND N." + COL_NODE_ID + "= ?";
@@ -351,6 +355,7 @@ public class NodeDAOImpl implements NodeDAO, InitializingBean {
 
 	private static final String SELECT_ANNOTATIONS_ONLY_FROM_AND_WHERE_CLAUSE_PREFIX = " FROM  "+TABLE_NODE+" N, "+TABLE_REVISION+" R WHERE N."+COL_NODE_ID+" = :"+COL_NODE_ID +" AND R."+COL_REVISION_OWNER_NODE+" = N."+COL_NODE_ID+" AND R."+COL_REVISION_NUMBER + "=";
 	private static final String SELECT_USER_ANNOTATIONS_ONLY_PREFIX = "SELECT N."+COL_NODE_ID+", N."+COL_NODE_ETAG+", R."+COL_REVISION_USER_ANNOS_JSON+" FROM  "+TABLE_NODE+" N, "+TABLE_REVISION+" R WHERE N."+COL_NODE_ID+" = ? AND R."+COL_REVISION_OWNER_NODE+" = N."+COL_NODE_ID+" AND R."+COL_REVISION_NUMBER + " = ";
+	private static final String SELECT_CURRENT_USER_ANNOTATIONS = "SELECT N."+COL_NODE_ID+", N."+COL_NODE_ETAG+", R."+COL_REVISION_USER_ANNOS_JSON+" FROM  "+TABLE_NODE+" N, "+TABLE_REVISION+" R WHERE N."+COL_NODE_ID+" IN (:"+BIND_NODE_IDS+") AND R."+COL_REVISION_OWNER_NODE+" = N."+COL_NODE_ID+" AND R."+COL_REVISION_NUMBER + " = N." + COL_NODE_CURRENT_REV;
 	private static final String CANNOT_FIND_A_NODE_WITH_ID = "Cannot find a node with id: ";
 	private static final String CANNOT_FIND_A_NODE_WITH_ID_AND_VERSION = "Cannot find a node with id %s and version %d";
 	private static final String ERROR_RESOURCE_NOT_FOUND = "The resource you are attempting to access cannot be found";
@@ -655,6 +660,17 @@ public class NodeDAOImpl implements NodeDAO, InitializingBean {
 		}
 	}
 	
+	@Override
+	public List<Node> getNodes(List<Long> nodeIds) {
+		ValidateArgument.required(nodeIds, "nodeIds");
+		if (nodeIds.isEmpty()) {
+			return Collections.emptyList();
+		}
+		Map<String, Object> parameters = new HashMap<String, Object>(1);
+		parameters.put(BIND_NODE_IDS, nodeIds);
+		return namedParameterJdbcTemplate.query(SQL_SELECT_CURRENT_NODES, parameters, NODE_MAPPER);
+	}
+	
 	@Override
 	public Node getNodeForVersion(String id, Long versionNumber){
 		if(id == null) throw new IllegalArgumentException("Id cannot be null");
@@ -1001,6 +1017,24 @@ public class NodeDAOImpl implements NodeDAO, InitializingBean {
 		}
 	}
 
+	@Override
+	public Map<Long, Annotations> getUserAnnotationsForCurrentVersions(List<Long> ids) {
+		ValidateArgument.required(ids, "ids");
+		Map<Long, Annotations> results = new HashMap<>(ids.size());
+		if (ids.isEmpty()) {
+			return results;
+		}
+		Map<String, Object> parameters = new HashMap<String, Object>(1);
+		parameters.put(BIND_NODE_IDS, ids);
+		namedParameterJdbcTemplate.query(SELECT_CURRENT_USER_ANNOTATIONS, parameters, (ResultSet rs) -> {
+			Annotations userAnnotations = ANNOTATIONS_V2_ROW_MAPPER.mapRow(rs, rs.getRow());
+			// Remove the eTags (See PLFM-1420)
+			userAnnotations.setEtag(NodeConstants.ZERO_E_TAG);
+			results.put(rs.getLong(COL_NODE_ID), userAnnotations);
+		});
+		return results;
+	}
+
 	@Override
 	public Annotations getUserAnnotationsForVersion(final String id, Long versionNumber){
 		ValidateArgument.requiredNotEmpty(id, "id");
@@ -1735,6 +1769,30 @@ public class NodeDAOImpl implements NodeDAO, InitializingBean {
 		}
 		return KeyFactory.keyToString(benefactorId);
 	}
+	
+	@Override
+	public Map<Long, Long> getBenefactors(List<Long> nodeIds) {
+		ValidateArgument.required(nodeIds, "nodeIds");
+		Map<Long, Long> results = new HashMap<>(nodeIds.size());
+		if (nodeIds.isEmpty()) {
+			return results;
+		}
+		Map<String, Object> parameters = new HashMap<String, Object>(1);
+		parameters.put(BIND_NODE_IDS, nodeIds);
+		namedParameterJdbcTemplate.query(SQL_SELECT_BENEFACTORS, parameters, (ResultSet rs) -> {
+			Long id = rs.getLong(COL_NODE_ID);
+			Long benefactorId = rs.getLong(BENEFACTOR_ALIAS);
+			if (rs.wasNull()) {
+				// Benefactor will be null if the node does not exist.
+				return;
+			}
+			if (benefactorId < 0) {
+				throw new IllegalStateException("Infinite loop detected for: " + id);
+			}
+			results.put(id, benefactorId);
+		});
+		return results;
+	}
 
 	@Override
 	public Set<Long> getFileHandleIdsAssociatedWithFileEntity(List<Long> fileHandleIds, long entityId) {
@@ -44,6 +44,7 @@ import org.sagebionetworks.repo.model.table.TableChangeType;
 import org.sagebionetworks.repo.model.table.TableRowChange;
 import org.sagebionetworks.repo.transactions.WriteTransaction;
 import org.sagebionetworks.repo.web.NotFoundException;
+import org.sagebionetworks.table.cluster.utils.SparseChangeSetBinaryUtils;
 import org.sagebionetworks.table.cluster.utils.TableModelUtils;
 import org.sagebionetworks.util.FileProvider;
 import org.sagebionetworks.util.ValidateArgument;
@@ -119,7 +120,18 @@ public class TableRowTruthDAOImpl implements TableRowTruthDAO {
 
 	private static final String SQL_DELETE_ROW_DATA_FOR_TABLE = "DELETE FROM " + TABLE_TABLE_ID_SEQUENCE + " WHERE "
 			+ COL_ID_SEQUENCE_TABLE_ID + " = ?";
-	private static final String KEY_TEMPLATE = "%1$s.csv.gz";
+	private static final String KEY_TEMPLATE = "%1$s%2$s";
+	/**
+	 * Row changes are written in the binary format of
+	 * {@link SparseChangeSetBinaryUtils}. Row changes written before that format
+	 * have keys ending with ".csv.gz" and contain GZIP compressed JSON, so the
+	 * format of a row change is read from its content rather than its key.
+	 */
+	static final String ROW_CHANGE_KEY_SUFFIX = ".bin";
+	/**
+	 * Schema changes are GZIP compressed JSON.
+	 */
+	static final String SCHEMA_CHANGE_KEY_SUFFIX = ".csv.gz";
 	private static final String SQL_TRUNCATE_SEQUENCE_TABLE = "DELETE FROM " + TABLE_TABLE_ID_SEQUENCE + " WHERE "
 			+ COL_ID_SEQUENCE_TABLE_ID + " > 0";
 	private static final String SQL_SELECT_SEQUENCE_FOR_UPDATE = "SELECT * FROM " + TABLE_TABLE_ID_SEQUENCE + " WHERE "
@@ -220,7 +232,7 @@ public class TableRowTruthDAOImpl implements TableRowTruthDAO {
 	public String appendRowSetToTable(String userId, String tableId, String etag, long versionNumber,
 			List<ColumnModel> columns, final SparseChangeSetDto delta, long transactionId, Boolean hasFileRefs) {
 		// Write the delta to S3
-		String key = saveToS3((OutputStream out) -> TableModelUtils.writeSparesChangeSetToGz(delta, out));
+		String key = saveToS3(ROW_CHANGE_KEY_SUFFIX, (OutputStream out) -> SparseChangeSetBinaryUtils.writeSparseChangeSet(delta, out));
 		// record the change
 		DBOTableRowChange changeDBO = new DBOTableRowChange();
 		changeDBO.setId(idGenerator.generateNewId(IdType.TABLE_CHANGE_ID));
@@ -247,7 +259,7 @@ public class TableRowTruthDAOImpl implements TableRowTruthDAO {
 		long coutToReserver = 1;
 		IdRange range = reserveIdsInRange(tableId, coutToReserver);
 		// We are ready to convert the file to a CSV and save it to S3.
-		String key = saveToS3((OutputStream out) -> ColumnModelUtils.writeSchemaChangeToGz(changes, out));
+		String key = saveToS3(SCHEMA_CHANGE_KEY_SUFFIX, (OutputStream out) -> ColumnModelUtils.writeSchemaChangeToGz(changes, out));
 		// record the change
 		DBOTableRowChange changeDBO = new DBOTableRowChange();
 		changeDBO.setId(idGenerator.generateNewId(IdType.TABLE_CHANGE_ID));
@@ -270,21 +282,22 @@ public class TableRowTruthDAOImpl implements TableRowTruthDAO {
 	/**
 	 * Write the data from the given callback to S3.
 	 * 
+	 * @param keySuffix The suffix of the key, which names the format of the data.
 	 * @param callback
 	 * @return
 	 * @throws IOException
 	 */
-	String saveToS3(WriterCallback callback) {
+	String saveToS3(String keySuffix, WriterCallback callback) {
 		// First write to a temp file.
 		try {
-			File temp = fileProvider.createTempFile("tempToS3", ".gz");
+			File temp = fileProvider.createTempFile("tempToS3", keySuffix);
 			try (OutputStream out = fileProvider.createFileOutputStream(temp);) {
 				// write to the temp file.
 				callback.write(out);
 				out.flush();
 				out.close();
 				// upload it to S3.
-				String key = String.format(KEY_TEMPLATE, UUID.randomUUID().toString());
+				String key = String.format(KEY_TEMPLATE, UUID.randomUUID().toString(), keySuffix);
 				s3Client.putObject(s3Bucket, key, temp);
 				return key;
 			} finally {
@@ -414,10 +427,10 @@ public class TableRowTruthDAOImpl implements TableRowTruthDAO {
 
 	@Override
 	public SparseChangeSetDto getRowSet(TableRowChange dto) throws IOException {
-		// Download the file from S3
+		// Download the file from S3. Both the binary and the older JSON row changes are read.
 		S3Object object = s3Client.getObject(dto.getBucket(), dto.getKeyNew());
 		try {
-			return TableModelUtils.readSparseChangeSetDtoFromGzStream(object.getObjectContent());
+			return TableModelUtils.readSparseChangeSetDto(object.getObjectContent());
 		} finally {
 			// Need to close the stream unconditionally.
 			object.getObjectContent().close();
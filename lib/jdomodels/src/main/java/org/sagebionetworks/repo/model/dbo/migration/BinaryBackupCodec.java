@@ -0,0 +1,466 @@
+package org.sagebionetworks.repo.model.dbo.migration;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.sql.rowset.serial.SerialBlob;
+import javax.sql.rowset.serial.SerialClob;
+
+import org.sagebionetworks.repo.model.dbo.AutoTableMapping;
+import org.sagebionetworks.repo.model.dbo.FieldColumn;
+import org.sagebionetworks.repo.model.dbo.TableMapping;
+import org.sagebionetworks.util.ValidateArgument;
+import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+/**
+ * Encodes a batch of database objects of a single type with a compact typed
+ * binary format generated from the {@link FieldColumn}s of the type's
+ * {@link TableMapping}.
+ * <p>
+ * The values written for each column are the values that would be bound to
+ * the column when the object is inserted, and the objects are read back with
+ * {@link TableMapping#mapRow(ResultSet, int)}, so encoding a batch and reading
+ * it back is the same as writing the rows to the database and selecting them.
+ * <p>
+ * The batch is written one column at a time:
+ *
+ * <pre>
+ * int version
+ * int columnCount, the name of each column
+ * int rowCount
+ * for each column: for each row: byte typeTag, value
+ * </pre>
+ *
+ * The columns are matched by name when reading, so a batch written by a stack
+ * with more or fewer columns can still be read.
+ */
+public class BinaryBackupCodec {
+
+	public static final int FORMAT_VERSION = 1;
+
+	static final byte TYPE_NULL = 0;
+	static final byte TYPE_LONG = 1;
+	static final byte TYPE_INTEGER = 2;
+	static final byte TYPE_DOUBLE = 3;
+	static final byte TYPE_BOOLEAN = 4;
+	static final byte TYPE_STRING = 5;
+	static final byte TYPE_BYTES = 6;
+	static final byte TYPE_TIMESTAMP = 7;
+
+	/**
+	 * Write the given batch of objects to the given output.
+	 *
+	 * @param out
+	 * @param mapping The mapping of the type of all of the objects in the batch.
+	 * @param batch
+	 * @throws IOException
+	 */
+	public static void writeBatch(DataOutput out, TableMapping<?> mapping, List<?> batch) throws IOException {
+		ValidateArgument.required(out, "out");
+		ValidateArgument.required(mapping, "mapping");
+		ValidateArgument.required(batch, "batch");
+		FieldColumn[] fields = mapping.getFieldColumns();
+		List<SqlParameterSource> rows = new ArrayList<>(batch.size());
+		for (Object databaseObject : batch) {
+			rows.add(getSqlParameterSource(databaseObject, mapping));
+		}
+		out.writeInt(FORMAT_VERSION);
+		out.writeInt(fields.length);
+		for (FieldColumn field : fields) {
+			writeString(out, field.getColumnName());
+		}
+		out.writeInt(rows.size());
+		for (FieldColumn field : fields) {
+			for (SqlParameterSource row : rows) {
+				writeValue(out, row.getValue(field.getFieldName()));
+			}
+		}
+	}
+
+	/**
+	 * Read a batch of objects written with
+	 * {@link #writeBatch(DataOutput, TableMapping, List)}.
+	 *
+	 * @param in
+	 * @param mapping The mapping used to create each object.
+	 * @return
+	 * @throws IOException
+	 */
+	public static <T> List<T> readBatch(DataInput in, TableMapping<T> mapping) throws IOException {
+		ValidateArgument.required(in, "in");
+		ValidateArgument.required(mapping, "mapping");
+		int version = in.readInt();
+		if (version != FORMAT_VERSION) {
+			throw new IllegalArgumentException("Unsupported binary backup version: " + version);
+		}
+		int columnCount = in.readInt();
+		String[] columnNames = new String[columnCount];
+		for (int i = 0; i < columnCount; i++) {
+			columnNames[i] = readString(in);
+		}
+		int rowCount = in.readInt();
+		Object[][] columns = new Object[columnCount][rowCount];
+		for (int column = 0; column < columnCount; column++) {
+			for (int row = 0; row < rowCount; row++) {
+				columns[column][row] = readValue(in);
+			}
+		}
+		RowResultSet handler = new RowResultSet(columnNames, columns);
+		ResultSet resultSet = (ResultSet) Proxy.newProxyInstance(BinaryBackupCodec.class.getClassLoader(),
+				new Class[] { ResultSet.class }, handler);
+		List<T> results = new ArrayList<>(rowCount);
+		try {
+			for (int row = 0; row < rowCount; row++) {
+				handler.row = row;
+				results.add(mapping.mapRow(resultSet, row));
+			}
+		} catch (SQLException e) {
+			throw new IOException(e);
+		}
+		return results;
+	}
+
+	static void writeValue(DataOutput out, Object value) throws IOException {
+		if (value == null) {
+			out.writeByte(TYPE_NULL);
+		} else if (value instanceof Long) {
+			out.writeByte(TYPE_LONG);
+			out.writeLong((Long) value);
+		} else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+			out.writeByte(TYPE_INTEGER);
+			out.writeInt(((Number) value).intValue());
+		} else if (value instanceof Double || value instanceof Float) {
+			out.writeByte(TYPE_DOUBLE);
+			out.writeDouble(((Number) value).doubleValue());
+		} else if (value instanceof Boolean) {
+			out.writeByte(TYPE_BOOLEAN);
+			out.writeBoolean((Boolean) value);
+		} else if (value instanceof String) {
+			out.writeByte(TYPE_STRING);
+			writeString(out, (String) value);
+		} else if (value instanceof BigDecimal || value instanceof BigInteger) {
+			// Written as text so no precision is lost.
+			out.writeByte(TYPE_STRING);
+			writeString(out, value.toString());
+		} else if (value instanceof Enum) {
+			// Enums are bound to the database by name.
+			out.writeByte(TYPE_STRING);
+			writeString(out, ((Enum<?>) value).name());
+		} else if (value instanceof byte[]) {
+			out.writeByte(TYPE_BYTES);
+			writeBytes(out, (byte[]) value);
+		} else if (value instanceof Date) {
+			out.writeByte(TYPE_TIMESTAMP);
+			out.writeLong(((Date) value).getTime());
+			out.writeInt(value instanceof Timestamp ? ((Timestamp) value).getNanos() : 0);
+		} else {
+			throw new IllegalArgumentException("Unsupported binary backup value type: " + value.getClass().getName());
+		}
+	}
+
+	static Object readValue(DataInput in) throws IOException {
+		byte type = in.readByte();
+		switch (type) {
+		case TYPE_NULL:
+			return null;
+		case TYPE_LONG:
+			return in.readLong();
+		case TYPE_INTEGER:
+			return in.readInt();
+		case TYPE_DOUBLE:
+			return in.readDouble();
+		case TYPE_BOOLEAN:
+			return in.readBoolean();
+		case TYPE_STRING:
+			return readString(in);
+		case TYPE_BYTES:
+			return readBytes(in);
+		case TYPE_TIMESTAMP:
+			Timestamp timestamp = new Timestamp(in.readLong());
+			int nanos = in.readInt();
+			if (nanos != 0) {
+				timestamp.setNanos(nanos);
+			}
+			return timestamp;
+		default:
+			throw new IllegalArgumentException("Unknown binary backup value type: " + type);
+		}
+	}
+
+	static void writeString(DataOutput out, String value) throws IOException {
+		// DataOutput.writeUTF() is limited to 64K
+		writeBytes(out, value.getBytes(StandardCharsets.UTF_8));
+	}
+
+	static String readString(DataInput in) throws IOException {
+		return new String(readBytes(in), StandardCharsets.UTF_8);
+	}
+
+	static void writeBytes(DataOutput out, byte[] value) throws IOException {
+		out.writeInt(value.length);
+		out.write(value);
+	}
+
+	static byte[] readBytes(DataInput in) throws IOException {
+		byte[] value = new byte[in.readInt()];
+		in.readFully(value);
+		return value;
+	}
+
+	static SqlParameterSource getSqlParameterSource(Object databaseObject, TableMapping<?> mapping) {
+		if (mapping instanceof AutoTableMapping) {
+			return ((AutoTableMapping<?>) mapping).getSqlParameterSource(databaseObject);
+		}
+		return new BeanPropertySqlParameterSource(databaseObject);
+	}
+
+	/**
+	 * A read only ResultSet over the decoded columns, positioned on a single row.
+	 * All of the typed getters are supported by column index and by column label,
+	 * converting the decoded value like the MySQL driver would. A column that is
+	 * not in the batch is read as null.
+	 */
+	static class RowResultSet implements InvocationHandler {
+
+		Map<String, Integer> columnIndex;
+		Object[][] columns;
+		int row;
+		boolean wasNull;
+
+		RowResultSet(String[] columnNames, Object[][] columns) {
+			// Like MySQL, column names are not case sensitive.
+			this.columnIndex = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+			for (int i = 0; i < columnNames.length; i++) {
+				columnIndex.put(columnNames[i], i);
+			}
+			this.columns = columns;
+			this.row = 0;
+			this.wasNull = false;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+			case "wasNull":
+				return wasNull;
+			case "getRow":
+				return row + 1;
+			case "findColumn":
+				Integer index = columnIndex.get(args[0]);
+				if (index == null) {
+					throw new SQLException("Unknown column: " + args[0]);
+				}
+				return index + 1;
+			case "getObject":
+				if (args.length == 2 && args[1] instanceof Class) {
+					return convert(getValue(args[0]), (Class<?>) args[1]);
+				}
+				return getValue(args[0]);
+			case "getLong":
+				return convert(getValue(args[0]), long.class);
+			case "getInt":
+				return convert(getValue(args[0]), int.class);
+			case "getShort":
+				return convert(getValue(args[0]), short.class);
+			case "getByte":
+				return convert(getValue(args[0]), byte.class);
+			case "getDouble":
+				return convert(getValue(args[0]), double.class);
+			case "getFloat":
+				return convert(getValue(args[0]), float.class);
+			case "getBigDecimal":
+				BigDecimal bigDecimal = (BigDecimal) convert(getValue(args[0]), BigDecimal.class);
+				if (bigDecimal != null && args.length == 2 && args[1] instanceof Integer) {
+					// The deprecated getter with a scale
+					return bigDecimal.setScale((Integer) args[1], RoundingMode.HALF_UP);
+				}
+				return bigDecimal;
+			case "getBoolean":
+				return convert(getValue(args[0]), boolean.class);
+			case "getString":
+			case "getNString":
+				return convert(getValue(args[0]), String.class);
+			case "getBytes":
+				return convert(getValue(args[0]), byte[].class);
+			case "getBlob":
+				return convert(getValue(args[0]), Blob.class);
+			case "getClob":
+				return convert(getValue(args[0]), Clob.class);
+			case "getBinaryStream":
+				byte[] streamValue = (byte[]) convert(getValue(args[0]), byte[].class);
+				return streamValue == null ? null : new ByteArrayInputStream(streamValue);
+			case "getCharacterStream":
+			case "getNCharacterStream":
+				String readerValue = (String) convert(getValue(args[0]), String.class);
+				return readerValue == null ? null : new StringReader(readerValue);
+			case "getTimestamp":
+				return convert(getValue(args[0]), Timestamp.class);
+			case "getDate":
+				return convert(getValue(args[0]), java.sql.Date.class);
+			case "getTime":
+				return convert(getValue(args[0]), Time.class);
+			default:
+				throw new UnsupportedOperationException("Unsupported ResultSet method: " + method.getName());
+			}
+		}
+
+		Object getValue(Object column) {
+			Integer index;
+			if (column instanceof Integer) {
+				// JDBC column indices start at one
+				index = ((Integer) column) - 1;
+			} else {
+				index = columnIndex.get(column);
+			}
+			Object value = index == null ? null : columns[index][row];
+			wasNull = value == null;
+			return value;
+		}
+
+		/**
+		 * Convert a decoded value to the given type. For a primitive type a null
+		 * value is converted to zero or false.
+		 * 
+		 * @param value
+		 * @param type
+		 * @return
+		 * @throws SQLException
+		 */
+		static Object convert(Object value, Class<?> type) throws SQLException {
+			if (value == null) {
+				if (type == boolean.class) {
+					return false;
+				}
+				if (type.isPrimitive()) {
+					return convert(0L, type);
+				}
+				return null;
+			}
+			if (type == long.class || type == Long.class) {
+				return toNumber(value).longValue();
+			}
+			if (type == int.class || type == Integer.class) {
+				return toNumber(value).intValue();
+			}
+			if (type == short.class || type == Short.class) {
+				return toNumber(value).shortValue();
+			}
+			if (type == byte.class || type == Byte.class) {
+				return toNumber(value).byteValue();
+			}
+			if (type == double.class || type == Double.class) {
+				return toNumber(value).doubleValue();
+			}
+			if (type == float.class || type == Float.class) {
+				return toNumber(value).floatValue();
+			}
+			if (type == BigDecimal.class) {
+				if (value instanceof String) {
+					return new BigDecimal((String) value);
+				}
+				Number number = toNumber(value);
+				if (number instanceof Double) {
+					return BigDecimal.valueOf(number.doubleValue());
+				}
+				return new BigDecimal(number.toString());
+			}
+			if (type == boolean.class || type == Boolean.class) {
+				if (value instanceof Boolean) {
+					return value;
+				}
+				if (value instanceof String) {
+					return "1".equals(value) || Boolean.parseBoolean((String) value);
+				}
+				return toNumber(value).doubleValue() != 0;
+			}
+			if (type == String.class) {
+				if (value instanceof byte[]) {
+					return new String((byte[]) value, StandardCharsets.UTF_8);
+				}
+				return value.toString();
+			}
+			if (type == byte[].class) {
+				return toBytes(value);
+			}
+			if (type == Blob.class) {
+				return new SerialBlob(toBytes(value));
+			}
+			if (type == Clob.class) {
+				return new SerialClob(((String) convert(value, String.class)).toCharArray());
+			}
+			if (type == Timestamp.class) {
+				if (value instanceof Timestamp) {
+					return value;
+				}
+				return new Timestamp(toMillis(value));
+			}
+			if (type == java.sql.Date.class) {
+				return new java.sql.Date(toMillis(value));
+			}
+			if (type == Time.class) {
+				return new Time(toMillis(value));
+			}
+			if (type.isInstance(value)) {
+				return value;
+			}
+			throw new SQLException("Cannot convert " + value.getClass().getName() + " to " + type.getName());
+		}
+
+		static Number toNumber(Object value) {
+			if (value instanceof Number) {
+				return (Number) value;
+			}
+			if (value instanceof Boolean) {
+				return ((Boolean) value) ? 1 : 0;
+			}
+			if (value instanceof Date) {
+				return ((Date) value).getTime();
+			}
+			if (value instanceof String) {
+				try {
+					return Long.valueOf((String) value);
+				} catch (NumberFormatException e) {
+					return Double.valueOf((String) value);
+				}
+			}
+			throw new IllegalArgumentException("Cannot convert " + value.getClass().getName() + " to a number");
+		}
+
+		static long toMillis(Object value) {
+			if (value instanceof Date) {
+				return ((Date) value).getTime();
+			}
+			return toNumber(value).longValue();
+		}
+
+		static byte[] toBytes(Object value) {
+			if (value == null || value instanceof byte[]) {
+				return (byte[]) value;
+			}
+			return value.toString().getBytes(StandardCharsets.UTF_8);
+		}
+	}
+
+}
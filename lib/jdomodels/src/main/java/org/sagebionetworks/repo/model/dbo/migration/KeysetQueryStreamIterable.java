@@ -0,0 +1,294 @@
+package org.sagebionetworks.repo.model.dbo.migration;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.sagebionetworks.util.ValidateArgument;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+/**
+ * Provides generic support for iterating over query results one page at a time
+ * using keyset (seek) pagination. Rather than skipping the rows of the previous
+ * pages with an OFFSET, each page starts right after the key of the last row of
+ * the previous page:
+ * <p>
+ * <code>... AND `ID` > :KEY_LAST_0 ORDER BY `ID` LIMIT :KEY_LIMIT</code>
+ * <p>
+ * so the database never reads the rows of the previous pages again and the cost
+ * of each page does not depend on how far into the results it is.
+ * <p>
+ * Optionally the next page can be read ahead on another thread while the rows
+ * of the current page are consumed. A page read ahead runs outside of any
+ * transaction of the caller: it does not see the uncommitted changes of the
+ * caller's transaction and each page is read with its own snapshot. Only read
+ * ahead when the stream is not consumed within a transaction, and
+ * {@link #close()} a stream that is not consumed to the end so the page read
+ * ahead is cancelled.
+ *
+ * @param <T>
+ */
+public class KeysetQueryStreamIterable<T> implements Iterable<T>, Iterator<T>, AutoCloseable {
+
+	public static final String KEY_LIMIT = "KEY_LIMIT";
+	public static final String KEY_LAST_PREFIX = "KEY_LAST_";
+
+	NamedParameterJdbcTemplate namedTemplate;
+	RowMapper<T> rowMapper;
+	String firstPageSql;
+	String nextPageSql;
+	Map<String, Object> parameters;
+	List<String> keyColumns;
+	long limit;
+	ExecutorService readAheadExecutor;
+
+	Iterator<T> currentPage;
+	// The key of the last row read, null before the first page
+	Object[] lastKey;
+	// The page read ahead, if any
+	Future<Page<T>> nextPage;
+	boolean lastPageRead;
+
+	/**
+	 *
+	 * @param namedTemplate
+	 * @param rowMapper
+	 * @param sql
+	 *            The query must end with a WHERE clause and select all of the
+	 *            key columns. The ORDER BY and LIMIT are added to the query.
+	 * @param parameters
+	 * @param keyColumns
+	 *            The columns of a unique key of the results, usually the
+	 *            primary key. The rows are ordered by these columns.
+	 * @param limit
+	 *            The limit sets the page size. This stream will never keep more
+	 *            than one page of data in memory at a time (two when reading
+	 *            ahead).
+	 * @param readAheadExecutor
+	 *            Optional, when provided the next page is read on this executor
+	 *            while the current page is consumed. The pages read on this
+	 *            executor are not part of the caller's transaction.
+	 */
+	public KeysetQueryStreamIterable(NamedParameterJdbcTemplate namedTemplate, RowMapper<T> rowMapper, String sql,
+			Map<String, Object> parameters, List<String> keyColumns, long limit, ExecutorService readAheadExecutor) {
+		ValidateArgument.required(namedTemplate, "namedTemplate");
+		ValidateArgument.required(rowMapper, "rowMapper");
+		ValidateArgument.required(sql, "sql");
+		ValidateArgument.required(parameters, "parameters");
+		ValidateArgument.requiredNotEmpty(keyColumns, "keyColumns");
+		ValidateArgument.requirement(limit > 0, "The limit must be greater than zero.");
+		this.namedTemplate = namedTemplate;
+		this.rowMapper = rowMapper;
+		this.keyColumns = new ArrayList<>(keyColumns);
+		String orderByAndLimit = createOrderByAndLimit(keyColumns);
+		this.firstPageSql = sql + orderByAndLimit;
+		this.nextPageSql = sql + " AND " + createSeekCondition(keyColumns) + orderByAndLimit;
+		this.parameters = new HashMap<>(parameters);
+		this.parameters.put(KEY_LIMIT, limit);
+		this.limit = limit;
+		this.readAheadExecutor = readAheadExecutor;
+		this.currentPage = null;
+		this.lastKey = null;
+		this.nextPage = null;
+		this.lastPageRead = false;
+	}
+
+	@Override
+	public Iterator<T> iterator() {
+		return this;
+	}
+
+	@Override
+	public boolean hasNext() {
+		while (currentPage == null || !currentPage.hasNext()) {
+			if (lastPageRead) {
+				return false;
+			}
+			Page<T> page = takeNextPage();
+			currentPage = page.getRows().iterator();
+			// A page that is not full is the last one
+			if (page.getRows().size() < limit) {
+				lastPageRead = true;
+			} else {
+				lastKey = page.getLastKey();
+				if (readAheadExecutor != null) {
+					final Object[] afterKey = lastKey;
+					nextPage = readAheadExecutor.submit(() -> readPage(afterKey));
+				}
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public T next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		return currentPage.next();
+	}
+
+	/**
+	 * Stop the stream, cancelling the page read ahead if any. Once closed the
+	 * stream has no more rows.
+	 */
+	@Override
+	public void close() {
+		if (nextPage != null) {
+			nextPage.cancel(true);
+			nextPage = null;
+		}
+		currentPage = null;
+		lastPageRead = true;
+	}
+
+	/**
+	 * Get the page read ahead or read the next page on this thread.
+	 *
+	 * @return
+	 */
+	Page<T> takeNextPage() {
+		if (nextPage == null) {
+			return readPage(lastKey);
+		}
+		Future<Page<T>> future = nextPage;
+		nextPage = null;
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new RuntimeException(e.getCause());
+		}
+	}
+
+	/**
+	 * Read the page of rows that follows the given key.
+	 *
+	 * @param afterKey The key of the last row of the previous page or null for
+	 *                 the first page.
+	 * @return
+	 */
+	Page<T> readPage(Object[] afterKey) {
+		Map<String, Object> pageParameters = new HashMap<>(parameters);
+		String sql = firstPageSql;
+		if (afterKey != null) {
+			sql = nextPageSql;
+			for (int i = 0; i < afterKey.length; i++) {
+				pageParameters.put(KEY_LAST_PREFIX + i, afterKey[i]);
+			}
+		}
+		// The key of each row is captured as it is mapped.
+		Object[] pageLastKey = new Object[keyColumns.size()];
+		List<T> rows = namedTemplate.query(sql, pageParameters, (rs, rowNum) -> {
+			for (int i = 0; i < pageLastKey.length; i++) {
+				pageLastKey[i] = rs.getObject(keyColumns.get(i));
+			}
+			return rowMapper.mapRow(rs, rowNum);
+		});
+		return new Page<T>(rows, pageLastKey);
+	}
+
+	/**
+	 * <code> ORDER BY `A`, `B` LIMIT :KEY_LIMIT</code>
+	 *
+	 * @param keyColumns
+	 * @return
+	 */
+	static String createOrderByAndLimit(List<String> keyColumns) {
+		StringBuilder builder = new StringBuilder(" ORDER BY ");
+		for (int i = 0; i < keyColumns.size(); i++) {
+			if (i > 0) {
+				builder.append(", ");
+			}
+			appendColumn(builder, keyColumns.get(i));
+		}
+		builder.append(" LIMIT :");
+		builder.append(KEY_LIMIT);
+		return builder.toString();
+	}
+
+	/**
+	 * The condition for the rows that come after the last key in the order of
+	 * the key columns. For a single column: <code>`A` > :KEY_LAST_0</code>, for
+	 * more columns the tuple comparison is expanded so MySQL can use a range on
+	 * the first column of the key:
+	 * <p>
+	 * <code>`A` >= :KEY_LAST_0 AND (`A` > :KEY_LAST_0 OR (`A` = :KEY_LAST_0 AND `B` > :KEY_LAST_1))</code>
+	 *
+	 * @param keyColumns
+	 * @return
+	 */
+	static String createSeekCondition(List<String> keyColumns) {
+		StringBuilder builder = new StringBuilder();
+		if (keyColumns.size() == 1) {
+			appendComparison(builder, keyColumns, 0, " > :");
+			return builder.toString();
+		}
+		appendComparison(builder, keyColumns, 0, " >= :");
+		builder.append(" AND (");
+		for (int i = 0; i < keyColumns.size(); i++) {
+			if (i > 0) {
+				builder.append(" OR (");
+			}
+			for (int j = 0; j < i; j++) {
+				appendComparison(builder, keyColumns, j, " = :");
+				builder.append(" AND ");
+			}
+			appendComparison(builder, keyColumns, i, " > :");
+			if (i > 0) {
+				builder.append(")");
+			}
+		}
+		builder.append(")");
+		return builder.toString();
+	}
+
+	private static void appendComparison(StringBuilder builder, List<String> keyColumns, int index, String operator) {
+		appendColumn(builder, keyColumns.get(index));
+		builder.append(operator);
+		builder.append(KEY_LAST_PREFIX);
+		builder.append(index);
+	}
+
+	private static void appendColumn(StringBuilder builder, String column) {
+		builder.append("`");
+		builder.append(column);
+		builder.append("`");
+	}
+
+	/**
+	 * A page of rows with the key of its last row.
+	 *
+	 * @param <T>
+	 */
+	static class Page<T> {
+
+		private final List<T> rows;
+		private final Object[] lastKey;
+
+		Page(List<T> rows, Object[] lastKey) {
+			this.rows = rows;
+			this.lastKey = lastKey;
+		}
+
+		List<T> getRows() {
+			return rows;
+		}
+
+		Object[] getLastKey() {
+			return lastKey;
+		}
+	}
+}
@@ -57,6 +57,8 @@ public interface MigratableTableDAO extends MigrationTypeProvider {
 		
 	/**
 	 * Stream over all of the database object for the given within the provided ID range.
+	 * The next batch may be read ahead outside of the caller's transaction, a stream that
+	 * is not read to the end should be closed with {@link KeysetQueryStreamIterable#close()}.
 	 * 
 	 * @param migrationType
 	 * @param minimumId Smallest ID in the range (inclusive).
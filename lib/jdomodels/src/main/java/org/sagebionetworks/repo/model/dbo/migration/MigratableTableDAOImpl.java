@@ -11,6 +11,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Function;
 
 import org.apache.logging.log4j.LogManager;
@@ -112,6 +113,18 @@ public class MigratableTableDAOImpl implements MigratableTableDAO {
 		this.userGroupIdsExemptFromDeletion = userGroupIdsExemptFromDeletion;
 	}
 
+	/**
+	 * Optional, reads the next page of a backup stream while the current page is written.
+	 */
+	private ExecutorService readAheadExecutorService;
+
+	/**
+	 * Injected via Spring
+	 */
+	public void setReadAheadExecutorService(ExecutorService readAheadExecutorService) {
+		this.readAheadExecutorService = readAheadExecutorService;
+	}
+
 	// SQL
 	private Map<MigrationType, String> deleteByRangeMap = new HashMap<MigrationType, String>();
 	private Map<MigrationType, String> countSqlMap = new HashMap<MigrationType, String>();
@@ -567,7 +580,10 @@ public class MigratableTableDAOImpl implements MigratableTableDAO {
 		Map<String, Object> parameters = new HashMap<>(4);
 		parameters.put(DMLUtils.BIND_MIN_ID, minimumId);
 		parameters.put(DMLUtils.BIND_MAX_ID, maximumId);
-		return new QueryStreamIterable<MigratableDatabaseObject<?, ?>>(namedTemplate, object.getTableMapping(), sql, parameters, batchSize);
+		// Seek on the primary key so each batch does not re-read the previous batches.
+		List<String> keyColumns = DMLUtils.getPrimaryKeyColumnNames(object.getTableMapping());
+		return new KeysetQueryStreamIterable<MigratableDatabaseObject<?, ?>>(namedTemplate, object.getTableMapping(), sql, parameters,
+				keyColumns, batchSize, readAheadExecutorService);
 	}
 
 	@WriteTransaction
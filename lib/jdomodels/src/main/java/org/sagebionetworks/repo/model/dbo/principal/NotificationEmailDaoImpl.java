@@ -8,6 +8,10 @@ import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_PRINCIPA
 import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.TABLE_NOTIFICATION_EMAIL;
 import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.TABLE_PRINCIPAL_ALIAS;
 
+import java.sql.ResultSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.UUID;
 
 import org.sagebionetworks.ids.IdGenerator;
@@ -18,9 +22,13 @@ import org.sagebionetworks.repo.model.principal.AliasType;
 import org.sagebionetworks.repo.model.principal.PrincipalAlias;
 import org.sagebionetworks.repo.transactions.WriteTransaction;
 import org.sagebionetworks.repo.web.NotFoundException;
+import org.sagebionetworks.util.ValidateArgument;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 
 public class NotificationEmailDaoImpl implements NotificationEmailDAO {
 	private static final String UPDATE_FOR_PRINCIPAL = "UPDATE "+TABLE_NOTIFICATION_EMAIL+
@@ -32,6 +40,13 @@ public class NotificationEmailDaoImpl implements NotificationEmailDAO {
 			" a WHERE n."+COL_NOTIFICATION_EMAIL_ALIAS_ID+"=a."+COL_PRINCIPAL_ALIAS_ID+
 			" AND n."+COL_NOTIFICATION_EMAIL_PRINCIPAL_ID+" = ?";
 	
+	private static final String PRINCIPAL_IDS_PARAM_NAME = "principalIds";
+	
+	private static final String SELECT_NOTIFICATION_EMAILS_FOR_PRINCIPALS = 
+			"SELECT n."+COL_NOTIFICATION_EMAIL_PRINCIPAL_ID+", a."+ COL_PRINCIPAL_ALIAS_DISPLAY +" FROM "+TABLE_NOTIFICATION_EMAIL+" n, "+TABLE_PRINCIPAL_ALIAS+
+			" a WHERE n."+COL_NOTIFICATION_EMAIL_ALIAS_ID+"=a."+COL_PRINCIPAL_ALIAS_ID+
+			" AND n."+COL_NOTIFICATION_EMAIL_PRINCIPAL_ID+" IN (:"+PRINCIPAL_IDS_PARAM_NAME+")";
+	
 	@Autowired
 	private IdGenerator idGenerator;
 	
@@ -84,4 +99,19 @@ public class NotificationEmailDaoImpl implements NotificationEmailDAO {
 		}
 	}
 
+	@Override
+	public Map<Long, String> getNotificationEmailsForPrincipals(Collection<Long> principalIds) {
+		ValidateArgument.required(principalIds, "principalIds");
+		Map<Long, String> emails = new HashMap<Long, String>(principalIds.size());
+		if (principalIds.isEmpty()) {
+			return emails;
+		}
+		NamedParameterJdbcTemplate namedTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+		MapSqlParameterSource params = new MapSqlParameterSource(PRINCIPAL_IDS_PARAM_NAME, principalIds);
+		namedTemplate.query(SELECT_NOTIFICATION_EMAILS_FOR_PRINCIPALS, params, (RowCallbackHandler) (ResultSet rs) -> {
+			emails.put(rs.getLong(COL_NOTIFICATION_EMAIL_PRINCIPAL_ID), rs.getString(COL_PRINCIPAL_ALIAS_DISPLAY));
+		});
+		return emails;
+	}
+
 }
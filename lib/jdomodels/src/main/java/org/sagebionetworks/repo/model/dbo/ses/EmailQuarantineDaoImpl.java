@@ -16,7 +16,11 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.Instant;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.sagebionetworks.ids.IdGenerator;
 import org.sagebionetworks.ids.IdType;
@@ -30,6 +34,8 @@ import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.ResultSetExtractor;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Repository;
 
 @Repository
@@ -176,6 +182,40 @@ public class EmailQuarantineDaoImpl implements EmailQuarantineDao {
 		return jdbcTemplate.queryForObject(sql, Long.class, email, Timestamp.from(Instant.now())) > 0;
 	}
 
+	@Override
+	public Set<String> getQuarantinedEmails(Collection<String> emails) {
+		ValidateArgument.required(emails, "The emails");
+		emails.forEach(this::validateInputEmail);
+
+		Set<String> quarantined = new HashSet<>();
+
+		if (emails.isEmpty()) {
+			return quarantined;
+		}
+
+		String sql = "SELECT " + COL_QUARANTINED_EMAILS_EMAIL + " FROM " + TABLE_QUARANTINED_EMAILS + " WHERE " + COL_QUARANTINED_EMAILS_EMAIL
+				+ " IN (:emails) AND (" + COL_QUARANTINED_EMAILS_EXPIRES_ON + " IS NULL OR " + COL_QUARANTINED_EMAILS_EXPIRES_ON + " > :now)";
+
+		MapSqlParameterSource params = new MapSqlParameterSource();
+		params.addValue("emails", emails);
+		params.addValue("now", Timestamp.from(Instant.now()));
+
+		NamedParameterJdbcTemplate namedTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+
+		// The emails are stored trimmed and in lower case
+		Set<String> stored = namedTemplate.queryForList(sql, params, String.class).stream()
+				.map(email -> email.toLowerCase())
+				.collect(Collectors.toSet());
+
+		for (String email : emails) {
+			if (stored.contains(email.trim().toLowerCase())) {
+				quarantined.add(email);
+			}
+		}
+
+		return quarantined;
+	}
+
 	@Override
 	public void clearAll() {
 		String sql = "DELETE FROM " + TABLE_QUARANTINED_EMAILS;
@@ -325,6 +325,12 @@ public class DMLUtilsTest {
 		String sql = DMLUtils.getBackupRangeBatch(mapping);
 		assertEquals(expectedSql, sql);
 	}
+
+	@Test
+	public void testGetPrimaryKeyColumnNames() {
+		assertEquals(Lists.newArrayList("ID"), DMLUtils.getPrimaryKeyColumnNames(mapping));
+		assertEquals(Lists.newArrayList("OWNER_ID", "REV_NUMBER"), DMLUtils.getPrimaryKeyColumnNames(mappingTwoKeys));
+	}
 	
 	
 	@Test
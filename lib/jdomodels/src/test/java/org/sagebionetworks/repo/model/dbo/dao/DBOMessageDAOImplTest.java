@@ -8,8 +8,10 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.lang3.RandomStringUtils;
@@ -411,6 +413,46 @@ public class DBOMessageDAOImplTest {
 		assertEquals(MessageStatusType.UNREAD, messages.get(1).getStatus().getStatus());
 	}
 	
+	@SuppressWarnings("serial")
+	@Test
+	public void testCreateAndUpdateMessageStatusBatch() throws Exception {
+		MessageToUser userToBoth = createMessage(maliciousUser.getId(), "userToBoth",
+				new HashSet<String>() {{add(maliciousUser.getId()); add(maliciousGroup.getId());}}, null);
+		List<String> recipients = Arrays.asList(maliciousUser.getId(), maliciousGroup.getId());
+		
+		// Call under test
+		Map<String, String> failures = messageDAO.createMessageStatus(userToBoth.getId(), recipients, null);
+		
+		assertTrue(failures.isEmpty());
+		
+		assertEquals(4L, messageDAO.getNumReceivedMessages(maliciousUser.getId(), unreadMessageInboxFilter));
+		assertEquals(4L, messageDAO.getNumReceivedMessages(maliciousGroup.getId(), unreadMessageInboxFilter));
+		
+		// Call under test
+		messageDAO.updateMessageStatus(userToBoth.getId(), recipients, MessageStatusType.READ);
+		
+		assertEquals(3L, messageDAO.getNumReceivedMessages(maliciousUser.getId(), unreadMessageInboxFilter));
+		assertEquals(3L, messageDAO.getNumReceivedMessages(maliciousGroup.getId(), unreadMessageInboxFilter));
+	}
+	
+	@SuppressWarnings("serial")
+	@Test
+	public void testCreateMessageStatusBatchWithExistingStatus() throws Exception {
+		MessageToUser userToBoth = createMessage(maliciousUser.getId(), "userToBoth",
+				new HashSet<String>() {{add(maliciousUser.getId()); add(maliciousGroup.getId());}}, null);
+		// The status of the user already exists, as after an earlier attempt
+		messageDAO.createMessageStatus(userToBoth.getId(), maliciousUser.getId(), null);
+		
+		// Call under test
+		Map<String, String> failures = messageDAO.createMessageStatus(userToBoth.getId(),
+				Arrays.asList(maliciousUser.getId(), maliciousGroup.getId()), null);
+		
+		// Only the user is skipped, the status of the group is created by the single inserts
+		assertEquals(Collections.singleton(maliciousUser.getId()), failures.keySet());
+		assertEquals(4L, messageDAO.getNumReceivedMessages(maliciousUser.getId(), unreadMessageInboxFilter));
+		assertEquals(4L, messageDAO.getNumReceivedMessages(maliciousGroup.getId(), unreadMessageInboxFilter));
+	}
+	
 	@Test
 	public void testHasMessageBeenSent() throws Exception {
 		assertTrue(messageDAO.getMessageSent(userToUser.getId()));
@@ -8,10 +8,12 @@ import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.junit.After;
@@ -296,6 +298,9 @@ public class DBOUserProfileDAOImplTest {
 		} catch (NotFoundException e) {
 			//as expected
 		}
+		// Missing profiles are skipped
+		Map<String, UserProfile> byOwnerId = userProfileDAO.getUserProfilesByOwnerId(Arrays.asList(new Long[]{idLong1, 87765443L+idLong0}));
+		assertEquals(Collections.singletonMap(userProfiles.get(1).getOwnerId(), userProfiles.get(1)), byOwnerId);
 
 		// Update it
 		UserProfile updatedProfile = userProfileDAO.update(clone);
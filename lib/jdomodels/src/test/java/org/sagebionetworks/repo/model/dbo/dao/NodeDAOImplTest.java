@@ -4049,6 +4049,112 @@ public class NodeDAOImplTest {
 		assertFalse(availableIds.contains(doesNotExist));
 	}
 	
+	@Test
+	public void testGetNodesEmpty(){
+		// call under test
+		List<Node> results = nodeDao.getNodes(Collections.emptyList());
+		assertNotNull(results);
+		assertTrue(results.isEmpty());
+	}
+	
+	@Test
+	public void testGetNodes(){
+		Node one = nodeDao.createNewNode(NodeTestUtils.createNew("one", creatorUserGroupId));
+		toDelete.add(one.getId());
+		Node two = nodeDao.createNewNode(NodeTestUtils.createNew("two", creatorUserGroupId));
+		toDelete.add(two.getId());
+		// two has a second version
+		two.setVersionComment("v2");
+		two.setVersionLabel("2");
+		nodeDao.createNewVersion(two);
+		
+		Long doesNotExist = -1L;
+		List<Long> ids = Lists.newArrayList(KeyFactory.stringToKey(one.getId()), KeyFactory.stringToKey(two.getId()), doesNotExist);
+		// call under test
+		List<Node> results = nodeDao.getNodes(ids);
+		assertEquals(2, results.size());
+		Map<String, Node> byId = results.stream().collect(Collectors.toMap(Node::getId, n -> n));
+		// each node should match the current version of the node.
+		assertEquals(nodeDao.getNode(one.getId()), byId.get(one.getId()));
+		assertEquals(nodeDao.getNode(two.getId()), byId.get(two.getId()));
+		assertEquals(Long.valueOf(2), byId.get(two.getId()).getVersionNumber());
+	}
+	
+	@Test
+	public void testGetBenefactorsEmpty(){
+		// call under test
+		Map<Long, Long> results = nodeDao.getBenefactors(Collections.emptyList());
+		assertNotNull(results);
+		assertTrue(results.isEmpty());
+	}
+	
+	@Test
+	public void testGetBenefactors(){
+		Node parent = nodeDao.createNewNode(NodeTestUtils.createNew("parent", creatorUserGroupId));
+		toDelete.add(parent.getId());
+		Node child = NodeTestUtils.createNew("child", creatorUserGroupId);
+		child.setParentId(parent.getId());
+		child = nodeDao.createNewNode(child);
+		toDelete.add(child.getId());
+		AccessControlList acl = AccessControlListUtil.createACLToGrantEntityAdminAccess(parent.getId(), adminUser, new Date());
+		accessControlListDAO.create(acl, ObjectType.ENTITY);
+		// no ACL so no benefactor
+		Node noBenefactor = nodeDao.createNewNode(NodeTestUtils.createNew("noBenefactor", creatorUserGroupId));
+		toDelete.add(noBenefactor.getId());
+		
+		Long parentId = KeyFactory.stringToKey(parent.getId());
+		Long childId = KeyFactory.stringToKey(child.getId());
+		Long doesNotExist = -1L;
+		List<Long> ids = Lists.newArrayList(parentId, childId, KeyFactory.stringToKey(noBenefactor.getId()), doesNotExist);
+		// call under test
+		Map<Long, Long> results = nodeDao.getBenefactors(ids);
+		Map<Long, Long> expected = new HashMap<>();
+		expected.put(parentId, parentId);
+		expected.put(childId, parentId);
+		assertEquals(expected, results);
+	}
+	
+	@Test
+	public void testGetUserAnnotationsForCurrentVersionsEmpty(){
+		// call under test
+		Map<Long, Annotations> results = nodeDao.getUserAnnotationsForCurrentVersions(Collections.emptyList());
+		assertNotNull(results);
+		assertTrue(results.isEmpty());
+	}
+	
+	@Test
+	public void testGetUserAnnotationsForCurrentVersions(){
+		Node one = nodeDao.createNewNode(privateCreateNew("one"));
+		toDelete.add(one.getId());
+		Annotations firstVersion = new Annotations();
+		firstVersion.setAnnotations(Collections.singletonMap("myKey",
+				AnnotationsV2TestUtils.createNewValue(AnnotationsValueType.STRING, "version1Value")));
+		nodeDao.updateUserAnnotations(one.getId(), firstVersion);
+		one.setVersionComment("v2");
+		one.setVersionLabel("2");
+		nodeDao.createNewVersion(one);
+		Annotations secondVersion = new Annotations();
+		secondVersion.setAnnotations(Collections.singletonMap("myKey",
+				AnnotationsV2TestUtils.createNewValue(AnnotationsValueType.STRING, "version2Value")));
+		nodeDao.updateUserAnnotations(one.getId(), secondVersion);
+		// two has no annotations
+		Node two = nodeDao.createNewNode(privateCreateNew("two"));
+		toDelete.add(two.getId());
+		
+		Long oneId = KeyFactory.stringToKey(one.getId());
+		Long twoId = KeyFactory.stringToKey(two.getId());
+		Long doesNotExist = -1L;
+		// call under test
+		Map<Long, Annotations> results = nodeDao.getUserAnnotationsForCurrentVersions(Lists.newArrayList(oneId, twoId, doesNotExist));
+		assertEquals(2, results.size());
+		assertEquals(secondVersion.getAnnotations(), results.get(oneId).getAnnotations());
+		assertEquals(one.getId(), results.get(oneId).getId());
+		assertEquals(NodeConstants.ZERO_E_TAG, results.get(oneId).getEtag());
+		assertTrue(results.get(twoId).getAnnotations().isEmpty());
+		assertEquals(NodeConstants.ZERO_E_TAG, results.get(twoId).getEtag());
+		assertFalse(results.containsKey(doesNotExist));
+	}
+	
 	@Test
 	public void testTouch() throws InterruptedException {
 		Long user1Id = Long.parseLong(user1);
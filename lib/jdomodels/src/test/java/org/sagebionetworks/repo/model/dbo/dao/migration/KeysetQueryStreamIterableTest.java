@@ -0,0 +1,203 @@
+package org.sagebionetworks.repo.model.dbo.dao.migration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.ResultSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.sagebionetworks.repo.model.dbo.migration.KeysetQueryStreamIterable;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import com.google.common.util.concurrent.MoreExecutors;
+
+@RunWith(MockitoJUnitRunner.class)
+public class KeysetQueryStreamIterableTest {
+
+	@Mock
+	NamedParameterJdbcTemplate mockTemplate;
+	@Mock
+	RowMapper<String> mockRowMapper;
+	@Mock
+	ResultSet mockResultSet;
+
+	String sql;
+	Map<String, Object> parameters;
+	ExecutorService executor;
+
+	@Before
+	public void before() throws Exception {
+		sql = "select * from foo where bar = :p1";
+		parameters = new HashMap<>(2);
+		parameters.put("p1", "something");
+		executor = MoreExecutors.newDirectExecutorService();
+	}
+
+	@After
+	public void after() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Each query maps the given number of rows with the row mapper passed to
+	 * the template.
+	 *
+	 * @param pageSizes
+	 */
+	void setupPages(Integer... pageSizes) throws Exception {
+		if (Arrays.stream(pageSizes).anyMatch(size -> size > 0)) {
+			when(mockRowMapper.mapRow(any(ResultSet.class), anyInt())).thenReturn("one", "two", "three", "four", "five");
+		}
+		Iterator<Integer> sizes = Arrays.asList(pageSizes).iterator();
+		when(mockTemplate.query(anyString(), anyMap(), any(RowMapper.class))).thenAnswer(invocation -> {
+			RowMapper<String> rowMapper = invocation.getArgument(2);
+			List<String> page = new LinkedList<>();
+			int size = sizes.next();
+			for (int i = 0; i < size; i++) {
+				page.add(rowMapper.mapRow(mockResultSet, i));
+			}
+			return page;
+		});
+	}
+
+	@Test
+	public void testIteratorWithSingleKey() throws Exception {
+		setupPages(2, 2, 1);
+		when(mockResultSet.getObject("ID")).thenReturn(1L, 2L, 3L, 4L, 5L);
+		long limit = 2;
+		KeysetQueryStreamIterable<String> iterable = new KeysetQueryStreamIterable<String>(mockTemplate, mockRowMapper,
+				sql, parameters, Collections.singletonList("ID"), limit, null);
+		List<String> results = new LinkedList<>();
+		// call under test
+		for (String value : iterable) {
+			results.add(value);
+		}
+		assertEquals(Arrays.asList("one", "two", "three", "four", "five"), results);
+		// the last page is not full so no query is made for an empty page
+		ArgumentCaptor<String> sqlCaptor = ArgumentCaptor.forClass(String.class);
+		ArgumentCaptor<Map<String, Object>> paramCaptor = ArgumentCaptor.forClass(Map.class);
+		verify(mockTemplate, times(3)).query(sqlCaptor.capture(), paramCaptor.capture(), any(RowMapper.class));
+		assertEquals(Arrays.asList(
+				"select * from foo where bar = :p1 ORDER BY `ID` LIMIT :KEY_LIMIT",
+				"select * from foo where bar = :p1 AND `ID` > :KEY_LAST_0 ORDER BY `ID` LIMIT :KEY_LIMIT",
+				"select * from foo where bar = :p1 AND `ID` > :KEY_LAST_0 ORDER BY `ID` LIMIT :KEY_LIMIT"),
+				sqlCaptor.getAllValues());
+		List<Map<String, Object>> pageParameters = paramCaptor.getAllValues();
+		assertEquals("something", pageParameters.get(0).get("p1"));
+		assertEquals(limit, pageParameters.get(0).get(KeysetQueryStreamIterable.KEY_LIMIT));
+		assertNull(pageParameters.get(0).get("KEY_LAST_0"));
+		assertEquals(2L, pageParameters.get(1).get("KEY_LAST_0"));
+		assertEquals(4L, pageParameters.get(2).get("KEY_LAST_0"));
+		// the parameters passed in are not changed
+		assertEquals(1, parameters.size());
+	}
+
+	@Test
+	public void testIteratorWithMultipleKeys() throws Exception {
+		setupPages(2, 1);
+		when(mockResultSet.getObject("ID")).thenReturn(1L, 1L, 2L);
+		when(mockResultSet.getObject("VERSION")).thenReturn(1L, 2L, 1L);
+		long limit = 2;
+		KeysetQueryStreamIterable<String> iterable = new KeysetQueryStreamIterable<String>(mockTemplate, mockRowMapper,
+				sql, parameters, Arrays.asList("ID", "VERSION"), limit, null);
+		List<String> results = new LinkedList<>();
+		// call under test
+		for (String value : iterable) {
+			results.add(value);
+		}
+		assertEquals(Arrays.asList("one", "two", "three"), results);
+		ArgumentCaptor<Map<String, Object>> paramCaptor = ArgumentCaptor.forClass(Map.class);
+		verify(mockTemplate).query(eq("select * from foo where bar = :p1 ORDER BY `ID`, `VERSION` LIMIT :KEY_LIMIT"),
+				anyMap(), any(RowMapper.class));
+		verify(mockTemplate).query(eq("select * from foo where bar = :p1 AND `ID` >= :KEY_LAST_0"
+				+ " AND (`ID` > :KEY_LAST_0 OR (`ID` = :KEY_LAST_0 AND `VERSION` > :KEY_LAST_1))"
+				+ " ORDER BY `ID`, `VERSION` LIMIT :KEY_LIMIT"), paramCaptor.capture(), any(RowMapper.class));
+		assertEquals(1L, paramCaptor.getValue().get("KEY_LAST_0"));
+		assertEquals(2L, paramCaptor.getValue().get("KEY_LAST_1"));
+	}
+
+	@Test
+	public void testIteratorWithReadAhead() throws Exception {
+		setupPages(2, 2, 0);
+		when(mockResultSet.getObject("ID")).thenReturn(1L, 2L, 3L, 4L);
+		long limit = 2;
+		KeysetQueryStreamIterable<String> iterable = new KeysetQueryStreamIterable<String>(mockTemplate, mockRowMapper,
+				sql, parameters, Collections.singletonList("ID"), limit, executor);
+		// call under test
+		Iterator<String> iterator = iterable.iterator();
+		assertEquals("one", iterator.next());
+		// the second page was read ahead with the first
+		verify(mockTemplate, times(2)).query(anyString(), anyMap(), any(RowMapper.class));
+		assertEquals("two", iterator.next());
+		assertEquals("three", iterator.next());
+		assertEquals("four", iterator.next());
+		assertFalse(iterator.hasNext());
+		// the last page is empty
+		verify(mockTemplate, times(3)).query(anyString(), anyMap(), any(RowMapper.class));
+	}
+
+	@Test
+	public void testCloseWithReadAhead() throws Exception {
+		setupPages(2);
+		when(mockResultSet.getObject("ID")).thenReturn(1L, 2L);
+		ExecutorService mockExecutor = mock(ExecutorService.class);
+		Future<?> mockFuture = mock(Future.class);
+		when(mockExecutor.submit(any(Callable.class))).thenReturn(mockFuture);
+		KeysetQueryStreamIterable<String> iterable = new KeysetQueryStreamIterable<String>(mockTemplate, mockRowMapper,
+				sql, parameters, Collections.singletonList("ID"), 2L, mockExecutor);
+		Iterator<String> iterator = iterable.iterator();
+		assertEquals("one", iterator.next());
+		assertTrue(iterator.hasNext());
+		// call under test
+		iterable.close();
+		// the page read ahead is no longer needed
+		verify(mockFuture).cancel(true);
+		assertFalse(iterator.hasNext());
+		verify(mockTemplate).query(anyString(), anyMap(), any(RowMapper.class));
+	}
+
+	@Test
+	public void testIteratorEmpty() throws Exception {
+		setupPages(0);
+		KeysetQueryStreamIterable<String> iterable = new KeysetQueryStreamIterable<String>(mockTemplate, mockRowMapper,
+				sql, parameters, Collections.singletonList("ID"), 2L, executor);
+		// call under test
+		assertFalse(iterable.iterator().hasNext());
+		verify(mockTemplate).query(anyString(), anyMap(), any(RowMapper.class));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructorWithNoKeys() {
+		new KeysetQueryStreamIterable<String>(mockTemplate, mockRowMapper, sql, parameters, Collections.emptyList(),
+				2L, null);
+	}
+
+}
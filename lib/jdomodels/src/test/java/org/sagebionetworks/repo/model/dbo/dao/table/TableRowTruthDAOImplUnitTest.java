@@ -2,17 +2,20 @@ package org.sagebionetworks.repo.model.dbo.dao.table;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.LinkedList;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -24,9 +27,16 @@ import org.sagebionetworks.StackConfiguration;
 import org.sagebionetworks.aws.SynapseS3Client;
 import org.sagebionetworks.ids.IdGenerator;
 import org.sagebionetworks.repo.model.dbo.DBOBasicDao;
+import org.sagebionetworks.repo.model.table.SparseChangeSetDto;
+import org.sagebionetworks.repo.model.table.TableRowChange;
+import org.sagebionetworks.table.cluster.utils.SparseChangeSetBinaryUtils;
+import org.sagebionetworks.table.cluster.utils.TableModelUtils;
 import org.sagebionetworks.util.FileProvider;
 import org.springframework.jdbc.core.JdbcTemplate;
 
+import com.amazonaws.services.s3.model.S3Object;
+import com.google.common.collect.Lists;
+
 @ExtendWith(MockitoExtension.class)
 public class TableRowTruthDAOImplUnitTest {
 
@@ -66,14 +76,55 @@ public class TableRowTruthDAOImplUnitTest {
 		when(mockFileProvider.createTempFile(anyString(), anyString())).thenReturn(mockFile);
 		when(mockFileProvider.createFileOutputStream(any(File.class))).thenReturn(mockOutputStream);
 		// Call under test
-		dao.saveToS3(mockCallback);
+		String key = dao.saveToS3(TableRowTruthDAOImpl.ROW_CHANGE_KEY_SUFFIX, mockCallback);
+		assertTrue(key.endsWith(".bin"));
+		verify(mockFileProvider).createTempFile("tempToS3", ".bin");
 		verify(mockCallback).write(mockOutputStream);
 		verify(mockOutputStream).flush();
 		verify(mockOutputStream, times(2)).close();
-		verify(mockS3Client).putObject(eq(s3Bucket),anyString(), eq(mockFile));
+		verify(mockS3Client).putObject(s3Bucket, key, mockFile);
 		verify(mockFile).delete();
 	}
 	
+	@Test
+	public void testGetRowSetWithJSONRowChange() throws IOException {
+		SparseChangeSetDto set = new SparseChangeSetDto();
+		set.setTableId("syn123");
+		set.setColumnIds(Lists.newArrayList("1"));
+		set.setRows(new LinkedList<>());
+		ByteArrayOutputStream json = new ByteArrayOutputStream();
+		TableModelUtils.writeSparesChangeSetToGz(set, json);
+		S3Object object = new S3Object();
+		object.setObjectContent(new ByteArrayInputStream(json.toByteArray()));
+		// row changes written before the binary format
+		String key = "abc.csv.gz";
+		when(mockS3Client.getObject(s3Bucket, key)).thenReturn(object);
+		TableRowChange change = new TableRowChange();
+		change.setBucket(s3Bucket);
+		change.setKeyNew(key);
+		// call under test
+		assertEquals(set, dao.getRowSet(change));
+	}
+	
+	@Test
+	public void testGetRowSetWithBinaryRowChange() throws IOException {
+		SparseChangeSetDto set = new SparseChangeSetDto();
+		set.setTableId("syn123");
+		set.setColumnIds(Lists.newArrayList("1"));
+		set.setRows(new LinkedList<>());
+		ByteArrayOutputStream binary = new ByteArrayOutputStream();
+		SparseChangeSetBinaryUtils.writeSparseChangeSet(set, binary);
+		S3Object object = new S3Object();
+		object.setObjectContent(new ByteArrayInputStream(binary.toByteArray()));
+		String key = "abc.bin";
+		when(mockS3Client.getObject(s3Bucket, key)).thenReturn(object);
+		TableRowChange change = new TableRowChange();
+		change.setBucket(s3Bucket);
+		change.setKeyNew(key);
+		// call under test
+		assertEquals(set, dao.getRowSet(change));
+	}
+	
 	@Test
 	public void testSaveToS3DeleteOnError() throws IOException {
 		FileNotFoundException exception = new FileNotFoundException();
@@ -82,7 +133,7 @@ public class TableRowTruthDAOImplUnitTest {
 		
 		RuntimeException result = assertThrows(RuntimeException.class, () -> {
 			// call under test
-			dao.saveToS3(mockCallback);
+			dao.saveToS3(TableRowTruthDAOImpl.SCHEMA_CHANGE_KEY_SUFFIX, mockCallback);
 		});
 
 		assertEquals(exception, result.getCause());
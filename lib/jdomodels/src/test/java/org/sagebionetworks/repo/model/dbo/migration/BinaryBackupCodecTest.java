@@ -0,0 +1,345 @@
+package org.sagebionetworks.repo.model.dbo.migration;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+import org.sagebionetworks.repo.model.dbo.FieldColumn;
+import org.sagebionetworks.repo.model.dbo.TableMapping;
+import org.sagebionetworks.repo.model.dbo.persistence.DBONode;
+import org.sagebionetworks.repo.model.dbo.persistence.DBORevision;
+import org.sagebionetworks.repo.model.migration.MigrationType;
+import org.sagebionetworks.repo.model.query.jdo.SqlConstants;
+
+public class BinaryBackupCodecTest {
+
+	DBONode nodeOne;
+	DBONode nodeTwo;
+	DBORevision revision;
+
+	@BeforeEach
+	public void before() {
+		nodeOne = new DBONode();
+		nodeOne.setId(123L);
+		nodeOne.setParentId(4L);
+		nodeOne.setName("one");
+		nodeOne.setCurrentRevNumber(1L);
+		nodeOne.setMaxRevNumber(2L);
+		nodeOne.seteTag("etag");
+		nodeOne.setCreatedBy(5L);
+		nodeOne.setCreatedOn(6L);
+		nodeOne.setType("file");
+		nodeOne.setAlias("alias");
+
+		nodeTwo = new DBONode();
+		nodeTwo.setId(456L);
+		// null parent
+		nodeTwo.setParentId(null);
+		nodeTwo.setName("two \u00e9");
+		nodeTwo.setCurrentRevNumber(1L);
+		nodeTwo.setMaxRevNumber(1L);
+		nodeTwo.seteTag("etag2");
+		nodeTwo.setCreatedBy(5L);
+		nodeTwo.setCreatedOn(7L);
+		nodeTwo.setType("project");
+		nodeTwo.setAlias(null);
+
+		revision = new DBORevision();
+		revision.setOwner(123L);
+		revision.setRevisionNumber(1L);
+		revision.setActivityId(null);
+		revision.setLabel("label");
+		revision.setComment("comment");
+		revision.setModifiedBy(5L);
+		revision.setModifiedOn(8L);
+		revision.setFileHandleId(9L);
+		revision.setColumnModelIds("[1,2]".getBytes(StandardCharsets.UTF_8));
+		revision.setScopeIds(null);
+		revision.setItems("items");
+		revision.setEntityPropertyAnnotations(new byte[] { 1, 2, 3 });
+		revision.setReference(new byte[0]);
+		revision.setUserAnnotationsJSON("{}");
+	}
+
+	<T> List<T> writeThenRead(TableMapping<?> writeMapping, List<?> batch, TableMapping<T> readMapping) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		BinaryBackupCodec.writeBatch(new DataOutputStream(out), writeMapping, batch);
+		return BinaryBackupCodec.readBatch(new DataInputStream(new ByteArrayInputStream(out.toByteArray())), readMapping);
+	}
+
+	/**
+	 * A copy of the given mapping with different columns.
+	 */
+	static <T> TableMapping<T> withFields(TableMapping<T> mapping, FieldColumn[] fields) {
+		return new TableMapping<T>() {
+
+			@Override
+			public T mapRow(ResultSet rs, int rowNum) throws SQLException {
+				return mapping.mapRow(rs, rowNum);
+			}
+
+			@Override
+			public String getTableName() {
+				return mapping.getTableName();
+			}
+
+			@Override
+			public String getDDLFileName() {
+				return mapping.getDDLFileName();
+			}
+
+			@Override
+			public FieldColumn[] getFieldColumns() {
+				return fields;
+			}
+
+			@Override
+			public Class<? extends T> getDBOClass() {
+				return mapping.getDBOClass();
+			}
+		};
+	}
+
+	@Test
+	public void testWriteThenReadNodes() throws IOException {
+		List<DBONode> batch = Arrays.asList(nodeOne, nodeTwo);
+		TableMapping<DBONode> mapping = new DBONode().getTableMapping();
+		// call under test
+		List<DBONode> results = writeThenRead(mapping, batch, mapping);
+		assertEquals(batch, results);
+	}
+
+	@Test
+	public void testWriteThenReadRevisions() throws IOException {
+		List<DBORevision> batch = Collections.singletonList(revision);
+		TableMapping<DBORevision> mapping = new DBORevision().getTableMapping();
+		// call under test
+		List<DBORevision> results = writeThenRead(mapping, batch, mapping);
+		assertEquals(batch, results);
+	}
+
+	@Test
+	public void testWriteThenReadEmpty() throws IOException {
+		TableMapping<DBONode> mapping = new DBONode().getTableMapping();
+		// call under test
+		List<DBONode> results = writeThenRead(mapping, Collections.emptyList(), mapping);
+		assertEquals(Collections.emptyList(), results);
+	}
+
+	@Test
+	public void testReadWithMissingColumn() throws IOException {
+		TableMapping<DBONode> mapping = new DBONode().getTableMapping();
+		// Simulates a backup from a stack that does not have the alias or parent columns
+		FieldColumn[] fields = Arrays.stream(mapping.getFieldColumns())
+				.filter(f -> !SqlConstants.COL_NODE_ALIAS.equals(f.getColumnName())
+						&& !SqlConstants.COL_NODE_PARENT_ID.equals(f.getColumnName()))
+				.toArray(FieldColumn[]::new);
+		TableMapping<DBONode> writeMapping = withFields(mapping, fields);
+		// call under test
+		List<DBONode> results = writeThenRead(writeMapping, Collections.singletonList(nodeOne), mapping);
+		assertEquals(1, results.size());
+		assertNull(results.get(0).getAlias());
+		assertNull(results.get(0).getParentId());
+		assertEquals(nodeOne.getName(), results.get(0).getName());
+	}
+
+	@Test
+	public void testReadWithUnsupportedVersion() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new DataOutputStream(out).writeInt(BinaryBackupCodec.FORMAT_VERSION + 1);
+		String message = assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			BinaryBackupCodec.readBatch(new DataInputStream(new ByteArrayInputStream(out.toByteArray())),
+					new DBONode().getTableMapping());
+		}).getMessage();
+		assertEquals("Unsupported binary backup version: " + (BinaryBackupCodec.FORMAT_VERSION + 1), message);
+	}
+
+	Object writeThenReadValue(Object value) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		BinaryBackupCodec.writeValue(new DataOutputStream(out), value);
+		return BinaryBackupCodec.readValue(new DataInputStream(new ByteArrayInputStream(out.toByteArray())));
+	}
+
+	@Test
+	public void testWriteThenReadValues() throws IOException {
+		// call under test
+		assertNull(writeThenReadValue(null));
+		assertEquals(Long.valueOf(Long.MAX_VALUE), writeThenReadValue(Long.MAX_VALUE));
+		assertEquals(Integer.valueOf(-12), writeThenReadValue(-12));
+		assertEquals(Double.valueOf(3.5), writeThenReadValue(3.5));
+		assertEquals(Boolean.TRUE, writeThenReadValue(true));
+		assertEquals("some string", writeThenReadValue("some string"));
+		assertEquals("", writeThenReadValue(""));
+		assertArrayEquals(new byte[] { 4, 5 }, (byte[]) writeThenReadValue(new byte[] { 4, 5 }));
+		// enums are written by name
+		assertEquals(MigrationType.NODE.name(), writeThenReadValue(MigrationType.NODE));
+	}
+
+	@Test
+	public void testWriteThenReadTimestamp() throws IOException {
+		Timestamp timestamp = new Timestamp(1234567L);
+		timestamp.setNanos(567000123);
+		// call under test
+		assertEquals(timestamp, writeThenReadValue(timestamp));
+		assertEquals(new Timestamp(1234567L), writeThenReadValue(new Date(1234567L)));
+	}
+
+	@Test
+	public void testWriteThenReadLargeString() throws IOException {
+		char[] chars = new char[100_000];
+		Arrays.fill(chars, 'a');
+		String value = new String(chars);
+		// call under test
+		assertEquals(value, writeThenReadValue(value));
+	}
+
+	@Test
+	public void testWriteThenReadBigDecimal() throws IOException {
+		BigDecimal value = new BigDecimal("12345678901234567890.123456789");
+		// call under test
+		Object result = writeThenReadValue(value);
+		assertEquals(value.toString(), result);
+	}
+
+	/**
+	 * A result set positioned on a single row with the given values.
+	 */
+	static ResultSet createResultSet(String[] columnNames, Object... values) {
+		Object[][] columns = new Object[values.length][1];
+		for (int i = 0; i < values.length; i++) {
+			columns[i][0] = values[i];
+		}
+		return (ResultSet) Proxy.newProxyInstance(BinaryBackupCodec.class.getClassLoader(), new Class[] { ResultSet.class },
+				new BinaryBackupCodec.RowResultSet(columnNames, columns));
+	}
+
+	@Test
+	public void testRowResultSetNumbers() throws SQLException {
+		ResultSet rs = createResultSet(new String[] { "A", "B", "C" }, 12, 2.5, "12345678901234567890.5");
+		// call under test
+		assertEquals(12L, rs.getLong("a"));
+		assertEquals(12, rs.getInt(1));
+		assertEquals((short) 12, rs.getShort("A"));
+		assertEquals((byte) 12, rs.getByte(1));
+		assertEquals(2.5, rs.getDouble("B"));
+		assertEquals(2.5f, rs.getFloat(2));
+		assertEquals(new BigDecimal("12"), rs.getBigDecimal(1));
+		assertEquals(new BigDecimal("2.5"), rs.getBigDecimal("B"));
+		assertEquals(new BigDecimal("12345678901234567890.5"), rs.getBigDecimal("C"));
+		assertEquals(Long.valueOf(12L), rs.getObject("A", Long.class));
+		assertTrue(rs.getBoolean("A"));
+		assertFalse(rs.wasNull());
+	}
+
+	@Test
+	public void testRowResultSetNulls() throws SQLException {
+		ResultSet rs = createResultSet(new String[] { "A" }, (Object) null);
+		// call under test
+		assertEquals(0L, rs.getLong("A"));
+		assertTrue(rs.wasNull());
+		assertEquals(0, rs.getInt(1));
+		assertEquals((short) 0, rs.getShort(1));
+		assertEquals((byte) 0, rs.getByte(1));
+		assertEquals(0.0, rs.getDouble(1));
+		assertEquals(0.0f, rs.getFloat(1));
+		assertFalse(rs.getBoolean(1));
+		assertNull(rs.getBigDecimal(1));
+		assertNull(rs.getString(1));
+		assertNull(rs.getBytes(1));
+		assertNull(rs.getBlob(1));
+		assertNull(rs.getClob(1));
+		assertNull(rs.getBinaryStream(1));
+		assertNull(rs.getCharacterStream(1));
+		assertNull(rs.getTimestamp(1));
+		assertNull(rs.getDate(1));
+		assertNull(rs.getTime(1));
+		assertNull(rs.getObject(1, Long.class));
+		// a column that is not in the batch is null
+		assertNull(rs.getObject("missing"));
+		assertTrue(rs.wasNull());
+	}
+
+	@Test
+	public void testRowResultSetText() throws Exception {
+		ResultSet rs = createResultSet(new String[] { "A", "B" }, "text", "bytes".getBytes(StandardCharsets.UTF_8));
+		// call under test
+		assertEquals("text", rs.getString("A"));
+		assertEquals("text", rs.getNString(1));
+		assertEquals("bytes", rs.getString("B"));
+		assertArrayEquals("text".getBytes(StandardCharsets.UTF_8), rs.getBytes("A"));
+		assertArrayEquals("bytes".getBytes(StandardCharsets.UTF_8), rs.getBlob("B").getBytes(1, 5));
+		assertEquals("text", rs.getClob("A").getSubString(1, 4));
+		assertArrayEquals("bytes".getBytes(StandardCharsets.UTF_8), IOUtils.toByteArray(rs.getBinaryStream("B")));
+		try (Reader reader = rs.getCharacterStream("A")) {
+			assertEquals("text", IOUtils.toString(reader));
+		}
+	}
+
+	@Test
+	public void testRowResultSetDates() throws SQLException {
+		Timestamp timestamp = new Timestamp(1234567L);
+		ResultSet rs = createResultSet(new String[] { "A", "B" }, timestamp, 1234567L);
+		// call under test
+		assertEquals(timestamp, rs.getTimestamp("A"));
+		assertEquals(timestamp, rs.getTimestamp("B"));
+		assertEquals(new java.sql.Date(1234567L), rs.getDate(1));
+		assertEquals(new Time(1234567L), rs.getTime("A"));
+		assertEquals(1234567L, rs.getLong("A"));
+	}
+
+	@Test
+	public void testRowResultSetFindColumn() throws SQLException {
+		ResultSet rs = createResultSet(new String[] { "A", "B" }, 1, 2);
+		// call under test
+		assertEquals(2, rs.findColumn("b"));
+		assertThrows(SQLException.class, () -> {
+			// call under test
+			rs.findColumn("missing");
+		});
+	}
+
+	@Test
+	public void testRowResultSetUnsupported() {
+		ResultSet rs = createResultSet(new String[] { "A" }, 1);
+		String message = assertThrows(UnsupportedOperationException.class, () -> {
+			// call under test
+			rs.next();
+		}).getMessage();
+		assertEquals("Unsupported ResultSet method: next", message);
+	}
+
+	@Test
+	public void testWriteUnsupportedValue() {
+		String message = assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			writeThenReadValue(new Object());
+		}).getMessage();
+		assertEquals("Unsupported binary backup value type: java.lang.Object", message);
+	}
+
+}
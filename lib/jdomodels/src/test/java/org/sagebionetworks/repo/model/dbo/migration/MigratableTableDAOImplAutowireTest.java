@@ -8,6 +8,11 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.HashSet;
@@ -725,6 +730,26 @@ public class MigratableTableDAOImplAutowireTest {
 		}
 	}
 	
+	/**
+	 * Each type must survive a round trip through the binary backup encoding of its table mapping.
+	 */
+	@Test
+	public void testBinaryBackupAllTypes() throws IOException {
+		for(MigrationType type: MigrationType.values()) {
+			if(UNTESTABLE_TYPES.contains(type)) {
+				System.out.println("Cannot test binary backup of type: "+type.name());
+				continue;
+			}
+			MigratableDatabaseObject migratableObject = migratableTableDAO.getObjectForType(type);
+			DatabaseObject<?> sample = DBOTestUtils.createSampleObjectForType(migratableObject);
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			// call under test
+			BinaryBackupCodec.writeBatch(new DataOutputStream(out), migratableObject.getTableMapping(), Lists.newArrayList(sample));
+			List<?> results = BinaryBackupCodec.readBatch(new DataInputStream(new ByteArrayInputStream(out.toByteArray())), migratableObject.getTableMapping());
+			assertEquals(Lists.newArrayList(sample), results, "Failed binary backup of type: "+type);
+		}
+	}
+	
 	/**
 	 * Test added for PLFM-6131.  In that case, updated data was not migrating because the etag
 	 * column was not marked as "etag".  Therefore, the migration system did not detect the changes
@@ -3,8 +3,11 @@ package org.sagebionetworks.repo.model.dbo.principal;
 import static org.junit.Assert.assertEquals;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import org.junit.After;
@@ -94,4 +97,17 @@ public class NotificationEmailDAOImplTest {
 	public void testNotFound() throws Exception {
 		notificationEmailDao.getNotificationEmailForPrincipal(-999L);
 	}
+	
+	@Test
+	public void testGetNotificationEmailsForPrincipals() throws Exception {
+		notificationEmailDao.create(alias);
+		Map<Long, String> expected = Collections.singletonMap(alias.getPrincipalId(), alias.getAlias());
+		// the principal without a notification email is not included
+		assertEquals(expected, notificationEmailDao.getNotificationEmailsForPrincipals(Arrays.asList(alias.getPrincipalId(), -999L)));
+	}
+	
+	@Test
+	public void testGetNotificationEmailsForPrincipalsEmpty() throws Exception {
+		assertEquals(Collections.emptyMap(), notificationEmailDao.getNotificationEmailsForPrincipals(Collections.emptyList()));
+	}
 }
@@ -5,7 +5,10 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import org.junit.jupiter.api.AfterEach;
@@ -20,6 +23,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import com.google.common.collect.ImmutableSet;
+
 @ExtendWith(SpringExtension.class)
 @ContextConfiguration(locations = { "classpath:jdomodels-test-context.xml" })
 public class EmailQuarantineDaoImplTest {
@@ -385,6 +390,46 @@ public class EmailQuarantineDaoImplTest {
 		assertFalse(dao.isQuarantined(testEmail));
 	}
 
+	@Test
+	public void testGetQuarantinedEmails() {
+		String otherEmail = "otheremail@test.com";
+		String notQuarantinedEmail = "notquarantined@test.com";
+
+		QuarantinedEmailBatch batch = new QuarantinedEmailBatch()
+				.add(getTestQuarantinedEmail())
+				.add(getTestQuarantinedEmail(otherEmail, EmailQuarantineReason.PERMANENT_BOUNCE));
+
+		dao.addToQuarantine(batch);
+
+		// Call under test
+		Set<String> result = dao.getQuarantinedEmails(Arrays.asList(testEmail, otherEmail.toUpperCase(), notQuarantinedEmail));
+
+		// The emails are returned as they were given
+		assertEquals(ImmutableSet.of(testEmail, otherEmail.toUpperCase()), result);
+	}
+
+	@Test
+	public void testGetQuarantinedEmailsWithExpirationExpired() throws Exception {
+		Long timeout = 50L;
+
+		QuarantinedEmailBatch batch = new QuarantinedEmailBatch()
+				.withExpirationTimeout(timeout)
+				.add(getTestQuarantinedEmail());
+
+		dao.addToQuarantine(batch);
+
+		Thread.sleep(timeout * 2);
+
+		// Call under test
+		assertEquals(Collections.emptySet(), dao.getQuarantinedEmails(Collections.singletonList(testEmail)));
+	}
+
+	@Test
+	public void testGetQuarantinedEmailsEmpty() {
+		// Call under test
+		assertEquals(Collections.emptySet(), dao.getQuarantinedEmails(Collections.emptyList()));
+	}
+
 	private QuarantinedEmail getTestQuarantinedEmail() {
 		return getTestQuarantinedEmail(testEmail, EmailQuarantineReason.PERMANENT_BOUNCE);
 	}
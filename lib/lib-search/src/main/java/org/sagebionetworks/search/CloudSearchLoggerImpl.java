@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
+import org.sagebionetworks.kinesis.AwsKinesisBufferFullPolicy;
 import org.sagebionetworks.kinesis.AwsKinesisFirehoseLogger;
 import org.sagebionetworks.repo.model.message.ChangeMessage;
 import org.sagebionetworks.util.ThreadLocalProvider;
@@ -47,9 +48,9 @@ public class CloudSearchLoggerImpl implements CloudSearchLogger {
 	public void pushAllRecordsAndReset() {
 		List<CloudSearchDocumentLogRecord> recordList = threadLocalRecordList.get();
 		if (!recordList.isEmpty()) {
-			// pass a copy of the list
-			firehoseLogger.logBatch(CloudSearchDocumentLogRecord.KINESIS_DATA_STREAM_NAME_SUFFIX,
-					new ArrayList<CloudSearchDocumentLogRecord>(recordList));
+			// pass a copy of the list, the worker does not wait for firehose and the records are dropped if firehose cannot keep up.
+			firehoseLogger.logBatchAsync(CloudSearchDocumentLogRecord.KINESIS_DATA_STREAM_NAME_SUFFIX,
+					new ArrayList<CloudSearchDocumentLogRecord>(recordList), AwsKinesisBufferFullPolicy.DROP);
 		}
 		// reset all local records.
 		threadLocalRecordList.get().clear();
@@ -14,6 +14,7 @@ import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.sagebionetworks.kinesis.AwsKinesisBufferFullPolicy;
 import org.sagebionetworks.kinesis.AwsKinesisFirehoseLogger;
 import org.sagebionetworks.repo.model.message.ChangeMessage;
 import org.sagebionetworks.repo.model.message.ChangeType;
@@ -103,8 +104,8 @@ public class CloudSearchLoggerImplTest {
 		logger.pushAllRecordsAndReset();
 		logger.pushAllRecordsAndReset();
 		// multiple calls should only push once
-		verify(mockFirehoseLogger).logBatch(CloudSearchDocumentLogRecord.KINESIS_DATA_STREAM_NAME_SUFFIX,
-				Lists.newArrayList(record));
+		verify(mockFirehoseLogger).logBatchAsync(CloudSearchDocumentLogRecord.KINESIS_DATA_STREAM_NAME_SUFFIX,
+				Lists.newArrayList(record), AwsKinesisBufferFullPolicy.DROP);
 	}
 
 	@Test
@@ -112,7 +113,7 @@ public class CloudSearchLoggerImplTest {
 		// call under test
 		logger.pushAllRecordsAndReset();
 		// with no records nothing should be pushed.
-		verify(mockFirehoseLogger, never()).logBatch(any(String.class), any());
+		verify(mockFirehoseLogger, never()).logBatchAsync(any(String.class), any(), any());
 	}
 
 }
@@ -1,6 +1,7 @@
 package org.sagebionetworks.table.cluster;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
@@ -13,13 +14,17 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.sagebionetworks.StackConfiguration;
 import org.sagebionetworks.repo.model.entity.IdAndVersion;
+import org.sagebionetworks.table.cluster.metadata.ObjectFieldModelResolverFactory;
+import org.sagebionetworks.util.ValidateArgument;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 /**
- * Note: For the first pass at this feature we are only using one database. This
- * will be extended in the future.
- * 
+ * Each database instance discovered by the {@link InstanceDiscovery} is treated
+ * as a shard of the table index cluster. Each table (including all of its
+ * versions) is assigned to exactly one shard based on its id, while the object
+ * replication tables are maintained in every shard.
+ *
  * @author jmhill
  *
  */
@@ -29,33 +34,58 @@ public class ConnectionFactoryImpl implements ConnectionFactory {
 	private static Logger log = LogManager.getLogger(ConnectionFactoryImpl.class);
 
 	private InstanceDiscovery instanceDiscovery;
+
+	/**
+	 * One connection pool per shard, in the same order as the instances were
+	 * discovered.
+	 */
+	private List<BasicDataSource> connectionPools;
+
 	/**
-	 * Note: This field will be remove when we actually have more than one
-	 * connection. It is a simple way to get the functionality up and running
-	 * without adding full support for a load balancing.
+	 * One DAO per shard, in the same order as the {@link #connectionPools}.
 	 */
-	private BasicDataSource singleConnectionPool;
+	private List<TableIndexDAO> shards;
 
 	private StackConfiguration stackConfig;
 
 	/**
-	 * Note: The DAO is autowired so it can be profiled. See: PLFM-5984. We might
-	 * need an alternate solution to support multiple database connections in the
-	 * future.
+	 * Note: The DAO is autowired so it can be profiled. See: PLFM-5984. This DAO is
+	 * used for the first shard, the DAOs for the remaining shards are created by
+	 * this factory.
 	 */
 	private TableIndexDAO tableIndexDao;
-	
+
+	private ObjectFieldModelResolverFactory objectFieldModelResolverFactory;
+
 	@Autowired
-	public ConnectionFactoryImpl(StackConfiguration config, InstanceDiscovery instanceDiscovery, TableIndexDAO tableIndexDao) {
+	public ConnectionFactoryImpl(StackConfiguration config, InstanceDiscovery instanceDiscovery, TableIndexDAO tableIndexDao,
+			ObjectFieldModelResolverFactory objectFieldModelResolverFactory) {
 		this.stackConfig = config;
 		this.instanceDiscovery = instanceDiscovery;
 		this.tableIndexDao = tableIndexDao;
+		this.objectFieldModelResolverFactory = objectFieldModelResolverFactory;
 	}
 
 	@Override
 	public TableIndexDAO getConnection(IdAndVersion tableId) {
-		// Create a new DAO for this call.
-		return tableIndexDao;
+		ValidateArgument.required(tableId, "tableId");
+		return shards.get(getShardIndex(tableId, shards.size()));
+	}
+
+	/**
+	 * Assign the given table to a shard. All versions of a table are assigned to
+	 * the same shard so that snapshots and the latest version share a database.
+	 *
+	 * @param tableId
+	 * @param numberOfShards
+	 * @return The index of the shard: 0 to numberOfShards-1
+	 */
+	static int getShardIndex(IdAndVersion tableId, int numberOfShards) {
+		ValidateArgument.required(tableId, "tableId");
+		if (numberOfShards < 1) {
+			throw new IllegalArgumentException("The number of shards must be at least one");
+		}
+		return (int) Math.floorMod(tableId.getId(), (long) numberOfShards);
 	}
 
 	/**
@@ -63,50 +93,66 @@ public class ConnectionFactoryImpl implements ConnectionFactory {
 	 */
 	@PostConstruct
 	public void initialize() {
-		// There is nothing to do if the table feature is not enabled.
-		// The features is enabled so we must find all database instances that we can
-		// use
+		// We must find all database instances that we can use
 		List<InstanceInfo> instances = instanceDiscovery.discoverAllInstances();
 		if (instances == null || instances.isEmpty())
 			throw new IllegalArgumentException("Did not find at least one database instances.");
 
-		// This will be improved in the future. For now we just use the first database
-		// we find
-		InstanceInfo instance = instances.get(0);
-		// Use the one instance to create a single connection pool
-		singleConnectionPool = InstanceUtils.createNewDatabaseConnectionPool(stackConfig, instance);
-		// ensure the index has the correct tables
-		tableIndexDao.setDataSource(singleConnectionPool);
-		tableIndexDao.createObjectReplicationTablesIfDoesNotExist();
+		List<BasicDataSource> pools = new ArrayList<>(instances.size());
+		List<TableIndexDAO> daos = new ArrayList<>(instances.size());
+		for (int i = 0; i < instances.size(); i++) {
+			BasicDataSource pool = InstanceUtils.createNewDatabaseConnectionPool(stackConfig, instances.get(i));
+			// The first shard uses the profiled DAO bean.
+			TableIndexDAO dao = i == 0 ? tableIndexDao : createTableIndexDAO();
+			dao.setDataSource(pool);
+			// ensure each index has the correct tables
+			dao.createObjectReplicationTablesIfDoesNotExist();
+			pools.add(pool);
+			daos.add(dao);
+			log.info("Table index shard " + i + " connected to: " + pool.getUrl());
+		}
+		connectionPools = Collections.unmodifiableList(pools);
+		shards = Collections.unmodifiableList(daos);
+	}
+
+	/**
+	 * Create a new DAO for a shard other than the first.
+	 *
+	 * @return
+	 */
+	TableIndexDAO createTableIndexDAO() {
+		return new TableIndexDAOImpl(objectFieldModelResolverFactory);
 	}
 
 	/**
 	 * Spring will calls this method when this bean is destroyed. This is our chance
 	 * to shutdown the database connection pools.
-	 * 
+	 *
 	 * @throws SQLException
 	 */
 	@PreDestroy
 	public void close() throws SQLException {
-		if (singleConnectionPool != null) {
-			log.debug("Closing connection pool to: " + singleConnectionPool.getUrl());
-			singleConnectionPool.close();
+		if (connectionPools != null) {
+			for (BasicDataSource pool : connectionPools) {
+				log.debug("Closing connection pool to: " + pool.getUrl());
+				pool.close();
+			}
 		}
 	}
 
 	@Override
 	public List<TableIndexDAO> getAllConnections() {
-		return Collections.singletonList(tableIndexDao);
+		return shards;
 	}
 
 	@Override
 	public TableIndexDAO getFirstConnection() {
-		return tableIndexDao;
+		return shards.get(0);
 	}
 
 	@Override
 	public DataSource getFirstDataSource() {
-		return singleConnectionPool;
+		return connectionPools.get(0);
 	}
 
 }
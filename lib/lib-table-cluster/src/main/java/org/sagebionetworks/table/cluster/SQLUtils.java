@@ -1959,6 +1959,19 @@ public class SQLUtils {
 		builder.append(")");
 	}
 	
+	/**
+	 * Create the SQL to select every row and every column of the given table's
+	 * index, including the reserved columns such as ROW_ID and ROW_VERSION. The
+	 * rows are ordered by ROW_ID so that a dump of the same index always yields
+	 * the same rows in the same order.
+	 * 
+	 * @param idAndVersion The table whose index is selected.
+	 * @return The SQL, which has no bind variables.
+	 */
+	public static String createSelectAllFromIndex(IdAndVersion idAndVersion) {
+		return "SELECT * FROM " + getTableNameForId(idAndVersion, TableType.INDEX) + " ORDER BY " + ROW_ID;
+	}
+
 	/**
 	 * Calculate the bytes of the given string array assuming 4 bytes per character.
 	 * 
@@ -151,6 +151,18 @@ public interface TableIndexDAO {
 	 */
 	<T> T executeInReadTransaction(TransactionCallback<T> callable);
 	
+	/**
+	 * Run calls within a read transaction that times out after the given number
+	 * of seconds. Each statement run within the transaction is given a query
+	 * timeout for the time remaining, so a statement that runs past the timeout
+	 * is cancelled by the database driver.
+	 * 
+	 * @param timeoutSeconds
+	 * @param callable
+	 * @return
+	 */
+	<T> T executeInReadTransaction(int timeoutSeconds, TransactionCallback<T> callable);
+	
 	/**
 	 * Run the passed callable within a write transaction.
 	 * @param callable
@@ -387,6 +399,17 @@ public interface TableIndexDAO {
 	 * @param currentSchema
 	 */
 	void createViewSnapshotFromObjectReplication(Long viewId, ViewFilter filter, List<ColumnModel> currentSchema, ObjectFieldTypeMapper fieldTypeMapper, CSVWriterStream outStream);
+	
+	/**
+	 * Stream all of the rows of the given table's index to the given stream. The
+	 * first row written is a header with the name of each column of the index.
+	 * The resulting data can be loaded with
+	 * {@link #populateViewFromSnapshot(IdAndVersion, Iterator, long)}.
+	 * 
+	 * @param tableId
+	 * @param outStream
+	 */
+	void streamTableIndexData(IdAndVersion tableId, CSVWriterStream outStream);
 
 	
 	/**
@@ -485,7 +508,7 @@ public interface TableIndexDAO {
 	void streamSynapseStorageStats(ReplicationType mainType, Callback<SynapseStorageProjectStats> callback);
 
 	/**
-	 * Populate a view from a snapshot.
+	 * Populate a view or table index from a snapshot.
 	 * 
 	 * @param idAndVersion
 	 * @param input
@@ -45,6 +45,7 @@ import static org.sagebionetworks.repo.model.table.TableConstants.TRUNCATE_REPLI
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -59,6 +60,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import javax.sql.DataSource;
@@ -99,6 +101,7 @@ import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.jdbc.BadSqlGrammarException;
 import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
 import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.SingleColumnRowMapper;
@@ -382,17 +385,12 @@ public class TableIndexDAOImpl implements TableIndexDAO {
 	public RowSet query(ProgressCallback callback, final SqlQuery query) {
 		if (query == null)
 			throw new IllegalArgumentException("SqlQuery cannot be null");
-		final List<Row> rows = new LinkedList<Row>();
+		final List<Row> rows = new ArrayList<Row>();
 		final RowSet rowSet = new RowSet();
 		rowSet.setRows(rows);
 		rowSet.setHeaders(query.getSelectColumns());
 		// Stream over the results and save the results in a a list
-		queryAsStream(callback, query, new RowHandler() {
-			@Override
-			public void nextRow(Row row) {
-				rows.add(row);
-			}
-		});
+		queryAsStream(callback, query, rows::add);
 		rowSet.setTableId(query.getTableId());
 		return rowSet;
 	}
@@ -429,6 +427,17 @@ public class TableIndexDAOImpl implements TableIndexDAO {
 		return readTransactionTemplate.execute(callable);
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * @see org.sagebionetworks.table.cluster.TableIndexDAO#executeInReadTransaction(int, org.springframework.transaction.support.TransactionCallback)
+	 */
+	@Override
+	public <T> T executeInReadTransaction(int timeoutSeconds, TransactionCallback<T> callable) {
+		TransactionTemplate timedTemplate = new TransactionTemplate(transactionManager, readTransactionTemplate);
+		timedTemplate.setTimeout(timeoutSeconds);
+		return timedTemplate.execute(callable);
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see org.sagebionetworks.table.cluster.TableIndexDAO#executeInWriteTransaction(org.springframework.transaction.support.TransactionCallback)
@@ -1100,6 +1109,30 @@ public class TableIndexDAOImpl implements TableIndexDAO {
 		});
 	}
 	
+	@Override
+	public void streamTableIndexData(IdAndVersion tableId, CSVWriterStream outputStream) {
+		ValidateArgument.required(tableId, "tableId");
+		ValidateArgument.required(outputStream, "outputStream");
+		String sql = SQLUtils.createSelectAllFromIndex(tableId);
+		template.query(sql, (ResultSetExtractor<Void>) (ResultSet rs) -> {
+			// the header is written even when the table is empty.
+			ResultSetMetaData metadata = rs.getMetaData();
+			String[] headers = new String[metadata.getColumnCount()];
+			for (int i = 0; i < headers.length; i++) {
+				headers[i] = metadata.getColumnLabel(i + 1);
+			}
+			outputStream.writeNext(headers);
+			while (rs.next()) {
+				String[] row = new String[headers.length];
+				for (int i = 0; i < headers.length; i++) {
+					row[i] = rs.getString(i + 1);
+				}
+				outputStream.writeNext(row);
+			}
+			return null;
+		});
+	}
+	
 	// Translates the Column Model schema into a column metadata schema, that maps to the object/annotation replication index
 	List<ColumnMetadata> translateSchema(List<ColumnModel> schema, ObjectFieldTypeMapper fieldTypeMapper) {
 		ValidateArgument.required(schema, "schema");
@@ -1335,29 +1368,48 @@ public class TableIndexDAOImpl implements TableIndexDAO {
 	@Override
 	public void populateViewFromSnapshot(IdAndVersion idAndVersion, Iterator<String[]> input, long maxBytesPerBatch) {
 		ValidateArgument.required(idAndVersion, "idAndVersion");
-		ValidateArgument.required(idAndVersion.getVersion().isPresent(), "idAndVersion.version");
 		ValidateArgument.required(input, "input");
 		ValidateArgument.required(input.hasNext(), "input is empty");
 		// The first row is the header
 		String[] headers = input.next();
 		String sql = SQLUtils.createInsertViewFromSnapshot(idAndVersion, headers);
+		/*
+		 * The connection URL includes rewriteBatchedStatements=true so each batch is
+		 * sent to the database as multi-row INSERT statements.
+		 */
+		pushInBatches(input, maxBytesPerBatch, (List<Object[]> batch) -> {
+			template.batchUpdate(sql, batch);
+		});
+	}
 
-		// push the data in batches
-		List<Object[]> batch = new LinkedList<>();
-		int batchSize = 0;
+	/**
+	 * Group the rows of the given input into batches that are no larger than the
+	 * given number of bytes, and pass each batch to the given consumer. A batch
+	 * will always contain at least one row even if the size of the row is larger
+	 * than maxBytesPerBatch. The same list is reused for each batch so the
+	 * consumer must not hold a reference to it.
+	 * 
+	 * @param input
+	 * @param maxBytesPerBatch
+	 * @param consumer
+	 */
+	static void pushInBatches(Iterator<String[]> input, long maxBytesPerBatch, Consumer<List<Object[]>> consumer) {
+		List<Object[]> batch = new ArrayList<>();
+		long batchSize = 0;
 		while (input.hasNext()) {
 			String[] row = input.next();
 			long rowSize = SQLUtils.calculateBytes(row);
-			if (batchSize + rowSize > maxBytesPerBatch) {
-				template.batchUpdate(sql, batch);
+			if (!batch.isEmpty() && batchSize + rowSize > maxBytesPerBatch) {
+				consumer.accept(batch);
 				batch.clear();
+				batchSize = 0;
 			}
 			batch.add(row);
 			batchSize += rowSize;
 		}
 
 		if (!batch.isEmpty()) {
-			template.batchUpdate(sql, batch);
+			consumer.accept(batch);
 		}
 	}
 	
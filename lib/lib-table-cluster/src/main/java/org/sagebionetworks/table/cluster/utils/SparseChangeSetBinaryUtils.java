@@ -0,0 +1,414 @@
+package org.sagebionetworks.table.cluster.utils;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.sagebionetworks.repo.model.table.SparseChangeSetDto;
+import org.sagebionetworks.repo.model.table.SparseRowDto;
+import org.sagebionetworks.util.ValidateArgument;
+
+/**
+ * Compact binary encoding of a {@link SparseChangeSetDto}.
+ * <p>
+ * A file starts with the {@link #MAGIC} bytes followed by the format version,
+ * the rest of the file is deflated. The rows are stored by column: first the
+ * flags of each row, then the row IDs and versions as deltas from the previous
+ * row, then the row etags. The IDs of all columns with values are written once
+ * to a dictionary and the cells of each column are written together, each
+ * cell keyed by the delta of its row index. Cells that are exactly the
+ * canonical form of a long or a boolean are written in binary, all other cells
+ * are written as UTF-8.
+ *
+ */
+public class SparseChangeSetBinaryUtils {
+
+	/**
+	 * Never a valid start of a GZIP (0x1f 0x8b) file.
+	 */
+	public static final byte[] MAGIC = new byte[] { 'S', 'C', 'S' };
+	public static final int FORMAT_VERSION = 1;
+	public static final int HEADER_SIZE = MAGIC.length + 1;
+
+	static final int HAS_ROW_ID = 1;
+	static final int HAS_VERSION = 1 << 1;
+	static final int HAS_ETAG = 1 << 2;
+	static final int HAS_VALUES = 1 << 3;
+
+	static final int CELL_NULL = 0;
+	static final int CELL_STRING = 1;
+	static final int CELL_LONG = 2;
+	static final int CELL_TRUE = 3;
+	static final int CELL_FALSE = 4;
+
+	/**
+	 * Does the given header start a file written with
+	 * {@link #writeSparseChangeSet(SparseChangeSetDto, OutputStream)}?
+	 *
+	 * @param header The first bytes of the file.
+	 * @return
+	 */
+	public static boolean isBinaryFormat(byte[] header) {
+		if (header == null || header.length < MAGIC.length) {
+			return false;
+		}
+		return Arrays.equals(MAGIC, Arrays.copyOf(header, MAGIC.length));
+	}
+
+	/**
+	 * Write the given change set to the given stream. The stream is closed when
+	 * done.
+	 *
+	 * @param set
+	 * @param out
+	 * @throws IOException
+	 */
+	public static void writeSparseChangeSet(SparseChangeSetDto set, OutputStream out) throws IOException {
+		ValidateArgument.required(set, "set");
+		ValidateArgument.required(out, "out");
+		Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+		try {
+			out.write(MAGIC);
+			out.write(FORMAT_VERSION);
+			try (DataOutputStream data = new DataOutputStream(
+					new BufferedOutputStream(new DeflaterOutputStream(out, deflater)))) {
+				writeBody(set, data);
+			}
+		} finally {
+			deflater.end();
+			out.close();
+		}
+	}
+
+	/**
+	 * Read a change set written with
+	 * {@link #writeSparseChangeSet(SparseChangeSetDto, OutputStream)}. The rows
+	 * are decoded directly from the stream.
+	 *
+	 * @param in
+	 * @return
+	 * @throws IOException
+	 */
+	public static SparseChangeSetDto readSparseChangeSet(InputStream in) throws IOException {
+		ValidateArgument.required(in, "in");
+		byte[] header = new byte[HEADER_SIZE];
+		new DataInputStream(in).readFully(header);
+		if (!isBinaryFormat(header)) {
+			throw new IOException("Not a binary change set");
+		}
+		int version = header[MAGIC.length];
+		if (version != FORMAT_VERSION) {
+			throw new IOException("Unsupported change set format version: " + version);
+		}
+		try (DataInputStream data = new DataInputStream(new BufferedInputStream(new InflaterInputStream(in)))) {
+			return readBody(data);
+		}
+	}
+
+	static void writeBody(SparseChangeSetDto set, DataOutputStream out) throws IOException {
+		writeNullableString(set.getTableId(), out);
+		writeNullableString(set.getEtag(), out);
+		writeNullableSize(set.getColumnIds(), out);
+		if (set.getColumnIds() != null) {
+			for (String columnId : set.getColumnIds()) {
+				writeString(columnId, out);
+			}
+		}
+		List<SparseRowDto> rows = set.getRows();
+		writeNullableSize(rows, out);
+		if (rows == null) {
+			return;
+		}
+		// flags of each row
+		for (SparseRowDto row : rows) {
+			out.writeByte(getFlags(row));
+		}
+		// row IDs and versions are mostly ascending so they are written as deltas
+		long previous = 0L;
+		for (SparseRowDto row : rows) {
+			if (row.getRowId() != null) {
+				writeSignedVarLong(row.getRowId() - previous, out);
+				previous = row.getRowId();
+			}
+		}
+		previous = 0L;
+		for (SparseRowDto row : rows) {
+			if (row.getVersionNumber() != null) {
+				writeSignedVarLong(row.getVersionNumber() - previous, out);
+				previous = row.getVersionNumber();
+			}
+		}
+		for (SparseRowDto row : rows) {
+			if (row.getEtag() != null) {
+				writeString(row.getEtag(), out);
+			}
+		}
+		// Gather the row index of each cell by column.
+		Map<String, List<Integer>> columnRows = new LinkedHashMap<>();
+		for (int i = 0; i < rows.size(); i++) {
+			Map<String, String> values = rows.get(i).getValues();
+			if (values != null) {
+				for (String columnId : values.keySet()) {
+					columnRows.computeIfAbsent(columnId, (String key) -> new ArrayList<>()).add(i);
+				}
+			}
+		}
+		writeVarLong(columnRows.size(), out);
+		for (String columnId : columnRows.keySet()) {
+			writeString(columnId, out);
+		}
+		for (Map.Entry<String, List<Integer>> column : columnRows.entrySet()) {
+			List<Integer> rowIndices = column.getValue();
+			writeVarLong(rowIndices.size(), out);
+			int previousIndex = 0;
+			for (Integer rowIndex : rowIndices) {
+				writeVarLong(rowIndex - previousIndex, out);
+				previousIndex = rowIndex;
+				writeCell(rows.get(rowIndex).getValues().get(column.getKey()), out);
+			}
+		}
+	}
+
+	static SparseChangeSetDto readBody(DataInputStream in) throws IOException {
+		SparseChangeSetDto set = new SparseChangeSetDto();
+		set.setTableId(readNullableString(in));
+		set.setEtag(readNullableString(in));
+		int columnIdCount = readNullableSize(in);
+		if (columnIdCount >= 0) {
+			List<String> columnIds = new ArrayList<>(columnIdCount);
+			for (int i = 0; i < columnIdCount; i++) {
+				columnIds.add(readString(in));
+			}
+			set.setColumnIds(columnIds);
+		}
+		int rowCount = readNullableSize(in);
+		if (rowCount < 0) {
+			return set;
+		}
+		List<SparseRowDto> rows = new ArrayList<>(rowCount);
+		int[] flags = new int[rowCount];
+		for (int i = 0; i < rowCount; i++) {
+			flags[i] = in.readUnsignedByte();
+			SparseRowDto row = new SparseRowDto();
+			if ((flags[i] & HAS_VALUES) != 0) {
+				row.setValues(new LinkedHashMap<>());
+			}
+			rows.add(row);
+		}
+		long previous = 0L;
+		for (int i = 0; i < rowCount; i++) {
+			if ((flags[i] & HAS_ROW_ID) != 0) {
+				previous += readSignedVarLong(in);
+				rows.get(i).setRowId(previous);
+			}
+		}
+		previous = 0L;
+		for (int i = 0; i < rowCount; i++) {
+			if ((flags[i] & HAS_VERSION) != 0) {
+				previous += readSignedVarLong(in);
+				rows.get(i).setVersionNumber(previous);
+			}
+		}
+		for (int i = 0; i < rowCount; i++) {
+			if ((flags[i] & HAS_ETAG) != 0) {
+				rows.get(i).setEtag(readString(in));
+			}
+		}
+		String[] dictionary = new String[readSize(in)];
+		for (int i = 0; i < dictionary.length; i++) {
+			dictionary[i] = readString(in);
+		}
+		for (String columnId : dictionary) {
+			int cellCount = readSize(in);
+			int rowIndex = 0;
+			for (int i = 0; i < cellCount; i++) {
+				rowIndex += readSize(in);
+				if (rowIndex >= rowCount || (flags[rowIndex] & HAS_VALUES) == 0) {
+					throw new IOException("Invalid row index: " + rowIndex);
+				}
+				rows.get(rowIndex).getValues().put(columnId, readCell(in));
+			}
+		}
+		set.setRows(rows);
+		return set;
+	}
+
+	static int getFlags(SparseRowDto row) {
+		int flags = 0;
+		if (row.getRowId() != null) {
+			flags |= HAS_ROW_ID;
+		}
+		if (row.getVersionNumber() != null) {
+			flags |= HAS_VERSION;
+		}
+		if (row.getEtag() != null) {
+			flags |= HAS_ETAG;
+		}
+		if (row.getValues() != null) {
+			flags |= HAS_VALUES;
+		}
+		return flags;
+	}
+
+	static void writeCell(String value, DataOutputStream out) throws IOException {
+		if (value == null) {
+			out.writeByte(CELL_NULL);
+		} else if ("true".equals(value)) {
+			out.writeByte(CELL_TRUE);
+		} else if ("false".equals(value)) {
+			out.writeByte(CELL_FALSE);
+		} else if (isCanonicalLong(value)) {
+			out.writeByte(CELL_LONG);
+			writeSignedVarLong(Long.parseLong(value), out);
+		} else {
+			out.writeByte(CELL_STRING);
+			writeString(value, out);
+		}
+	}
+
+	static String readCell(DataInputStream in) throws IOException {
+		int type = in.readUnsignedByte();
+		switch (type) {
+		case CELL_NULL:
+			return null;
+		case CELL_TRUE:
+			return "true";
+		case CELL_FALSE:
+			return "false";
+		case CELL_LONG:
+			return Long.toString(readSignedVarLong(in));
+		case CELL_STRING:
+			return readString(in);
+		default:
+			throw new IOException("Unknown cell type: " + type);
+		}
+	}
+
+	/**
+	 * Is the given value exactly the string form of a long? Only such values can
+	 * be written as a long and read back unchanged.
+	 *
+	 * @param value
+	 * @return
+	 */
+	static boolean isCanonicalLong(String value) {
+		int start = value.startsWith("-") ? 1 : 0;
+		int digits = value.length() - start;
+		if (digits < 1 || digits > 19) {
+			return false;
+		}
+		if (value.charAt(start) == '0' && (digits > 1 || start == 1)) {
+			// leading zeros and negative zero
+			return false;
+		}
+		for (int i = start; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c < '0' || c > '9') {
+				return false;
+			}
+		}
+		try {
+			Long.parseLong(value);
+			return true;
+		} catch (NumberFormatException e) {
+			// out of range
+			return false;
+		}
+	}
+
+	static void writeNullableSize(List<?> list, DataOutputStream out) throws IOException {
+		writeVarLong(list == null ? 0 : list.size() + 1L, out);
+	}
+
+	/**
+	 * @return -1 for a null list.
+	 */
+	static int readNullableSize(DataInputStream in) throws IOException {
+		return readSize(in) - 1;
+	}
+
+	static int readSize(DataInputStream in) throws IOException {
+		long size = readVarLong(in);
+		if (size < 0 || size > Integer.MAX_VALUE) {
+			throw new IOException("Invalid size: " + size);
+		}
+		return (int) size;
+	}
+
+	static void writeNullableString(String value, DataOutputStream out) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			writeString(value, out);
+		}
+	}
+
+	static String readNullableString(DataInputStream in) throws IOException {
+		return in.readBoolean() ? readString(in) : null;
+	}
+
+	static void writeString(String value, DataOutputStream out) throws IOException {
+		byte[] bytes = value.getBytes(UTF_8);
+		writeVarLong(bytes.length, out);
+		out.write(bytes);
+	}
+
+	static String readString(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[readSize(in)];
+		in.readFully(bytes);
+		return new String(bytes, UTF_8);
+	}
+
+	/**
+	 * Write a signed value using zig-zag encoding so small negative values are
+	 * also short.
+	 */
+	static void writeSignedVarLong(long value, DataOutputStream out) throws IOException {
+		writeVarLong((value << 1) ^ (value >> 63), out);
+	}
+
+	static long readSignedVarLong(DataInputStream in) throws IOException {
+		long value = readVarLong(in);
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	/**
+	 * Write the given value seven bits at a time, least significant group first.
+	 */
+	static void writeVarLong(long value, DataOutputStream out) throws IOException {
+		while ((value & ~0x7FL) != 0) {
+			out.writeByte((int) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		out.writeByte((int) value);
+	}
+
+	static long readVarLong(DataInputStream in) throws IOException {
+		long value = 0L;
+		for (int shift = 0; shift < 64; shift += 7) {
+			int next = in.read();
+			if (next < 0) {
+				throw new EOFException();
+			}
+			value |= (long) (next & 0x7F) << shift;
+			if ((next & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IOException("Malformed variable length long");
+	}
+}
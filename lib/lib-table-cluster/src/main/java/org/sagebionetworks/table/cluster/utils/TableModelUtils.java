@@ -1,5 +1,6 @@
 package org.sagebionetworks.table.cluster.utils;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -438,6 +439,29 @@ public class TableModelUtils {
 		}
 	}
 	
+	/**
+	 * Read a SparseChangeSetDto from the passed stream. The stream can either be
+	 * in the binary format written by
+	 * {@link SparseChangeSetBinaryUtils#writeSparseChangeSet(SparseChangeSetDto, OutputStream)}
+	 * or GZIP compressed JSON written by
+	 * {@link #writeSparesChangeSetToGz(SparseChangeSetDto, OutputStream)}.
+	 * 
+	 * @param in
+	 * @return
+	 * @throws IOException
+	 */
+	public static SparseChangeSetDto readSparseChangeSetDto(InputStream in) throws IOException {
+		BufferedInputStream buffered = new BufferedInputStream(in);
+		buffered.mark(SparseChangeSetBinaryUtils.HEADER_SIZE);
+		byte[] header = new byte[SparseChangeSetBinaryUtils.HEADER_SIZE];
+		int read = IOUtils.read(buffered, header);
+		buffered.reset();
+		if (read == header.length && SparseChangeSetBinaryUtils.isBinaryFormat(header)) {
+			return SparseChangeSetBinaryUtils.readSparseChangeSet(buffered);
+		}
+		return readSparseChangeSetDtoFromGzStream(buffered);
+	}
+	
 	/**
 	 * Read GZIP compressed JSON from the passed stream.
 	 * 
@@ -0,0 +1,43 @@
+package org.sagebionetworks.table.cluster;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+import org.sagebionetworks.repo.model.entity.IdAndVersion;
+
+public class ConnectionFactoryImplUnitTest {
+
+	@Test
+	public void testGetShardIndexWithSingleShard() {
+		assertEquals(0, ConnectionFactoryImpl.getShardIndex(IdAndVersion.parse("syn123"), 1));
+	}
+
+	@Test
+	public void testGetShardIndexWithMultipleShards() {
+		assertEquals(0, ConnectionFactoryImpl.getShardIndex(IdAndVersion.parse("syn123"), 3));
+		assertEquals(1, ConnectionFactoryImpl.getShardIndex(IdAndVersion.parse("syn124"), 3));
+		assertEquals(2, ConnectionFactoryImpl.getShardIndex(IdAndVersion.parse("syn125"), 3));
+	}
+
+	@Test
+	public void testGetShardIndexWithVersion() {
+		// all versions of a table must be on the same shard.
+		assertEquals(ConnectionFactoryImpl.getShardIndex(IdAndVersion.parse("syn124"), 3),
+				ConnectionFactoryImpl.getShardIndex(IdAndVersion.parse("syn124.4"), 3));
+	}
+
+	@Test
+	public void testGetShardIndexWithNullTableId() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			ConnectionFactoryImpl.getShardIndex(null, 3);
+		});
+	}
+
+	@Test
+	public void testGetShardIndexWithNoShards() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			ConnectionFactoryImpl.getShardIndex(IdAndVersion.parse("syn123"), 0);
+		});
+	}
+}
@@ -2789,6 +2789,14 @@ public class SQLUtilsTest {
 		assertEquals("INSERT INTO T999_23 (foo,bar) VALUES  (?,?)", sql);
 	}
 	
+	@Test
+	public void testCreateSelectAllFromIndex() {
+		tableId = IdAndVersion.parse("syn999");
+		// call under test
+		String sql = SQLUtils.createSelectAllFromIndex(tableId);
+		assertEquals("SELECT * FROM T999 ORDER BY ROW_ID", sql);
+	}
+	
 	@Test
 	public void testCalcualteBytes() {
 		String[] row = new String[] {"foo","barbar"};
@@ -78,6 +78,7 @@ import org.sagebionetworks.table.query.util.SqlElementUntils;
 import org.sagebionetworks.util.Callback;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
@@ -228,6 +229,16 @@ public class TableIndexDAOImplTest {
 		EntityView entityView = new EntityView();
 		assertTrue(entityView instanceof Table);
 	}
+	
+	@Test
+	public void testExecuteInReadTransactionWithTimeout() {
+		assertThrows(QueryTimeoutException.class, () -> {
+			// call under test
+			tableIndexDAO.executeInReadTransaction(1, status -> {
+				return tableIndexDAO.getConnection().queryForObject("SELECT SLEEP(5)", Long.class);
+			});
+		});
+	}
 
 	@Test
 	public void testCRUD() {
@@ -376,6 +387,43 @@ public class TableIndexDAOImplTest {
 		assertEquals(new Long(0), count);
 	}
 
+	@Test
+	public void testStreamTableIndexData() {
+		List<ColumnModel> allTypes = TableModelTestUtils.createOneOfEachType();
+		createOrUpdateTable(allTypes, tableId, isView);
+		List<Row> rows = TableModelTestUtils.createRows(allTypes, 4);
+		createOrUpdateOrDeleteRows(tableId, rows, allTypes);
+		
+		InMemoryCSVWriterStream stream = new InMemoryCSVWriterStream();
+		// call under test
+		tableIndexDAO.streamTableIndexData(tableId, stream);
+		List<String[]> snapshot = stream.getRows();
+		// one header plus each row.
+		assertEquals(rows.size() + 1, snapshot.size());
+		assertEquals(getAllColumnInfo(tableId).size(), snapshot.get(0).length);
+		
+		// the data can be restored to an empty index.
+		tableIndexDAO.truncateTable(tableId);
+		tableIndexDAO.populateViewFromSnapshot(tableId, snapshot.iterator(), 1000);
+		InMemoryCSVWriterStream restored = new InMemoryCSVWriterStream();
+		tableIndexDAO.streamTableIndexData(tableId, restored);
+		assertEquals(snapshot.size(), restored.getRows().size());
+		for (int i = 0; i < snapshot.size(); i++) {
+			assertArrayEquals(snapshot.get(i), restored.getRows().get(i));
+		}
+	}
+	
+	@Test
+	public void testStreamTableIndexDataWithEmptyTable() {
+		List<ColumnModel> allTypes = TableModelTestUtils.createOneOfEachType();
+		createOrUpdateTable(allTypes, tableId, isView);
+		InMemoryCSVWriterStream stream = new InMemoryCSVWriterStream();
+		// call under test
+		tableIndexDAO.streamTableIndexData(tableId, stream);
+		// only the header is written.
+		assertEquals(1, stream.getRows().size());
+	}
+
 	@Test
 	public void testGetMaxVersionForTable() {
 		tableIndexDAO.createSecondaryTables(tableId);
@@ -2052,6 +2100,37 @@ public class TableIndexDAOImplTest {
 		assertEquals(rows.size()-1, count);
 	}
 	
+	@Test
+	public void testPushInBatches() {
+		// each row is 8 bytes.
+		List<String[]> rows = Lists.newArrayList(new String[] { "a", "b" }, new String[] { "c", "d" },
+				new String[] { "e", "f" }, new String[] { "g", "h" }, new String[] { "i", null });
+		List<Integer> batchSizes = new ArrayList<>();
+		List<Object[]> pushed = new ArrayList<>();
+		long maxBytesPerBatch = 16;
+		// call under test
+		TableIndexDAOImpl.pushInBatches(rows.iterator(), maxBytesPerBatch, (List<Object[]> batch) -> {
+			batchSizes.add(batch.size());
+			pushed.addAll(batch);
+		});
+		// the size of each batch must be reset after each push.
+		assertEquals(Arrays.asList(2, 2, 1), batchSizes);
+		assertEquals(rows, pushed);
+	}
+	
+	@Test
+	public void testPushInBatchesWithRowLargerThanMax() {
+		List<String[]> rows = Lists.newArrayList(new String[] { "a" }, new String[] { "too big" }, new String[] { "b" });
+		List<Integer> batchSizes = new ArrayList<>();
+		long maxBytesPerBatch = 4;
+		// call under test
+		TableIndexDAOImpl.pushInBatches(rows.iterator(), maxBytesPerBatch, (List<Object[]> batch) -> {
+			batchSizes.add(batch.size());
+		});
+		// a batch is never empty.
+		assertEquals(Arrays.asList(1, 1, 1), batchSizes);
+	}
+	
 	@Test
 	public void testCreateViewSnapshotFromEntityReplicationEmptyScope() {
 		// empty scope
@@ -0,0 +1,167 @@
+package org.sagebionetworks.table.cluster.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.sagebionetworks.repo.model.table.SparseChangeSetDto;
+import org.sagebionetworks.repo.model.table.SparseRowDto;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
+
+public class SparseChangeSetBinaryUtilsTest {
+
+	SparseChangeSetDto dto;
+
+	@BeforeEach
+	public void before() {
+		dto = new SparseChangeSetDto();
+		dto.setTableId("syn123");
+		dto.setEtag("etag");
+		dto.setColumnIds(Lists.newArrayList("1", "2", "3"));
+		SparseRowDto one = new SparseRowDto();
+		one.setRowId(100L);
+		one.setVersionNumber(3L);
+		one.setEtag("rowEtag");
+		Map<String, String> values = new HashMap<>();
+		values.put("1", "foo");
+		values.put("2", "-123");
+		one.setValues(values);
+		SparseRowDto two = new SparseRowDto();
+		two.setRowId(99L);
+		two.setVersionNumber(4L);
+		values = new HashMap<>();
+		values.put("1", "true");
+		values.put("3", "007");
+		two.setValues(values);
+		SparseRowDto three = new SparseRowDto();
+		three.setRowId(101L);
+		dto.setRows(Lists.newArrayList(one, two, three));
+	}
+
+	SparseChangeSetDto roundTrip(SparseChangeSetDto set) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		SparseChangeSetBinaryUtils.writeSparseChangeSet(set, out);
+		return SparseChangeSetBinaryUtils.readSparseChangeSet(new ByteArrayInputStream(out.toByteArray()));
+	}
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		// call under test
+		SparseChangeSetDto copy = roundTrip(dto);
+		assertEquals(dto, copy);
+	}
+
+	@Test
+	public void testRoundTripWithEmpty() throws IOException {
+		SparseChangeSetDto empty = new SparseChangeSetDto();
+		// call under test
+		assertEquals(empty, roundTrip(empty));
+		empty.setColumnIds(Collections.emptyList());
+		empty.setRows(Lists.newArrayList(new SparseRowDto()));
+		empty.getRows().get(0).setValues(new HashMap<>());
+		// call under test
+		assertEquals(empty, roundTrip(empty));
+	}
+
+	@Test
+	public void testRoundTripWithCellTypes() throws IOException {
+		Map<String, String> values = new HashMap<>();
+		values.put("1", "0");
+		values.put("2", "-0");
+		values.put("3", Long.toString(Long.MIN_VALUE));
+		values.put("4", Long.toString(Long.MAX_VALUE));
+		values.put("5", "9223372036854775808");
+		values.put("6", "false");
+		values.put("7", "True");
+		values.put("8", "");
+		values.put("9", "1.5");
+		values.put("10", "é中😀");
+		values.put("11", Strings.repeat("large", 100_000));
+		values.put("12", "-");
+		values.put("13", null);
+		dto.getRows().get(0).setValues(values);
+		// call under test
+		assertEquals(dto, roundTrip(dto));
+	}
+
+	@Test
+	public void testSmallerThanGzipJson() throws IOException {
+		for (long i = 0; i < 1000; i++) {
+			SparseRowDto row = new SparseRowDto();
+			row.setRowId(1000 + i);
+			row.setVersionNumber(5L);
+			Map<String, String> values = new HashMap<>();
+			values.put("1", Long.toString(i * 7));
+			values.put("2", "value" + i);
+			row.setValues(values);
+			dto.getRows().add(row);
+		}
+		ByteArrayOutputStream json = new ByteArrayOutputStream();
+		TableModelUtils.writeSparesChangeSetToGz(dto, json);
+		ByteArrayOutputStream binary = new ByteArrayOutputStream();
+		// call under test
+		SparseChangeSetBinaryUtils.writeSparseChangeSet(dto, binary);
+		assertTrue(binary.size() < json.size(), "binary: " + binary.size() + " json: " + json.size());
+	}
+
+	@Test
+	public void testIsBinaryFormat() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		SparseChangeSetBinaryUtils.writeSparseChangeSet(dto, out);
+		assertTrue(SparseChangeSetBinaryUtils.isBinaryFormat(out.toByteArray()));
+		out = new ByteArrayOutputStream();
+		TableModelUtils.writeSparesChangeSetToGz(dto, out);
+		assertFalse(SparseChangeSetBinaryUtils.isBinaryFormat(out.toByteArray()));
+		assertFalse(SparseChangeSetBinaryUtils.isBinaryFormat(new byte[] { 'S' }));
+		assertFalse(SparseChangeSetBinaryUtils.isBinaryFormat(null));
+	}
+
+	@Test
+	public void testReadWithUnknownVersion() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		SparseChangeSetBinaryUtils.writeSparseChangeSet(dto, out);
+		byte[] bytes = out.toByteArray();
+		bytes[SparseChangeSetBinaryUtils.MAGIC.length] = 2;
+		String message = assertThrows(IOException.class, () -> {
+			// call under test
+			SparseChangeSetBinaryUtils.readSparseChangeSet(new ByteArrayInputStream(bytes));
+		}).getMessage();
+		assertEquals("Unsupported change set format version: 2", message);
+	}
+
+	@Test
+	public void testReadWithGzipJson() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		TableModelUtils.writeSparesChangeSetToGz(dto, out);
+		assertThrows(IOException.class, () -> {
+			// call under test
+			SparseChangeSetBinaryUtils.readSparseChangeSet(new ByteArrayInputStream(out.toByteArray()));
+		});
+	}
+
+	@Test
+	public void testIsCanonicalLong() {
+		assertTrue(SparseChangeSetBinaryUtils.isCanonicalLong("0"));
+		assertTrue(SparseChangeSetBinaryUtils.isCanonicalLong("-1"));
+		assertTrue(SparseChangeSetBinaryUtils.isCanonicalLong("1234567890"));
+		assertFalse(SparseChangeSetBinaryUtils.isCanonicalLong(""));
+		assertFalse(SparseChangeSetBinaryUtils.isCanonicalLong("-"));
+		assertFalse(SparseChangeSetBinaryUtils.isCanonicalLong("-0"));
+		assertFalse(SparseChangeSetBinaryUtils.isCanonicalLong("01"));
+		assertFalse(SparseChangeSetBinaryUtils.isCanonicalLong("+1"));
+		assertFalse(SparseChangeSetBinaryUtils.isCanonicalLong("1e3"));
+		assertFalse(SparseChangeSetBinaryUtils.isCanonicalLong("9223372036854775808"));
+	}
+}
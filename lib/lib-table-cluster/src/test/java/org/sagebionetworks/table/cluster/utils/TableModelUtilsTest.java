@@ -1518,6 +1518,32 @@ public class TableModelUtilsTest {
 		SparseChangeSetDto copy = TableModelUtils.readSparseChangeSetDtoFromGzStream(new ByteArrayInputStream(out.toByteArray()));
 		assertEquals(dto, copy);
 	}
+
+	@Test
+	public void testReadSparseChangeSetDto() throws IOException{
+		SparseChangeSetDto dto = new SparseChangeSetDto();
+		dto.setTableId("syn123");
+		dto.setColumnIds(Lists.newArrayList("1","2","3"));
+		SparseRowDto rowDto = new SparseRowDto();
+		rowDto.setRowId(0L);
+		rowDto.setVersionNumber(101L);
+		Map<String, String> values = new HashMap<String, String>();
+		values.put("1", "foo");
+		values.put("2", "bar");
+		rowDto.setValues(values);
+		dto.setRows(Lists.newArrayList(rowDto));
+
+		ByteArrayOutputStream binary = new ByteArrayOutputStream();
+		SparseChangeSetBinaryUtils.writeSparseChangeSet(dto, binary);
+		// call under test
+		assertEquals(dto, TableModelUtils.readSparseChangeSetDto(new ByteArrayInputStream(binary.toByteArray())));
+
+		// change sets written before the binary format are still read as JSON.
+		ByteArrayOutputStream json = new ByteArrayOutputStream();
+		TableModelUtils.writeSparesChangeSetToGz(dto, json);
+		// call under test
+		assertEquals(dto, TableModelUtils.readSparseChangeSetDto(new ByteArrayInputStream(json.toByteArray())));
+	}
 	
 
 	@Test
@@ -1,5 +1,8 @@
 package org.sagebionetworks.table.query.model;
 
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -9,7 +12,27 @@ import java.util.List;
  * An element that be serialized to SQL.
  *
  */
-public abstract class SQLElement implements Element {
+public abstract class SQLElement implements Element, Cloneable {
+	
+	/**
+	 * The instance fields declared by each element type that must be copied by
+	 * {@link #deepCopy()}.
+	 */
+	private static final ClassValue<List<Field>> COPY_FIELDS = new ClassValue<List<Field>>() {
+		@Override
+		protected List<Field> computeValue(Class<?> type) {
+			List<Field> fields = new ArrayList<>();
+			for (Class<?> current = type; current != SQLElement.class; current = current.getSuperclass()) {
+				for (Field field : current.getDeclaredFields()) {
+					if (!Modifier.isStatic(field.getModifiers())) {
+						field.setAccessible(true);
+						fields.add(field);
+					}
+				}
+			}
+			return fields;
+		}
+	};
 	
 	Element parent;
 		
@@ -235,5 +258,63 @@ public abstract class SQLElement implements Element {
 		}
 		return this.parent.isInContext(type);
 	}
-	
+
+	/**
+	 * Create a deep copy of this element and all of its children. The copy does
+	 * not share any elements with this tree so either tree can be modified
+	 * without changing the other. The copy is the root of a new tree so its
+	 * parent is null.
+	 * 
+	 * Copying a tree is much cheaper than writing it to SQL and parsing the
+	 * result.
+	 * 
+	 * @return
+	 */
+	public SQLElement deepCopy() {
+		SQLElement copy = copyRecursive();
+		copy.recursiveSetParent();
+		return copy;
+	}
+
+	/**
+	 * Copy this element and all of its children without setting the parents.
+	 * 
+	 * @return
+	 */
+	private SQLElement copyRecursive() {
+		try {
+			SQLElement copy = (SQLElement) super.clone();
+			copy.parent = null;
+			for (Field field : COPY_FIELDS.get(getClass())) {
+				field.set(copy, copyValue(field.get(this)));
+			}
+			return copy;
+		} catch (CloneNotSupportedException | IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Copy a single field value. Elements and lists are copied while all other
+	 * values (strings, numbers, booleans and enumerations) are immutable and
+	 * shared.
+	 * 
+	 * @param value
+	 * @return
+	 */
+	private static Object copyValue(Object value) {
+		if (value instanceof SQLElement) {
+			return ((SQLElement) value).copyRecursive();
+		}
+		if (value instanceof List) {
+			List<?> list = (List<?>) value;
+			List<Object> copy = new LinkedList<>();
+			for (Object item : list) {
+				copy.add(copyValue(item));
+			}
+			return copy;
+		}
+		return value;
+	}
+
 }
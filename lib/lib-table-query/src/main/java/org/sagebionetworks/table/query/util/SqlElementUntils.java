@@ -7,31 +7,40 @@ import org.sagebionetworks.repo.model.table.SortItem;
 import org.sagebionetworks.repo.model.table.TableConstants;
 import org.sagebionetworks.table.query.ParseException;
 import org.sagebionetworks.table.query.TableQueryParser;
+import org.sagebionetworks.table.query.model.ActualIdentifier;
 import org.sagebionetworks.table.query.model.BetweenPredicate;
 import org.sagebionetworks.table.query.model.BooleanFactor;
 import org.sagebionetworks.table.query.model.BooleanPredicate;
 import org.sagebionetworks.table.query.model.BooleanPrimary;
 import org.sagebionetworks.table.query.model.BooleanTerm;
 import org.sagebionetworks.table.query.model.BooleanTest;
+import org.sagebionetworks.table.query.model.ColumnName;
 import org.sagebionetworks.table.query.model.ColumnReference;
 import org.sagebionetworks.table.query.model.ComparisonPredicate;
 import org.sagebionetworks.table.query.model.DerivedColumn;
 import org.sagebionetworks.table.query.model.EscapeCharacter;
+import org.sagebionetworks.table.query.model.ExactNumericLiteral;
+import org.sagebionetworks.table.query.model.Factor;
 import org.sagebionetworks.table.query.model.FromClause;
 import org.sagebionetworks.table.query.model.GroupByClause;
 import org.sagebionetworks.table.query.model.GroupingColumnReference;
 import org.sagebionetworks.table.query.model.GroupingColumnReferenceList;
+import org.sagebionetworks.table.query.model.Identifier;
 import org.sagebionetworks.table.query.model.InPredicate;
 import org.sagebionetworks.table.query.model.InPredicateValue;
+import org.sagebionetworks.table.query.model.InValueList;
 import org.sagebionetworks.table.query.model.LikePredicate;
 import org.sagebionetworks.table.query.model.MatchValue;
 import org.sagebionetworks.table.query.model.NullPredicate;
+import org.sagebionetworks.table.query.model.NumericPrimary;
+import org.sagebionetworks.table.query.model.NumericValueExpression;
 import org.sagebionetworks.table.query.model.OrderByClause;
 import org.sagebionetworks.table.query.model.OrderingSpecification;
 import org.sagebionetworks.table.query.model.Pagination;
 import org.sagebionetworks.table.query.model.Pattern;
 import org.sagebionetworks.table.query.model.Predicate;
 import org.sagebionetworks.table.query.model.QuerySpecification;
+import org.sagebionetworks.table.query.model.RegularIdentifier;
 import org.sagebionetworks.table.query.model.RowValueConstructor;
 import org.sagebionetworks.table.query.model.RowValueConstructorElement;
 import org.sagebionetworks.table.query.model.RowValueConstructorList;
@@ -42,10 +51,16 @@ import org.sagebionetworks.table.query.model.SortKey;
 import org.sagebionetworks.table.query.model.SortSpecification;
 import org.sagebionetworks.table.query.model.SortSpecificationList;
 import org.sagebionetworks.table.query.model.TableExpression;
+import org.sagebionetworks.table.query.model.Term;
+import org.sagebionetworks.table.query.model.UnsignedLiteral;
+import org.sagebionetworks.table.query.model.UnsignedNumericLiteral;
+import org.sagebionetworks.table.query.model.UnsignedValueSpecification;
 import org.sagebionetworks.table.query.model.ValueExpression;
+import org.sagebionetworks.table.query.model.ValueExpressionPrimary;
 import org.sagebionetworks.table.query.model.WhereClause;
 import org.sagebionetworks.util.ValidateArgument;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
@@ -786,4 +801,81 @@ public class SqlElementUntils {
 			}
 		}
 	}
+
+	/**
+	 * Create a column reference for a regular (unquoted) column name without
+	 * parsing.
+	 * 
+	 * @param columnName
+	 * @return
+	 */
+	public static ColumnReference createRegularColumnReference(String columnName) {
+		ValidateArgument.required(columnName, "columnName");
+		return new ColumnReference(new ColumnName(new Identifier(new ActualIdentifier(new RegularIdentifier(columnName)))), null);
+	}
+
+	/**
+	 * Create a value expression for a single long literal without parsing.
+	 * 
+	 * @param value
+	 * @return
+	 */
+	public static ValueExpression createLongValueExpression(Long value) {
+		ValidateArgument.required(value, "value");
+		UnsignedLiteral literal = new UnsignedLiteral(new UnsignedNumericLiteral(new ExactNumericLiteral(value)));
+		NumericPrimary primary = new NumericPrimary(new ValueExpressionPrimary(new UnsignedValueSpecification(literal)));
+		return new ValueExpression(new NumericValueExpression(new Term(new Factor(null, primary))));
+	}
+
+	/**
+	 * Create a '<columnName> IN ( <values> )' predicate without parsing. Building
+	 * the elements directly avoids writing and parsing SQL for large value lists.
+	 * 
+	 * @param columnName
+	 * @param values     Must include at least one value.
+	 * @return
+	 */
+	public static InPredicate createInPredicate(String columnName, Collection<Long> values) {
+		ValidateArgument.required(values, "values");
+		ValidateArgument.requirement(!values.isEmpty(), "Values must include at least one value");
+		List<ValueExpression> valueExpressions = new LinkedList<>();
+		for (Long value : values) {
+			valueExpressions.add(createLongValueExpression(value));
+		}
+		return new InPredicate(createRegularColumnReference(columnName), null,
+				new InPredicateValue(new InValueList(valueExpressions)));
+	}
+
+	/**
+	 * Wrap the given boolean primary in a boolean factor.
+	 * 
+	 * @param booleanPrimary
+	 * @return
+	 */
+	public static BooleanFactor createBooleanFactor(BooleanPrimary booleanPrimary) {
+		ValidateArgument.required(booleanPrimary, "booleanPrimary");
+		return new BooleanFactor(null, new BooleanTest(booleanPrimary, null, null, null));
+	}
+
+	/**
+	 * Combine the search condition of the given where clause (if any) with the
+	 * given predicate: 'WHERE ( <original> ) AND <predicate>'. The original
+	 * search condition is always wrapped in parentheses so a top level 'OR' cannot
+	 * negate the appended predicate (See: PLFM-4036).
+	 * 
+	 * @param originalWhereClause Null if the query does not have a where clause.
+	 * @param predicate
+	 * @return
+	 */
+	public static WhereClause appendPredicateToWhereClause(WhereClause originalWhereClause, Predicate predicate) {
+		ValidateArgument.required(predicate, "predicate");
+		List<BooleanFactor> factors = new LinkedList<>();
+		if (originalWhereClause != null) {
+			factors.add(createBooleanFactor(new BooleanPrimary(originalWhereClause.getSearchCondition())));
+		}
+		factors.add(createBooleanFactor(new BooleanPrimary(predicate)));
+		List<BooleanTerm> terms = new LinkedList<>();
+		terms.add(new BooleanTerm(factors));
+		return new WhereClause(new SearchCondition(terms));
+	}
 }
@@ -3,10 +3,13 @@ package org.sagebionetworks.table.query;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 import org.junit.jupiter.api.Test;
 import org.sagebionetworks.table.query.model.Element;
@@ -92,4 +95,56 @@ public class QuerySpecificationTest {
 		assertTrue(whereClause.isInContext(QuerySpecification.class));
 	}
 
+	@Test
+	public void testDeepCopy() throws ParseException {
+		QuerySpecification original = new TableQueryParser(
+				"select foo, count(*) from syn123 where bar in (1,2) and foo like 'a%' group by foo order by foo desc limit 10 offset 2")
+						.querySpecification();
+		String originalSql = original.toSql();
+		// call under test
+		QuerySpecification copy = (QuerySpecification) original.deepCopy();
+		assertNotSame(original, copy);
+		assertEquals(originalSql, copy.toSql());
+		assertNull(copy.getParent());
+		// the copy must not share any elements with the original.
+		List<Element> originalElements = new ArrayList<>();
+		original.createAllElementsIterable().forEach(originalElements::add);
+		for (Element element : copy.createAllElementsIterable()) {
+			for (Element originalElement : originalElements) {
+				assertNotSame(originalElement, element);
+			}
+		}
+		// the parents of the copy must be within the copy.
+		WhereClause whereClause = copy.getFirstElementOfType(WhereClause.class);
+		assertTrue(whereClause.isInContext(QuerySpecification.class));
+		assertEquals(copy.getTableExpression(), whereClause.getParent());
+	}
+
+	@Test
+	public void testDeepCopyModifyCopy() throws ParseException {
+		QuerySpecification original = new TableQueryParser("select foo from syn123 where bar = 1").querySpecification();
+		QuerySpecification copy = (QuerySpecification) original.deepCopy();
+		// call under test
+		copy.getTableExpression().replaceWhere(null);
+		copy.replaceSelectList(SqlElementUntils.createSelectList("bar"));
+		assertEquals("SELECT bar FROM syn123", copy.toSql());
+		// the original must not change
+		assertEquals("SELECT foo FROM syn123 WHERE bar = 1", original.toSql());
+	}
+
+	/**
+	 * A copy of each example must produce the same SQL as the example.
+	 * 
+	 * @throws ParseException
+	 */
+	@Test
+	public void testDeepCopyAllExamples() throws ParseException {
+		for (SQLExample example : SQLExampleProvider.getSQLExamples()) {
+			QuerySpecification original = TableQueryParser.parserQuery(example.getSql());
+			// call under test
+			QuerySpecification copy = (QuerySpecification) original.deepCopy();
+			assertEquals(original.toSql(), copy.toSql());
+		}
+	}
+
 }
@@ -6,12 +6,16 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import com.google.common.collect.Lists;
+
+import java.util.Collections;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.sagebionetworks.repo.model.table.SortDirection;
 import org.sagebionetworks.repo.model.table.SortItem;
 import org.sagebionetworks.table.query.model.ComparisonPredicate;
 import org.sagebionetworks.table.query.model.DerivedColumn;
+import org.sagebionetworks.table.query.model.InPredicate;
+import org.sagebionetworks.table.query.model.Predicate;
 import org.sagebionetworks.table.query.model.QuerySpecification;
 import org.sagebionetworks.table.query.model.SortKey;
 import org.sagebionetworks.table.query.model.WhereClause;
@@ -475,5 +479,46 @@ public class SqlElementUntilsTest {
 		assertEquals(" WHERE ("+ whereClause.getSearchCondition().toSql() + ") AND (" + searchConditionString + ")", stringBuilder.toString());
 	}
 
+	@Test
+	public void testCreateInPredicateWithValues() throws ParseException {
+		InPredicate predicate = SqlElementUntils.createInPredicate("ROW_BENEFACTOR", Lists.newArrayList(456L, 123L));
+		assertEquals("ROW_BENEFACTOR IN ( 456, 123 )", predicate.toSql());
+		// must match the parsed equivalent.
+		assertEquals(new TableQueryParser("ROW_BENEFACTOR IN ( 456, 123 )").predicate().toSql(), predicate.toSql());
+	}
+
+	@Test
+	public void testCreateInPredicateWithNegativeValue() {
+		InPredicate predicate = SqlElementUntils.createInPredicate("ROW_BENEFACTOR", Collections.singleton(-1L));
+		assertEquals("ROW_BENEFACTOR IN ( -1 )", predicate.toSql());
+	}
+
+	@Test
+	public void testCreateInPredicateWithEmptyValues() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			SqlElementUntils.createInPredicate("ROW_BENEFACTOR", Collections.emptyList());
+		});
+	}
 
+	@Test
+	public void testCreateInPredicateWithNullColumnName() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			SqlElementUntils.createInPredicate(null, Collections.singleton(1L));
+		});
+	}
+
+	@Test
+	public void testAppendPredicateToWhereClause() throws ParseException {
+		WhereClause where = new TableQueryParser("where a = 1 or b = 2").whereClause();
+		Predicate predicate = new Predicate(SqlElementUntils.createInPredicate("ROW_BENEFACTOR", Collections.singleton(3L)));
+		WhereClause result = SqlElementUntils.appendPredicateToWhereClause(where, predicate);
+		assertEquals("WHERE ( a = 1 OR b = 2 ) AND ROW_BENEFACTOR IN ( 3 )", result.toSql());
+	}
+
+	@Test
+	public void testAppendPredicateToWhereClauseWithNullWhere() {
+		Predicate predicate = new Predicate(SqlElementUntils.createInPredicate("ROW_BENEFACTOR", Collections.singleton(3L)));
+		WhereClause result = SqlElementUntils.appendPredicateToWhereClause(null, predicate);
+		assertEquals("WHERE ROW_BENEFACTOR IN ( 3 )", result.toSql());
+	}
 }
@@ -0,0 +1,20 @@
+package org.sagebionetworks.kinesis;
+
+/**
+ * What {@link AwsKinesisFirehoseLogger#logBatchAsync(String, java.util.List, AwsKinesisBufferFullPolicy)} does with
+ * records that do not fit in the buffer of their stream.
+ */
+public enum AwsKinesisBufferFullPolicy {
+
+	/**
+	 * The records that do not fit are dropped and counted, the caller never waits for firehose.
+	 */
+	DROP,
+
+	/**
+	 * The caller sends the buffered records of the stream on its own thread to make room, so no record is lost but the
+	 * caller is slowed down to the rate firehose can accept.
+	 */
+	SEND_FROM_CALLER
+
+}
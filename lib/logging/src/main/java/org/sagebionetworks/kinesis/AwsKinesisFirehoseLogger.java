@@ -4,5 +4,24 @@ import java.util.List;
 
 public interface AwsKinesisFirehoseLogger {
 
+	/**
+	 * Sends the given records to the stream with the given suffix on the calling thread, returns once all the records are
+	 * delivered.
+	 * 
+	 * @param kinesisDataStreamSuffix
+	 * @param logRecords
+	 * @throws AwsKinesisDeliveryException If the records could not be delivered
+	 */
 	void logBatch(String kinesisDataStreamSuffix, List<? extends AwsKinesisLogRecord> logRecords) throws AwsKinesisDeliveryException;
+
+	/**
+	 * Serializes the given records and adds them to the bounded buffer of the stream with the given suffix, the buffered
+	 * records are sent by a background flusher so the caller does not wait for firehose. Records that fail delivery are
+	 * logged and counted but not reported to the caller.
+	 * 
+	 * @param kinesisDataStreamSuffix
+	 * @param logRecords
+	 * @param bufferFullPolicy        What to do when the buffer of the stream is full
+	 */
+	void logBatchAsync(String kinesisDataStreamSuffix, List<? extends AwsKinesisLogRecord> logRecords, AwsKinesisBufferFullPolicy bufferFullPolicy);
 }
@@ -1,86 +1,276 @@
 package org.sagebionetworks.kinesis;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.sagebionetworks.StackConfiguration;
+import org.sagebionetworks.cloudwatch.Consumer;
+import org.sagebionetworks.cloudwatch.ProfileData;
 import org.sagebionetworks.util.ValidateArgument;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
+import com.amazonaws.services.cloudwatch.model.StandardUnit;
+
 @Component
 public class AwsKinesisFirehoseLoggerImpl implements AwsKinesisFirehoseLogger {
 
+	private static final Logger LOG = LogManager.getLogger(AwsKinesisFirehoseLoggerImpl.class);
+
+	// Max number of records in the buffer of each stream
+	public static final int BUFFER_CAPACITY = 4096;
+
+	// Max size of the buffer of each stream, enough for a few full requests
+	public static final long BUFFER_MAX_BYTES = AwsKinesisFirehoseConstants.REQUEST_SIZE_LIMIT * 4L;
+
+	// How often the buffered records are sent
+	public static final long FLUSH_INTERVAL_MS = 1000;
+
+	public static final String METRIC_NAMESPACE_PREFIX = "Kinesis-Firehose-Logger-";
+	public static final String METRIC_DIMENSION_STREAM = "Stream";
+	public static final String METRIC_BUFFERED_RECORDS = "Buffered Records";
+	public static final String METRIC_DROPPED_RECORDS = "Dropped Records";
+	public static final String METRIC_CALLER_SENDS = "Caller Sends";
+	public static final String METRIC_FAILED_RECORDS = "Failed Records";
+
 	private AwsKinesisFirehoseBatchClient kinesisFirehoseBatchClient;
-	
+
 	private AwsKinesisLogRecordSerializer kinesisRecordSerializer;
-	
+
+	private Consumer consumer;
+
+	private ScheduledExecutorService flushExecutorService;
+
 	private String stack;
-	
+
 	private String instance;
 
+	// One buffer for each stream name
+	private Map<String, StreamBuffer> streamBuffers = new ConcurrentHashMap<>();
+
 	@Autowired
-	public AwsKinesisFirehoseLoggerImpl(AwsKinesisFirehoseBatchClient kinesisFirehoseBatchClient,  AwsKinesisLogRecordSerializer kinesisRecordSerializer) {
+	public AwsKinesisFirehoseLoggerImpl(AwsKinesisFirehoseBatchClient kinesisFirehoseBatchClient,  AwsKinesisLogRecordSerializer kinesisRecordSerializer, Consumer consumer,
+			@Qualifier("kinesisFirehoseFlushExecutorService") ScheduledExecutorService flushExecutorService) {
 		this.kinesisFirehoseBatchClient = kinesisFirehoseBatchClient;
 		this.kinesisRecordSerializer = kinesisRecordSerializer;
+		this.consumer = consumer;
+		this.flushExecutorService = flushExecutorService;
 	}
-	
+
 	@Autowired
 	public void configure(StackConfiguration stackConfiguration) {
 		this.stack = stackConfiguration.getStack();
 		this.instance = stackConfiguration.getStackInstance();
 	}
 
+	/**
+	 * Starts the background flusher, once the stack and instance are configured so the flusher never sends to a
+	 * stream name without them.
+	 */
+	@PostConstruct
+	public void startFlusher() {
+		flushExecutorService.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+	}
+
 	@Override
 	public void logBatch(String kinesisDataStreamSuffix, List<? extends AwsKinesisLogRecord> logRecords) {
 		ValidateArgument.required(kinesisDataStreamSuffix, "The kinesisDataStreamSuffix");
 		ValidateArgument.required(logRecords, "The logRecords");
-		
+
 		if (logRecords.isEmpty()) {
 			return;
 		}
-		
-		// Override the stack and instance if needed
-		logRecords.forEach( record-> {
-			if (record.getStack() == null) {
-				record.withStack(stack);
-			}
-			if (record.getInstance() == null) {
-				record.withInstance(instance);
-			}
-		});
+
+		setStackAndInstance(logRecords);
 
 		AwsKinesisRecordIterator recordIterator = new AwsKinesisRecordIterator(logRecords, kinesisRecordSerializer, AwsKinesisFirehoseConstants.RECORD_SIZE_LIMIT);
 
 		String streamName = kinesisStreamName(kinesisDataStreamSuffix);
-		
-		List<AwsKinesisRecord> batch = new LinkedList<>();
-		
-		int batchSize = 0;
-		
+
+		for (List<AwsKinesisRecord> batch : createBatches(() -> recordIterator.hasNext() ? recordIterator.next() : null)) {
+			kinesisFirehoseBatchClient.sendBatch(streamName, batch);
+		}
+
+	}
+
+	@Override
+	public void logBatchAsync(String kinesisDataStreamSuffix, List<? extends AwsKinesisLogRecord> logRecords, AwsKinesisBufferFullPolicy bufferFullPolicy) {
+		ValidateArgument.required(kinesisDataStreamSuffix, "The kinesisDataStreamSuffix");
+		ValidateArgument.required(logRecords, "The logRecords");
+		ValidateArgument.required(bufferFullPolicy, "The bufferFullPolicy");
+
+		if (logRecords.isEmpty()) {
+			return;
+		}
+
+		setStackAndInstance(logRecords);
+
+		// The records are serialized on the caller thread, so later changes to the records are not sent
+		AwsKinesisRecordIterator recordIterator = new AwsKinesisRecordIterator(logRecords, kinesisRecordSerializer, AwsKinesisFirehoseConstants.RECORD_SIZE_LIMIT);
+
+		String streamName = kinesisStreamName(kinesisDataStreamSuffix);
+
+		StreamBuffer buffer = streamBuffers.computeIfAbsent(streamName, name -> new StreamBuffer());
+
 		while (recordIterator.hasNext()) {
 			AwsKinesisRecord next = recordIterator.next();
-			
-			if (batchSize + next.size() > AwsKinesisFirehoseConstants.REQUEST_SIZE_LIMIT || batch.size() == AwsKinesisFirehoseConstants.PUT_BATCH_MAX_RECORD_LIMIT) {
+
+			while (!buffer.records.offer(next)) {
+				if (AwsKinesisBufferFullPolicy.DROP == bufferFullPolicy) {
+					buffer.droppedRecords.incrementAndGet();
+					break;
+				}
+				// Back pressure: the caller makes room by sending what is buffered
+				buffer.callerSends.incrementAndGet();
+				sendBuffered(streamName, buffer);
+			}
+		}
+	}
+
+	/**
+	 * Sends the buffered records of all the streams and pushes the buffer metrics. Called periodically by the
+	 * background flusher.
+	 */
+	@PreDestroy
+	public void flush() {
+		// An exception would stop the flusher, so nothing is thrown
+		try {
+			Date now = new Date();
+			List<ProfileData> metrics = new LinkedList<>();
+			streamBuffers.forEach((streamName, buffer) -> {
+				int bufferedRecords = buffer.records.size();
+				sendBuffered(streamName, buffer);
+				collectMetrics(streamName, buffer, bufferedRecords, now, metrics);
+			});
+			if (!metrics.isEmpty()) {
+				consumer.addProfileData(metrics);
+			}
+		} catch (Throwable e) {
+			LOG.error("Failed to flush the kinesis records.", e);
+		}
+	}
+
+	/**
+	 * Drains the given buffer and sends its records in batches, the records of a batch that cannot be delivered are
+	 * counted as failed.
+	 */
+	private void sendBuffered(String streamName, StreamBuffer buffer) {
+		for (List<AwsKinesisRecord> batch : createBatches(buffer.records::poll)) {
+			try {
 				kinesisFirehoseBatchClient.sendBatch(streamName, batch);
-				batch = new LinkedList<>();
+			} catch (Exception e) {
+				buffer.failedRecords.addAndGet(batch.size());
+				LOG.error("Failed to deliver a batch of {} buffered kinesis records to stream {}.", batch.size(), streamName, e);
+			}
+		}
+	}
+
+	private void collectMetrics(String streamName, StreamBuffer buffer, int bufferedRecords, Date now, List<ProfileData> metrics) {
+		long droppedRecords = buffer.droppedRecords.getAndSet(0);
+		long callerSends = buffer.callerSends.getAndSet(0);
+		long failedRecords = buffer.failedRecords.getAndSet(0);
+
+		// Idle streams are not reported
+		if (bufferedRecords == 0 && droppedRecords == 0 && callerSends == 0 && failedRecords == 0) {
+			return;
+		}
+
+		if (droppedRecords > 0) {
+			LOG.warn("Dropped {} kinesis records for stream {}, the buffer was full.", droppedRecords, streamName);
+		}
+
+		metrics.add(createProfileData(streamName, METRIC_BUFFERED_RECORDS, bufferedRecords, now));
+		metrics.add(createProfileData(streamName, METRIC_DROPPED_RECORDS, droppedRecords, now));
+		metrics.add(createProfileData(streamName, METRIC_CALLER_SENDS, callerSends, now));
+		metrics.add(createProfileData(streamName, METRIC_FAILED_RECORDS, failedRecords, now));
+	}
+
+	private ProfileData createProfileData(String streamName, String name, long value, Date timestamp) {
+		ProfileData profileData = new ProfileData();
+		profileData.setNamespace(METRIC_NAMESPACE_PREFIX + instance);
+		profileData.setName(name);
+		profileData.setValue((double) value);
+		profileData.setUnit(StandardUnit.Count.name());
+		profileData.setTimestamp(timestamp);
+		profileData.setDimension(Collections.singletonMap(METRIC_DIMENSION_STREAM, streamName));
+		return profileData;
+	}
+
+	/**
+	 * Groups the records given by the supplier in batches that fit in a single put request
+	 *
+	 * @param records Supplies the next record, or null when there are no more records
+	 * @return
+	 */
+	static List<List<AwsKinesisRecord>> createBatches(Supplier<AwsKinesisRecord> records) {
+		List<List<AwsKinesisRecord>> batches = new LinkedList<>();
+
+		List<AwsKinesisRecord> batch = new ArrayList<>();
+
+		int batchSize = 0;
+
+		for (AwsKinesisRecord next = records.get(); next != null; next = records.get()) {
+
+			if (batchSize + next.size() > AwsKinesisFirehoseConstants.REQUEST_SIZE_LIMIT || batch.size() == AwsKinesisFirehoseConstants.PUT_BATCH_MAX_RECORD_LIMIT) {
+				batches.add(batch);
+				batch = new ArrayList<>();
 				batchSize = 0;
 			}
 
 			// Always add to the next batch
 			batch.add(next);
 			batchSize += next.size();
-			
+
 		}
-		
+
 		if (!batch.isEmpty()) {
-			kinesisFirehoseBatchClient.sendBatch(streamName, batch);
+			batches.add(batch);
 		}
-		
+
+		return batches;
+	}
+
+	private void setStackAndInstance(List<? extends AwsKinesisLogRecord> logRecords) {
+		// Override the stack and instance if needed
+		logRecords.forEach( record-> {
+			if (record.getStack() == null) {
+				record.withStack(stack);
+			}
+			if (record.getInstance() == null) {
+				record.withInstance(instance);
+			}
+		});
 	}
-	
+
 	private String kinesisStreamName(String kinesisDataStreamSuffix) {
 		return stack + instance + kinesisDataStreamSuffix;
 	}
 
+	/**
+	 * The buffered records of a stream with the counters reported as metrics
+	 */
+	private static final class StreamBuffer {
+
+		private final AwsKinesisRecordBuffer records = new AwsKinesisRecordBuffer(BUFFER_CAPACITY, BUFFER_MAX_BYTES);
+		private final AtomicLong droppedRecords = new AtomicLong();
+		private final AtomicLong callerSends = new AtomicLong();
+		private final AtomicLong failedRecords = new AtomicLong();
+
+	}
+
 }
@@ -0,0 +1,136 @@
+package org.sagebionetworks.kinesis;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.sagebionetworks.util.ValidateArgument;
+
+/**
+ * A bounded lock-free ring buffer of {@link AwsKinesisRecord} that any number of threads can add to and drain
+ * concurrently. The buffer is bounded both by the number of records and by their total size in bytes.
+ * <p>
+ * Each slot of the ring has a sequence number that tells whether the slot is ready to be written for a given position
+ * or ready to be read, so a thread claims a position with a single compare and set and never waits for a lock (See
+ * the bounded MPMC queue by Dmitry Vyukov).
+ */
+public class AwsKinesisRecordBuffer {
+
+	private final int mask;
+	private final long maxBytes;
+	private final AtomicReferenceArray<AwsKinesisRecord> records;
+	private final AtomicLongArray sequences;
+	// The next position to write
+	private final AtomicLong tail;
+	// The next position to read
+	private final AtomicLong head;
+	private final AtomicLong bytes;
+
+	/**
+	 * @param capacity The max number of records in the buffer, must be a power of two
+	 * @param maxBytes The max total size of the records in the buffer
+	 */
+	public AwsKinesisRecordBuffer(int capacity, long maxBytes) {
+		ValidateArgument.requirement(capacity > 0 && Integer.bitCount(capacity) == 1, "The capacity must be a power of two.");
+		ValidateArgument.requirement(maxBytes >= AwsKinesisFirehoseConstants.RECORD_SIZE_LIMIT, "The maxBytes must be at least " + AwsKinesisFirehoseConstants.RECORD_SIZE_LIMIT);
+		this.mask = capacity - 1;
+		this.maxBytes = maxBytes;
+		this.records = new AtomicReferenceArray<>(capacity);
+		this.sequences = new AtomicLongArray(capacity);
+		for (int i = 0; i < capacity; i++) {
+			sequences.set(i, i);
+		}
+		this.tail = new AtomicLong();
+		this.head = new AtomicLong();
+		this.bytes = new AtomicLong();
+	}
+
+	/**
+	 * Adds the given record to the buffer if there is room for it
+	 *
+	 * @param record
+	 * @return True if the record was added, false if the buffer is full
+	 */
+	public boolean offer(AwsKinesisRecord record) {
+		ValidateArgument.required(record, "The record");
+		if (!reserveBytes(record.size())) {
+			return false;
+		}
+		long position = tail.get();
+		while (true) {
+			int index = (int) (position & mask);
+			long difference = sequences.get(index) - position;
+			if (difference == 0) {
+				if (tail.compareAndSet(position, position + 1)) {
+					records.set(index, record);
+					// Publishes the record to the readers
+					sequences.set(index, position + 1);
+					return true;
+				}
+				position = tail.get();
+			} else if (difference < 0) {
+				// The slot still holds the record written one lap ago
+				bytes.addAndGet(-record.size());
+				return false;
+			} else {
+				// Another writer claimed the position
+				position = tail.get();
+			}
+		}
+	}
+
+	/**
+	 * Removes the oldest record from the buffer
+	 *
+	 * @return The oldest record or null if the buffer is empty
+	 */
+	public AwsKinesisRecord poll() {
+		long position = head.get();
+		while (true) {
+			int index = (int) (position & mask);
+			long difference = sequences.get(index) - (position + 1);
+			if (difference == 0) {
+				if (head.compareAndSet(position, position + 1)) {
+					AwsKinesisRecord record = records.getAndSet(index, null);
+					// Frees the slot for the writer of the next lap
+					sequences.set(index, position + mask + 1);
+					bytes.addAndGet(-record.size());
+					return record;
+				}
+				position = head.get();
+			} else if (difference < 0) {
+				// Nothing was written at this position yet
+				return null;
+			} else {
+				// Another reader claimed the position
+				position = head.get();
+			}
+		}
+	}
+
+	/**
+	 * @return The approximate number of records in the buffer
+	 */
+	public int size() {
+		return (int) Math.max(0L, tail.get() - head.get());
+	}
+
+	/**
+	 * @return The approximate total size in bytes of the records in the buffer
+	 */
+	public long sizeInBytes() {
+		return bytes.get();
+	}
+
+	private boolean reserveBytes(int size) {
+		long current;
+		do {
+			current = bytes.get();
+			if (current + size > maxBytes) {
+				return false;
+			}
+		} while (!bytes.compareAndSet(current, current + size));
+		return true;
+	}
+
+}
@@ -3,7 +3,9 @@ package org.sagebionetworks.kinesis;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -12,6 +14,8 @@ import static org.mockito.Mockito.when;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -22,6 +26,8 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.sagebionetworks.StackConfiguration;
+import org.sagebionetworks.cloudwatch.Consumer;
+import org.sagebionetworks.cloudwatch.ProfileData;
 
 import com.google.common.collect.Lists;
 
@@ -40,6 +46,12 @@ class AwsKinesisFirehoseLoggerImplTest {
 	@Mock
 	private AwsKinesisLogRecordSerializer mockRecordSerializer;
 	
+	@Mock
+	private Consumer mockConsumer;
+
+	@Mock
+	private ScheduledExecutorService mockFlushExecutorService;
+
 	@Mock
 	private AwsKinesisLogRecord mockRecord1;
 
@@ -49,6 +61,9 @@ class AwsKinesisFirehoseLoggerImplTest {
 	@Captor
 	private ArgumentCaptor<List<AwsKinesisRecord>> batchCaptor;
 
+	@Captor
+	private ArgumentCaptor<List<ProfileData>> metricsCaptor;
+
 	private String kinesisStreamSuffix;
 	private String stack;
 	private String instance;
@@ -191,4 +206,167 @@ class AwsKinesisFirehoseLoggerImplTest {
 		verifyNoMoreInteractions(mockKinesisFirehoseBatchClient);
 	}
 
+	@Test
+	public void testStartFlusher() {
+		// the flusher is not started before the logger is configured
+		verifyNoMoreInteractions(mockFlushExecutorService);
+		// method under test
+		kinesisFirehoseLogger.startFlusher();
+		verify(mockFlushExecutorService).scheduleWithFixedDelay(any(), eq(AwsKinesisFirehoseLoggerImpl.FLUSH_INTERVAL_MS),
+				eq(AwsKinesisFirehoseLoggerImpl.FLUSH_INTERVAL_MS), eq(TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	public void testLogBatchAsyncWithNoPolicy() {
+		List<AwsKinesisLogRecord> mockRecordList = Lists.newArrayList(mockRecord1);
+
+		String errorMessage = assertThrows(IllegalArgumentException.class, () -> {
+			// method under test
+			kinesisFirehoseLogger.logBatchAsync(kinesisStreamSuffix, mockRecordList, null);
+		}).getMessage();
+
+		assertEquals("The bufferFullPolicy is required.", errorMessage);
+	}
+
+	@Test
+	public void testLogBatchAsyncWithEmptyRecords() {
+		// method under test
+		kinesisFirehoseLogger.logBatchAsync(kinesisStreamSuffix, Collections.emptyList(), AwsKinesisBufferFullPolicy.DROP);
+		kinesisFirehoseLogger.flush();
+
+		verifyZeroInteractions(mockKinesisFirehoseBatchClient);
+		verifyZeroInteractions(mockConsumer);
+	}
+
+	@Test
+	public void testLogBatchAsync() {
+		List<AwsKinesisLogRecord> mockRecordList = Lists.newArrayList(mockRecord1, mockRecord2);
+
+		when(mockRecord1.withStack(stack)).thenReturn(mockRecord1);
+		when(mockRecord2.withStack(stack)).thenReturn(mockRecord2);
+		when(mockRecordSerializer.toBytes(any())).thenReturn(new byte[2]);
+
+		// method under test
+		kinesisFirehoseLogger.logBatchAsync(kinesisStreamSuffix, mockRecordList, AwsKinesisBufferFullPolicy.DROP);
+
+		verify(mockRecord1).withInstance(instance);
+		verify(mockRecord2).withInstance(instance);
+
+		// Nothing is sent on the caller thread
+		verifyZeroInteractions(mockKinesisFirehoseBatchClient);
+
+		// Simulates the flusher
+		kinesisFirehoseLogger.flush();
+
+		verify(mockKinesisFirehoseBatchClient).sendBatch(eq("devtestmyKinesisStream"), batchCaptor.capture());
+
+		assertEquals(1, batchCaptor.getValue().size());
+
+		verify(mockConsumer).addProfileData(metricsCaptor.capture());
+
+		List<ProfileData> metrics = metricsCaptor.getValue();
+
+		assertEquals(4, metrics.size());
+		assertEquals("Kinesis-Firehose-Logger-test", metrics.get(0).getNamespace());
+		assertEquals(AwsKinesisFirehoseLoggerImpl.METRIC_BUFFERED_RECORDS, metrics.get(0).getName());
+		assertEquals(1.0, metrics.get(0).getValue().doubleValue());
+		assertEquals(Collections.singletonMap(AwsKinesisFirehoseLoggerImpl.METRIC_DIMENSION_STREAM, "devtestmyKinesisStream"), metrics.get(0).getDimension());
+
+		// The buffer is empty, nothing else to send
+		kinesisFirehoseLogger.flush();
+
+		verifyNoMoreInteractions(mockKinesisFirehoseBatchClient);
+		verifyNoMoreInteractions(mockConsumer);
+	}
+
+	@Test
+	public void testLogBatchAsyncWithDrop() {
+		// Each log record ends up in its own kinesis record, the buffer fits 16 of them
+		List<AwsKinesisLogRecord> mockRecordList = Collections.nCopies(20, mockRecord1);
+
+		when(mockRecord1.withStack(stack)).thenReturn(mockRecord1);
+		when(mockRecordSerializer.toBytes(any())).thenReturn(new byte[AwsKinesisFirehoseConstants.RECORD_SIZE_LIMIT - AwsKinesisFirehoseConstants.NEW_LINE_BYTES.length]);
+
+		// method under test
+		kinesisFirehoseLogger.logBatchAsync(kinesisStreamSuffix, mockRecordList, AwsKinesisBufferFullPolicy.DROP);
+
+		verifyZeroInteractions(mockKinesisFirehoseBatchClient);
+
+		kinesisFirehoseLogger.flush();
+
+		// 4 records fit in each request
+		verify(mockKinesisFirehoseBatchClient, times(4)).sendBatch(eq("devtestmyKinesisStream"), batchCaptor.capture());
+
+		batchCaptor.getAllValues().forEach(batch -> assertEquals(4, batch.size()));
+
+		verify(mockConsumer).addProfileData(metricsCaptor.capture());
+
+		List<ProfileData> metrics = metricsCaptor.getValue();
+
+		assertEquals(AwsKinesisFirehoseLoggerImpl.METRIC_BUFFERED_RECORDS, metrics.get(0).getName());
+		assertEquals(16.0, metrics.get(0).getValue().doubleValue());
+		assertEquals(AwsKinesisFirehoseLoggerImpl.METRIC_DROPPED_RECORDS, metrics.get(1).getName());
+		assertEquals(4.0, metrics.get(1).getValue().doubleValue());
+		assertEquals(AwsKinesisFirehoseLoggerImpl.METRIC_CALLER_SENDS, metrics.get(2).getName());
+		assertEquals(0.0, metrics.get(2).getValue().doubleValue());
+	}
+
+	@Test
+	public void testLogBatchAsyncWithSendFromCaller() {
+		List<AwsKinesisLogRecord> mockRecordList = Collections.nCopies(20, mockRecord1);
+
+		when(mockRecord1.withStack(stack)).thenReturn(mockRecord1);
+		when(mockRecordSerializer.toBytes(any())).thenReturn(new byte[AwsKinesisFirehoseConstants.RECORD_SIZE_LIMIT - AwsKinesisFirehoseConstants.NEW_LINE_BYTES.length]);
+
+		// method under test
+		kinesisFirehoseLogger.logBatchAsync(kinesisStreamSuffix, mockRecordList, AwsKinesisBufferFullPolicy.SEND_FROM_CALLER);
+
+		// The 16 buffered records are sent by the caller to make room for the rest
+		verify(mockKinesisFirehoseBatchClient, times(4)).sendBatch(eq("devtestmyKinesisStream"), any());
+
+		kinesisFirehoseLogger.flush();
+
+		verify(mockKinesisFirehoseBatchClient, times(5)).sendBatch(eq("devtestmyKinesisStream"), batchCaptor.capture());
+
+		assertEquals(4, batchCaptor.getValue().size());
+
+		verify(mockConsumer).addProfileData(metricsCaptor.capture());
+
+		List<ProfileData> metrics = metricsCaptor.getValue();
+
+		assertEquals(4.0, metrics.get(0).getValue().doubleValue());
+		assertEquals(0.0, metrics.get(1).getValue().doubleValue());
+		assertEquals(AwsKinesisFirehoseLoggerImpl.METRIC_CALLER_SENDS, metrics.get(2).getName());
+		assertEquals(1.0, metrics.get(2).getValue().doubleValue());
+	}
+
+	@Test
+	public void testFlushWithFailedBatch() {
+		List<AwsKinesisLogRecord> mockRecordList = Lists.newArrayList(mockRecord1, mockRecord2);
+
+		when(mockRecord1.withStack(stack)).thenReturn(mockRecord1);
+		when(mockRecord2.withStack(stack)).thenReturn(mockRecord2);
+		when(mockRecordSerializer.toBytes(any())).thenReturn(new byte[2]);
+
+		doThrow(new AwsKinesisDeliveryException("failed")).when(mockKinesisFirehoseBatchClient).sendBatch(any(), any());
+
+		kinesisFirehoseLogger.logBatchAsync(kinesisStreamSuffix, mockRecordList, AwsKinesisBufferFullPolicy.DROP);
+
+		// method under test, the failure is not thrown
+		kinesisFirehoseLogger.flush();
+
+		verify(mockConsumer).addProfileData(metricsCaptor.capture());
+
+		List<ProfileData> metrics = metricsCaptor.getValue();
+
+		assertEquals(AwsKinesisFirehoseLoggerImpl.METRIC_FAILED_RECORDS, metrics.get(3).getName());
+		assertEquals(1.0, metrics.get(3).getValue().doubleValue());
+
+		// The failed records are not retried
+		kinesisFirehoseLogger.flush();
+
+		verify(mockKinesisFirehoseBatchClient).sendBatch(any(), any());
+		verify(mockConsumer).addProfileData(anyList());
+	}
+
 }
\ No newline at end of file
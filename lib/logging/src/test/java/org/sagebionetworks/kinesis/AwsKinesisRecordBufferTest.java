@@ -0,0 +1,165 @@
+package org.sagebionetworks.kinesis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.amazonaws.services.kinesisfirehose.model.Record;
+
+public class AwsKinesisRecordBufferTest {
+
+	private static final long MAX_BYTES = AwsKinesisFirehoseConstants.RECORD_SIZE_LIMIT * 2L;
+
+	private static AwsKinesisRecord record(int size) {
+		return new AwsKinesisRecord(new Record(), size);
+	}
+
+	@Test
+	public void testOfferAndPoll() {
+		AwsKinesisRecordBuffer buffer = new AwsKinesisRecordBuffer(4, MAX_BYTES);
+		AwsKinesisRecord one = record(1);
+		AwsKinesisRecord two = record(2);
+
+		assertNull(buffer.poll());
+
+		// call under test
+		assertTrue(buffer.offer(one));
+		assertTrue(buffer.offer(two));
+
+		assertEquals(2, buffer.size());
+		assertEquals(3L, buffer.sizeInBytes());
+
+		// call under test
+		assertEquals(one, buffer.poll());
+		assertEquals(two, buffer.poll());
+		assertNull(buffer.poll());
+
+		assertEquals(0, buffer.size());
+		assertEquals(0L, buffer.sizeInBytes());
+	}
+
+	@Test
+	public void testOfferWithFullCapacity() {
+		AwsKinesisRecordBuffer buffer = new AwsKinesisRecordBuffer(2, MAX_BYTES);
+
+		assertTrue(buffer.offer(record(1)));
+		assertTrue(buffer.offer(record(1)));
+
+		// call under test
+		assertFalse(buffer.offer(record(1)));
+
+		// The bytes of the rejected record are not counted
+		assertEquals(2L, buffer.sizeInBytes());
+
+		buffer.poll();
+
+		assertTrue(buffer.offer(record(1)));
+	}
+
+	@Test
+	public void testOfferWithMaxBytes() {
+		AwsKinesisRecordBuffer buffer = new AwsKinesisRecordBuffer(8, MAX_BYTES);
+
+		assertTrue(buffer.offer(record(AwsKinesisFirehoseConstants.RECORD_SIZE_LIMIT)));
+		assertTrue(buffer.offer(record(AwsKinesisFirehoseConstants.RECORD_SIZE_LIMIT)));
+
+		// call under test
+		assertFalse(buffer.offer(record(1)));
+
+		assertEquals(2, buffer.size());
+	}
+
+	@Test
+	public void testOfferAndPollWithWrapAround() {
+		AwsKinesisRecordBuffer buffer = new AwsKinesisRecordBuffer(4, MAX_BYTES);
+
+		for (int i = 0; i < 100; i++) {
+			AwsKinesisRecord first = record(i);
+			AwsKinesisRecord second = record(i + 1);
+			// call under test
+			assertTrue(buffer.offer(first));
+			assertTrue(buffer.offer(second));
+			assertEquals(first, buffer.poll());
+			assertEquals(second, buffer.poll());
+		}
+
+		assertEquals(0, buffer.size());
+	}
+
+	@Test
+	public void testConstructorWithCapacityNotPowerOfTwo() {
+		String message = assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			new AwsKinesisRecordBuffer(3, MAX_BYTES);
+		}).getMessage();
+
+		assertEquals("The capacity must be a power of two.", message);
+	}
+
+	@Test
+	public void testConcurrentOfferAndPoll() throws Exception {
+		int producers = 4;
+		int recordsPerProducer = 10000;
+		AwsKinesisRecordBuffer buffer = new AwsKinesisRecordBuffer(64, MAX_BYTES);
+		ExecutorService executor = Executors.newFixedThreadPool(producers + 2);
+		AtomicInteger produced = new AtomicInteger();
+		try {
+			List<Future<?>> producerFutures = new ArrayList<>();
+			for (int p = 0; p < producers; p++) {
+				producerFutures.add(executor.submit(() -> {
+					for (int i = 0; i < recordsPerProducer; i++) {
+						AwsKinesisRecord record = record(1);
+						while (!buffer.offer(record)) {
+							Thread.yield();
+						}
+						produced.incrementAndGet();
+					}
+				}));
+			}
+			List<Future<Set<AwsKinesisRecord>>> consumerFutures = new ArrayList<>();
+			for (int c = 0; c < 2; c++) {
+				consumerFutures.add(executor.submit(() -> {
+					Set<AwsKinesisRecord> polled = new HashSet<>();
+					while (produced.get() < producers * recordsPerProducer || buffer.size() > 0) {
+						AwsKinesisRecord record = buffer.poll();
+						if (record != null) {
+							polled.add(record);
+						}
+					}
+					return polled;
+				}));
+			}
+			for (Future<?> future : producerFutures) {
+				future.get(1, TimeUnit.MINUTES);
+			}
+			Set<AwsKinesisRecord> all = new HashSet<>();
+			int count = 0;
+			for (Future<Set<AwsKinesisRecord>> future : consumerFutures) {
+				Set<AwsKinesisRecord> polled = future.get(1, TimeUnit.MINUTES);
+				count += polled.size();
+				all.addAll(polled);
+			}
+			// Every record is polled exactly once
+			assertEquals(producers * recordsPerProducer, count);
+			assertEquals(count, all.size());
+			assertNull(buffer.poll());
+			assertEquals(0L, buffer.sizeInBytes());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
@@ -1,6 +1,7 @@
 package org.sagebionetworks.repo.model;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.sagebionetworks.repo.model.message.MessageBundle;
@@ -76,6 +77,18 @@ public interface MessageDAO {
 	 */
 	public void createMessageStatus(String messageId, String userId, MessageStatusType status);
 	
+	/**
+	 * Marks each of the given users as a recipient of a message with a single batch insert
+	 * The status of the message defaults to UNREAD
+	 * If the batch fails, for example because an earlier attempt already marked some of the users,
+	 * each user is marked one at a time so that only the users that fail are skipped
+	 * 
+	 * Note: The batch and each single insert occur in separate transactions (REQUIRES_NEW)
+	 * 
+	 * @return The error message of each user that could not be marked, keyed by user ID
+	 */
+	public Map<String, String> createMessageStatus(String messageId, List<String> userIds, MessageStatusType status);
+	
 	/**
 	 * Marks a message within the recipient's inbox with the given status, doing so in a new, isolated transaction
 	 * Note: this 'recipient status' is disctinct from the message's 'transmission status'.
@@ -84,6 +97,11 @@ public interface MessageDAO {
 	 */
 	boolean updateMessageStatus(MessageStatus status);
 	
+	/**
+	 * Marks a message within the inbox of each of the given recipients with the given status, doing so in a new, isolated transaction
+	 */
+	void updateMessageStatus(String messageId, List<String> recipientIds, MessageStatusType status);
+	
 	/**
 	 * Deletes a message.  Only used for test cleanup.
 	 */
@@ -80,6 +80,14 @@ public interface NodeDAO {
 	 */
 	public Node getNode(String id);
 	
+	/**
+	 * Fetch the current version of each of the given nodes in a single query.
+	 * Nodes that do not exist are not included in the results.
+	 * @param nodeIds
+	 * @return
+	 */
+	public List<Node> getNodes(List<Long> nodeIds);
+	
 	/**
 	 * Get the node for a given version number.
 	 * @param id
@@ -158,6 +166,16 @@ public interface NodeDAO {
 	 * @throws NotFoundException
 	 */
 	Annotations getUserAnnotations(String id);
+	
+	/**
+	 * Get the user annotations associated with the current version of each of
+	 * the given entities in a single query. Entities that do not exist are not
+	 * included in the results. As with {@link #getUserAnnotationsForVersion(String, Long)}
+	 * the etag of each of the annotations is {@link NodeConstants#ZERO_E_TAG}.
+	 * @param ids
+	 * @return Map of entity id to the annotations of its current version.
+	 */
+	Map<Long, Annotations> getUserAnnotationsForCurrentVersions(List<Long> ids);
 
 	/**
 	 * Get user annotations for a specific version of the entity
@@ -516,6 +534,14 @@ public interface NodeDAO {
 	 * @return
 	 */
 	public String getBenefactor(String beneficiaryId);
+	
+	/**
+	 * Get the permissions benefactor of each of the given nodes in a single
+	 * query. Nodes that do not exist are not included in the results.
+	 * @param nodeIds
+	 * @return Map of node id to the id of its benefactor.
+	 */
+	public Map<Long, Long> getBenefactors(List<Long> nodeIds);
 
 	/**
 	 * Return a set of fileHandleIds that associated with entityId and appear in the provided list.
@@ -1,6 +1,7 @@
 package org.sagebionetworks.repo.model;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.sagebionetworks.repo.model.broadcast.UserNotificationInfo;
@@ -51,6 +52,15 @@ public interface UserProfileDAO {
 	 * @throws NotFoundException
 	 */
 	public List<UserProfile> list(List<Long> ids) throws DatastoreException, NotFoundException;
+	
+	/**
+	 * Unlike {@link #list(List)}, an ID without a UserProfile is skipped.
+	 * 
+	 * @param ids
+	 * @return the UserProfiles of the given IDs, keyed by owner ID
+	 * @throws DatastoreException
+	 */
+	public Map<String, UserProfile> getUserProfilesByOwnerId(List<Long> ids) throws DatastoreException;
 
 	/**
 	 * Get the total count of UserProfiles in the system
@@ -1,5 +1,8 @@
 package org.sagebionetworks.repo.model.dao;
 
+import java.util.Collection;
+import java.util.Map;
+
 import org.sagebionetworks.repo.model.principal.PrincipalAlias;
 import org.sagebionetworks.repo.web.NotFoundException;
 
@@ -32,5 +35,13 @@ public interface NotificationEmailDAO {
 	 * @throws NotFoundException 
 	 */
 	public String getNotificationEmailForPrincipal(long principalId) throws NotFoundException;
+	
+	/**
+	 * 
+	 * @param principalIds
+	 * @return the chosen notification email of each of the given principals, keyed by principal id.
+	 * A principal without a notification email is not included.
+	 */
+	public Map<Long, String> getNotificationEmailsForPrincipals(Collection<Long> principalIds);
 
 }
@@ -2,10 +2,10 @@ package org.sagebionetworks.repo.model.semaphore;
 
 import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.Map;
-import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.sagebionetworks.common.util.Clock;
 import org.sagebionetworks.util.ValidateArgument;
@@ -13,19 +13,22 @@ import org.sagebionetworks.util.ValidateArgument;
 /**
  * An in-memory implementation of a counting semaphore. This class is designed
  * to be a thread-safe singleton.
- * 
- * 
+ *
+ * Each key has its own set of locks that is guarded by its own monitor, so
+ * callers using different keys never block each other.
+ *
  */
 public class MemoryCountingSemaphoreImpl implements MemoryCountingSemaphore {
-	
+
+	private final ConcurrentMap<String, KeyLocks> keyLocksMap = new ConcurrentHashMap<>();
 	/*
-	 * Note: This is not a synchronized map. All access to this map must occur in a synchronized method
-	 * making this singleton the lock (not the map).
+	 * Tokens only need to be unique within this semaphore, so a sequence is used
+	 * rather than a random UUID.
 	 */
-	private Map<String, List<Lock>> keyTokenMap = new HashMap<String, List<Lock>>();
+	private final AtomicLong tokenSequence = new AtomicLong();
 	// abstraction from the system clock.
 	private Clock clock;
-	
+
 	/**
 	 * Create a new semaphore given a clock.
 	 * @param clock
@@ -36,54 +39,45 @@ public class MemoryCountingSemaphoreImpl implements MemoryCountingSemaphore {
 	}
 
 	@Override
-	public synchronized String attemptToAcquireLock(String key, long timeoutSec,
+	public String attemptToAcquireLock(String key, long timeoutSec,
 			int maxLockCount) {
 		ValidateArgument.required(key, "key");
-		// Is there an entry in the map for this key?
-		List<Lock> locks = keyTokenMap.get(key);
-		if(locks == null){
-			locks = new LinkedList<Lock>();
-			keyTokenMap.put(key, locks);
-		}
-		// remove expired locks
+		KeyLocks locks = keyLocksMap.computeIfAbsent(key, (String k) -> new KeyLocks());
 		long now = clock.currentTimeMillis();
-		Iterator<Lock> it = locks.iterator();
-		while(it.hasNext()){
-			Lock lock = it.next();
-			if(now > lock.getExpiresTimeMs()){
-				it.remove();
+		synchronized (locks) {
+			if (locks.tokenToLock.size() >= maxLockCount) {
+				// Expired locks only need to be removed when all locks appear to be issued.
+				locks.removeExpired(now);
+			}
+			// are we out of locks for this key?
+			if (locks.tokenToLock.size() < maxLockCount) {
+				// a new lock can be issued
+				Lock lock = new Lock();
+				lock.setExpiresTimeMs(now + (timeoutSec * 1000));
+				lock.setToken(Long.toString(tokenSequence.incrementAndGet()));
+				locks.tokenToLock.put(lock.getToken(), lock);
+				return lock.getToken();
 			}
-		}
-		// are we out of locks for this key?
-		if(locks.size() < maxLockCount){
-			// a new lock can be issued
-			Lock lock = new Lock();
-			lock.setExpiresTimeMs(now+(timeoutSec*1000));
-			lock.setToken(UUID.randomUUID().toString());
-			locks.add(lock);
-			return lock.getToken();
 		}
 		// a new token could not be issued.
 		return null;
 	}
 
 	@Override
-	public synchronized void refreshLockTimeout(String key, String tokenString, long timeoutSec) {
+	public void refreshLockTimeout(String key, String tokenString, long timeoutSec) {
 		ValidateArgument.required(key, "key");
 		ValidateArgument.required(tokenString, "token");
 		// Get the tokens for this key
-		List<Lock> locks = keyTokenMap.get(key);
+		KeyLocks locks = keyLocksMap.get(key);
 		boolean refreshed = false;
-		if(locks != null){
-			Iterator<Lock> it = locks.iterator();
-			while(it.hasNext()){
-				Lock lock = it.next();
-				if(lock.getToken().equals(tokenString)){
+		if (locks != null) {
+			synchronized (locks) {
+				Lock lock = locks.tokenToLock.get(tokenString);
+				if (lock != null) {
 					// found a match.
 					long now = clock.currentTimeMillis();
-					lock.setExpiresTimeMs(now+(timeoutSec*1000));
+					lock.setExpiresTimeMs(now + (timeoutSec * 1000));
 					refreshed = true;
-					break;
 				}
 			}
 		}
@@ -93,22 +87,15 @@ public class MemoryCountingSemaphoreImpl implements MemoryCountingSemaphore {
 	}
 
 	@Override
-	public synchronized void releaseLock(String key, String tokenString) {
+	public void releaseLock(String key, String tokenString) {
 		ValidateArgument.required(key, "key");
 		ValidateArgument.required(tokenString, "token");
 		// Get the tokens for this key
-		List<Lock> locks = keyTokenMap.get(key);
+		KeyLocks locks = keyLocksMap.get(key);
 		boolean released = false;
-		if(locks != null){
-			Iterator<Lock> it = locks.iterator();
-			while(it.hasNext()){
-				Lock lock = it.next();
-				if(lock.getToken().equals(tokenString)){
-					// found a match.
-					it.remove();
-					released = true;
-					break;
-				}
+		if (locks != null) {
+			synchronized (locks) {
+				released = locks.tokenToLock.remove(tokenString) != null;
 			}
 		}
 		if(!released){
@@ -117,8 +104,32 @@ public class MemoryCountingSemaphoreImpl implements MemoryCountingSemaphore {
 	}
 
 	@Override
-	public synchronized void releaseAllLocks() {
-		keyTokenMap.clear();
+	public void releaseAllLocks() {
+		keyLocksMap.clear();
+	}
+
+	/**
+	 * The locks issued for a single key. All access must be synchronized on this
+	 * object.
+	 *
+	 */
+	private static class KeyLocks {
+
+		private final Map<String, Lock> tokenToLock = new HashMap<>();
+
+		/**
+		 * Remove all locks that expired before the given time.
+		 *
+		 * @param now
+		 */
+		void removeExpired(long now) {
+			Iterator<Lock> it = tokenToLock.values().iterator();
+			while (it.hasNext()) {
+				if (now > it.next().getExpiresTimeMs()) {
+					it.remove();
+				}
+			}
+		}
 	}
 
 }
@@ -0,0 +1,54 @@
+package org.sagebionetworks.repo.model.semaphore;
+
+/**
+ * An in-memory rate limiter. Unlike a fixed time block, the allowance for a
+ * key is continuously replenished, so calls are spread evenly over the period
+ * rather than reset all at once at a block boundary.
+ *
+ */
+public interface MemoryRateLimiter {
+
+	/**
+	 * Attempt to make a single call with the given key. This method does not
+	 * block, the call is either allowed immediately or not at all.
+	 * 
+	 * @param key
+	 *            A unique key that identifies the caller.
+	 * @param maxCallsPerPeriod
+	 *            The maximum number of calls allowed within any period. A
+	 *            caller that has been idle for a full period can make this many
+	 *            calls at once.
+	 * @param periodSec
+	 *            The length of the period in seconds.
+	 * @return True if the call is allowed. False if the caller has exceeded
+	 *         the rate.
+	 */
+	public boolean attemptToAcquire(String key, long maxCallsPerPeriod, long periodSec);
+
+	/**
+	 * Give back a single call that was acquired with
+	 * {@link #attemptToAcquire(String, long, long)}. Use this when a call was
+	 * allowed but the caller was rejected for some other reason, so the call
+	 * does not count against the rate.
+	 * 
+	 * @param key
+	 *            The key used to acquire the call.
+	 * @param maxCallsPerPeriod
+	 *            The value used to acquire the call.
+	 * @param periodSec
+	 *            The value used to acquire the call.
+	 */
+	public void release(String key, long maxCallsPerPeriod, long periodSec);
+
+	/**
+	 * Forget the history of all keys that have been idle long enough to have
+	 * their full allowance again. Such keys are equivalent to new keys. This
+	 * should be called periodically to bound the memory used by the limiter.
+	 */
+	public void removeIdleKeys();
+
+	/**
+	 * Forget the history of all keys.
+	 */
+	public void releaseAllLocks();
+}
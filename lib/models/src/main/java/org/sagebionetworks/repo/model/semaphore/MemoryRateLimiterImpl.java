@@ -0,0 +1,111 @@
+package org.sagebionetworks.repo.model.semaphore;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.sagebionetworks.common.util.Clock;
+import org.sagebionetworks.common.util.ClockImpl;
+import org.sagebionetworks.util.ValidateArgument;
+
+/**
+ * A lock-free implementation of {@link MemoryRateLimiter} using the generic
+ * cell rate algorithm (GCRA). Each key is tracked with a single atomic
+ * 'theoretical arrival time' (TAT). Each call moves the TAT forward by the
+ * emission interval (period / max calls), and a call is rejected when that
+ * would move the TAT more than a full period ahead of now. This is equivalent
+ * to a token bucket with a capacity of max calls that refills continuously.
+ *
+ */
+public class MemoryRateLimiterImpl implements MemoryRateLimiter {
+
+	/**
+	 * The theoretical arrival time of each key in microseconds.
+	 */
+	private final ConcurrentMap<String, AtomicLong> keyToTat = new ConcurrentHashMap<>();
+	// abstraction from the system clock.
+	private final Clock clock;
+
+	public MemoryRateLimiterImpl() {
+		this(new ClockImpl());
+	}
+
+	/**
+	 * Create a new rate limiter given a clock.
+	 * @param clock
+	 */
+	public MemoryRateLimiterImpl(Clock clock) {
+		this.clock = clock;
+	}
+
+	@Override
+	public boolean attemptToAcquire(String key, long maxCallsPerPeriod, long periodSec) {
+		ValidateArgument.required(key, "key");
+		ValidateArgument.requirement(periodSec >= 0, "periodSec must be a positive value");
+		ValidateArgument.requirement(maxCallsPerPeriod >= 0, "maxCallsPerPeriod must be a positive value");
+		if (maxCallsPerPeriod == 0) {
+			// no calls are allowed so there is nothing to track.
+			return false;
+		}
+		long nowMicros = TimeUnit.MILLISECONDS.toMicros(clock.currentTimeMillis());
+		long periodMicros = TimeUnit.SECONDS.toMicros(periodSec);
+		long emissionIntervalMicros = periodMicros / maxCallsPerPeriod;
+		AtomicLong tat = keyToTat.computeIfAbsent(key, (String k) -> new AtomicLong(nowMicros));
+		while (true) {
+			long currentTat = tat.get();
+			long newTat = Math.max(currentTat, nowMicros) + emissionIntervalMicros;
+			if (newTat - nowMicros > periodMicros) {
+				// the caller has used the full allowance for the period.
+				return false;
+			}
+			if (tat.compareAndSet(currentTat, newTat)) {
+				return true;
+			}
+		}
+	}
+
+	@Override
+	public void release(String key, long maxCallsPerPeriod, long periodSec) {
+		ValidateArgument.required(key, "key");
+		if (maxCallsPerPeriod <= 0) {
+			// nothing could have been acquired.
+			return;
+		}
+		AtomicLong tat = keyToTat.get(key);
+		if (tat == null) {
+			// the key has already been removed so it has its full allowance.
+			return;
+		}
+		long emissionIntervalMicros = TimeUnit.SECONDS.toMicros(periodSec) / maxCallsPerPeriod;
+		// Moving the TAT back below now has no effect as the TAT is never less than now when acquiring.
+		tat.addAndGet(-emissionIntervalMicros);
+	}
+
+	/**
+	 * Remove all keys with a theoretical arrival time in the past. A key with a
+	 * theoretical arrival time in the past has its full allowance so it is
+	 * equivalent to a new key. This is an O(n) scan so it is called from a
+	 * timer rather than from {@link #attemptToAcquire(String, long, long)}.
+	 */
+	@Override
+	public void removeIdleKeys() {
+		long nowMicros = TimeUnit.MILLISECONDS.toMicros(clock.currentTimeMillis());
+		keyToTat.values().removeIf((AtomicLong tat) -> tat.get() < nowMicros);
+	}
+
+	/**
+	 * The number of keys currently tracked.
+	 * 
+	 * @return
+	 */
+	int getKeyCount() {
+		return keyToTat.size();
+	}
+
+	@Override
+	public void releaseAllLocks() {
+		keyToTat.clear();
+	}
+
+}
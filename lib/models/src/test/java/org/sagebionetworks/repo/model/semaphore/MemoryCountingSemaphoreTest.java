@@ -3,9 +3,17 @@ package org.sagebionetworks.repo.model.semaphore;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
@@ -96,5 +104,59 @@ public class MemoryCountingSemaphoreTest {
 			// expected
 		}
 	}
+	
+	@Test
+	public void testAttemptToAcquireLockWithDifferentKeys(){
+		int maxLockCount = 1;
+		long timeoutSec = 10;
+		assertNotNull(memoryCountingSemaphore.attemptToAcquireLock("one", timeoutSec, maxLockCount));
+		assertNotNull(memoryCountingSemaphore.attemptToAcquireLock("two", timeoutSec, maxLockCount));
+		assertNull(memoryCountingSemaphore.attemptToAcquireLock("one", timeoutSec, maxLockCount));
+	}
+	
+	@Test
+	public void testReleaseAllLocks(){
+		String key = "someKey";
+		int maxLockCount = 1;
+		long timeoutSec = 1000;
+		assertNotNull(memoryCountingSemaphore.attemptToAcquireLock(key, timeoutSec, maxLockCount));
+		memoryCountingSemaphore.releaseAllLocks();
+		assertNotNull(memoryCountingSemaphore.attemptToAcquireLock(key, timeoutSec, maxLockCount));
+	}
+	
+	/**
+	 * No more than the maximum number of locks can be held at a time when many
+	 * threads compete for the same key.
+	 */
+	@Test
+	public void testAttemptToAcquireLockConcurrent() throws Exception {
+		when(mockClock.currentTimeMillis()).thenReturn(1000L);
+		String key = "someKey";
+		int maxLockCount = 3;
+		long timeoutSec = 1000;
+		int threadCount = 16;
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+		try {
+			List<Callable<Integer>> tasks = new ArrayList<>();
+			for (int i = 0; i < threadCount; i++) {
+				tasks.add(() -> {
+					int acquired = 0;
+					for (int j = 0; j < 100; j++) {
+						if (memoryCountingSemaphore.attemptToAcquireLock(key, timeoutSec, maxLockCount) != null) {
+							acquired++;
+						}
+					}
+					return acquired;
+				});
+			}
+			int totalAcquired = 0;
+			for (Future<Integer> future : executor.invokeAll(tasks)) {
+				totalAcquired += future.get();
+			}
+			assertEquals(maxLockCount, totalAcquired);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
 
 }
@@ -0,0 +1,83 @@
+package org.sagebionetworks.repo.model.semaphore;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.sagebionetworks.common.util.Clock;
+
+public class MemoryRateLimiterImplTest {
+
+	@Mock
+	Clock mockClock;
+
+	MemoryRateLimiterImpl rateLimiter;
+
+	String key = "someKey";
+	long maxCalls = 2;
+	long periodSec = 10;
+
+	@Before
+	public void before() {
+		MockitoAnnotations.initMocks(this);
+		rateLimiter = new MemoryRateLimiterImpl(mockClock);
+		when(mockClock.currentTimeMillis()).thenReturn(1000L);
+	}
+
+	@Test
+	public void testAttemptToAcquire() {
+		assertTrue(rateLimiter.attemptToAcquire(key, maxCalls, periodSec));
+		assertTrue(rateLimiter.attemptToAcquire(key, maxCalls, periodSec));
+		assertFalse("should not be able to make a third call", rateLimiter.attemptToAcquire(key, maxCalls, periodSec));
+	}
+
+	@Test
+	public void testAttemptToAcquireReplenish() {
+		assertTrue(rateLimiter.attemptToAcquire(key, maxCalls, periodSec));
+		assertTrue(rateLimiter.attemptToAcquire(key, maxCalls, periodSec));
+		// one emission interval (5 seconds) later a single call is allowed.
+		when(mockClock.currentTimeMillis()).thenReturn(6000L);
+		assertTrue(rateLimiter.attemptToAcquire(key, maxCalls, periodSec));
+		assertFalse(rateLimiter.attemptToAcquire(key, maxCalls, periodSec));
+	}
+
+	@Test
+	public void testAttemptToAcquireZeroCalls() {
+		assertFalse(rateLimiter.attemptToAcquire(key, 0, periodSec));
+		assertEquals(0, rateLimiter.getKeyCount());
+	}
+
+	@Test
+	public void testRelease() {
+		assertTrue(rateLimiter.attemptToAcquire(key, maxCalls, periodSec));
+		assertTrue(rateLimiter.attemptToAcquire(key, maxCalls, periodSec));
+		// method under test
+		rateLimiter.release(key, maxCalls, periodSec);
+		assertTrue(rateLimiter.attemptToAcquire(key, maxCalls, periodSec));
+		assertFalse(rateLimiter.attemptToAcquire(key, maxCalls, periodSec));
+	}
+
+	@Test
+	public void testReleaseUnknownKey() {
+		// method under test
+		rateLimiter.release(key, maxCalls, periodSec);
+		assertEquals(0, rateLimiter.getKeyCount());
+	}
+
+	@Test
+	public void testRemoveIdleKeys() {
+		assertTrue(rateLimiter.attemptToAcquire(key, maxCalls, periodSec));
+		assertTrue(rateLimiter.attemptToAcquire("otherKey", maxCalls, periodSec));
+		assertTrue(rateLimiter.attemptToAcquire("otherKey", maxCalls, periodSec));
+		// the first key is idle after one emission interval, the second after two.
+		when(mockClock.currentTimeMillis()).thenReturn(7000L);
+		// method under test
+		rateLimiter.removeIdleKeys();
+		assertEquals(1, rateLimiter.getKeyCount());
+	}
+}
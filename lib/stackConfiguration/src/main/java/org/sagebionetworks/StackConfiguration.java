@@ -540,6 +540,30 @@ public interface StackConfiguration {
 	 */
 	public long getTableReadTimeoutMS();
 
+	/**
+	 * The maximum number of threads used to run the sub-queries (count, facets
+	 * and sum of file sizes) of table queries concurrently.
+	 * 
+	 * @return
+	 */
+	public int getTableSubQueryMaxThreads();
+
+	/**
+	 * The maximum number of threads used to load table changes ahead of the
+	 * change being applied to a table index.
+	 * 
+	 * @return
+	 */
+	public int getTableChangePrefetchMaxThreads();
+
+	/**
+	 * The number of threads used to create the checkpoints of table indices in
+	 * the background.
+	 * 
+	 * @return
+	 */
+	public int getTableCheckpointMaxThreads();
+
 	public Integer getMaxConcurrentRepoConnections();
 
 	/**
@@ -834,4 +858,82 @@ public interface StackConfiguration {
 	 */
 	Long getKinesisMaxRetryDelay();
 	
+	/**
+	 * @return The maximum number of bytes of wiki markdown to keep in memory.
+	 */
+	long getWikiMarkdownCacheMemoryMaxBytes();
+	
+	/**
+	 * @return The directory of the local disk tier of the wiki markdown cache,
+	 *         null if the disk tier is not enabled.
+	 */
+	String getWikiMarkdownCacheDiskDirectory();
+	
+	/**
+	 * @return The maximum number of bytes of wiki markdown to keep on the local
+	 *         disk.
+	 */
+	long getWikiMarkdownCacheDiskMaxBytes();
+	
+	/**
+	 * @return The maximum number of emails per second that a single machine
+	 *         sends while processing messages to users. This is the SES send
+	 *         quota of the stack divided across the machines that send emails.
+	 */
+	double getMessageEmailSendRatePerSecond();
+	
+	/**
+	 * @return The maximum number of threads a single machine uses to send the
+	 *         emails of a message to its recipients.
+	 */
+	int getMessageEmailMaxThreads();
+	
+	/**
+	 * @return The number of threads used to publish the change messages of each
+	 *         topic concurrently.
+	 */
+	int getMessagePublisherMaxThreads();
+	
+	/**
+	 * @return True if the independent parts of an entity bundle should be
+	 *         fetched concurrently.
+	 */
+	boolean getEntityBundleParallelEnabled();
+	
+	/**
+	 * @return The maximum number of threads used to fetch the parts of entity
+	 *         bundles concurrently.
+	 */
+	int getEntityBundleMaxThreads();
+	
+	/**
+	 * @return The maximum number of threads used to fetch the files of bulk
+	 *         downloads ahead of the files being written to the zip.
+	 */
+	int getBulkDownloadFetchMaxThreads();
+	
+	/**
+	 * @return The maximum number of threads used to upload the parts of streamed
+	 *         file uploads.
+	 */
+	int getStreamUploadMaxThreads();
+	
+	/**
+	 * @return The maximum number of threads used to read ahead the next page of
+	 *         the migration backup streams.
+	 */
+	int getMigrationReadAheadMaxThreads();
+	
+	/**
+	 * @return The maximum number of threads used to decode the files of binary
+	 *         migration backups ahead of the rows being restored.
+	 */
+	int getMigrationBackupDecodeMaxThreads();
+	
+	/**
+	 * @return The maximum number of threads used to fetch the wiki text of the
+	 *         entities of a batch of search documents.
+	 */
+	int getSearchWikiTextMaxThreads();
+	
 }
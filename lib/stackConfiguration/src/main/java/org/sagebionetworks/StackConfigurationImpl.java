@@ -836,6 +836,36 @@ public class StackConfigurationImpl implements StackConfiguration {
 		return Long.parseLong(configuration.getProperty("org.sagebionetworks.table.read.timeout.ms"));
 	}
 
+	/**
+	 * The maximum number of threads used to run the sub-queries (count, facets
+	 * and sum of file sizes) of table queries concurrently.
+	 * 
+	 * @return
+	 */
+	public int getTableSubQueryMaxThreads() {
+		return Integer.parseInt(configuration.getProperty("org.sagebionetworks.table.sub.query.max.threads"));
+	}
+
+	/**
+	 * The maximum number of threads used to load table changes ahead of the
+	 * change being applied to a table index.
+	 * 
+	 * @return
+	 */
+	public int getTableChangePrefetchMaxThreads() {
+		return Integer.parseInt(configuration.getProperty("org.sagebionetworks.table.change.prefetch.max.threads"));
+	}
+
+	/**
+	 * The number of threads used to create the checkpoints of table indices in
+	 * the background.
+	 * 
+	 * @return
+	 */
+	public int getTableCheckpointMaxThreads() {
+		return Integer.parseInt(configuration.getProperty("org.sagebionetworks.table.checkpoint.max.threads"));
+	}
+
 	public Integer getMaxConcurrentRepoConnections() {
 		return Integer.parseInt(configuration.getProperty("org.sagebionetworks.max.concurrent.repo.connections"));
 	}
@@ -1229,4 +1259,74 @@ public class StackConfigurationImpl implements StackConfiguration {
 		}
 		return null;
 	}
+	
+	@Override
+	public long getWikiMarkdownCacheMemoryMaxBytes() {
+		return Long.parseLong(configuration.getProperty("org.sagebionetworks.wiki.markdown.cache.memory.max.bytes"));
+	}
+	
+	@Override
+	public String getWikiMarkdownCacheDiskDirectory() {
+		if (configuration.hasProperty("org.sagebionetworks.wiki.markdown.cache.disk.directory")) {
+			return configuration.getProperty("org.sagebionetworks.wiki.markdown.cache.disk.directory");
+		}
+		return null;
+	}
+	
+	@Override
+	public long getWikiMarkdownCacheDiskMaxBytes() {
+		return Long.parseLong(configuration.getProperty("org.sagebionetworks.wiki.markdown.cache.disk.max.bytes"));
+	}
+	
+	@Override
+	public double getMessageEmailSendRatePerSecond() {
+		double sesMaxSendRate = Double.parseDouble(configuration.getProperty("org.sagebionetworks.message.email.ses.max.send.rate"));
+		int sendingWorkers = Integer.parseInt(configuration.getProperty("org.sagebionetworks.message.email.sending.workers"));
+		return sesMaxSendRate / sendingWorkers;
+	}
+	
+	@Override
+	public int getMessageEmailMaxThreads() {
+		return Integer.parseInt(configuration.getProperty("org.sagebionetworks.message.email.max.threads"));
+	}
+	
+	@Override
+	public int getMessagePublisherMaxThreads() {
+		return Integer.parseInt(configuration.getProperty("org.sagebionetworks.repo.manage.message.publisher.max.threads"));
+	}
+	
+	@Override
+	public boolean getEntityBundleParallelEnabled() {
+		return Boolean.parseBoolean(configuration.getProperty("org.sagebionetworks.entity.bundle.parallel.enabled"));
+	}
+	
+	@Override
+	public int getEntityBundleMaxThreads() {
+		return Integer.parseInt(configuration.getProperty("org.sagebionetworks.entity.bundle.max.threads"));
+	}
+	
+	@Override
+	public int getBulkDownloadFetchMaxThreads() {
+		return Integer.parseInt(configuration.getProperty("org.sagebionetworks.bulk.download.fetch.max.threads"));
+	}
+	
+	@Override
+	public int getStreamUploadMaxThreads() {
+		return Integer.parseInt(configuration.getProperty("org.sagebionetworks.file.stream.upload.max.threads"));
+	}
+	
+	@Override
+	public int getMigrationReadAheadMaxThreads() {
+		return Integer.parseInt(configuration.getProperty("org.sagebionetworks.repo.model.dbo.migration.read.ahead.max.threads"));
+	}
+	
+	@Override
+	public int getMigrationBackupDecodeMaxThreads() {
+		return Integer.parseInt(configuration.getProperty("org.sagebionetworks.repo.manager.migration.backup.decode.max.threads"));
+	}
+	
+	@Override
+	public int getSearchWikiTextMaxThreads() {
+		return Integer.parseInt(configuration.getProperty("org.sagebionetworks.search.wiki.text.max.threads"));
+	}
 }
@@ -170,4 +170,15 @@ public class StackConfigurationImplUnitTest {
 		verify(mockProperties).getProperty("org.sagebionetworks.repositoryservice.endpoint.prod");
 		
 	}
+	
+	@Test
+	public void testGetMessageEmailSendRatePerSecond() {
+		when(mockProperties.getProperty("org.sagebionetworks.message.email.ses.max.send.rate")).thenReturn("14");
+		when(mockProperties.getProperty("org.sagebionetworks.message.email.sending.workers")).thenReturn("4");
+		
+		// Call under test
+		double rate = config.getMessageEmailSendRatePerSecond();
+		
+		assertEquals(3.5, rate);
+	}
 }
@@ -56,6 +56,8 @@ import com.amazonaws.services.s3.model.S3Object;
 import com.amazonaws.services.s3.model.SetObjectTaggingRequest;
 import com.amazonaws.services.s3.model.SetObjectTaggingResult;
 import com.amazonaws.services.s3.model.Tag;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
 
 @ExtendWith(MockitoExtension.class)
 public class SynapseS3ClientImplUnitTest {
@@ -324,6 +326,19 @@ public class SynapseS3ClientImplUnitTest {
 		assertEquals(expected, actual);
 	}
 
+	@Test
+	public void testUploadPart() {
+		UploadPartResult expected = new UploadPartResult();
+		UploadPartRequest request = new UploadPartRequest().withBucketName(BUCKET_NAME);
+		when(mockAmazonClient.uploadPart(request)).thenReturn(expected);
+
+		// method under test
+		UploadPartResult actual = client.uploadPart(request);
+		
+		verify(mockAmazonClient).uploadPart(request);
+		assertEquals(expected, actual);
+	}
+
 	@Test
 	public void testCompleteMultipartUpload() {
 		CompleteMultipartUploadResult expected = new CompleteMultipartUploadResult();
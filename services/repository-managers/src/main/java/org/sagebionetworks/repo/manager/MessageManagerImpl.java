@@ -4,14 +4,19 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.entity.ContentType;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.sagebionetworks.StackConfiguration;
 import org.sagebionetworks.common.util.progress.ProgressCallback;
 import org.sagebionetworks.repo.manager.SendRawEmailRequestBuilder.BodyType;
 import org.sagebionetworks.repo.manager.file.FileHandleManager;
@@ -58,9 +63,11 @@ import org.sagebionetworks.repo.web.NotFoundException;
 import org.sagebionetworks.util.SerializationUtils;
 import org.sagebionetworks.util.ValidateArgument;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 
 import com.amazonaws.services.simpleemail.model.SendRawEmailRequest;
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.RateLimiter;
 
 public class MessageManagerImpl implements MessageManager {
 
@@ -83,6 +90,11 @@ public class MessageManagerImpl implements MessageManager {
 	 */
 	private static final long MESSAGE_CREATION_INTERVAL_MILLISECONDS = 60000L;
 	
+	/**
+	 * The number of individual recipients of a message that are processed together
+	 */
+	static final int RECIPIENT_BATCH_SIZE = 1000;
+	
 	// Message templates
 	private static final String MESSAGE_TEMPLATE_PASSWORD_CHANGE_CONFIRMATION = "message/PasswordChangeConfirmationTemplate.txt";
 
@@ -120,7 +132,11 @@ public class MessageManagerImpl implements MessageManager {
 	
 	private EmailQuarantineDao emailQuarantineDao;
 	
-	// Note: This class has 14 dependencies, needs refactoring
+	private ExecutorService emailExecutorService;
+	
+	private RateLimiter emailRateLimiter;
+	
+	// Note: This class has 16 dependencies, needs refactoring
 	@Autowired
 	public MessageManagerImpl(MessageDAO messageDAO, UserGroupDAO userGroupDAO,
 			GroupMembersDAO groupMembersDAO, UserManager userManager,
@@ -132,7 +148,9 @@ public class MessageManagerImpl implements MessageManager {
 			FileHandleManager fileHandleManager, NodeDAO nodeDAO,
 			EntityAclManager entityAclManager,
 			FileHandleDao fileHandleDao,
-			EmailQuarantineDao emailQuarantineDao) {
+			EmailQuarantineDao emailQuarantineDao,
+			@Qualifier("messageEmailExecutorService") ExecutorService emailExecutorService,
+			StackConfiguration stackConfiguration) {
 		this.messageDAO = messageDAO;
 		this.userGroupDAO = userGroupDAO;
 		this.groupMembersDAO = groupMembersDAO;
@@ -147,6 +165,9 @@ public class MessageManagerImpl implements MessageManager {
 		this.entityAclManager = entityAclManager;
 		this.fileHandleDao = fileHandleDao;
 		this.emailQuarantineDao = emailQuarantineDao;
+		this.emailExecutorService = emailExecutorService;
+		// Shared by all the messages processed by this machine
+		this.emailRateLimiter = RateLimiter.create(stackConfiguration.getMessageEmailSendRatePerSecond());
 	}
 	
 	@Override
@@ -401,82 +422,202 @@ public class MessageManagerImpl implements MessageManager {
 		// Get the individual recipients
 		Set<String> recipients = expandRecipientSet(userInfo, dto.getRecipients(), errors);
 		
-		// Now that the recipients list has been expanded, begin processing the message
+		SendRawEmailRequestBuilder.BodyType bodyType;
+		if (ContentType.APPLICATION_JSON.getMimeType().equals(mimeType)) {
+			bodyType = SendRawEmailRequestBuilder.BodyType.JSON;
+		} else {
+			boolean isHtml= ContentType.TEXT_HTML.getMimeType().equals(mimeType);
+			bodyType = isHtml ? SendRawEmailRequestBuilder.BodyType.HTML : SendRawEmailRequestBuilder.BodyType.PLAIN_TEXT;
+		}
+		
+		// Now that the recipients list has been expanded, process the message for a batch of recipients at a time
+		for (List<String> batch : Lists.partition(new ArrayList<String>(recipients), RECIPIENT_BATCH_SIZE)) {
+			processMessageForRecipients(dto, messageBody, bodyType, senderUserName, senderDisplayName,
+					overrideNotificationSettings, batch, errors);
+		}
+		
+		messageDAO.updateMessageTransmissionAsComplete(dto.getId());
+		
+		return errors;
+	}
+	
+	/**
+	 * Helper for {@link #processMessage(String, ProgressCallback)}
+	 * 
+	 * Delivers the message to a batch of individual recipients. The settings, notification emails and quarantine status
+	 * of the whole batch are each loaded with a single query and the recipient statuses are created with a single
+	 * insert. The emails are then sent concurrently, at the rate set by
+	 * {@link StackConfiguration#getMessageEmailSendRatePerSecond()}.
+	 * 
+	 * The error of each recipient is the same as when the recipients were processed one at a time, and the errors
+	 * are added in the order of the recipients. When a query of the whole batch fails, each recipient of the batch
+	 * that does not have an error yet gets the error of that query.
+	 */
+	private void processMessageForRecipients(MessageToUser dto, String messageBody, BodyType bodyType,
+			String senderUserName, String senderDisplayName, boolean overrideNotificationSettings,
+			List<String> recipients, List<String> errors) {
+		// The first error of each recipient, which ends the processing for that recipient
+		Map<String, String> recipientErrors = new HashMap<String, String>();
+		try {
+			deliverMessageToRecipients(dto, messageBody, bodyType, senderUserName, senderDisplayName,
+					overrideNotificationSettings, recipients, recipientErrors);
+		} catch (Exception e) {
+			if (Thread.currentThread().isInterrupted()) {
+				throw e;
+			}
+			LOG.info("Error caught while processing message", e);
+			for (String userId : recipients) {
+				recipientErrors.putIfAbsent(userId, "Failed while processing message for recipient (" + userId + "): " + e.getMessage());
+			}
+		}
+		for (String userId : recipients) {
+			String error = recipientErrors.get(userId);
+			if (error != null) {
+				errors.add(error);
+			}
+		}
+	}
+	
+	/**
+	 * Helper for {@link #processMessageForRecipients(MessageToUser, String, BodyType, String, String, boolean, List, List)}
+	 * 
+	 * Puts the error of each recipient that the message could not be delivered to in the given map
+	 */
+	private void deliverMessageToRecipients(MessageToUser dto, String messageBody, BodyType bodyType,
+			String senderUserName, String senderDisplayName, boolean overrideNotificationSettings,
+			List<String> recipients, Map<String, String> recipientErrors) {
+		// Get the users' settings
+		Map<String, Settings> settings;
+		if (overrideNotificationSettings) {
+			settings = new HashMap<String, Settings>(recipients.size());
+			for (String userId : recipients) {
+				settings.put(userId, new Settings());
+			}
+		} else {
+			List<Long> userIds = new ArrayList<Long>(recipients.size());
+			for (String userId : recipients) {
+				userIds.add(Long.parseLong(userId));
+			}
+			settings = userProfileManager.getNotificationSettings(userIds);
+		}
+		
+		List<String> recipientsWithSettings = new ArrayList<String>(recipients.size());
 		for (String userId : recipients) {
-			// Try to send messages to each user individually
+			if (settings.containsKey(userId)) {
+				recipientsWithSettings.add(userId);
+			} else {
+				recipientErrors.put(userId, "Failed while processing message for recipient (" + userId + "): UserProfile cannot be found for: " + userId);
+			}
+		}
+		
+		List<String> recipientsWithStatus = createMessageStatuses(dto.getId(), recipientsWithSettings, recipientErrors);
+		
+		// Should emails be sent?
+		List<Long> emailRecipients = new ArrayList<Long>(recipientsWithStatus.size());
+		for (String userId : recipientsWithStatus) {
+			Boolean sendEmailNotifications = settings.get(userId).getSendEmailNotifications();
+			if (sendEmailNotifications == null || sendEmailNotifications) {
+				emailRecipients.add(Long.parseLong(userId));
+			}
+		}
+		if (emailRecipients.isEmpty()) {
+			return;
+		}
+		
+		Map<Long, String> emails = notificationEmailDao.getNotificationEmailsForPrincipals(emailRecipients);
+		Set<String> quarantinedEmails = emailQuarantineDao.getQuarantinedEmails(new HashSet<String>(emails.values()));
+		
+		Map<String, Future<?>> sentEmails = new LinkedHashMap<String, Future<?>>(emailRecipients.size());
+		for (Long principalId : emailRecipients) {
+			String userId = principalId.toString();
+			String email = emails.get(principalId);
+			
+			if (email == null) {
+				recipientErrors.put(userId, "Failed while processing message for recipient (" + userId + "): Cannot find notification email for " + userId);
+				continue;
+			}
+			
+			if (quarantinedEmails.contains(email)) {
+				recipientErrors.put(userId, "Cannot deliver message to recipient (" + userId + "). The recipient does not have a valid notification email.");
+				continue;
+			}
+			
+			// Wait until the email can be sent without exceeding the send rate
+			emailRateLimiter.acquire();
+			sentEmails.put(userId, emailExecutorService.submit(() -> {
+				SendRawEmailRequest sendRawEmailRequest = new SendRawEmailRequestBuilder()
+					.withRecipientEmail(email)
+					.withSubject(dto.getSubject())
+					.withTo(dto.getTo())
+					.withCc(dto.getCc())
+					.withBcc(dto.getBcc())
+					.withBody(messageBody, bodyType)
+					.withSenderUserName(senderUserName)
+					.withSenderDisplayName(senderDisplayName)
+					.withUserId(userId)
+					.withNotificationUnsubscribeEndpoint(dto.getNotificationUnsubscribeEndpoint())
+					.withUnsubscribeLink(dto.getWithUnsubscribeLink())
+					.withUserProfileSettingEndpoint(dto.getUserProfileSettingEndpoint())
+					.withProfileSettingLink(dto.getWithProfileSettingLink())
+					.withIsNotificationMessage(dto.getIsNotificationMessage())
+					.build();
+				sesClient.sendRawEmail(sendRawEmailRequest);
+			}));
+		}
+		
+		// Wait for the emails of the batch to be sent
+		List<String> readRecipients = new ArrayList<String>(sentEmails.size());
+		for (Map.Entry<String, Future<?>> sentEmail : sentEmails.entrySet()) {
+			String userId = sentEmail.getKey();
 			try {
-				
-				// Get the user's settings
-				Settings settings = new Settings();
-				
-				if (!overrideNotificationSettings) {
-					UserProfile profile = userProfileManager.getUserProfile(userId);
-					if (profile.getNotificationSettings() != null) {
-						settings = profile.getNotificationSettings();
-					}
-				}
-				
-				MessageStatusType userMessageStatus = null; // setting to null tells the DAO to use the default value
-				
-				messageDAO.createMessageStatus(dto.getId(), userId, userMessageStatus);	
-				
-				// Should emails be sent?
-				if (settings.getSendEmailNotifications() == null || settings.getSendEmailNotifications()) {
-					String email = getEmailForUser(Long.parseLong(userId));
-					
-					if (emailQuarantineDao.isQuarantined(email)) {
-						errors.add("Cannot deliver message to recipient (" + userId + "). The recipient does not have a valid notification email.");
-						continue;
-					}
-					
-					SendRawEmailRequestBuilder.BodyType bodyType;
-					if (ContentType.APPLICATION_JSON.getMimeType().equals(mimeType)) {
-						bodyType = SendRawEmailRequestBuilder.BodyType.JSON;
-					} else {
-						boolean isHtml= ContentType.TEXT_HTML.getMimeType().equals(mimeType);
-						bodyType = isHtml ? SendRawEmailRequestBuilder.BodyType.HTML : SendRawEmailRequestBuilder.BodyType.PLAIN_TEXT;
-					}
-
-					SendRawEmailRequest sendRawEmailRequest = new SendRawEmailRequestBuilder()
-						.withRecipientEmail(email)
-						.withSubject(dto.getSubject())
-						.withTo(dto.getTo())
-						.withCc(dto.getCc())
-						.withBcc(dto.getBcc())
-						.withBody(messageBody, bodyType)
-						.withSenderUserName(senderUserName)
-						.withSenderDisplayName(senderDisplayName)
-						.withUserId(userId)
-						.withNotificationUnsubscribeEndpoint(dto.getNotificationUnsubscribeEndpoint())
-						.withUnsubscribeLink(dto.getWithUnsubscribeLink())
-						.withUserProfileSettingEndpoint(dto.getUserProfileSettingEndpoint())
-						.withProfileSettingLink(dto.getWithProfileSettingLink())
-						.withIsNotificationMessage(dto.getIsNotificationMessage())
-						.build();
-					sesClient.sendRawEmail(sendRawEmailRequest);
-					// Should the message be marked as READ?
-					if (settings.getMarkEmailedMessagesAsRead() != null && settings.getMarkEmailedMessagesAsRead()) {
-						userMessageStatus = MessageStatusType.READ;
-					}
-				}
-				
-				if (userMessageStatus!=null) {
-					// the status has been changed, so we have to update it again
-					MessageStatus messageStatus = new MessageStatus();
-					messageStatus.setMessageId(dto.getId());
-					messageStatus.setRecipientId(userId);
-					messageStatus.setStatus(userMessageStatus);
-					messageDAO.updateMessageStatus(messageStatus);
+				sentEmail.getValue().get();
+				// Should the message be marked as READ?
+				Boolean markEmailedMessagesAsRead = settings.get(userId).getMarkEmailedMessagesAsRead();
+				if (markEmailedMessagesAsRead != null && markEmailedMessagesAsRead) {
+					readRecipients.add(userId);
 				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException(e);
+			} catch (ExecutionException e) {
+				LOG.info("Error caught while processing message", e.getCause());
+				recipientErrors.put(userId, "Failed while processing message for recipient (" + userId + "): " + e.getCause().getMessage());
+			}
+		}
+		
+		if (!readRecipients.isEmpty()) {
+			// the status has been changed, so we have to update it again
+			try {
+				messageDAO.updateMessageStatus(dto.getId(), readRecipients, MessageStatusType.READ);
 			} catch (Exception e) {
 				LOG.info("Error caught while processing message", e);
-				errors.add("Failed while processing message for recipient (" + userId + "): " + e.getMessage());
+				for (String userId : readRecipients) {
+					recipientErrors.put(userId, "Failed while processing message for recipient (" + userId + "): " + e.getMessage());
+				}
 			}
 		}
-		
-		messageDAO.updateMessageTransmissionAsComplete(dto.getId());
-		
-		return errors;
+	}
+	
+	/**
+	 * Creates the status of all of the given recipients. See {@link MessageDAO#createMessageStatus(String, List, MessageStatusType)}
+	 * for the recipients whose status cannot be created.
+	 * 
+	 * @return The recipients whose status was created
+	 */
+	private List<String> createMessageStatuses(String messageId, List<String> recipients, Map<String, String> recipientErrors) {
+		MessageStatusType userMessageStatus = null; // setting to null tells the DAO to use the default value
+		Map<String, String> failures = messageDAO.createMessageStatus(messageId, recipients, userMessageStatus);
+		List<String> created = new ArrayList<String>(recipients.size());
+		for (String userId : recipients) {
+			String failure = failures.get(userId);
+			if (failure == null) {
+				created.add(userId);
+			} else {
+				LOG.info("Error caught while processing message for recipient (" + userId + "): " + failure);
+				recipientErrors.put(userId, "Failed while processing message for recipient (" + userId + "): " + failure);
+			}
+		}
+		return created;
 	}
 	
 	/**
@@ -4,7 +4,7 @@ import org.sagebionetworks.database.semaphore.CountingSemaphore;
 import org.sagebionetworks.repo.model.UnauthorizedException;
 import org.sagebionetworks.repo.model.UserInfo;
 import org.sagebionetworks.repo.model.semaphore.MemoryCountingSemaphore;
-import org.sagebionetworks.repo.model.semaphore.MemoryTimeBlockCountingSemaphore;
+import org.sagebionetworks.repo.model.semaphore.MemoryRateLimiter;
 import org.springframework.beans.factory.annotation.Autowired;
 
 public class SemaphoreManagerImpl implements SemaphoreManager {
@@ -16,7 +16,7 @@ public class SemaphoreManagerImpl implements SemaphoreManager {
 	MemoryCountingSemaphore userThrottleMemoryCountingSemaphore;
 	
 	@Autowired
-	MemoryTimeBlockCountingSemaphore userThrottleMemoryTimeBlockSemaphore;
+	MemoryRateLimiter userThrottleMemoryRateLimiter;
 
 	@Override
 	public void releaseAllLocksAsAdmin(UserInfo admin) {
@@ -32,7 +32,7 @@ public class SemaphoreManagerImpl implements SemaphoreManager {
 		// release memory locks.
 		userThrottleMemoryCountingSemaphore.releaseAllLocks();
 		
-		userThrottleMemoryTimeBlockSemaphore.releaseAllLocks();
+		userThrottleMemoryRateLimiter.releaseAllLocks();
 		
 	}
 	
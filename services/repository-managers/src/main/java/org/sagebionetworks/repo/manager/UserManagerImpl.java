@@ -7,6 +7,8 @@ import java.util.List;
 import java.util.Set;
 
 import org.sagebionetworks.repo.manager.principal.NewUserUtils;
+import org.sagebionetworks.repo.manager.principal.PrincipalGroups;
+import org.sagebionetworks.repo.manager.principal.UserGroupsCache;
 import org.sagebionetworks.repo.manager.team.TeamConstants;
 import org.sagebionetworks.repo.model.AuthorizationConstants.BOOTSTRAP_PRINCIPAL;
 import org.sagebionetworks.repo.model.AuthorizationUtils;
@@ -54,6 +56,9 @@ public class UserManagerImpl implements UserManager {
 	@Autowired
 	private NotificationEmailDAO notificationEmailDao;
 	
+	@Autowired
+	private UserGroupsCache userGroupsCache;
+	
 	/**
 	 * Testing purposes only
 	 * Do NOT use in non-test code
@@ -182,6 +187,33 @@ public class UserManagerImpl implements UserManager {
 
 	@Override
 	public UserInfo getUserInfo(Long principalId) throws NotFoundException {
+		// The groups of a user rarely change so they are cached.
+		PrincipalGroups principalGroups = userGroupsCache.getPrincipalGroups(principalId, () -> loadPrincipalGroups(principalId));
+		Set<Long> groups = new HashSet<Long>(principalGroups.getGroups());
+
+		// Check to see if the user is an Admin
+		boolean isAdmin = false;
+		// If the user belongs to the admin group they are an admin
+		if(groups.contains(TeamConstants.ADMINISTRATORS_TEAM_ID)){
+			isAdmin = true;
+		}
+		UserInfo ui = new UserInfo(isAdmin);
+		ui.setId(principalId);
+		ui.setCreationDate(principalGroups.getCreationDate());
+		// Put all the pieces together
+		ui.setGroups(groups);
+		ui.setAcceptsTermsOfUse(authDAO.hasUserAcceptedToU(principalId));
+		return ui;
+	}
+
+	/**
+	 * Load the creation date and all of the groups of the given user from the database.
+	 * 
+	 * @param principalId
+	 * @return
+	 * @throws NotFoundException
+	 */
+	PrincipalGroups loadPrincipalGroups(Long principalId) throws NotFoundException {
 		UserGroup principal = userGroupDAO.get(principalId);
 		if(!principal.getIsIndividual()) throw new IllegalArgumentException("Principal: "+principalId+" is not a User");
 		// Lookup the user's name
@@ -203,20 +235,7 @@ public class UserManagerImpl implements UserManager {
 		for(UserGroup ug: groupFromDAO){
 			groups.add(Long.parseLong(ug.getId()));
 		}
-
-		// Check to see if the user is an Admin
-		boolean isAdmin = false;
-		// If the user belongs to the admin group they are an admin
-		if(groups.contains(TeamConstants.ADMINISTRATORS_TEAM_ID)){
-			isAdmin = true;
-		}
-		UserInfo ui = new UserInfo(isAdmin);
-		ui.setId(principalId);
-		ui.setCreationDate(principal.getCreationDate());
-		// Put all the pieces together
-		ui.setGroups(groups);
-		ui.setAcceptsTermsOfUse(authDAO.hasUserAcceptedToU(principalId));
-		return ui;
+		return new PrincipalGroups(principal.getCreationDate(), groups);
 	}
 
 	@WriteTransaction
@@ -227,6 +246,7 @@ public class UserManagerImpl implements UserManager {
 		}
 		
 		userGroupDAO.delete(principalId.toString());
+		userGroupsCache.invalidate(principalId);
 	}
 
 	@Override
@@ -1,6 +1,7 @@
 package org.sagebionetworks.repo.manager;
 
 import java.util.List;
+import java.util.Map;
 
 import org.sagebionetworks.reflection.model.PaginatedResults;
 import org.sagebionetworks.repo.model.DatastoreException;
@@ -17,6 +18,7 @@ import org.sagebionetworks.repo.model.UnauthorizedException;
 import org.sagebionetworks.repo.model.UserInfo;
 import org.sagebionetworks.repo.model.UserProfile;
 import org.sagebionetworks.repo.model.entity.query.SortDirection;
+import org.sagebionetworks.repo.model.message.Settings;
 import org.sagebionetworks.repo.model.verification.VerificationSubmission;
 import org.sagebionetworks.repo.web.NotFoundException;
 
@@ -59,6 +61,17 @@ public interface UserProfileManager {
 	 */
 	public ListWrapper<UserProfile> list(IdList ids) throws DatastoreException, NotFoundException;
 
+	/**
+	 * Get the notification settings of each of the given users. A user that has
+	 * not changed the settings gets the default settings.
+	 * 
+	 * @param userIds
+	 * @return the settings keyed by user ID. A user without a profile is not
+	 *         included.
+	 * @throws DatastoreException
+	 */
+	public Map<String, Settings> getNotificationSettings(List<Long> userIds) throws DatastoreException;
+
 	/**
 	 * Update a UserProfile.
 	 */
@@ -33,6 +33,7 @@ import org.sagebionetworks.repo.model.UserProfileDAO;
 import org.sagebionetworks.repo.model.dbo.verification.VerificationDAO;
 import org.sagebionetworks.repo.model.entity.query.SortDirection;
 import org.sagebionetworks.repo.model.file.FileHandleAssociateType;
+import org.sagebionetworks.repo.model.message.Settings;
 import org.sagebionetworks.repo.model.principal.AliasType;
 import org.sagebionetworks.repo.model.principal.PrincipalAlias;
 import org.sagebionetworks.repo.model.principal.PrincipalAliasDAO;
@@ -159,6 +160,17 @@ public class UserProfileManagerImpl implements UserProfileManager {
 		addAliasesToProfiles(userProfiles);
 		return ListWrapper.wrap(userProfiles, UserProfile.class);
 	}
+
+	@Override
+	public Map<String, Settings> getNotificationSettings(List<Long> userIds) throws DatastoreException {
+		Map<String, UserProfile> profiles = userProfileDAO.getUserProfilesByOwnerId(userIds);
+		Map<String, Settings> settings = new HashMap<String, Settings>(profiles.size());
+		for (UserProfile profile : profiles.values()) {
+			Settings userSettings = profile.getNotificationSettings();
+			settings.put(profile.getOwnerId(), userSettings == null ? new Settings() : userSettings);
+		}
+		return settings;
+	}
 	/**
 	 * This method is only available to the object owner or an admin
 	 */
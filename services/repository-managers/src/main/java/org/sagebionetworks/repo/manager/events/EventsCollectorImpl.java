@@ -8,6 +8,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
+import org.sagebionetworks.kinesis.AwsKinesisBufferFullPolicy;
 import org.sagebionetworks.kinesis.AwsKinesisFirehoseLogger;
 import org.sagebionetworks.kinesis.AwsKinesisLogRecord;
 import org.sagebionetworks.repo.model.message.TransactionSynchronizationProxy;
@@ -91,7 +92,8 @@ public class EventsCollectorImpl implements EventsCollector, EventsQueue {
 
 		recordsMap.forEach((streamName, records) -> {
 			if (!records.isEmpty()) {
-				firehoseLogger.logBatch(streamName, records);
+				// Flushed from the timer thread, that can wait when the buffer of the stream is full
+				firehoseLogger.logBatchAsync(streamName, records, AwsKinesisBufferFullPolicy.SEND_FROM_CALLER);
 			}
 		});
 	}
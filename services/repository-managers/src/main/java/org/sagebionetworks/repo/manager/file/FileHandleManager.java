@@ -5,6 +5,7 @@ import java.io.UnsupportedEncodingException;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 import org.apache.http.entity.ContentType;
 import org.sagebionetworks.repo.model.DatastoreException;
@@ -172,6 +173,21 @@ public interface FileHandleManager {
 	 */
 	S3FileHandle uploadLocalFile(LocalFileUploadRequest request);
 
+	/**
+	 * Upload a file to the standard Synapse S3 bucket while it is being written
+	 * and create a file handle for the file. The file is sent to S3 with a
+	 * multipart upload and is never staged on the local disk. This is used by
+	 * workers.
+	 * 
+	 * @param request The user, file name, content type and storage location of
+	 *                the file. The file name is required.
+	 * @param writer  Writes the contents of the file.
+	 * @return The file handle of the uploaded file or empty if the writer chose
+	 *         to discard the file.
+	 * @throws IOException
+	 */
+	Optional<S3FileHandle> uploadStream(LocalFileUploadRequest request, StreamUploadWriter writer) throws IOException;
+
 	/**
 	 * Get the list of upload destinations for this parent
 	 * 
@@ -14,12 +14,14 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
 
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.BooleanUtils;
@@ -111,6 +113,7 @@ import org.sagebionetworks.util.ValidateArgument;
 import org.sagebionetworks.utils.ContentTypeUtil;
 import org.sagebionetworks.utils.MD5ChecksumHelper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 
 import com.amazonaws.HttpMethod;
 import com.amazonaws.services.cloudwatch.model.StandardUnit;
@@ -121,6 +124,7 @@ import com.amazonaws.services.s3.transfer.TransferManager;
 import com.amazonaws.services.s3.transfer.Upload;
 import com.amazonaws.services.s3.transfer.model.UploadResult;
 import com.amazonaws.services.s3.model.GeneratePresignedUrlRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
 import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.PutObjectRequest;
 import com.amazonaws.services.s3.model.ResponseHeaderOverrides;
@@ -165,6 +169,18 @@ public class FileHandleManagerImpl implements FileHandleManager {
 	private static final String DEFAULT_COMPRESSED_FILE_NAME = "compressed.txt.gz";
 	
 	private static final String GZIP_CONTENT_ENCODING = "gzip";
+	
+	/**
+	 * The size of each part of a streamed upload.
+	 */
+	public static final int STREAM_UPLOAD_PART_SIZE_BYTES = 8 * 1024 * 1024;
+	
+	/**
+	 * The maximum number of parts of a single streamed upload that are uploaded
+	 * while the next part is written. Each upload holds one more part than this in
+	 * memory.
+	 */
+	public static final int STREAM_UPLOAD_MAX_PARTS_IN_FLIGHT = 2;
 
 	@Autowired
 	private FileHandleDao fileHandleDao;
@@ -207,6 +223,10 @@ public class FileHandleManagerImpl implements FileHandleManager {
 
 	@Autowired
 	private StackConfiguration config;
+	
+	@Autowired
+	@Qualifier("streamUploadExecutorService")
+	private ExecutorService streamUploadExecutorService;
 	/**
 	 * Used by spring
 	 */
@@ -696,6 +716,54 @@ public class FileHandleManagerImpl implements FileHandleManager {
 		} 
 	}
 	
+	@Override
+	public Optional<S3FileHandle> uploadStream(LocalFileUploadRequest request, StreamUploadWriter writer) throws IOException {
+		ValidateArgument.required(request, "request");
+		ValidateArgument.required(request.getFileName(), "request.fileName");
+		ValidateArgument.required(writer, "writer");
+		if (AuthorizationUtils.isUserAnonymous(Long.parseLong(request.getUserId()))) {
+			throw new UnauthorizedException("Anonymous cannot upload files.");
+		}
+		// This will return the default storage location if the input is null
+		StorageLocationSetting storageLocationSetting = storageLocationDAO.get(request.getStorageLocationId());
+		String bucket = MultipartUtils.getBucket(storageLocationSetting);
+		String key = MultipartUtils.createNewKey(request.getUserId(), request.getFileName(), storageLocationSetting);
+
+		S3FileHandle handle = new S3FileHandle();
+		handle.setBucketName(bucket);
+		handle.setKey(key);
+		handle.setContentType(request.getContentType());
+		handle.setCreatedBy(request.getUserId());
+		handle.setEtag(UUID.randomUUID().toString());
+		handle.setFileName(request.getFileName());
+		handle.setStorageLocationId(request.getStorageLocationId());
+
+		// The MD5 is not known until the whole file is written.
+		InitiateMultipartUploadRequest initiateRequest = new InitiateMultipartUploadRequest(bucket, key,
+				TransferUtils.prepareObjectMetadata(handle));
+		StorageClass storageClass = MultipartUtils.getS3StorageClass(storageLocationSetting);
+		if (storageClass != null) {
+			initiateRequest.withStorageClass(storageClass);
+		}
+		S3MultipartUploadOutputStream out = new S3MultipartUploadOutputStream(s3Client, initiateRequest,
+				STREAM_UPLOAD_PART_SIZE_BYTES, streamUploadExecutorService, STREAM_UPLOAD_MAX_PARTS_IN_FLIGHT);
+		try {
+			if (!writer.write(out)) {
+				out.abort();
+				return Optional.empty();
+			}
+			out.close();
+		} catch (IOException | RuntimeException e) {
+			out.abort();
+			throw e;
+		}
+		handle.setContentMd5(out.getContentMd5());
+		handle.setContentSize(out.getContentSize());
+		handle.setCreatedOn(new Date(System.currentTimeMillis()));
+		handle.setId(idGenerator.generateNewId(IdType.FILE_IDS).toString());
+		return Optional.of((S3FileHandle) fileHandleDao.createFile(handle));
+	}
+	
 	@Override
 	@Deprecated
 	public List<UploadDestination> getUploadDestinations(UserInfo userInfo, String parentId) throws DatastoreException,
@@ -1364,22 +1432,34 @@ public class FileHandleManagerImpl implements FileHandleManager {
 		// lookup the file handles.
 		Map<String, FileHandle> fileHandles = fileHandleDao.getAllFileHandlesBatch(fileHandleIdsToFetch);
 
+		int copyCount = 0;
 		for(FileHandleCopyResult fhcr: copyResults){
 			if(fhcr.getFailureCode() == null){
-				FileHandle original = fileHandles.get(fhcr.getOriginalFileHandleId());
-				if(original == null){
-					fhcr.setFailureCode(FileResultFailureCode.NOT_FOUND);
+				if(fileHandles.containsKey(fhcr.getOriginalFileHandleId())){
+					copyCount++;
 				}else{
-					FileHandle newFileHandle = FileHandleCopyUtils.createCopy(userId, original, map.get(fhcr.getOriginalFileHandleId()), idGenerator.generateNewId(IdType.FILE_IDS).toString());
-					toCreate.add(newFileHandle);
-					fhcr.setNewFileHandle(newFileHandle);
-					// capture the data for audit
-					FileHandleCopyRecord fileHandleCopyRecord = FileHandleCopyUtils.createCopyRecord(userId, newFileHandle.getId(), map.get(fhcr.getOriginalFileHandleId()).getOriginalFile());
-					ObjectRecord record = ObjectRecordBuilderUtils.buildObjectRecord(fileHandleCopyRecord, now);
-					copyRecords.add(record);
+					fhcr.setFailureCode(FileResultFailureCode.NOT_FOUND);
 				}
 			}
 		}
+		if(copyCount == 0){
+			return result;
+		}
+		// Issue the IDs for all of the copies with a single call.
+		Iterator<Long> newIds = idGenerator.generateNewIds(IdType.FILE_IDS, copyCount).iterator();
+
+		for(FileHandleCopyResult fhcr: copyResults){
+			if(fhcr.getFailureCode() == null){
+				FileHandle original = fileHandles.get(fhcr.getOriginalFileHandleId());
+				FileHandle newFileHandle = FileHandleCopyUtils.createCopy(userId, original, map.get(fhcr.getOriginalFileHandleId()), newIds.next().toString());
+				toCreate.add(newFileHandle);
+				fhcr.setNewFileHandle(newFileHandle);
+				// capture the data for audit
+				FileHandleCopyRecord fileHandleCopyRecord = FileHandleCopyUtils.createCopyRecord(userId, newFileHandle.getId(), map.get(fhcr.getOriginalFileHandleId()).getOriginalFile());
+				ObjectRecord record = ObjectRecordBuilderUtils.buildObjectRecord(fileHandleCopyRecord, now);
+				copyRecords.add(record);
+			}
+		}
 		if (!toCreate.isEmpty()) {
 			fileHandleDao.createBatch(toCreate);
 		}
@@ -2,6 +2,8 @@ package org.sagebionetworks.repo.manager.file;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.zip.ZipOutputStream;
 
 import org.sagebionetworks.repo.model.UserInfo;
@@ -22,13 +24,12 @@ public interface FileHandlePackageManager {
 	public File createTempFile(String prefix, String suffix) throws IOException;
 
 	/**
-	 * Create a ZipOutputStream using the given file.
+	 * Create a ZipOutputStream that writes to the given stream.
 	 * 
-	 * @param outFile
+	 * @param out
 	 * @return
-	 * @throws IOException
 	 */
-	public ZipOutputStream createZipOutputStream(File outFile) throws IOException;
+	public ZipOutputStream createZipOutputStream(OutputStream out);
 
 	/**
 	 * Get the S3FileHandle for the given FileHandle.id.
@@ -50,18 +51,18 @@ public interface FileHandlePackageManager {
 	public File downloadToTempFile(S3FileHandle fileHandle) throws IOException;
 
 	/**
-	 * Add the given file to
+	 * Add the contents of the given stream to the zip as a new entry.
 	 * 
 	 * @param zipOut
 	 * @param toAdd
 	 * @param entryName
 	 * @throws IOException
 	 */
-	public void addFileToZip(ZipOutputStream zipOut, File toAdd, String entryName) throws IOException;
+	public void addFileToZip(ZipOutputStream zipOut, InputStream toAdd, String entryName) throws IOException;
 
 	/**
 	 * Packaged the requested files into a zip file and upload the file to S3 as a
-	 * FileHandle.
+	 * FileHandle. The zip is streamed to S3 as it is written.
 	 * 
 	 * @param user
 	 * @param request
@@ -1,19 +1,26 @@
 package org.sagebionetworks.repo.manager.file;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.apache.commons.io.output.CountingOutputStream;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.sagebionetworks.aws.SynapseS3Client;
@@ -34,9 +41,11 @@ import org.sagebionetworks.repo.model.file.ZipFileFormat;
 import org.sagebionetworks.repo.model.jdo.NameValidation;
 import org.sagebionetworks.repo.web.NotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
 import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.S3Object;
 
 @Service
 public class FileHandlePackageManagerImpl implements FileHandlePackageManager {
@@ -49,23 +58,39 @@ public class FileHandlePackageManagerImpl implements FileHandlePackageManager {
 	public static final String FILE_EXCEEDS_THE_MAXIMUM_SIZE_LIMIT = "File exceeds the maximum size limit.";
 	public static final String RESULT_FILE_HAS_REACHED_THE_MAXIMUM_SIZE = "Result file has reached the maximum size.";
 	public static final String FILE_ALREADY_ADDED = "File already added.";
+	public static final String DEFAULT_ZIP_FILE_NAME_PREFIX = "Job";
+	
+	/**
+	 * The number of files that are fetched ahead of the file being written to the
+	 * zip.
+	 */
+	public static final int FETCH_AHEAD = 8;
+	/**
+	 * Only files up to this size are fetched ahead into memory, larger files are
+	 * streamed from S3 when they are written to the zip. This bounds the memory
+	 * used by each zip to about FETCH_AHEAD * MAX_FETCH_AHEAD_BYTES.
+	 */
+	public static final long MAX_FETCH_AHEAD_BYTES = 5 * 1024 * 1024;
 
 	private FileHandleDao fileHandleDao;
 	private SynapseS3Client s3client;
 	private FileHandleAuthorizationManager fileHandleAuthorizationManager;
 	private FileHandleManager fileHandleManager;
 	private EventsCollector statisticsCollector;
+	private ExecutorService fetchExecutorService;
 
 	@Autowired
 	public FileHandlePackageManagerImpl(FileHandleDao fileHandleDao, SynapseS3Client s3client,
 			FileHandleAuthorizationManager fileHandleAuthorizationManager, FileHandleManager fileHandleManager,
-			EventsCollector statisticsCollector) {
+			EventsCollector statisticsCollector,
+			@Qualifier("bulkDownloadFetchExecutorService") ExecutorService fetchExecutorService) {
 		super();
 		this.fileHandleDao = fileHandleDao;
 		this.s3client = s3client;
 		this.fileHandleAuthorizationManager = fileHandleAuthorizationManager;
 		this.fileHandleManager = fileHandleManager;
 		this.statisticsCollector = statisticsCollector;
+		this.fetchExecutorService = fetchExecutorService;
 	}
 
 	/*
@@ -81,8 +106,8 @@ public class FileHandlePackageManagerImpl implements FileHandlePackageManager {
 	}
 
 	@Override
-	public ZipOutputStream createZipOutputStream(File outFile) throws IOException {
-		return new ZipOutputStream(new FileOutputStream(outFile));
+	public ZipOutputStream createZipOutputStream(OutputStream out) {
+		return new ZipOutputStream(out);
 	}
 
 	/*
@@ -115,22 +140,13 @@ public class FileHandlePackageManagerImpl implements FileHandlePackageManager {
 		return tempFile;
 	}
 
-	/*
-	 * (non-Javadoc)
-	 * 
-	 * @see
-	 * org.sagebionetworks.file.worker.BulkDownloadDao#addFileToZip(java.util.zip.
-	 * ZipOutputStream, java.io.File, java.lang.String)
-	 */
 	@Override
-	public void addFileToZip(ZipOutputStream zipOut, File toAdd, String zipEntryName) throws IOException {
-		try (InputStream in = new FileInputStream(toAdd)) {
-			ZipEntry entry = new ZipEntry(zipEntryName);
-			zipOut.putNextEntry(entry);
-			// Write the file the zip
-			IOUtils.copy(in, zipOut);
-			zipOut.closeEntry();
-		}
+	public void addFileToZip(ZipOutputStream zipOut, InputStream toAdd, String zipEntryName) throws IOException {
+		ZipEntry entry = new ZipEntry(zipEntryName);
+		zipOut.putNextEntry(entry);
+		// Write the file the zip
+		IOUtils.copy(toAdd, zipOut);
+		zipOut.closeEntry();
 	}
 	
 	@Override
@@ -146,55 +162,66 @@ public class FileHandlePackageManagerImpl implements FileHandlePackageManager {
 		if (request.getZipFileName() != null) {
 			NameValidation.validateName(request.getZipFileName());
 		}
-		// The generated zip will be written to this temp file.
-		File tempResultFile = createTempFile("Job", ".zip");
-		try {
-			List<FileDownloadSummary> results = addFilesToZip(user, request, tempResultFile, skipFileSizeCheck);
-			String resultFileHandleId = null;
-			// must have at least one file.
-			if (results.stream().filter(f-> FileDownloadStatus.SUCCESS.equals(f.getStatus())).findFirst().isPresent()) {
-				// upload the result file to S3
-				S3FileHandle resultHandle = fileHandleManager
-						.uploadLocalFile(new LocalFileUploadRequest().withFileName(request.getZipFileName())
-								.withUserId(user.getId().toString()).withFileToUpload(tempResultFile)
-								.withContentType(APPLICATION_ZIP));
-				resultFileHandleId = resultHandle.getId();
-			}
+		String zipFileName = request.getZipFileName();
+		if (zipFileName == null) {
+			zipFileName = DEFAULT_ZIP_FILE_NAME_PREFIX + System.currentTimeMillis() + ".zip";
+		}
+		List<FileDownloadSummary> results = new ArrayList<>();
+		// The zip is uploaded to S3 as it is written.
+		Optional<S3FileHandle> resultHandle = fileHandleManager.uploadStream(
+				new LocalFileUploadRequest().withFileName(zipFileName).withUserId(user.getId().toString())
+						.withContentType(APPLICATION_ZIP),
+				(OutputStream out) -> {
+					results.addAll(addFilesToZip(user, request, out, skipFileSizeCheck));
+					// must have at least one file.
+					return results.stream().anyMatch(f -> FileDownloadStatus.SUCCESS.equals(f.getStatus()));
+				});
 
-			collectDownloadStatistics(user.getId(), results);
+		collectDownloadStatistics(user.getId(), results);
 
-			// All of the parts are ready.
-			BulkFileDownloadResponse response = new BulkFileDownloadResponse();
-			response.setFileSummary(results);
-			// added for PLFM-3629
-			response.setUserId("" + user.getId());
-			response.setResultZipFileHandleId(resultFileHandleId);
-			return response;
-		} finally {
-			tempResultFile.delete();
-		}
+		// All of the parts are ready.
+		BulkFileDownloadResponse response = new BulkFileDownloadResponse();
+		response.setFileSummary(results);
+		// added for PLFM-3629
+		response.setUserId("" + user.getId());
+		response.setResultZipFileHandleId(resultHandle.map(S3FileHandle::getId).orElse(null));
+		return response;
 	}
 
 	/**
+	 * Write the zip of the requested files to the given stream. The stream is not
+	 * closed.
+	 * <p>
+	 * The next {@link #FETCH_AHEAD} files are fetched on the fetch executor while
+	 * the current file is written to the zip.
 	 * 
-	 * @param progressCallback
-	 * @param message
-	 * @param authResults
-	 * @param tempResultFile
-	 * @param zipOut
+	 * @param user
+	 * @param request
+	 * @param out
+	 * @param skipFileSizeCheck
 	 * @throws IOException
 	 */
-	List<FileDownloadSummary> addFilesToZip(UserInfo user, BulkFileDownloadRequest request, File tempResultFile, boolean skipFileSizeCheck) throws IOException {
-
-		try (ZipOutputStream zipOut = createZipOutputStream(tempResultFile)) {
-			List<FileHandleAssociationAuthorizationStatus> authResults = fileHandleAuthorizationManager
-					.canDownLoadFile(user, request.getRequestedFiles());
+	List<FileDownloadSummary> addFilesToZip(UserInfo user, BulkFileDownloadRequest request, OutputStream out, boolean skipFileSizeCheck) throws IOException {
+		// The size of the zip so far is the number of bytes written to the stream.
+		CountingOutputStream zipSize = new CountingOutputStream(new CloseShieldOutputStream(out));
+		List<FileHandleAssociationAuthorizationStatus> authResults = fileHandleAuthorizationManager
+				.canDownLoadFile(user, request.getRequestedFiles());
+		List<Future<FetchedFile>> fetches = new ArrayList<>(Collections.nCopies(authResults.size(), null));
+		Set<String> fetchedIds = new HashSet<>(authResults.size());
+		int nextFetch = 0;
+		try (ZipOutputStream zipOut = createZipOutputStream(zipSize)) {
 			ZipEntryNameProvider zipEntryNameProvider = createZipEntryNameProvider(request.getZipFileFormat());
 			Set<String> fileIdsInZip = new HashSet<>(authResults.size());
 			// This will be the final summary of results..
 			List<FileDownloadSummary> fileSummaries = new ArrayList<>(authResults.size());
 			// process each request in order.
-			for (FileHandleAssociationAuthorizationStatus fhas : authResults) {
+			for (int i = 0; i < authResults.size(); i++) {
+				for (; nextFetch < authResults.size() && nextFetch <= i + FETCH_AHEAD; nextFetch++) {
+					fetches.set(nextFetch, startFetch(authResults.get(nextFetch), fetchedIds));
+				}
+				// release the fetched file once it is written.
+				Future<FetchedFile> fetch = fetches.set(i, null);
+				FileHandleAssociationAuthorizationStatus fhas = authResults.get(i);
 				String fileHandleId = fhas.getAssociation().getFileHandleId();
 				FileDownloadSummary summary = new FileDownloadSummary();
 				summary.setFileHandleId(fileHandleId);
@@ -202,8 +229,8 @@ public class FileHandlePackageManagerImpl implements FileHandlePackageManager {
 				summary.setAssociateObjectType(fhas.getAssociation().getAssociateObjectType());
 				fileSummaries.add(summary);
 				try {
-					String zipEntryName = writeOneFileToZip(zipOut, tempResultFile.length(), fhas, fileIdsInZip,
-							zipEntryNameProvider, skipFileSizeCheck);
+					String zipEntryName = writeOneFileToZip(zipOut, zipSize.getByteCount(), fhas, fileIdsInZip,
+							zipEntryNameProvider, skipFileSizeCheck, fetch);
 					// download this file from S3
 					fileIdsInZip.add(fileHandleId);
 					summary.setStatus(FileDownloadStatus.SUCCESS);
@@ -227,8 +254,88 @@ public class FileHandlePackageManagerImpl implements FileHandlePackageManager {
 				}
 			}
 			return fileSummaries;
+		} finally {
+			for (Future<FetchedFile> fetch : fetches) {
+				if (fetch != null) {
+					fetch.cancel(true);
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * Start fetching the given file on the fetch executor.
+	 * 
+	 * @param fhas
+	 * @param fetchedIds The IDs of the files that have already been fetched.
+	 * @return Null if the file should not be fetched ahead.
+	 */
+	Future<FetchedFile> startFetch(FileHandleAssociationAuthorizationStatus fhas, Set<String> fetchedIds) {
+		String fileHandleId = fhas.getAssociation().getFileHandleId();
+		// Unauthorized files are never fetched and duplicates are only fetched once.
+		if (fetchExecutorService == null || !fhas.getStatus().isAuthorized() || !fetchedIds.add(fileHandleId)) {
+			return null;
+		}
+		return fetchExecutorService.submit(() -> fetchFile(fileHandleId));
+	}
+
+	/**
+	 * Fetch the file handle of the given file and its contents when it is small
+	 * enough to be held in memory.
+	 * 
+	 * @param fileHandleId
+	 * @return
+	 * @throws IOException
+	 */
+	FetchedFile fetchFile(String fileHandleId) throws IOException {
+		S3FileHandle s3Handle = getS3FileHandle(fileHandleId);
+		if (s3Handle.getContentSize() == null || s3Handle.getContentSize() > MAX_FETCH_AHEAD_BYTES) {
+			return new FetchedFile(s3Handle, null);
+		}
+		try (S3Object object = s3client.getObject(s3Handle.getBucketName(), s3Handle.getKey())) {
+			return new FetchedFile(s3Handle, IOUtils.toByteArray(object.getObjectContent()));
+		}
+	}
+
+	/**
+	 * Open the contents of a file, streaming it from S3 if it was not fetched.
+	 * 
+	 * @param file
+	 * @return
+	 */
+	InputStream openFile(FetchedFile file) {
+		if (file.getContents() != null) {
+			return new ByteArrayInputStream(file.getContents());
 		}
+		S3FileHandle s3Handle = file.getFileHandle();
+		return s3client.getObject(s3Handle.getBucketName(), s3Handle.getKey()).getObjectContent();
+	}
 
+	/**
+	 * Wait for a file that was fetched ahead.
+	 * 
+	 * @param fetch
+	 * @return
+	 * @throws IOException
+	 */
+	static FetchedFile getFetchedFile(Future<FetchedFile> fetch) throws IOException {
+		try {
+			return fetch.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if (cause instanceof RuntimeException) {
+				// includes NotFoundException
+				throw (RuntimeException) cause;
+			}
+			throw new IllegalStateException(cause);
+		}
 	}
 
 	/**
@@ -238,11 +345,13 @@ public class FileHandlePackageManagerImpl implements FileHandlePackageManager {
 	 * @param zipFileSize
 	 * @param fhas
 	 * @param fileIdsInZip
+	 * @param fetch The file fetched ahead or null to fetch the file now.
 	 * @throws IOException
 	 * @return The zip entry name used for this file.
 	 */
 	String writeOneFileToZip(ZipOutputStream zipOut, long zipFileSize, FileHandleAssociationAuthorizationStatus fhas,
-			Set<String> fileIdsInZip, ZipEntryNameProvider zipEntryNameProvider, boolean skipFileSizeCheck) throws IOException {
+			Set<String> fileIdsInZip, ZipEntryNameProvider zipEntryNameProvider, boolean skipFileSizeCheck,
+			Future<FetchedFile> fetch) throws IOException {
 		String fileHandleId = fhas.getAssociation().getFileHandleId();
 		// Is the user authorized to download this file?
 		if (!fhas.getStatus().isAuthorized()) {
@@ -257,23 +366,20 @@ public class FileHandlePackageManagerImpl implements FileHandlePackageManager {
 			throw new BulkFileException(RESULT_FILE_HAS_REACHED_THE_MAXIMUM_SIZE, FileDownloadCode.EXCEEDS_SIZE_LIMIT);
 		}
 		// Get this filehandle.
-		S3FileHandle s3Handle = getS3FileHandle(fileHandleId);
+		FetchedFile file = fetch != null ? getFetchedFile(fetch) : new FetchedFile(getS3FileHandle(fileHandleId), null);
+		S3FileHandle s3Handle = file.getFileHandle();
 		// Each file must be under the max.s
 		if (!skipFileSizeCheck && s3Handle.getContentSize() > FileConstants.BULK_FILE_DOWNLOAD_MAX_SIZE_BYTES) {
 			throw new BulkFileException(FILE_EXCEEDS_THE_MAXIMUM_SIZE_LIMIT, FileDownloadCode.EXCEEDS_SIZE_LIMIT);
 		}
-		// This file will be downloaded to this temp.
-		File downloadTemp = downloadToTempFile(s3Handle);
-		try {
-			// The entry name is the path plus file name.
-			String zipEntryName = zipEntryNameProvider.createZipEntryName(s3Handle.getFileName(),
-					Long.parseLong(s3Handle.getId()));
-			// write the file to the zip.
-			addFileToZip(zipOut, downloadTemp, zipEntryName);
-			return zipEntryName;
-		} finally {
-			downloadTemp.delete();
+		// The entry name is the path plus file name.
+		String zipEntryName = zipEntryNameProvider.createZipEntryName(s3Handle.getFileName(),
+				Long.parseLong(s3Handle.getId()));
+		// write the file to the zip.
+		try (InputStream in = openFile(file)) {
+			addFileToZip(zipOut, in, zipEntryName);
 		}
+		return zipEntryName;
 	}
 
 	void collectDownloadStatistics(Long userId, List<FileDownloadSummary> results) {
@@ -310,4 +416,30 @@ public class FileHandlePackageManagerImpl implements FileHandlePackageManager {
 		}
 	}
 
+	/**
+	 * A file handle with the contents of the file when they were fetched ahead.
+	 *
+	 */
+	static class FetchedFile {
+
+		private final S3FileHandle fileHandle;
+		private final byte[] contents;
+
+		FetchedFile(S3FileHandle fileHandle, byte[] contents) {
+			this.fileHandle = fileHandle;
+			this.contents = contents;
+		}
+
+		S3FileHandle getFileHandle() {
+			return fileHandle;
+		}
+
+		/**
+		 * @return Null if the contents were not fetched.
+		 */
+		byte[] getContents() {
+			return contents;
+		}
+	}
+
 }
@@ -0,0 +1,278 @@
+package org.sagebionetworks.repo.manager.file;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.sagebionetworks.aws.SynapseS3Client;
+import org.sagebionetworks.util.ValidateArgument;
+
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+
+/**
+ * An output stream that uploads everything written to it to a single S3 object
+ * with a multipart upload. Only the parts that have not been uploaded yet are
+ * buffered in memory, so the size of the object is not limited by the memory or
+ * the local disk of the machine.
+ * <p>
+ * With an upload executor, each full part is uploaded in the background while
+ * the next part is written, with at most maxPartsInFlight parts uploading at
+ * once. Writing blocks while that many parts are uploading. Without an upload
+ * executor each full part is uploaded by the writing thread.
+ * <p>
+ * The object is only created when the stream is closed. A stream that is
+ * abandoned must be aborted with {@link #abort()} so S3 can discard the parts
+ * that were already uploaded.
+ *
+ */
+public class S3MultipartUploadOutputStream extends OutputStream {
+
+	/**
+	 * S3 requires each part but the last to be at least 5 MB.
+	 */
+	public static final int MIN_PART_SIZE_BYTES = 5 * 1024 * 1024;
+
+	private final SynapseS3Client s3Client;
+	private final String bucket;
+	private final String key;
+	private final String uploadId;
+	private final int partSize;
+	private final ExecutorService uploadExecutor;
+	private final int maxPartsInFlight;
+	private final Deque<PartInFlight> partsInFlight;
+	private final List<PartETag> partETags;
+	private final MessageDigest md5Digest;
+	private byte[] buffer;
+	private int bufferSize;
+	private int partCount;
+	private long contentSize;
+	private String contentMd5;
+	private boolean finished;
+
+	/**
+	 * Starts a new multipart upload where each part is uploaded by the writing
+	 * thread.
+	 *
+	 * @param s3Client
+	 * @param request  The bucket, key and metadata of the object to create.
+	 * @param partSize The number of bytes uploaded with each part.
+	 */
+	public S3MultipartUploadOutputStream(SynapseS3Client s3Client, InitiateMultipartUploadRequest request,
+			int partSize) {
+		this(s3Client, request, partSize, null, 1);
+	}
+
+	/**
+	 * Starts a new multipart upload where the parts are uploaded in the
+	 * background.
+	 *
+	 * @param s3Client
+	 * @param request          The bucket, key and metadata of the object to
+	 *                         create.
+	 * @param partSize         The number of bytes uploaded with each part.
+	 * @param uploadExecutor   Uploads the parts. When null, each part is uploaded
+	 *                         by the writing thread.
+	 * @param maxPartsInFlight The maximum number of parts uploading at once.
+	 */
+	public S3MultipartUploadOutputStream(SynapseS3Client s3Client, InitiateMultipartUploadRequest request,
+			int partSize, ExecutorService uploadExecutor, int maxPartsInFlight) {
+		ValidateArgument.required(s3Client, "s3Client");
+		ValidateArgument.required(request, "request");
+		ValidateArgument.requirement(partSize >= MIN_PART_SIZE_BYTES,
+				"partSize must be at least " + MIN_PART_SIZE_BYTES + " bytes");
+		ValidateArgument.requirement(maxPartsInFlight >= 1, "maxPartsInFlight must be at least 1");
+		this.s3Client = s3Client;
+		this.bucket = request.getBucketName();
+		this.key = request.getKey();
+		this.partSize = partSize;
+		this.uploadExecutor = uploadExecutor;
+		this.maxPartsInFlight = maxPartsInFlight;
+		this.partsInFlight = new ArrayDeque<>();
+		this.partETags = new ArrayList<>();
+		this.md5Digest = DigestUtils.getMd5Digest();
+		this.uploadId = s3Client.initiateMultipartUpload(request).getUploadId();
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		write(new byte[] { (byte) b }, 0, 1);
+	}
+
+	@Override
+	public void write(byte[] bytes, int offset, int length) throws IOException {
+		if (finished) {
+			throw new IOException("The upload of " + key + " is already finished");
+		}
+		md5Digest.update(bytes, offset, length);
+		contentSize += length;
+		while (length > 0) {
+			if (buffer == null) {
+				buffer = new byte[partSize];
+			}
+			int toCopy = Math.min(length, buffer.length - bufferSize);
+			System.arraycopy(bytes, offset, buffer, bufferSize, toCopy);
+			bufferSize += toCopy;
+			offset += toCopy;
+			length -= toCopy;
+			if (bufferSize == buffer.length) {
+				uploadPart();
+			}
+		}
+	}
+
+	/**
+	 * Upload the last part and complete the upload. Once closed the object is
+	 * visible in S3.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (finished) {
+			return;
+		}
+		try {
+			// An empty object is still uploaded as a single empty part.
+			if (bufferSize > 0 || partCount == 0) {
+				if (buffer == null) {
+					buffer = new byte[0];
+				}
+				uploadPart();
+			}
+			while (!partsInFlight.isEmpty()) {
+				waitForPart();
+			}
+			s3Client.completeMultipartUpload(new CompleteMultipartUploadRequest(bucket, key, uploadId, partETags));
+			finished = true;
+			contentMd5 = Hex.encodeHexString(md5Digest.digest());
+		} catch (IOException | RuntimeException e) {
+			abort();
+			throw e;
+		}
+	}
+
+	/**
+	 * Abort the upload, discarding all of the parts that have been uploaded.
+	 * Does nothing if the upload is already finished.
+	 */
+	public void abort() {
+		if (finished) {
+			return;
+		}
+		finished = true;
+		// Parts that are not yet uploaded are no longer needed.
+		for (PartInFlight part : partsInFlight) {
+			part.future.cancel(true);
+		}
+		partsInFlight.clear();
+		s3Client.abortMultipartUpload(new AbortMultipartUploadRequest(bucket, key, uploadId));
+	}
+
+	/**
+	 * The number of bytes written to the stream.
+	 *
+	 * @return
+	 */
+	public long getContentSize() {
+		return contentSize;
+	}
+
+	/**
+	 * The hex MD5 of all of the bytes written to the stream.
+	 *
+	 * @return Null until the stream is closed.
+	 */
+	public String getContentMd5() {
+		return contentMd5;
+	}
+
+	/**
+	 * Upload the buffered part. With an upload executor the part is uploaded in
+	 * the background, once fewer than maxPartsInFlight parts are uploading.
+	 * 
+	 * @throws IOException
+	 */
+	private void uploadPart() throws IOException {
+		int partNumber = ++partCount;
+		byte[] partBytes = buffer;
+		int partLength = bufferSize;
+		bufferSize = 0;
+		if (uploadExecutor == null) {
+			partETags.add(uploadPart(partNumber, partBytes, partLength));
+			return;
+		}
+		byte[] freeBuffer = null;
+		if (partsInFlight.size() >= maxPartsInFlight) {
+			freeBuffer = waitForPart();
+		}
+		Future<PartETag> future = uploadExecutor.submit(() -> uploadPart(partNumber, partBytes, partLength));
+		partsInFlight.add(new PartInFlight(future, partBytes));
+		// The buffer of an uploaded part is reused for the next part.
+		buffer = freeBuffer;
+	}
+
+	/**
+	 * Upload a single part.
+	 * 
+	 * @param partNumber
+	 * @param bytes
+	 * @param length
+	 * @return
+	 */
+	private PartETag uploadPart(int partNumber, byte[] bytes, int length) {
+		UploadPartRequest request = new UploadPartRequest().withBucketName(bucket).withKey(key)
+				.withUploadId(uploadId).withPartNumber(partNumber)
+				.withInputStream(new ByteArrayInputStream(bytes, 0, length)).withPartSize(length);
+		return s3Client.uploadPart(request).getPartETag();
+	}
+
+	/**
+	 * Wait for the oldest part that is uploading in the background.
+	 * 
+	 * @return The buffer of the part, which can be reused.
+	 * @throws IOException
+	 */
+	private byte[] waitForPart() throws IOException {
+		PartInFlight part = partsInFlight.remove();
+		try {
+			partETags.add(part.future.get());
+			return part.buffer;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while uploading " + key);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IOException(e.getCause());
+		}
+	}
+
+	/**
+	 * A part that is uploading in the background.
+	 *
+	 */
+	private static class PartInFlight {
+		private final Future<PartETag> future;
+		private final byte[] buffer;
+
+		PartInFlight(Future<PartETag> future, byte[] buffer) {
+			this.future = future;
+			this.buffer = buffer;
+		}
+	}
+
+}
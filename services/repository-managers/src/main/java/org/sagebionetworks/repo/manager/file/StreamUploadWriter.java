@@ -0,0 +1,24 @@
+package org.sagebionetworks.repo.manager.file;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes the contents of a file that is uploaded as it is written. See:
+ * {@link FileHandleManager#uploadStream(LocalFileUploadRequest, StreamUploadWriter)}
+ *
+ */
+@FunctionalInterface
+public interface StreamUploadWriter {
+
+	/**
+	 * Write the contents of the file to the given stream. The stream must not be
+	 * closed by the writer.
+	 *
+	 * @param out
+	 * @return True if the written file should be kept, false if it should be
+	 *         discarded.
+	 * @throws IOException
+	 */
+	boolean write(OutputStream out) throws IOException;
+}
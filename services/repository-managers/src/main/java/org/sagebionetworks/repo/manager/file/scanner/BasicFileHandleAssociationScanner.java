@@ -12,7 +12,7 @@ import org.sagebionetworks.repo.model.IdRangeMapper;
 import org.sagebionetworks.repo.model.dbo.DMLUtils;
 import org.sagebionetworks.repo.model.dbo.FieldColumn;
 import org.sagebionetworks.repo.model.dbo.TableMapping;
-import org.sagebionetworks.repo.model.dbo.migration.QueryStreamIterable;
+import org.sagebionetworks.repo.model.dbo.migration.KeysetQueryStreamIterable;
 import org.sagebionetworks.util.ValidateArgument;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
@@ -40,6 +40,8 @@ public class BasicFileHandleAssociationScanner implements FileHandleAssociationS
 
 	private FieldColumn backupIdColumn;
 	private FieldColumn fileHandleColumn;
+	// The primary key columns, used to seek each batch
+	private List<String> keyColumns;
 
 	// Cached statement for the min max range query
 	private String sqlMinMaxRangeStm;
@@ -92,6 +94,7 @@ public class BasicFileHandleAssociationScanner implements FileHandleAssociationS
 				.findFirst()
 				.orElseThrow(() -> new IllegalArgumentException("The mapping " + tableMapping.getClass().getName() + " does not define a backup id column"));
 		this.fileHandleColumn = candidates.iterator().next();
+		this.keyColumns = DMLUtils.getPrimaryKeyColumnNames(tableMapping);
 		this.sqlMinMaxRangeStm = generateMinMaxStatement(tableMapping);
 		this.sqlSelectBatchStm = generateSelectBatchStatement(tableMapping, backupIdColumn, fileHandleColumn);
 		this.rowMapper = rowMapperSupplier.getRowMapper(backupIdColumn.getColumnName(), fileHandleColumn.getColumnName());
@@ -109,7 +112,7 @@ public class BasicFileHandleAssociationScanner implements FileHandleAssociationS
 
 		final Map<String, Object> params = ImmutableMap.of(DMLUtils.BIND_MIN_ID, range.getMinId(), DMLUtils.BIND_MAX_ID, range.getMaxId());
 
-		return new QueryStreamIterable<>(namedJdbcTemplate, rowMapper, sqlSelectBatchStm, params, batchSize);
+		return new KeysetQueryStreamIterable<>(namedJdbcTemplate, rowMapper, sqlSelectBatchStm, params, keyColumns, batchSize, null);
 	}
 
 	/**
@@ -149,10 +152,11 @@ public class BasicFileHandleAssociationScanner implements FileHandleAssociationS
 	}
 
 	/**
-	 * Generates the SQL statement to select the (distinct) backup id and file handle id columns in a
-	 * range of backup ids using the given mapping
+	 * Generates the SQL statement to select the backup id and file handle id columns in a
+	 * range of backup ids using the given mapping, the other primary key columns are selected as well
+	 * since the batches are paginated on the primary key (See {@link KeysetQueryStreamIterable})
 	 * </p>
-	 * <code>SELECT DISTINCT ID, FILE_HANLDE_ID FROM TABLE WHERE ID BETWEEN :MIN AND :MAX AND FILE_HANDLE_ID IS NOT NULL ORDER BY ID, OTHER_PK_ID</code>
+	 * <code>SELECT ID, FILE_HANLDE_ID, OTHER_PK_ID FROM TABLE WHERE ID BETWEEN :MIN AND :MAX AND FILE_HANDLE_ID IS NOT NULL</code>
 	 */
 	protected String generateSelectBatchStatement(TableMapping<?> mapping, FieldColumn backupIdColumn, FieldColumn fileHandleColumn) {
 		DMLUtils.validateMigratableTableMapping(mapping);
@@ -162,6 +166,9 @@ public class BasicFileHandleAssociationScanner implements FileHandleAssociationS
 		builder.append("`, `");
 		builder.append(fileHandleColumn.getColumnName());
 		builder.append("`");
+		Arrays.stream(mapping.getFieldColumns())
+			.filter(c -> c.isPrimaryKey() && !c.getColumnName().equals(backupIdColumn.getColumnName()) && !c.getColumnName().equals(fileHandleColumn.getColumnName()))
+			.forEach(c -> builder.append(", `").append(c.getColumnName()).append("`"));
 		builder.append(" FROM ");
 		builder.append(mapping.getTableName());
 		builder.append(" WHERE `");
@@ -173,9 +180,6 @@ public class BasicFileHandleAssociationScanner implements FileHandleAssociationS
 		builder.append(" AND ");
 		builder.append(fileHandleColumn.getColumnName());
 		builder.append(" IS NOT NULL");
-		builder.append(" ORDER BY ");
-		builder.append(Arrays.stream(mapping.getFieldColumns()).filter(c -> c.isPrimaryKey()).map(FieldColumn::getColumnName)
-				.collect(Collectors.joining("`, `", "`", "`")));
 
 		return builder.toString();
 	}
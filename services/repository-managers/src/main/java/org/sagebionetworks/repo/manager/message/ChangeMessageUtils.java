@@ -1,6 +1,10 @@
 package org.sagebionetworks.repo.manager.message;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -65,4 +69,38 @@ public class ChangeMessageUtils {
 		return results;
 	}
 
+	/**
+	 * Remove the superseded messages from the given list. Two messages are
+	 * about the same change when they have the same object ID, object version
+	 * and object type, regardless of their change type. Only the message with
+	 * the largest change number of each object is kept since the changes table
+	 * only records the latest change of each object. The remaining messages are
+	 * sorted by change number, so a subscriber never receives an older change of
+	 * an object after a newer one. Messages without a change number are kept in
+	 * their original order after all of the others.
+	 * 
+	 * @param batch
+	 * @return
+	 */
+	public static List<ChangeMessage> coalesce(List<ChangeMessage> batch) {
+		Map<List<Object>, ChangeMessage> latest = new LinkedHashMap<List<Object>, ChangeMessage>(batch.size());
+		for (ChangeMessage change : batch) {
+			List<Object> key = Arrays.asList(change.getObjectId(), change.getObjectVersion(), change.getObjectType());
+			latest.merge(key, change, (ChangeMessage current, ChangeMessage next) -> {
+				return isNewer(next, current) ? next : current;
+			});
+		}
+		List<ChangeMessage> results = new ArrayList<ChangeMessage>(latest.values());
+		// The sort is stable.
+		results.sort(Comparator.comparing(ChangeMessage::getChangeNumber, Comparator.nullsLast(Comparator.naturalOrder())));
+		return results;
+	}
+
+	private static boolean isNewer(ChangeMessage one, ChangeMessage two) {
+		if (one.getChangeNumber() == null) {
+			return false;
+		}
+		return two.getChangeNumber() == null || one.getChangeNumber() > two.getChangeNumber();
+	}
+
 }
@@ -1,14 +1,22 @@
 package org.sagebionetworks.repo.manager.message;
 
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Date;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.sagebionetworks.StackConfiguration;
+import org.sagebionetworks.cloudwatch.Consumer;
+import org.sagebionetworks.cloudwatch.ProfileData;
 import org.sagebionetworks.repo.model.ObjectType;
 import org.sagebionetworks.repo.model.message.ChangeMessage;
 import org.sagebionetworks.repo.model.message.ChangeMessages;
@@ -18,8 +26,10 @@ import org.sagebionetworks.repo.transactions.NewWriteTransaction;
 import org.sagebionetworks.schema.adapter.JSONEntity;
 import org.sagebionetworks.schema.adapter.JSONObjectAdapterException;
 import org.sagebionetworks.schema.adapter.org.json.EntityFactory;
+import org.sagebionetworks.util.Clock;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import com.amazonaws.services.cloudwatch.model.StandardUnit;
 import com.amazonaws.services.sns.AmazonSNS;
 import com.amazonaws.services.sns.model.CreateTopicRequest;
 import com.amazonaws.services.sns.model.CreateTopicResult;
@@ -29,6 +39,9 @@ import com.google.common.collect.Lists;
 /**
  * The basic implementation of the RepositoryMessagePublisher.  This implementation will publish all messages to an AWS topic
  * where external subscribers can receive notification of changes to the repository.
+ * <p>
+ * Each time the timer fires, the queued messages are drained, duplicate messages are coalesced and the remaining
+ * messages are published in batches.  The batches of each topic are published concurrently.
  * 
  * @author John
  *
@@ -36,6 +49,9 @@ import com.google.common.collect.Lists;
 public class RepositoryMessagePublisherImpl implements RepositoryMessagePublisher {
 	
 	public static final String SEMAPHORE_KEY = "UNSENT_MESSAGE_WORKER";
+	public static final String METRIC_NAMESPACE_PREFIX = "Message-Publisher-";
+	public static final String METRIC_QUEUE_DEPTH = "Queue Depth";
+	public static final String METRIC_PUBLISH_LAG = "Publish Lag";
 	static private Log log = LogFactory.getLog(RepositoryMessagePublisherImpl.class);
 
 	@Autowired
@@ -47,11 +63,30 @@ public class RepositoryMessagePublisherImpl implements RepositoryMessagePublishe
 	@Autowired
 	StackConfiguration stackConfiguration;
 
+	@Autowired
+	Consumer consumer;
+
+	@Autowired
+	Clock clock;
+
+	/**
+	 * Publishes the batches of each topic concurrently.  When null, all batches
+	 * are published on the timer thread.
+	 */
+	ExecutorService publishExecutorService;
+
 	// Maps each object type to its topic
-	Map<ObjectType, TopicInfo> typeToTopicMap = new HashMap<ObjectType, TopicInfo>();;
+	Map<ObjectType, TopicInfo> typeToTopicMap = new ConcurrentHashMap<ObjectType, TopicInfo>();
 
 	private ConcurrentLinkedQueue<Message> messageQueue = new ConcurrentLinkedQueue<Message>();
 
+	/**
+	 * Injected.
+	 * @param publishExecutorService
+	 */
+	public void setPublishExecutorService(ExecutorService publishExecutorService) {
+		this.publishExecutorService = publishExecutorService;
+	}
 
 	/**
 	 * Used by tests to inject a mock client.
@@ -111,20 +146,105 @@ public class RepositoryMessagePublisherImpl implements RepositoryMessagePublishe
 			}
 			return;
 		}
-		// Publish each message to the topic
+		List<ChangeMessage> changes = new ArrayList<ChangeMessage>(currentQueue.size());
 		for (Message queueItem : currentQueue) {
+			if (queueItem instanceof ChangeMessage) {
+				changes.add((ChangeMessage) queueItem);
+			} else {
+				log.error("Failed to publish message.", new IllegalArgumentException("Unknown message type " + queueItem.getClass().getName()));
+			}
+		}
+		// Only the latest of duplicate messages needs to be sent.
+		changes = ChangeMessageUtils.coalesce(changes);
+		Map<ObjectType, List<List<ChangeMessage>>> batches = ChangeMessageUtils.groupByObjectTypeAndPartitionEachGroup(changes,
+				ChangeMessageUtils.MAX_NUMBER_OF_CHANGE_MESSAGES_PER_SQS_MESSAGE);
+		// Each topic is published concurrently.
+		List<Future<?>> futures = new LinkedList<Future<?>>();
+		for (Map.Entry<ObjectType, List<List<ChangeMessage>>> entry : batches.entrySet()) {
+			Runnable publishTopic = () -> publishBatches(entry.getKey(), entry.getValue());
+			if (publishExecutorService != null) {
+				futures.add(publishExecutorService.submit(publishTopic));
+			} else {
+				publishTopic.run();
+			}
+		}
+		// Wait for all of the topics so the next drain does not overlap this one.
+		for (Future<?> future : futures) {
+			try {
+				future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				log.error("Interrupted while publishing messages.", e);
+			} catch (ExecutionException e) {
+				log.error("Failed to publish messages.", e.getCause());
+			}
+		}
+		pushMetrics(currentQueue.size(), getOldestTimestamp(changes));
+	}
+
+	/**
+	 * Publish each batch of the given type to its topic.
+	 * 
+	 * @param type
+	 * @param batches
+	 */
+	void publishBatches(ObjectType type, List<List<ChangeMessage>> batches) {
+		for (List<ChangeMessage> batch : batches) {
 			try {
-				if (queueItem instanceof ChangeMessage) {
-					ChangeMessage message = (ChangeMessage) queueItem;
-					publishToTopic(message);
-				} else {
-					throw new IllegalArgumentException("Unknown message type " + queueItem.getClass().getName());
-				}
+				publishBatchToTopic(type, batch);
 			} catch (Throwable e) {
-				// If one messages fails, we must send the rest.
-				log.error("Failed to publish message.", e);
+				// If one batch fails, we must send the rest.
+				log.error("Failed to publish message batch.", e);
+			}
+		}
+	}
+
+	/**
+	 * Find the timestamp of the oldest message. Messages without a timestamp are
+	 * ignored.
+	 * 
+	 * @param changes
+	 * @return The oldest timestamp or null if no message has a timestamp.
+	 */
+	static Date getOldestTimestamp(List<ChangeMessage> changes) {
+		Date oldest = null;
+		for (ChangeMessage change : changes) {
+			if (change.getTimestamp() == null) {
+				continue;
 			}
+			if (oldest == null || change.getTimestamp().before(oldest)) {
+				oldest = change.getTimestamp();
+			}
+		}
+		return oldest;
+	}
+
+	/**
+	 * Push the number of messages drained from the queue and the time since the
+	 * oldest published message was created.
+	 * 
+	 * @param queueDepth
+	 * @param oldestTimestamp
+	 */
+	void pushMetrics(int queueDepth, Date oldestTimestamp) {
+		Date now = new Date(clock.currentTimeMillis());
+		List<ProfileData> metrics = new LinkedList<ProfileData>();
+		metrics.add(createProfileData(METRIC_QUEUE_DEPTH, (double) queueDepth, StandardUnit.Count, now));
+		if (oldestTimestamp != null) {
+			metrics.add(createProfileData(METRIC_PUBLISH_LAG, (double) (now.getTime() - oldestTimestamp.getTime()),
+					StandardUnit.Milliseconds, now));
 		}
+		consumer.addProfileData(metrics);
+	}
+
+	private ProfileData createProfileData(String name, double value, StandardUnit unit, Date timestamp) {
+		ProfileData profileData = new ProfileData();
+		profileData.setNamespace(METRIC_NAMESPACE_PREFIX + stackConfiguration.getStackInstance());
+		profileData.setName(name);
+		profileData.setValue(value);
+		profileData.setUnit(unit.name());
+		profileData.setTimestamp(timestamp);
+		return profileData;
 	}
 	
 	/**
@@ -150,16 +270,13 @@ public class RepositoryMessagePublisherImpl implements RepositoryMessagePublishe
 		if(type == null){
 			throw new IllegalArgumentException("ObjectType cannot be null");
 		}
-		TopicInfo info = this.typeToTopicMap.get(type);
-		if(info == null){
+		return this.typeToTopicMap.computeIfAbsent(type, (ObjectType key) -> {
 			// Create the topic
-			String name = stackConfiguration.getRepositoryChangeTopic(type.name());
+			String name = stackConfiguration.getRepositoryChangeTopic(key.name());
 			CreateTopicResult result = awsSNSClient.createTopic(new CreateTopicRequest(name));
 			String arn = result.getTopicArn();
-			info = new TopicInfo(name, arn);
-			this.typeToTopicMap.put(type, info);
-		}
-		return info;
+			return new TopicInfo(name, arn);
+		});
 	}
 
 	/**
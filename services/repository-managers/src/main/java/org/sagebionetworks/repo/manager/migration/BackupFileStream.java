@@ -20,6 +20,9 @@ public interface BackupFileStream {
 	 * sub-file must be small enough to fit in memory. After each sub-file is read,
 	 * all data from that file will be flushed from memory.
 	 * 
+	 * Files of a {@link BackupAliasType#BINARY} backup are decoded concurrently,
+	 * a few files ahead of the rows being read.
+	 * 
 	 * Note: The caller is responsible for closing the passed stream.
 	 * 
 	 * @param input
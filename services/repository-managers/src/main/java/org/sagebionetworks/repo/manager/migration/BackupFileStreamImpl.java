@@ -2,6 +2,9 @@ package org.sagebionetworks.repo.manager.migration;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
@@ -9,9 +12,14 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.UnsupportedEncodingException;
 import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
@@ -22,12 +30,14 @@ import org.apache.commons.logging.LogFactory;
 import org.sagebionetworks.repo.model.daemon.BackupAliasType;
 import org.sagebionetworks.repo.model.dbo.DatabaseObject;
 import org.sagebionetworks.repo.model.dbo.MigratableDatabaseObject;
+import org.sagebionetworks.repo.model.dbo.migration.BinaryBackupCodec;
 import org.sagebionetworks.repo.model.dbo.migration.MigratableTableTranslation;
 import org.sagebionetworks.repo.model.dbo.migration.MigrationTypeProvider;
 import org.sagebionetworks.repo.model.migration.MigrationType;
 import org.sagebionetworks.repo.web.NotFoundException;
 import org.sagebionetworks.util.ValidateArgument;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 
 import com.thoughtworks.xstream.io.StreamException;
 
@@ -39,10 +49,20 @@ public class BackupFileStreamImpl implements BackupFileStream {
 	private static final String INPUT_CONTAINED_NO_DATA = "input contained no data";
 	private static final String DOT = ".";
 	private static final String FILE_NAME_TEMPLATE = "%1$s.%2$d.xml";
+	private static final String BINARY_FILE_NAME_TEMPLATE = "%1$s.%2$d.bin";
+	/**
+	 * The maximum number of binary files decoded ahead of the rows being read.
+	 * Each file holds at most one batch of rows.
+	 */
+	public static final int MAX_BINARY_FILES_READ_AHEAD = 4;
 
 	@Autowired
 	MigrationTypeProvider typeProvider;
 
+	@Autowired
+	@Qualifier("migrationBackupDecodeExecutorService")
+	ExecutorService decodeExecutorService;
+
 	/*
 	 * (non-Javadoc)
 	 * @see org.sagebionetworks.repo.manager.migration.BackupFileStream#readBackupFile(java.io.InputStream, org.sagebionetworks.repo.model.daemon.BackupAliasType)
@@ -50,6 +70,9 @@ public class BackupFileStreamImpl implements BackupFileStream {
 	@Override
 	public Iterable<MigratableDatabaseObject<?,?>> readBackupFile(InputStream input, BackupAliasType backupAliasType) {
 		ValidateArgument.required(input, "input");
+		if (BackupAliasType.BINARY == backupAliasType) {
+			return new BinaryInputStreamIterator(input);
+		}
 		try {
 			return new InputStreamIterator(input, backupAliasType);
 		} catch (IOException e) {
@@ -104,6 +127,95 @@ public class BackupFileStreamImpl implements BackupFileStream {
 		}
 	}
 
+	/**
+	 * This Iterator reads the binary files of the provided zip file ahead of the
+	 * rows being consumed and decodes them concurrently. At most
+	 * {@link #MAX_BINARY_FILES_READ_AHEAD} files are held in memory in addition
+	 * to the file being read. The rows are returned in the order of the files.
+	 *
+	 */
+	private class BinaryInputStreamIterator
+			implements Iterable<MigratableDatabaseObject<?, ?>>, Iterator<MigratableDatabaseObject<?,?>> {
+
+		ZipInputStream zipInputStream;
+		Deque<Future<List<MigratableDatabaseObject<?,?>>>> pendingFiles;
+		Iterator<MigratableDatabaseObject<?,?>> currentFile;
+		boolean endOfZip;
+
+		BinaryInputStreamIterator(InputStream input) {
+			this.zipInputStream = new ZipInputStream(new BufferedInputStream(input));
+			this.pendingFiles = new ArrayDeque<>(MAX_BINARY_FILES_READ_AHEAD);
+			this.currentFile = null;
+			this.endOfZip = false;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (currentFile != null && currentFile.hasNext()) {
+				return true;
+			}
+			while (true) {
+				readAhead();
+				if (pendingFiles.isEmpty()) {
+					return false;
+				}
+				this.currentFile = takeFile(pendingFiles.poll()).iterator();
+				// skip empty files
+				if (this.currentFile.hasNext()) {
+					return true;
+				}
+			}
+		}
+
+		/**
+		 * Read files from the zip until the read ahead limit is reached. Each file
+		 * is decoded on the decode executor.
+		 */
+		void readAhead() {
+			try {
+				while (!endOfZip && pendingFiles.size() < MAX_BINARY_FILES_READ_AHEAD) {
+					ZipEntry entry = zipInputStream.getNextEntry();
+					if (entry == null) {
+						endOfZip = true;
+						break;
+					}
+					String fileName = entry.getName();
+					byte[] fileBytes = IOUtils.toByteArray(zipInputStream);
+					pendingFiles.add(decodeExecutorService.submit(() -> readBinaryFile(fileBytes, fileName)));
+				}
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+		}
+
+		List<MigratableDatabaseObject<?,?>> takeFile(Future<List<MigratableDatabaseObject<?,?>>> file) {
+			try {
+				return file.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException(e);
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				}
+				throw new RuntimeException(e.getCause());
+			}
+		}
+
+		@Override
+		public MigratableDatabaseObject<?,?> next() {
+			if (currentFile == null) {
+				throw new IllegalStateException("hasNext() must be called before next()");
+			}
+			return currentFile.next();
+		}
+
+		@Override
+		public Iterator<MigratableDatabaseObject<?, ?>> iterator() {
+			return this;
+		}
+	}
+
 	/**
 	 * Extract the migration type from a file's name.
 	 * 
@@ -137,6 +249,22 @@ public class BackupFileStreamImpl implements BackupFileStream {
 		return String.format(FILE_NAME_TEMPLATE, type.name(), index);
 	}
 
+	/**
+	 * Create a FileName for zip entry of the given backup alias type.
+	 * 
+	 * @param type
+	 * @param index
+	 * @param backupAliasType
+	 * @return
+	 */
+	public static String createFileName(MigrationType type, int index, BackupAliasType backupAliasType) {
+		ValidateArgument.required(type, "MigrationType");
+		if (BackupAliasType.BINARY == backupAliasType) {
+			return String.format(BINARY_FILE_NAME_TEMPLATE, type.name(), index);
+		}
+		return createFileName(type, index);
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see org.sagebionetworks.repo.manager.migration.BackupFileStream#writeBackupFile(java.io.OutputStream, java.lang.Iterable, org.sagebionetworks.repo.model.daemon.BackupAliasType, int)
@@ -198,15 +326,35 @@ public class BackupFileStreamImpl implements BackupFileStream {
 			BackupAliasType backupAliasType) throws IOException {
 		if(currentType != null && currentBatch != null && !currentBatch.isEmpty()) {
 			// Write the current batch as a sub-file to the zip
-			String fileName = createFileName(currentType, index);
+			String fileName = createFileName(currentType, index, backupAliasType);
 			ZipEntry entry = new ZipEntry(fileName);
 			zos.putNextEntry(entry);
+			if (BackupAliasType.BINARY == backupAliasType) {
+				writeBinaryBatchToStream(currentBatch, currentType, new DataOutputStream(new BufferedOutputStream(zos)));
+				return;
+			}
 			Writer zipWriter = new OutputStreamWriter(zos, UTF_8);
 
 			writeBatchToStream(currentBatch, currentType, backupAliasType, zipWriter);
 		}
 	}
 
+	/**
+	 * Write the given batch of objects to the passed stream with the binary
+	 * encoding of the type's table mapping.
+	 * 
+	 * @param currentBatch
+	 * @param currentType
+	 * @param out
+	 * @throws IOException
+	 */
+	<D extends DatabaseObject<D>, B> void writeBinaryBatchToStream(List<MigratableDatabaseObject<?, ?>> currentBatch,
+			MigrationType currentType, DataOutputStream out) throws IOException {
+		MigratableDatabaseObject<D, B> mdo = typeProvider.getObjectForType(currentType);
+		BinaryBackupCodec.writeBatch(out, mdo.getTableMapping(), currentBatch);
+		out.flush();
+	}
+
 	/**
 	 * Write the given batch of object to the passed writer
 	 * @param currentBatch
@@ -300,4 +448,37 @@ public class BackupFileStreamImpl implements BackupFileStream {
 		return translated;
 	}
 
+	/**
+	 * Read all of the data from a single binary file.
+	 * 
+	 * @param fileBytes
+	 * @param fileName
+	 * @return The rows of the file, empty if the type of the file no longer exists.
+	 */
+	<D extends DatabaseObject<D>, B> List<MigratableDatabaseObject<?, ?>> readBinaryFile(byte[] fileBytes, String fileName) {
+		MigrationType type;
+		try {
+			type = getTypeFromFileName(fileName);
+		} catch (NotFoundException e) {
+			// Migration types that have been removed should be ignored. (See PLFM-5682)
+			log.warn("Migration type cannot be found so it will be ignored: "+e.getMessage());
+			return new LinkedList<>();
+		}
+		MigratableDatabaseObject<D, B> mdo = typeProvider.getObjectForType(type);
+		MigratableTableTranslation<D, B> translator = mdo.getTranslator();
+		List<D> databaseObjects;
+		try {
+			databaseObjects = BinaryBackupCodec.readBatch(new DataInputStream(new ByteArrayInputStream(fileBytes)), mdo.getTableMapping());
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		// The rows are passed through the translator so any changes it makes on restore are still applied.
+		List<MigratableDatabaseObject<?, ?>> translated = new LinkedList<>();
+		for (D databaseObject : databaseObjects) {
+			D restored = translator.createDatabaseObjectFromBackup(translator.createBackupFromDatabaseObject(databaseObject));
+			translated.add((MigratableDatabaseObject<?, ?>) restored);
+		}
+		return translated;
+	}
+
 }
@@ -31,6 +31,7 @@ import org.sagebionetworks.repo.model.daemon.BackupAliasType;
 import org.sagebionetworks.repo.model.dbo.DatabaseObject;
 import org.sagebionetworks.repo.model.dbo.MigratableDatabaseObject;
 import org.sagebionetworks.repo.model.dbo.migration.ForeignKeyInfo;
+import org.sagebionetworks.repo.model.dbo.migration.KeysetQueryStreamIterable;
 import org.sagebionetworks.repo.model.dbo.migration.MigratableTableDAO;
 import org.sagebionetworks.repo.model.migration.AsyncMigrationRangeChecksumRequest;
 import org.sagebionetworks.repo.model.migration.AsyncMigrationTypeChecksumRequest;
@@ -434,15 +435,36 @@ public class MigrationManagerImpl implements MigrationManager {
 		// Start the stream for the primary
 		Iterable<MigratableDatabaseObject<?, ?>> dataStream = this.migratableTableDao.streamDatabaseObjects(
 				request.getMigrationType(), request.getMinimumId(), request.getMaximumId(), request.getBatchSize());
+		List<Iterable<MigratableDatabaseObject<?, ?>>> streams = new LinkedList<>();
+		streams.add(dataStream);
 		// Concatenate all secondary data streams to the main stream.
 		for (MigrationType secondaryType : secondaryTypes) {
 			Iterable<MigratableDatabaseObject<?, ?>> secondaryStream = this.migratableTableDao.streamDatabaseObjects(
 					secondaryType, request.getMinimumId(), request.getMaximumId(), request.getBatchSize());
+			streams.add(secondaryStream);
 			dataStream = Iterables.concat(dataStream, secondaryStream);
 		}
-		// Create the backup and upload it to S3.
-		return backupStreamToS3(request.getMigrationType(), dataStream, request.getAliasType(), request.getBatchSize(),
-				backupKey);
+		try {
+			// Create the backup and upload it to S3.
+			return backupStreamToS3(request.getMigrationType(), dataStream, request.getAliasType(), request.getBatchSize(),
+					backupKey);
+		} finally {
+			// A failed backup stops reading, so any page read ahead is no longer needed.
+			closeStreams(streams);
+		}
+	}
+	
+	/**
+	 * Close each of the given streams that reads ahead.
+	 * 
+	 * @param streams
+	 */
+	static void closeStreams(List<Iterable<MigratableDatabaseObject<?, ?>>> streams) {
+		for (Iterable<MigratableDatabaseObject<?, ?>> stream : streams) {
+			if (stream instanceof KeysetQueryStreamIterable) {
+				((KeysetQueryStreamIterable<?>) stream).close();
+			}
+		}
 	}
 	
 	/**
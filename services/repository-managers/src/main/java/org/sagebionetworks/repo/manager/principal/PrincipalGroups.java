@@ -0,0 +1,43 @@
+package org.sagebionetworks.repo.manager.principal;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The immutable parts of a user's {@link org.sagebionetworks.repo.model.UserInfo}
+ * that are read from the database: the creation date of the user and the IDs
+ * of all of the groups the user belongs to.
+ *
+ */
+public class PrincipalGroups {
+
+	private final Date creationDate;
+	private final Set<Long> groups;
+
+	public PrincipalGroups(Date creationDate, Set<Long> groups) {
+		this.creationDate = creationDate == null ? null : new Date(creationDate.getTime());
+		this.groups = Collections.unmodifiableSet(new HashSet<>(groups));
+	}
+
+	/**
+	 * The creation date of the user.
+	 * 
+	 * @return
+	 */
+	public Date getCreationDate() {
+		return creationDate == null ? null : new Date(creationDate.getTime());
+	}
+
+	/**
+	 * The IDs of all of the groups the user belongs to, including the user's own
+	 * group.
+	 * 
+	 * @return
+	 */
+	public Set<Long> getGroups() {
+		return groups;
+	}
+
+}
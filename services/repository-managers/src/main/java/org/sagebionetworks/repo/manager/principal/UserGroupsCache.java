@@ -0,0 +1,33 @@
+package org.sagebionetworks.repo.manager.principal;
+
+import java.util.function.Supplier;
+
+import org.sagebionetworks.repo.model.message.TransactionalMessengerObserver;
+
+/**
+ * A bounded, in-memory cache of the groups of each user. Cached groups are
+ * invalidated when a change message for a principal is committed, and expire
+ * after a short time to bound the staleness of changes made by other
+ * machines.
+ *
+ */
+public interface UserGroupsCache extends TransactionalMessengerObserver {
+
+	/**
+	 * Get the groups of the given user. When the groups are not cached the
+	 * given loader is called and the result is cached.
+	 * 
+	 * @param principalId
+	 * @param loader
+	 * @return
+	 */
+	PrincipalGroups getPrincipalGroups(Long principalId, Supplier<PrincipalGroups> loader);
+
+	/**
+	 * Remove the cached groups of the given user.
+	 * 
+	 * @param principalId
+	 */
+	void invalidate(Long principalId);
+
+}
@@ -0,0 +1,206 @@
+package org.sagebionetworks.repo.manager.principal;
+
+import java.util.Date;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+
+import org.sagebionetworks.StackConfiguration;
+import org.sagebionetworks.cloudwatch.Consumer;
+import org.sagebionetworks.cloudwatch.ProfileData;
+import org.sagebionetworks.repo.model.GroupMembersDAO;
+import org.sagebionetworks.repo.model.ObjectType;
+import org.sagebionetworks.repo.model.message.ChangeMessage;
+import org.sagebionetworks.repo.model.message.TransactionalMessenger;
+import org.sagebionetworks.util.Clock;
+import org.sagebionetworks.util.ValidateArgument;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.amazonaws.services.cloudwatch.model.StandardUnit;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * Group membership changes send a change message for the group rather than
+ * its members, so a change message for a principal that is not a cached user
+ * removes the current members of the group and any cached user that belonged
+ * to the group. Change messages are only observed on the machine that made the
+ * change, so other machines rely on the expiration.
+ *
+ */
+@Service
+public class UserGroupsCacheImpl implements UserGroupsCache {
+
+	/**
+	 * The maximum number of users with cached groups.
+	 */
+	public static final long MAX_CACHED_USERS = 50_000L;
+	/**
+	 * Cached groups are reloaded after this amount of time.
+	 */
+	public static final long EXPIRE_AFTER_WRITE_SECONDS = 30L;
+	/**
+	 * Since the smallest period supported by cloud watch is one minute, metrics
+	 * are only pushed to cloud watch once per minute.
+	 */
+	public static final long PUBLISH_PERIOD_MS = 60 * 1000;
+
+	public static final String METRIC_NAMESPACE_PREFIX = "User-Groups-Cache-";
+	public static final String METRIC_HIT_COUNT = "Hit Count";
+	public static final String METRIC_MISS_COUNT = "Miss Count";
+
+	private final TransactionalMessenger transactionalMessenger;
+	private final GroupMembersDAO groupMembersDao;
+	private final Consumer consumer;
+	private final Clock clock;
+	private final String metricNamespace;
+	private final Cache<Long, PrincipalGroups> cache;
+	/**
+	 * Incremented before each invalidation. Groups that were loaded while the
+	 * generation changed might be stale so they are not kept in the cache.
+	 */
+	private final AtomicLong generation = new AtomicLong();
+
+	private long lastPublishMS;
+	private CacheStats lastPublishedStats;
+
+	@Autowired
+	public UserGroupsCacheImpl(TransactionalMessenger transactionalMessenger, GroupMembersDAO groupMembersDao,
+			Consumer consumer, Clock clock, StackConfiguration stackConfiguration) {
+		this(transactionalMessenger, groupMembersDao, consumer, clock, stackConfiguration, MAX_CACHED_USERS);
+	}
+
+	UserGroupsCacheImpl(TransactionalMessenger transactionalMessenger, GroupMembersDAO groupMembersDao,
+			Consumer consumer, Clock clock, StackConfiguration stackConfiguration, long maxSize) {
+		this.transactionalMessenger = transactionalMessenger;
+		this.groupMembersDao = groupMembersDao;
+		this.consumer = consumer;
+		this.clock = clock;
+		this.metricNamespace = METRIC_NAMESPACE_PREFIX + stackConfiguration.getStackInstance();
+		this.cache = CacheBuilder.newBuilder()
+				.maximumSize(maxSize)
+				.expireAfterWrite(EXPIRE_AFTER_WRITE_SECONDS, TimeUnit.SECONDS)
+				.recordStats()
+				.build();
+		this.lastPublishMS = clock.currentTimeMillis();
+		this.lastPublishedStats = cache.stats();
+	}
+
+	/**
+	 * Register this cache as an observer of committed change messages.
+	 */
+	@PostConstruct
+	public void initialize() {
+		// We only want to be in the list once
+		transactionalMessenger.removeObserver(this);
+		transactionalMessenger.registerObserver(this);
+	}
+
+	@Override
+	public PrincipalGroups getPrincipalGroups(Long principalId, Supplier<PrincipalGroups> loader) {
+		ValidateArgument.required(principalId, "principalId");
+		ValidateArgument.required(loader, "loader");
+		long startGeneration = generation.get();
+		AtomicBoolean loaded = new AtomicBoolean(false);
+		PrincipalGroups groups;
+		try {
+			// Concurrent requests for the same user wait for a single load.
+			groups = cache.get(principalId, () -> {
+				loaded.set(true);
+				return loader.get();
+			});
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		} catch (UncheckedExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		} finally {
+			pushMetricsIfNeeded();
+		}
+		if (loaded.get() && generation.get() != startGeneration) {
+			// The groups might have been read before the invalidation was committed.
+			cache.asMap().remove(principalId, groups);
+		}
+		return groups;
+	}
+
+	@Override
+	public void invalidate(Long principalId) {
+		ValidateArgument.required(principalId, "principalId");
+		generation.incrementAndGet();
+		cache.invalidate(principalId);
+	}
+
+	@Override
+	public void fireChangeMessage(ChangeMessage message) {
+		if (!ObjectType.PRINCIPAL.equals(message.getObjectType())) {
+			return;
+		}
+		Long principalId = Long.parseLong(message.getObjectId());
+		generation.incrementAndGet();
+		if (cache.asMap().remove(principalId) != null) {
+			// Only users are cached, so the principal is not a group.
+			return;
+		}
+		// The principal might be a group whose members changed. Added members are in the database.
+		for (Long memberId : groupMembersDao.getMemberIds(principalId)) {
+			cache.invalidate(memberId);
+		}
+		// Removed members are no longer in the database but their cached groups include the group.
+		cache.asMap().values().removeIf((PrincipalGroups groups) -> groups.getGroups().contains(principalId));
+	}
+
+	/**
+	 * Push the number of hits and misses since the last push, at most once per
+	 * minute.
+	 */
+	void pushMetricsIfNeeded() {
+		long nowMS = clock.currentTimeMillis();
+		CacheStats delta;
+		synchronized (this) {
+			if (nowMS - lastPublishMS < PUBLISH_PERIOD_MS) {
+				return;
+			}
+			CacheStats stats = cache.stats();
+			delta = stats.minus(lastPublishedStats);
+			lastPublishedStats = stats;
+			lastPublishMS = nowMS;
+		}
+		Date timestamp = new Date(nowMS);
+		List<ProfileData> metrics = new LinkedList<>();
+		metrics.add(createProfileData(METRIC_HIT_COUNT, delta.hitCount(), timestamp));
+		metrics.add(createProfileData(METRIC_MISS_COUNT, delta.missCount(), timestamp));
+		consumer.addProfileData(metrics);
+	}
+
+	private ProfileData createProfileData(String name, long count, Date timestamp) {
+		ProfileData profileData = new ProfileData();
+		profileData.setNamespace(metricNamespace);
+		profileData.setName(name);
+		profileData.setValue((double) count);
+		profileData.setUnit(StandardUnit.Count.name());
+		profileData.setTimestamp(timestamp);
+		return profileData;
+	}
+
+	/**
+	 * The number of users with cached groups.
+	 * 
+	 * @return
+	 */
+	long size() {
+		cache.cleanUp();
+		return cache.size();
+	}
+}
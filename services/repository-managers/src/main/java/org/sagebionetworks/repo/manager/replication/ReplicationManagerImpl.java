@@ -93,22 +93,26 @@ public class ReplicationManagerImpl implements ReplicationManager {
 
 	/**
 	 * Update the replication tables within a single transaction that removes rows to be deleted
-	 * and creates or updates rows from the provided group.
+	 * and creates or updates rows from the provided group. The replication tables are updated
+	 * in each database of the cluster so that every shard sees the same replicated data.
 	 * 
 	 * @param replicationType
 	 * @param toDelete
 	 * @param objectData
 	 */
 	void updateReplicationTables(ReplicationDataGroup group) {
-		TableIndexManager indexManager = indexConnectionFactory.connectToFirstIndex();
-		
-		indexManager.deleteObjectData(group.getObjectType(), group.getToDeleteIds());
-		
 		ObjectDataProvider provider = objectDataProviderFactory.getObjectDataProvider(group.getObjectType());
-		Iterator<ObjectDataDTO> objectData = provider.getObjectData(group.getCreateOrUpdateIds(),
-				MAX_ANNOTATION_CHARS);
 		
-		indexManager.updateObjectReplication(group.getObjectType(), objectData);
+		for (TableIndexManager indexManager : indexConnectionFactory.connectToAllIndices()) {
+			
+			indexManager.deleteObjectData(group.getObjectType(), group.getToDeleteIds());
+			
+			// The iterator can only be consumed once so each index gets its own.
+			Iterator<ObjectDataDTO> objectData = provider.getObjectData(group.getCreateOrUpdateIds(),
+					MAX_ANNOTATION_CHARS);
+			
+			indexManager.updateObjectReplication(group.getObjectType(), objectData);
+		}
 	}
 
 	/**
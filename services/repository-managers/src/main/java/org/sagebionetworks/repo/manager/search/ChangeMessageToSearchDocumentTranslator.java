@@ -1,5 +1,11 @@
 package org.sagebionetworks.repo.manager.search;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.sagebionetworks.repo.model.ObjectType;
@@ -30,12 +36,56 @@ public class ChangeMessageToSearchDocumentTranslator {
 	@Autowired
 	CloudSearchLogger recordLogger;
 
-	Document generateSearchDocumentIfNecessary(ChangeMessage change) {
-		// start a log record for this message.
-		CloudSearchDocumentLogRecord record = recordLogger.startRecordForChangeMessage(change);
+	/**
+	 * Create the search documents for a batch of change messages. The documents
+	 * of all of the entities changed by the batch are formulated together and
+	 * an entity changed by more than one message gets a single document.
+	 * 
+	 * @param changes
+	 * @return
+	 */
+	List<Document> generateSearchDocumentsIfNecessary(List<ChangeMessage> changes) {
+		// The log records of each entity changed by the batch.
+		Map<String, List<CloudSearchDocumentLogRecord>> entityRecords = new LinkedHashMap<>();
+		for (ChangeMessage change : changes) {
+			// start a log record for this message.
+			CloudSearchDocumentLogRecord record = recordLogger.startRecordForChangeMessage(change);
+			String entityId = getChangedEntityId(change, record);
+			if (entityId != null) {
+				entityRecords.computeIfAbsent(entityId, key -> new LinkedList<>()).add(record);
+			}
+		}
+		Map<String, Document> documents = searchDocumentDriver
+				.formulateSearchDocuments(new ArrayList<>(entityRecords.keySet()));
+		List<Document> results = new ArrayList<>(entityRecords.size());
+		for (Map.Entry<String, List<CloudSearchDocumentLogRecord>> entry : entityRecords.entrySet()) {
+			Document document = documents.get(entry.getKey());
+			DocumentAction action = DocumentAction.CREATE_OR_UPDATE;
+			if (document == null) {
+				// the entity does not exist or is in the trash.
+				action = DocumentAction.DELETE;
+				document = createDeleteDocument(entry.getKey());
+			}
+			for (CloudSearchDocumentLogRecord record : entry.getValue()) {
+				record.withAction(action);
+			}
+			results.add(document);
+		}
+		return results;
+	}
+
+	/**
+	 * Get the id of the entity that needs a new search document for the given
+	 * change.
+	 * 
+	 * @param change
+	 * @param record
+	 * @return null if the change will be ignored.
+	 */
+	String getChangedEntityId(ChangeMessage change, CloudSearchDocumentLogRecord record) {
 		switch (change.getObjectType()) {
 		case ENTITY:
-			return entityChange(change.getObjectId(), record);
+			return change.getObjectId();
 		case WIKI:
 			return wikiChange(change.getObjectId(), record);
 		default:
@@ -47,9 +97,9 @@ public class ChangeMessageToSearchDocumentTranslator {
 	 * Wiki changes are converted into entity changes.
 	 * @param wikiId
 	 * @param record
-	 * @return
+	 * @return the id of the entity that owns the wiki or null if the change will be ignored.
 	 */
-	Document wikiChange(String wikiId, CloudSearchDocumentLogRecord record) {
+	String wikiChange(String wikiId, CloudSearchDocumentLogRecord record) {
 		// Lookup the owner of the page
 		try {
 			WikiPageKey key = wikiPageDao.lookupWikiKey(wikiId);
@@ -57,7 +107,7 @@ public class ChangeMessageToSearchDocumentTranslator {
 			// message.
 			if (ObjectType.ENTITY == key.getOwnerObjectType()) {
 				record.withWikiOwner(key.getOwnerObjectId());
-				return entityChange(key.getOwnerObjectId(), record);
+				return key.getOwnerObjectId();
 			}
 		} catch (NotFoundException e) {
 			// Nothing to do if the wiki does not exist
@@ -68,23 +118,6 @@ public class ChangeMessageToSearchDocumentTranslator {
 		return null;
 	}
 
-	/**
-	 * Create a change document for the given wiki.
-	 * 
-	 * @param entityId
-	 * @param record
-	 * @return
-	 */
-	Document entityChange(String entityId, CloudSearchDocumentLogRecord record) {
-		if(!searchDocumentDriver.doesEntityExistInRepository(entityId)) {
-			record.withAction(DocumentAction.DELETE);
-			return createDeleteDocument(entityId);
-		}else {
-			record.withAction(DocumentAction.CREATE_OR_UPDATE);
-			return searchDocumentDriver.formulateSearchDocument(entityId);
-		}
-	}
-
 	/**
 	 * Create a document to be deleted.
 	 * @param entityId
@@ -2,6 +2,7 @@ package org.sagebionetworks.repo.manager.search;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.sagebionetworks.repo.model.AccessControlList;
@@ -35,6 +36,18 @@ public interface SearchDocumentDriver {
 	 * @throws IOException TODO
 	 */
 	public Document formulateSearchDocument(String nodeId) throws DatastoreException, NotFoundException;
+	
+	/**
+	 * Create the search documents for a batch of entities. The nodes,
+	 * benefactor ACLs and annotations of the whole batch are loaded with a few
+	 * queries and the wiki text of each entity is fetched concurrently.
+	 * 
+	 * @param entityIds
+	 * @return Map of the given entity ids to their search documents. Entities
+	 *         that do not exist or are in the trash are not included.
+	 */
+	public Map<String, Document> formulateSearchDocuments(List<String> entityIds);
+	
 	/**
 	 * Create a search document and return it.
 	 *
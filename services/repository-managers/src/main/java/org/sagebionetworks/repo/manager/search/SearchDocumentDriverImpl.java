@@ -10,12 +10,18 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.joda.time.DateTime;
+import org.sagebionetworks.repo.manager.wiki.WikiMarkdownCache;
 import org.sagebionetworks.repo.model.ACCESS_TYPE;
 import org.sagebionetworks.repo.model.AccessControlList;
 import org.sagebionetworks.repo.model.AccessControlListDAO;
@@ -30,6 +36,7 @@ import org.sagebionetworks.repo.model.ResourceAccess;
 import org.sagebionetworks.repo.model.annotation.v2.Annotations;
 import org.sagebionetworks.repo.model.annotation.v2.AnnotationsV2Utils;
 import org.sagebionetworks.repo.model.annotation.v2.AnnotationsValue;
+import org.sagebionetworks.repo.model.jdo.KeyFactory;
 import org.sagebionetworks.repo.model.dao.WikiPageKey;
 import org.sagebionetworks.repo.model.dao.WikiPageKeyHelper;
 import org.sagebionetworks.repo.model.entity.NameIdType;
@@ -41,7 +48,9 @@ import org.sagebionetworks.repo.model.v2.wiki.V2WikiHeader;
 import org.sagebionetworks.repo.model.v2.wiki.V2WikiPage;
 import org.sagebionetworks.repo.web.NotFoundException;
 import org.sagebionetworks.search.SearchUtil;
+import org.sagebionetworks.util.ValidateArgument;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 
 /**
  * This class writes out search documents in batch.
@@ -67,9 +76,14 @@ public class SearchDocumentDriverImpl implements SearchDocumentDriver {
 	@Autowired
 	NodeDAO nodeDao;
 	@Autowired
-	private AccessControlListDAO aclDAO;
+	AccessControlListDAO aclDAO;
 	@Autowired
 	V2WikiPageDao wikiPageDao;
+	@Autowired
+	WikiMarkdownCache markdownCache;
+	@Autowired
+	@Qualifier("searchWikiTextExecutorService")
+	ExecutorService wikiTextExecutorService;
 
 	static { // initialize SEARCHABLE_NODE_ANNOTATIONS
 		// NOTE: ORDER MATTERS. Earlier annotation key names will be preferred over later ones if both keys are present.
@@ -268,6 +282,67 @@ public class SearchDocumentDriverImpl implements SearchDocumentDriver {
 		return formulateFromBackup(node);
 	}
 
+	@Override
+	public Map<String, Document> formulateSearchDocuments(List<String> entityIds) {
+		ValidateArgument.required(entityIds, "entityIds");
+		Set<Long> availableIds = nodeDao.getAvailableNodes(KeyFactory.stringToKey(entityIds));
+		if (availableIds.isEmpty()) {
+			return Collections.emptyMap();
+		}
+		// The wiki text is fetched from S3 while the rest of the batch is loaded.
+		Map<Long, Future<String>> wikiPagesText = new HashMap<>(availableIds.size());
+		for (Long id : availableIds) {
+			wikiPagesText.put(id, wikiTextExecutorService.submit(() -> getAllWikiPageText(KeyFactory.keyToString(id))));
+		}
+		List<Long> ids = new ArrayList<>(availableIds);
+		Map<Long, Long> benefactors = nodeDao.getBenefactors(ids);
+		Map<Long, Annotations> annotations = nodeDao.getUserAnnotationsForCurrentVersions(ids);
+		Map<Long, Document> documents = new HashMap<>(ids.size());
+		// Entities of a batch usually share a few benefactors so each ACL is only loaded once.
+		Map<Long, AccessControlList> benefactorACLs = new HashMap<>();
+		for (Node node : nodeDao.getNodes(ids)) {
+			Long id = KeyFactory.stringToKey(node.getId());
+			Long benefactorId = benefactors.get(id);
+			Annotations annos = annotations.get(id);
+			if (benefactorId == null || annos == null) {
+				// the entity was deleted while the batch was loaded.
+				continue;
+			}
+			AccessControlList benefactorACL = benefactorACLs.computeIfAbsent(benefactorId,
+					key -> aclDAO.get(KeyFactory.keyToString(key), ObjectType.ENTITY));
+			documents.put(id, formulateSearchDocument(node, annos, benefactorACL, getWikiPageText(wikiPagesText.get(id))));
+		}
+		Map<String, Document> results = new LinkedHashMap<>(documents.size());
+		for (String entityId : entityIds) {
+			Document document = documents.get(KeyFactory.stringToKey(entityId));
+			if (document != null) {
+				results.put(entityId, document);
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Wait for the wiki text fetched by
+	 * {@link #formulateSearchDocuments(List)}.
+	 * 
+	 * @param future
+	 * @return
+	 */
+	static String getWikiPageText(Future<String> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new RuntimeException(e.getCause());
+		}
+	}
+
 	/**
 	 * Get all wiki text for an entity.
 	 * 
@@ -295,7 +370,7 @@ public class SearchDocumentDriverImpl implements SearchDocumentDriver {
 					builder.append("\n");
 					builder.append(page.getTitle());
 				}
-				String markdownString = wikiPageDao.getMarkdown(key, null);
+				String markdownString = markdownCache.getMarkdown(page.getMarkdownFileHandleId());
 				builder.append("\n");
 				builder.append(markdownString);
 			}
@@ -0,0 +1,41 @@
+package org.sagebionetworks.repo.manager.table;
+
+import java.util.function.Supplier;
+
+import org.sagebionetworks.repo.model.entity.IdAndVersion;
+import org.sagebionetworks.repo.model.table.RowSet;
+import org.sagebionetworks.table.cluster.SqlQuery;
+
+/**
+ * A bounded cache of the results of facet queries. Each result is tied to an
+ * etag that changes each time the rows of the table change, so results are
+ * only reused while the table is unchanged. Since the facet query SQL and its
+ * parameters include any row-level (benefactor) filter, results are never
+ * shared between callers that can see different rows.
+ * <p>
+ * Views are updated in place without a new change etag, so the etag of a view
+ * is derived from its status instead. See
+ * {@link TableQueryManagerImpl#getFacetCacheEtag(org.sagebionetworks.repo.model.table.TableStatus, org.sagebionetworks.repo.model.EntityType)}.
+ *
+ */
+public interface FacetQueryCache {
+
+	/**
+	 * Get the results of the given facet query. If the results are not in the
+	 * cache they will be loaded with the provided loader and cached.
+	 * 
+	 * @param tableId    The table the facet query runs against.
+	 * @param tableEtag  Changes each time the rows of the table change.
+	 * @param facetQuery The facet query.
+	 * @param loader     Runs the facet query when the results are not cached.
+	 * @return
+	 */
+	RowSet getFacetResults(IdAndVersion tableId, String tableEtag, SqlQuery facetQuery, Supplier<RowSet> loader);
+
+	/**
+	 * Remove all cached results for the given table.
+	 * 
+	 * @param tableId
+	 */
+	void evict(IdAndVersion tableId);
+}
@@ -0,0 +1,165 @@
+package org.sagebionetworks.repo.manager.table;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.sagebionetworks.repo.model.entity.IdAndVersion;
+import org.sagebionetworks.repo.model.table.Row;
+import org.sagebionetworks.repo.model.table.RowSet;
+import org.sagebionetworks.table.cluster.SqlQuery;
+import org.sagebionetworks.util.ValidateArgument;
+import org.springframework.stereotype.Service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+@Service
+public class FacetQueryCacheImpl implements FacetQueryCache {
+
+	/**
+	 * The approximate number of characters of facet results that can be cached.
+	 */
+	public static final long MAX_CACHE_WEIGHT = 32L * 1024L * 1024L;
+	/**
+	 * The approximate overhead of each cached value in characters.
+	 */
+	public static final int VALUE_OVERHEAD = 16;
+	/**
+	 * The maximum number of tables for which the current etag is tracked.
+	 */
+	public static final long MAX_TRACKED_TABLES = 10_000L;
+	/**
+	 * Results that are not read for this amount of time are removed.
+	 */
+	public static final long EXPIRE_AFTER_ACCESS_MINUTES = 60L;
+
+	private final Cache<FacetQueryKey, RowSet> cache;
+	private final Cache<IdAndVersion, String> currentEtags;
+
+	public FacetQueryCacheImpl() {
+		this(MAX_CACHE_WEIGHT);
+	}
+
+	FacetQueryCacheImpl(long maxWeight) {
+		this.cache = CacheBuilder.newBuilder()
+				.maximumWeight(maxWeight)
+				.weigher((FacetQueryKey key, RowSet value) -> calculateWeight(key, value))
+				.expireAfterAccess(EXPIRE_AFTER_ACCESS_MINUTES, TimeUnit.MINUTES)
+				.build();
+		this.currentEtags = CacheBuilder.newBuilder()
+				.maximumSize(MAX_TRACKED_TABLES)
+				.build();
+	}
+
+	@Override
+	public RowSet getFacetResults(IdAndVersion tableId, String tableEtag, SqlQuery facetQuery, Supplier<RowSet> loader) {
+		ValidateArgument.required(tableId, "tableId");
+		ValidateArgument.required(tableEtag, "tableEtag");
+		ValidateArgument.required(facetQuery, "facetQuery");
+		ValidateArgument.required(loader, "loader");
+		String previousEtag = currentEtags.asMap().put(tableId, tableEtag);
+		if (previousEtag != null && !previousEtag.equals(tableEtag)) {
+			// The table has changed so results for any other etag are stale.
+			evictStale(tableId, tableEtag);
+		}
+		FacetQueryKey key = new FacetQueryKey(tableId, tableEtag, facetQuery.getOutputSQL(), facetQuery.getParameters());
+		RowSet results = cache.getIfPresent(key);
+		if (results == null) {
+			results = loader.get();
+			cache.put(key, results);
+		}
+		return results;
+	}
+
+	@Override
+	public void evict(IdAndVersion tableId) {
+		ValidateArgument.required(tableId, "tableId");
+		currentEtags.invalidate(tableId);
+		cache.asMap().keySet().removeIf(key -> key.tableId.equals(tableId));
+	}
+
+	/**
+	 * Remove all results for the given table that do not match the given etag.
+	 * 
+	 * @param tableId
+	 * @param currentEtag
+	 */
+	void evictStale(IdAndVersion tableId, String currentEtag) {
+		cache.asMap().keySet().removeIf(key -> key.tableId.equals(tableId) && !key.tableEtag.equals(currentEtag));
+	}
+
+	/**
+	 * The number of cached results.
+	 * 
+	 * @return
+	 */
+	long size() {
+		cache.cleanUp();
+		return cache.size();
+	}
+
+	/**
+	 * Approximate the size of a cached result in characters.
+	 * 
+	 * @param key
+	 * @param value
+	 * @return
+	 */
+	static int calculateWeight(FacetQueryKey key, RowSet value) {
+		long weight = key.outputSql.length() + VALUE_OVERHEAD;
+		List<Row> rows = value.getRows();
+		if (rows != null) {
+			for (Row row : rows) {
+				weight += VALUE_OVERHEAD;
+				if (row.getValues() != null) {
+					for (String cell : row.getValues()) {
+						weight += VALUE_OVERHEAD + (cell == null ? 0 : cell.length());
+					}
+				}
+			}
+		}
+		return (int) Math.min(Integer.MAX_VALUE, weight);
+	}
+
+	/**
+	 * Identifies the results of a single facet query against a single state of
+	 * a table.
+	 *
+	 */
+	static class FacetQueryKey {
+
+		private final IdAndVersion tableId;
+		private final String tableEtag;
+		private final String outputSql;
+		private final Map<String, Object> parameters;
+
+		FacetQueryKey(IdAndVersion tableId, String tableEtag, String outputSql, Map<String, Object> parameters) {
+			this.tableId = tableId;
+			this.tableEtag = tableEtag;
+			this.outputSql = outputSql;
+			this.parameters = parameters;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(outputSql, parameters, tableEtag, tableId);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof FacetQueryKey)) {
+				return false;
+			}
+			FacetQueryKey other = (FacetQueryKey) obj;
+			return Objects.equals(outputSql, other.outputSql) && Objects.equals(parameters, other.parameters)
+					&& Objects.equals(tableEtag, other.tableEtag) && Objects.equals(tableId, other.tableId);
+		}
+
+	}
+}
@@ -0,0 +1,23 @@
+package org.sagebionetworks.repo.manager.table;
+
+import org.sagebionetworks.table.query.model.QuerySpecification;
+
+/**
+ * A bounded cache of parsed query SQL. Clients paging through the results of a
+ * query send the same SQL with each page so the parse results are reused. The
+ * cached models are never exposed, each caller receives its own copy that can
+ * be freely modified.
+ *
+ */
+public interface ParsedQueryCache {
+
+	/**
+	 * Parse the given SQL. If the SQL has already been parsed a copy of the
+	 * cached model is returned.
+	 * 
+	 * @param sql
+	 * @return A copy of the parsed model that is owned by the caller.
+	 * @throws IllegalArgumentException If the SQL cannot be parsed.
+	 */
+	QuerySpecification parseQuery(String sql);
+}
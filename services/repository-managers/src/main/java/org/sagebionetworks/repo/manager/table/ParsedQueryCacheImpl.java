@@ -0,0 +1,64 @@
+package org.sagebionetworks.repo.manager.table;
+
+import java.util.concurrent.TimeUnit;
+
+import org.sagebionetworks.table.query.ParseException;
+import org.sagebionetworks.table.query.TableQueryParser;
+import org.sagebionetworks.table.query.model.QuerySpecification;
+import org.sagebionetworks.util.ValidateArgument;
+import org.springframework.stereotype.Service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+@Service
+public class ParsedQueryCacheImpl implements ParsedQueryCache {
+
+	/**
+	 * The maximum number of parsed queries to keep.
+	 */
+	public static final long MAX_CACHE_SIZE = 10_000L;
+	/**
+	 * Queries that are not parsed for this amount of time are removed.
+	 */
+	public static final long EXPIRE_AFTER_ACCESS_MINUTES = 30L;
+
+	private final Cache<String, QuerySpecification> cache;
+
+	public ParsedQueryCacheImpl() {
+		this(MAX_CACHE_SIZE);
+	}
+
+	ParsedQueryCacheImpl(long maxSize) {
+		this.cache = CacheBuilder.newBuilder()
+				.maximumSize(maxSize)
+				.expireAfterAccess(EXPIRE_AFTER_ACCESS_MINUTES, TimeUnit.MINUTES)
+				.build();
+	}
+
+	@Override
+	public QuerySpecification parseQuery(String sql) {
+		ValidateArgument.required(sql, "sql");
+		QuerySpecification parsed = cache.getIfPresent(sql);
+		if (parsed == null) {
+			try {
+				parsed = TableQueryParser.parserQuery(sql);
+			} catch (ParseException e) {
+				throw new IllegalArgumentException(e);
+			}
+			// The cached model is never modified, callers receive a copy.
+			cache.put(sql, parsed);
+		}
+		return (QuerySpecification) parsed.deepCopy();
+	}
+
+	/**
+	 * The number of cached queries.
+	 * 
+	 * @return
+	 */
+	long size() {
+		cache.cleanUp();
+		return cache.size();
+	}
+}
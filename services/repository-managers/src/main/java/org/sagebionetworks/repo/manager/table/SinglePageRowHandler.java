@@ -1,6 +1,6 @@
 package org.sagebionetworks.repo.manager.table;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.sagebionetworks.repo.model.dao.table.RowHandler;
@@ -12,7 +12,28 @@ import org.sagebionetworks.repo.model.table.Row;
  */
 public class SinglePageRowHandler implements RowHandler {
 	
-	List<Row> rows = new LinkedList<Row>();
+	/**
+	 * Upper bound on the initial capacity so a large page size does not
+	 * allocate a large array for a query that returns few rows.
+	 */
+	public static final int MAX_INITIAL_CAPACITY = 1000;
+	
+	List<Row> rows;
+	
+	public SinglePageRowHandler() {
+		rows = new ArrayList<Row>();
+	}
+	
+	/**
+	 * Create a handler sized for a page with the given maximum number of rows.
+	 * 
+	 * @param maxRowsPerPage
+	 */
+	public SinglePageRowHandler(Long maxRowsPerPage) {
+		int capacity = maxRowsPerPage == null ? MAX_INITIAL_CAPACITY
+				: (int) Math.max(0L, Math.min(maxRowsPerPage, MAX_INITIAL_CAPACITY));
+		rows = new ArrayList<Row>(capacity);
+	}
 
 	@Override
 	public void nextRow(Row row) {
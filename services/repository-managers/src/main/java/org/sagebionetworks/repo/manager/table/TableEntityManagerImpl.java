@@ -128,6 +128,8 @@ public class TableEntityManagerImpl implements TableEntityManager {
 	NodeManager nodeManager;
 	@Autowired
 	EventsCollector statisticsCollector;
+	@Autowired
+	TableIndexCheckpointManager checkpointManager;
 	
 	/**
 	 * Injected via spring
@@ -882,6 +884,7 @@ public class TableEntityManagerImpl implements TableEntityManager {
 		columModelManager.unbindAllColumnsAndOwnerFromObject(deletedId);
 		tableRowTruthDao.deleteAllRowDataForTable(deletedId);
 		tableTransactionDao.deleteTable(deletedId);
+		checkpointManager.deleteCheckpoints(KeyFactory.stringToKey(deletedId));
 	}
 
 
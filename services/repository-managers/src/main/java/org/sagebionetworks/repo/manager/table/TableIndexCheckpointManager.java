@@ -0,0 +1,71 @@
+package org.sagebionetworks.repo.manager.table;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import org.sagebionetworks.repo.model.table.ColumnModel;
+import org.sagebionetworks.util.csv.CSVWriterStream;
+
+/**
+ * Manages the checkpoints of table indices. A checkpoint is a compacted copy of
+ * all of the rows of a table's index at a given change number, stored in S3
+ * using the same gzipped CSV format as view snapshots. An index that is
+ * rebuilt from scratch can be restored from its latest checkpoint so only the
+ * changes after the checkpoint need to be replayed.
+ *
+ */
+public interface TableIndexCheckpointManager {
+
+	/**
+	 * Get the change number of the latest checkpoint of the given table with the
+	 * given schema that is less than or equal to the given change number.
+	 *
+	 * @param tableId
+	 * @param schemaMD5Hex    The MD5 of the schema of the checkpoint.
+	 * @param maxChangeNumber
+	 * @return {@link Optional#empty()} if there is no such checkpoint.
+	 */
+	Optional<Long> getLatestCheckpoint(Long tableId, String schemaMD5Hex, long maxChangeNumber);
+
+	/**
+	 * Read the checkpoint of the given table with the given schema at the given
+	 * change number. The consumer is provided with the schema of the table at the
+	 * checkpoint and the rows of the checkpoint. The first row is a header with
+	 * the name of each column of the index.
+	 *
+	 * @param tableId
+	 * @param schemaMD5Hex The MD5 of the schema of the checkpoint.
+	 * @param changeNumber
+	 * @param changeEtag   The etag of the change in this database.
+	 * @param consumer
+	 * @throws IllegalStateException If the checkpoint was not created from a
+	 *                               change with the given etag.
+	 */
+	void readCheckpoint(Long tableId, String schemaMD5Hex, long changeNumber, String changeEtag,
+			BiConsumer<List<ColumnModel>, Iterator<String[]>> consumer);
+
+	/**
+	 * Create a checkpoint of the given table at the given change number. Only the
+	 * latest checkpoints of the table are kept, any older checkpoint is removed.
+	 *
+	 * @param tableId
+	 * @param changeNumber
+	 * @param changeEtag   The etag of the change.
+	 * @param schema       The schema of the table's index at the change number.
+	 * @param writer       Called to write the rows of the checkpoint, starting
+	 *                     with a header row.
+	 */
+	void createCheckpoint(Long tableId, long changeNumber, String changeEtag, List<ColumnModel> schema,
+			Consumer<CSVWriterStream> writer);
+
+	/**
+	 * Delete all of the checkpoints of the given table.
+	 * 
+	 * @param tableId
+	 */
+	void deleteCheckpoints(Long tableId);
+
+}
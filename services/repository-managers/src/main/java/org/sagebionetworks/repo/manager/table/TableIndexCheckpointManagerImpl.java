@@ -0,0 +1,297 @@
+package org.sagebionetworks.repo.manager.table;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import org.sagebionetworks.StackConfiguration;
+import org.sagebionetworks.aws.SynapseS3Client;
+import org.sagebionetworks.repo.model.table.ColumnModel;
+import org.sagebionetworks.table.cluster.utils.TableModelUtils;
+import org.sagebionetworks.util.FileProvider;
+import org.sagebionetworks.util.ValidateArgument;
+import org.sagebionetworks.util.csv.CSVReaderIterator;
+import org.sagebionetworks.util.csv.CSVWriterStream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.google.common.collect.Iterators;
+
+import au.com.bytecode.opencsv.CSVReader;
+import au.com.bytecode.opencsv.CSVWriter;
+
+/**
+ * Checkpoints are stored in the view snapshot bucket with a key of the form:
+ * checkpoint/{stackInstance}/{tableId}/{schemaMD5Hex}/{changeNumber}.csv.gzip.
+ * The bucket is shared by all of the instances of a stack, each with its own
+ * database, so each instance only reads and deletes its own checkpoints. The
+ * etag of the last change of a checkpoint is stored in the metadata of the
+ * object, and a checkpoint is only read if the etag matches. The first row of
+ * each file holds the IDs of the columns of the table's schema, followed by the
+ * header and rows of the index.
+ *
+ */
+@Service
+public class TableIndexCheckpointManagerImpl implements TableIndexCheckpointManager {
+
+	public static final String KEY_PREFIX = "checkpoint";
+	public static final String KEY_SUFFIX = ".csv.gzip";
+	/**
+	 * The user metadata of a checkpoint object that holds the etag of the last
+	 * change of the checkpoint.
+	 */
+	public static final String CHANGE_ETAG_METADATA = "change-etag";
+
+	/**
+	 * The number of checkpoints kept for each table. More than one is kept so an
+	 * index rebuilt to the change of the latest checkpoint, which must apply at
+	 * least that change, can still restore from the previous one.
+	 */
+	public static final int MAX_CHECKPOINTS_PER_TABLE = 2;
+
+	/**
+	 * A CSV file cannot distinguish a null cell from an empty string, so nulls are
+	 * written with this value. Any value that starts with the escape character is
+	 * escaped with an additional escape character.
+	 */
+	public static final String NULL_VALUE = "\\N";
+	public static final String ESCAPE = "\\";
+
+	private final SynapseS3Client s3Client;
+	private final FileProvider fileProvider;
+	private final ColumnModelManager columnModelManager;
+	private final String bucket;
+	private final String stackInstance;
+
+	@Autowired
+	public TableIndexCheckpointManagerImpl(SynapseS3Client s3Client, FileProvider fileProvider,
+			ColumnModelManager columnModelManager, StackConfiguration config) {
+		this.s3Client = s3Client;
+		this.fileProvider = fileProvider;
+		this.columnModelManager = columnModelManager;
+		this.bucket = config.getViewSnapshotBucketName();
+		this.stackInstance = config.getStackInstance();
+	}
+
+	@Override
+	public Optional<Long> getLatestCheckpoint(Long tableId, String schemaMD5Hex, long maxChangeNumber) {
+		ValidateArgument.required(tableId, "tableId");
+		ValidateArgument.required(schemaMD5Hex, "schemaMD5Hex");
+		Optional<Long> latest = Optional.empty();
+		for (String key : listCheckpointKeys(createKeyPrefix(tableId, schemaMD5Hex))) {
+			long changeNumber = getChangeNumber(key);
+			if (changeNumber <= maxChangeNumber && (!latest.isPresent() || changeNumber > latest.get())) {
+				latest = Optional.of(changeNumber);
+			}
+		}
+		return latest;
+	}
+
+	@Override
+	public void readCheckpoint(Long tableId, String schemaMD5Hex, long changeNumber, String changeEtag,
+			BiConsumer<List<ColumnModel>, Iterator<String[]>> consumer) {
+		ValidateArgument.required(tableId, "tableId");
+		ValidateArgument.required(schemaMD5Hex, "schemaMD5Hex");
+		ValidateArgument.required(changeEtag, "changeEtag");
+		ValidateArgument.required(consumer, "consumer");
+		String key = createKey(tableId, schemaMD5Hex, changeNumber);
+		// The checkpoint must have been created from the same change.
+		String checkpointEtag = s3Client.getObjectMetadata(bucket, key).getUserMetaDataOf(CHANGE_ETAG_METADATA);
+		if (!changeEtag.equals(checkpointEtag)) {
+			throw new IllegalStateException("Checkpoint " + changeNumber + " of table " + tableId + " has the etag: "
+					+ checkpointEtag + " but the change has the etag: " + changeEtag);
+		}
+		File tempFile = null;
+		try {
+			tempFile = fileProvider.createTempFile("TableCheckpointDownload", KEY_SUFFIX);
+			s3Client.getObject(new GetObjectRequest(bucket, key), tempFile);
+			try (CSVReaderIterator reader = new CSVReaderIterator(new CSVReader(fileProvider.createReader(
+					fileProvider.createGZIPInputStream(fileProvider.createFileInputStream(tempFile)),
+					StandardCharsets.UTF_8)))) {
+				if (!reader.hasNext()) {
+					throw new IllegalStateException("Checkpoint " + changeNumber + " of table " + tableId + " is empty");
+				}
+				List<ColumnModel> schema = getSchema(reader.next());
+				consumer.accept(schema, Iterators.transform(reader, TableIndexCheckpointManagerImpl::decodeRow));
+			}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		} finally {
+			if (tempFile != null) {
+				tempFile.delete();
+			}
+		}
+	}
+
+	@Override
+	public void createCheckpoint(Long tableId, long changeNumber, String changeEtag, List<ColumnModel> schema,
+			Consumer<CSVWriterStream> writer) {
+		ValidateArgument.required(tableId, "tableId");
+		ValidateArgument.required(changeEtag, "changeEtag");
+		ValidateArgument.required(schema, "schema");
+		ValidateArgument.required(writer, "writer");
+		String schemaMD5Hex = TableModelUtils.createSchemaMD5Hex(TableModelUtils.getIds(schema));
+		File tempFile = null;
+		try {
+			tempFile = fileProvider.createTempFile("TableCheckpoint", KEY_SUFFIX);
+			try (CSVWriter csvWriter = new CSVWriter(fileProvider.createWriter(
+					fileProvider.createGZIPOutputStream(fileProvider.createFileOutputStream(tempFile)),
+					StandardCharsets.UTF_8))) {
+				csvWriter.writeNext(getSchemaIds(schema));
+				writer.accept((String[] nextLine) -> {
+					csvWriter.writeNext(encodeRow(nextLine));
+				});
+			}
+			ObjectMetadata metadata = new ObjectMetadata();
+			metadata.addUserMetadata(CHANGE_ETAG_METADATA, changeEtag);
+			s3Client.putObject(new PutObjectRequest(bucket, createKey(tableId, schemaMD5Hex, changeNumber), tempFile)
+					.withMetadata(metadata));
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		} finally {
+			// unconditionally delete the temporary file.
+			if (tempFile != null) {
+				tempFile.delete();
+			}
+		}
+		// Only the latest checkpoints of a table are kept, regardless of their schema.
+		List<String> keys = listCheckpointKeys(createKeyPrefix(tableId));
+		// newest first
+		keys.sort((String one, String two) -> Long.compare(getChangeNumber(two), getChangeNumber(one)));
+		for (String oldKey : keys.subList(Math.min(MAX_CHECKPOINTS_PER_TABLE, keys.size()), keys.size())) {
+			s3Client.deleteObject(bucket, oldKey);
+		}
+	}
+
+	@Override
+	public void deleteCheckpoints(Long tableId) {
+		ValidateArgument.required(tableId, "tableId");
+		for (String key : listCheckpointKeys(createKeyPrefix(tableId))) {
+			s3Client.deleteObject(bucket, key);
+		}
+	}
+
+	/**
+	 * List the keys of all of the checkpoints with the given prefix.
+	 *
+	 * @param prefix
+	 * @return
+	 */
+	List<String> listCheckpointKeys(String prefix) {
+		List<String> keys = new ArrayList<>();
+		ListObjectsRequest request = new ListObjectsRequest().withBucketName(bucket).withPrefix(prefix);
+		ObjectListing listing;
+		do {
+			listing = s3Client.listObjects(request);
+			for (S3ObjectSummary summary : listing.getObjectSummaries()) {
+				if (summary.getKey().endsWith(KEY_SUFFIX)) {
+					keys.add(summary.getKey());
+				}
+			}
+			request.setMarker(listing.getNextMarker());
+		} while (listing.isTruncated());
+		return keys;
+	}
+
+	String createKeyPrefix(Long tableId) {
+		return KEY_PREFIX + "/" + stackInstance + "/" + tableId + "/";
+	}
+
+	String createKeyPrefix(Long tableId, String schemaMD5Hex) {
+		return createKeyPrefix(tableId) + schemaMD5Hex + "/";
+	}
+
+	String createKey(Long tableId, String schemaMD5Hex, long changeNumber) {
+		return createKeyPrefix(tableId, schemaMD5Hex) + changeNumber + KEY_SUFFIX;
+	}
+
+	/**
+	 * Get the change number from the key of a checkpoint.
+	 * 
+	 * @param key
+	 * @return
+	 */
+	static long getChangeNumber(String key) {
+		return Long.parseLong(key.substring(key.lastIndexOf('/') + 1, key.length() - KEY_SUFFIX.length()));
+	}
+
+	/**
+	 * Lookup the schema from the column IDs stored in a checkpoint.
+	 *
+	 * @param columnIds
+	 * @return
+	 */
+	List<ColumnModel> getSchema(String[] columnIds) {
+		List<String> ids = new ArrayList<>(columnIds.length);
+		for (String id : columnIds) {
+			if (!id.isEmpty()) {
+				ids.add(id);
+			}
+		}
+		if (ids.isEmpty()) {
+			return Collections.emptyList();
+		}
+		return columnModelManager.getAndValidateColumnModels(ids);
+	}
+
+	static String[] getSchemaIds(List<ColumnModel> schema) {
+		String[] ids = new String[schema.size()];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = schema.get(i).getId();
+		}
+		return ids;
+	}
+
+	/**
+	 * Encode the cells of a row so that nulls are preserved in the CSV.
+	 *
+	 * @param row
+	 * @return
+	 */
+	static String[] encodeRow(String[] row) {
+		String[] encoded = new String[row.length];
+		for (int i = 0; i < row.length; i++) {
+			String value = row[i];
+			if (value == null) {
+				encoded[i] = NULL_VALUE;
+			} else if (value.startsWith(ESCAPE)) {
+				encoded[i] = ESCAPE + value;
+			} else {
+				encoded[i] = value;
+			}
+		}
+		return encoded;
+	}
+
+	/**
+	 * Decode the cells of a row written with {@link #encodeRow(String[])}.
+	 *
+	 * @param row
+	 * @return
+	 */
+	static String[] decodeRow(String[] row) {
+		for (int i = 0; i < row.length; i++) {
+			String value = row[i];
+			if (NULL_VALUE.equals(value)) {
+				row[i] = null;
+			} else if (value.startsWith(ESCAPE)) {
+				row[i] = value.substring(ESCAPE.length());
+			}
+		}
+		return row;
+	}
+
+}
@@ -1,5 +1,7 @@
 package org.sagebionetworks.repo.manager.table;
 
+import java.util.List;
+
 import org.sagebionetworks.repo.model.entity.IdAndVersion;
 
 /**
@@ -43,4 +45,13 @@ public interface TableIndexConnectionFactory {
 	 */
 	TableIndexManager connectToFirstIndex();
 
+	/**
+	 * Acquire an index manager for each database in the cluster. Used for data
+	 * that must be kept consistent across all the databases, such as the object
+	 * replication tables.
+	 * 
+	 * @return
+	 */
+	List<TableIndexManager> connectToAllIndices();
+
 }
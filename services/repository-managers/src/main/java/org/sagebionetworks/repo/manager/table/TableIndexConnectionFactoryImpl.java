@@ -1,11 +1,17 @@
 package org.sagebionetworks.repo.manager.table;
 
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.stream.Collectors;
+
 import org.sagebionetworks.repo.manager.table.metadata.MetadataIndexProviderFactory;
 import org.sagebionetworks.repo.model.entity.IdAndVersion;
 import org.sagebionetworks.table.cluster.ConnectionFactory;
 import org.sagebionetworks.table.cluster.TableIndexDAO;
 import org.sagebionetworks.table.cluster.metadata.ObjectFieldModelResolverFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -18,14 +24,26 @@ public class TableIndexConnectionFactoryImpl implements TableIndexConnectionFact
 	private MetadataIndexProviderFactory metaDataIndexProviderFactory;
 	
 	private ObjectFieldModelResolverFactory objectFieldModelResolverFactory;
+	
+	private ExecutorService changePrefetchExecutorService;
+	
+	private TableIndexCheckpointManager checkpointManager;
+	
+	private ScheduledExecutorService checkpointExecutorService;
 
 	@Autowired
 	public TableIndexConnectionFactoryImpl(ConnectionFactory connectionFactory, TableManagerSupport tableManagerSupport,
-			MetadataIndexProviderFactory metaDataIndexProviderFactory, ObjectFieldModelResolverFactory objectFieldModelResolverFactory) {
+			MetadataIndexProviderFactory metaDataIndexProviderFactory, ObjectFieldModelResolverFactory objectFieldModelResolverFactory,
+			@Qualifier("tableChangePrefetchExecutorService") ExecutorService changePrefetchExecutorService,
+			TableIndexCheckpointManager checkpointManager,
+			@Qualifier("tableCheckpointExecutorService") ScheduledExecutorService checkpointExecutorService) {
 		this.connectionFactory = connectionFactory;
 		this.tableManagerSupport = tableManagerSupport;
 		this.metaDataIndexProviderFactory = metaDataIndexProviderFactory;
 		this.objectFieldModelResolverFactory = objectFieldModelResolverFactory;
+		this.changePrefetchExecutorService = changePrefetchExecutorService;
+		this.checkpointManager = checkpointManager;
+		this.checkpointExecutorService = checkpointExecutorService;
 	}
 
 	@Override
@@ -37,13 +55,20 @@ public class TableIndexConnectionFactoryImpl implements TableIndexConnectionFact
 		if(dao == null){
 			throw new TableIndexConnectionUnavailableException("Cannot connect to table: "+tableId);
 		}
-		return new TableIndexManagerImpl(dao, tableManagerSupport, metaDataIndexProviderFactory, objectFieldModelResolverFactory);
+		return new TableIndexManagerImpl(dao, tableManagerSupport, metaDataIndexProviderFactory, objectFieldModelResolverFactory, changePrefetchExecutorService, checkpointManager, checkpointExecutorService);
 	}
 	
 	@Override
 	public TableIndexManager connectToFirstIndex(){
 		TableIndexDAO dao = connectionFactory.getFirstConnection();
-		return new TableIndexManagerImpl(dao, tableManagerSupport, metaDataIndexProviderFactory, objectFieldModelResolverFactory);
+		return new TableIndexManagerImpl(dao, tableManagerSupport, metaDataIndexProviderFactory, objectFieldModelResolverFactory, changePrefetchExecutorService, checkpointManager, checkpointExecutorService);
+	}
+	
+	@Override
+	public List<TableIndexManager> connectToAllIndices() {
+		return connectionFactory.getAllConnections().stream()
+				.map(dao -> new TableIndexManagerImpl(dao, tableManagerSupport, metaDataIndexProviderFactory, objectFieldModelResolverFactory, changePrefetchExecutorService, checkpointManager, checkpointExecutorService))
+				.collect(Collectors.toList());
 	}
 
 }
@@ -9,13 +9,18 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.sagebionetworks.common.util.progress.ProgressCallback;
+import org.sagebionetworks.common.util.progress.SynchronizedProgressCallback;
 import org.sagebionetworks.repo.manager.table.change.ListColumnIndexTableChange;
+import org.sagebionetworks.repo.manager.table.change.PrefetchingTableChangeIterator;
 import org.sagebionetworks.repo.manager.table.change.TableChangeMetaData;
 import org.sagebionetworks.repo.manager.table.metadata.DefaultColumnModel;
 import org.sagebionetworks.repo.manager.table.metadata.MetadataIndexProvider;
@@ -59,6 +64,7 @@ import org.sagebionetworks.workers.util.aws.message.RecoverableMessageException;
 import org.sagebionetworks.workers.util.semaphore.LockUnavilableException;
 import org.springframework.transaction.TransactionStatus;
 
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.Iterators;
 
 public class TableIndexManagerImpl implements TableIndexManager {
@@ -70,12 +76,45 @@ public class TableIndexManagerImpl implements TableIndexManager {
 
 	public static final long MAX_BYTES_PER_BATCH = 1024*1024*5;// 5MB
 
+	/**
+	 * The maximum number of table changes loaded ahead of the change being applied
+	 * to an index.
+	 */
+	public static final int CHANGE_READ_AHEAD = 4;
+
+	/**
+	 * A checkpoint of a table's index is created each time the index crosses a
+	 * multiple of this number of changes.
+	 */
+	public static final long CHECKPOINT_INTERVAL = 1000L;
+
+	/**
+	 * Checkpoints are created in the background once the exclusive lock of the
+	 * index build is released. This is the delay before each attempt to acquire
+	 * the non-exclusive lock needed to create a checkpoint.
+	 */
+	public static final long CHECKPOINT_LOCK_RETRY_DELAY_MS = 1000L;
+
+	/**
+	 * The maximum number of attempts to acquire the non-exclusive lock needed to
+	 * create a checkpoint.
+	 */
+	public static final int CHECKPOINT_LOCK_MAX_ATTEMPTS = 10;
+
+	/**
+	 * The timeout of the non-exclusive lock held while a checkpoint is created.
+	 */
+	public static final int CHECKPOINT_LOCK_TIMEOUT_SECONDS = 600;
+
 	private final TableIndexDAO tableIndexDao;
 	private final TableManagerSupport tableManagerSupport;
 	private final MetadataIndexProviderFactory metadataIndexProviderFactory;
 	private final ObjectFieldModelResolverFactory objectFieldModelResolverFactory;
+	private final ExecutorService changePrefetchExecutorService;
+	private final TableIndexCheckpointManager checkpointManager;
+	private final ScheduledExecutorService checkpointExecutorService;
 
-	public TableIndexManagerImpl(TableIndexDAO dao, TableManagerSupport tableManagerSupport, MetadataIndexProviderFactory metadataIndexProviderFactory, ObjectFieldModelResolverFactory objectFieldModelResolverFactory){
+	public TableIndexManagerImpl(TableIndexDAO dao, TableManagerSupport tableManagerSupport, MetadataIndexProviderFactory metadataIndexProviderFactory, ObjectFieldModelResolverFactory objectFieldModelResolverFactory, ExecutorService changePrefetchExecutorService, TableIndexCheckpointManager checkpointManager, ScheduledExecutorService checkpointExecutorService){
 		if(dao == null){
 			throw new IllegalArgumentException("TableIndexDAO cannot be null");
 		}
@@ -88,10 +127,22 @@ public class TableIndexManagerImpl implements TableIndexManager {
 		if (objectFieldModelResolverFactory == null) {
 			throw new IllegalArgumentException("ObjectFieldModelResolverFactory cannot be null");
 		}
+		if (changePrefetchExecutorService == null) {
+			throw new IllegalArgumentException("ChangePrefetchExecutorService cannot be null");
+		}
+		if (checkpointManager == null) {
+			throw new IllegalArgumentException("TableIndexCheckpointManager cannot be null");
+		}
+		if (checkpointExecutorService == null) {
+			throw new IllegalArgumentException("CheckpointExecutorService cannot be null");
+		}
 		this.tableIndexDao = dao;
 		this.tableManagerSupport = tableManagerSupport;
 		this.metadataIndexProviderFactory = metadataIndexProviderFactory;
 		this.objectFieldModelResolverFactory = objectFieldModelResolverFactory;
+		this.changePrefetchExecutorService = changePrefetchExecutorService;
+		this.checkpointManager = checkpointManager;
+		this.checkpointExecutorService = checkpointExecutorService;
 	}
 	/*
 	 * (non-Javadoc)
@@ -615,21 +666,38 @@ public class TableIndexManagerImpl implements TableIndexManager {
 	String buildIndexToLatestChange(final IdAndVersion idAndVersion, final Iterator<TableChangeMetaData> iterator,
 			final long targetChangeNumber, final String tableResetToken) throws NotFoundException, IOException {
 		String lastEtag = null;
-		// Inspect each change.
-		while(iterator.hasNext()) {
-			TableChangeMetaData changeMetadata = iterator.next();
-			if(changeMetadata.getChangeNumber() > targetChangeNumber) {
-				// all changes have been applied to the index.
-				break;
-			}
-			if(!isVersionAppliedToIndex(idAndVersion, changeMetadata.getChangeNumber())) {
+		long currentVersion = tableIndexDao.getMaxCurrentCompleteVersionForTable(idAndVersion);
+		if (currentVersion < 0) {
+			/*
+			 * An empty index starts from the latest checkpoint rather than the first
+			 * change. At least the target change is always applied so the etag of the
+			 * last change is known.
+			 */
+			currentVersion = restoreFromCheckpoint(idAndVersion, targetChangeNumber - 1);
+		}
+		final long startVersion = currentVersion;
+		long lastChangeNumber = currentVersion;
+		/*
+		 * The data of the next changes is loaded while the current change is applied.
+		 * Only the changes that still need to be applied are loaded.
+		 */
+		PrefetchingTableChangeIterator changes = new PrefetchingTableChangeIterator(
+				getPendingChanges(iterator, currentVersion, targetChangeNumber), changePrefetchExecutorService,
+				CHANGE_READ_AHEAD);
+		try {
+			while (changes.hasNext()) {
+				TableChangeMetaData changeMetadata = changes.next();
 				// This change needs to be applied to the table
 				tableManagerSupport.attemptToUpdateTableProgress(idAndVersion,
 						tableResetToken, "Applying change: " + changeMetadata.getChangeNumber(), changeMetadata.getChangeNumber(),
 						targetChangeNumber);
 				applyChangeToIndex(idAndVersion, changeMetadata);
 				lastEtag = changeMetadata.getETag();
+				lastChangeNumber = changeMetadata.getChangeNumber();
 			}
+		} finally {
+			// stop loading any change that will not be applied.
+			changes.cancel();
 		}
 
 		/*
@@ -646,9 +714,232 @@ public class TableIndexManagerImpl implements TableIndexManager {
 		}
 		// now that table is created and populated the indices on the table can be optimized.
 		optimizeTableIndices(idAndVersion);
+		if (!idAndVersion.getVersion().isPresent() && isCheckpointNeeded(startVersion, lastChangeNumber)) {
+			// The index is dumped in the background so the build does not hold the exclusive lock any longer.
+			scheduleCheckpoint(idAndVersion, lastChangeNumber, 1);
+		}
 		return lastEtag;
 	}
+
+	/**
+	 * Restore the given empty index from the latest checkpoint of the table that
+	 * does not exceed the target change number. The checkpoint is only restored
+	 * if this database has its last change with the same etag.
+	 * 
+	 * @param idAndVersion
+	 * @param targetChangeNumber
+	 * @return The change number of the restored checkpoint, or -1 if the index was
+	 *         not restored.
+	 */
+	long restoreFromCheckpoint(final IdAndVersion idAndVersion, final long targetChangeNumber) {
+		try {
+			// Only a checkpoint with the current schema of the table is restored.
+			String schemaMD5Hex = tableManagerSupport.getSchemaMD5Hex(idAndVersion);
+			Optional<Long> checkpoint = checkpointManager.getLatestCheckpoint(idAndVersion.getId(), schemaMD5Hex,
+					targetChangeNumber);
+			if (!checkpoint.isPresent()) {
+				return -1L;
+			}
+			Optional<String> changeEtag = tableManagerSupport.getTableChangeEtag(idAndVersion, checkpoint.get());
+			if (!changeEtag.isPresent()) {
+				log.warn("Ignoring checkpoint: " + checkpoint.get() + " of table: " + idAndVersion
+						+ " as the change does not exist");
+				return -1L;
+			}
+			log.info("Restoring index of table: " + idAndVersion + " from checkpoint: " + checkpoint.get());
+			checkpointManager.readCheckpoint(idAndVersion.getId(), schemaMD5Hex, checkpoint.get(), changeEtag.get(),
+					(List<ColumnModel> schema, Iterator<String[]> rows) -> {
+						boolean isTableView = false;
+						setIndexSchema(idAndVersion, isTableView, schema);
+						Set<Long> fileHandleIds = new HashSet<>();
+						tableIndexDao.populateViewFromSnapshot(idAndVersion,
+								collectFileHandleIds(rows, schema, fileHandleIds), MAX_BYTES_PER_BATCH);
+						if (!fileHandleIds.isEmpty()) {
+							tableIndexDao.applyFileHandleIdsToTable(idAndVersion, fileHandleIds);
+						}
+						populateListColumnIndexTables(idAndVersion, schema);
+					});
+			tableIndexDao.setMaxCurrentCompleteVersionForTable(idAndVersion, checkpoint.get());
+			return checkpoint.get();
+		} catch (RuntimeException e) {
+			// The index can always be built from the full history.
+			log.warn("Failed to restore index of table: " + idAndVersion + " from a checkpoint", e);
+			deleteTableIndex(idAndVersion);
+			return -1L;
+		}
+	}
+
+	/**
+	 * Schedule a checkpoint of the given index at the given change number to be
+	 * created in the background.
+	 * 
+	 * @param idAndVersion
+	 * @param changeNumber
+	 * @param attempt      The number of this attempt, starting with one.
+	 */
+	void scheduleCheckpoint(final IdAndVersion idAndVersion, final long changeNumber, final int attempt) {
+		checkpointExecutorService.schedule(() -> createCheckpointWithLock(idAndVersion, changeNumber, attempt),
+				CHECKPOINT_LOCK_RETRY_DELAY_MS, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Create a checkpoint of the given index while holding a non-exclusive lock on
+	 * the table, so the index cannot change while it is dumped. If the lock is not
+	 * available the attempt is scheduled again, up to
+	 * {@link #CHECKPOINT_LOCK_MAX_ATTEMPTS} attempts.
+	 * 
+	 * @param idAndVersion
+	 * @param changeNumber
+	 * @param attempt
+	 */
+	void createCheckpointWithLock(final IdAndVersion idAndVersion, final long changeNumber, final int attempt) {
+		try {
+			tableManagerSupport.tryRunWithTableNonexclusiveLock(
+					new SynchronizedProgressCallback(CHECKPOINT_LOCK_TIMEOUT_SECONDS), idAndVersion,
+					(ProgressCallback callback) -> {
+						createCheckpointIfCurrent(idAndVersion, changeNumber);
+						return null;
+					});
+		} catch (LockUnavilableException e) {
+			if (attempt < CHECKPOINT_LOCK_MAX_ATTEMPTS) {
+				scheduleCheckpoint(idAndVersion, changeNumber, attempt + 1);
+			} else {
+				log.info("Skipped the checkpoint of table: " + idAndVersion + " at change: " + changeNumber
+						+ " as the table remained locked");
+			}
+		} catch (Exception e) {
+			log.warn("Failed to create a checkpoint of table: " + idAndVersion + " at change: " + changeNumber, e);
+		}
+	}
+
+	/**
+	 * Create a checkpoint of the given index if it is still at the given change
+	 * number with the current schema of the table. The caller must hold a lock on
+	 * the table.
+	 * 
+	 * @param idAndVersion
+	 * @param changeNumber
+	 */
+	void createCheckpointIfCurrent(final IdAndVersion idAndVersion, final long changeNumber) {
+		// The index might have changed since the checkpoint was scheduled.
+		if (!Long.valueOf(changeNumber).equals(tableIndexDao.getMaxCurrentCompleteVersionForTable(idAndVersion))) {
+			return;
+		}
+		List<ColumnModel> schema = tableManagerSupport.getTableSchema(idAndVersion);
+		String schemaMD5Hex = TableModelUtils.createSchemaMD5Hex(TableModelUtils.getIds(schema));
+		if (!schemaMD5Hex.equals(tableIndexDao.getCurrentSchemaMD5Hex(idAndVersion))) {
+			return;
+		}
+		Optional<String> changeEtag = tableManagerSupport.getTableChangeEtag(idAndVersion, changeNumber);
+		if (!changeEtag.isPresent()) {
+			return;
+		}
+		createCheckpoint(idAndVersion, changeNumber, changeEtag.get(), schema);
+	}
+
+	/**
+	 * Create a checkpoint of the given index. A failure to create a checkpoint does
+	 * not fail the build of the index.
+	 * 
+	 * @param idAndVersion
+	 * @param changeNumber The last change applied to the index.
+	 * @param changeEtag   The etag of the last change applied to the index.
+	 * @param schema       The current schema of the index.
+	 */
+	void createCheckpoint(final IdAndVersion idAndVersion, final long changeNumber, final String changeEtag,
+			final List<ColumnModel> schema) {
+		try {
+			checkpointManager.createCheckpoint(idAndVersion.getId(), changeNumber, changeEtag, schema,
+					(CSVWriterStream writer) -> tableIndexDao.streamTableIndexData(idAndVersion, writer));
+		} catch (RuntimeException e) {
+			log.warn("Failed to create a checkpoint of table: " + idAndVersion + " at change: " + changeNumber, e);
+		}
+	}
+
+	/**
+	 * Is a new checkpoint needed after an index was built from the previous change
+	 * number to the last change number?
+	 * 
+	 * @param previousChangeNumber
+	 * @param lastChangeNumber
+	 * @return True if a multiple of {@link #CHECKPOINT_INTERVAL} was crossed.
+	 */
+	static boolean isCheckpointNeeded(long previousChangeNumber, long lastChangeNumber) {
+		return lastChangeNumber / CHECKPOINT_INTERVAL > Math.max(previousChangeNumber, 0L) / CHECKPOINT_INTERVAL;
+	}
+
+	/**
+	 * Wrap the rows of a checkpoint to gather the file handle IDs of the rows as
+	 * they are read. The first row is the header of the index.
+	 * 
+	 * @param rows
+	 * @param schema
+	 * @param fileHandleIds Gathers the file handle IDs of the rows that are read.
+	 * @return
+	 */
+	static Iterator<String[]> collectFileHandleIds(Iterator<String[]> rows, List<ColumnModel> schema,
+			Set<Long> fileHandleIds) {
+		if (!rows.hasNext()) {
+			return rows;
+		}
+		String[] header = rows.next();
+		Set<String> fileColumnNames = new HashSet<>();
+		for (ColumnModel cm : schema) {
+			if (ColumnType.FILEHANDLEID.equals(cm.getColumnType())) {
+				fileColumnNames.add(SQLUtils.getColumnNameForId(cm.getId()));
+			}
+		}
+		List<Integer> fileColumnIndices = new ArrayList<>();
+		for (int i = 0; i < header.length; i++) {
+			if (fileColumnNames.contains(header[i])) {
+				fileColumnIndices.add(i);
+			}
+		}
+		if (fileColumnIndices.isEmpty()) {
+			return Iterators.concat(Iterators.singletonIterator(header), rows);
+		}
+		return Iterators.concat(Iterators.singletonIterator(header), Iterators.transform(rows, (String[] row) -> {
+			for (Integer index : fileColumnIndices) {
+				String value = row[index];
+				if (value != null && !value.isEmpty()) {
+					fileHandleIds.add(Long.parseLong(value));
+				}
+			}
+			return row;
+		}));
+	}
 	
+	/**
+	 * Filter the given changes to the changes that have not been applied to the
+	 * index, up to and including the target change number. The changes are
+	 * expected to be in ascending order of change number.
+	 * 
+	 * @param iterator
+	 * @param currentVersion     The last change applied to the index.
+	 * @param targetChangeNumber
+	 * @return
+	 */
+	static Iterator<TableChangeMetaData> getPendingChanges(final Iterator<TableChangeMetaData> iterator,
+			final long currentVersion, final long targetChangeNumber) {
+		return new AbstractIterator<TableChangeMetaData>() {
+
+			@Override
+			protected TableChangeMetaData computeNext() {
+				while (iterator.hasNext()) {
+					TableChangeMetaData changeMetadata = iterator.next();
+					if (changeMetadata.getChangeNumber() > targetChangeNumber) {
+						// all changes have been applied to the index.
+						break;
+					}
+					if (changeMetadata.getChangeNumber() > currentVersion) {
+						return changeMetadata;
+					}
+				}
+				return endOfData();
+			}
+		};
+	}
+
 	/**
 	 * Apply the provided change to the provided index.
 	 * 
@@ -367,6 +367,15 @@ public interface TableManagerSupport {
 	 */
 	Optional<Long> getLastTableChangeNumber(IdAndVersion idAndVersion);
 
+	/**
+	 * Get the etag of the given change of the given table.
+	 * 
+	 * @param idAndVersion
+	 * @param changeNumber
+	 * @return {@link Optional#empty()} if the table does not have the change.
+	 */
+	Optional<String> getTableChangeEtag(IdAndVersion idAndVersion, long changeNumber);
+
 	/**
 	 * Get the schema for the given id and version combination.
 	 * 
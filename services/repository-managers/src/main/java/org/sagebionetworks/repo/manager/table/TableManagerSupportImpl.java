@@ -282,6 +282,15 @@ public class TableManagerSupportImpl implements TableManagerSupport {
 		}
 	}
 
+	@Override
+	public Optional<String> getTableChangeEtag(IdAndVersion idAndVersion, long changeNumber) {
+		try {
+			return Optional.of(this.tableTruthDao.getTableRowChange(idAndVersion.getId().toString(), changeNumber).getEtag());
+		} catch (NotFoundException e) {
+			return Optional.empty();
+		}
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -1,5 +1,7 @@
 package org.sagebionetworks.repo.manager.table;
 
+import org.sagebionetworks.cloudwatch.Consumer;
+import org.sagebionetworks.cloudwatch.ProfileData;
 import org.sagebionetworks.common.util.progress.ProgressCallback;
 import org.sagebionetworks.common.util.progress.ProgressingCallable;
 import org.sagebionetworks.repo.model.DatastoreException;
@@ -30,23 +32,27 @@ import org.sagebionetworks.repo.model.table.TableUnavailableException;
 import org.sagebionetworks.repo.model.table.ViewObjectType;
 import org.sagebionetworks.repo.model.table.ViewScopeType;
 import org.sagebionetworks.repo.web.NotFoundException;
+import org.sagebionetworks.repo.web.TemporarilyUnavailableException;
 import org.sagebionetworks.table.cluster.ConnectionFactory;
 import org.sagebionetworks.table.cluster.SqlQuery;
 import org.sagebionetworks.table.cluster.SqlQueryBuilder;
 import org.sagebionetworks.table.cluster.TableIndexDAO;
 import org.sagebionetworks.table.cluster.utils.TableModelUtils;
-import org.sagebionetworks.table.query.ParseException;
-import org.sagebionetworks.table.query.TableQueryParser;
 import org.sagebionetworks.table.query.model.Pagination;
+import org.sagebionetworks.table.query.model.Predicate;
 import org.sagebionetworks.table.query.model.QuerySpecification;
-import org.sagebionetworks.table.query.model.WhereClause;
+import org.sagebionetworks.table.query.model.TableExpression;
 import org.sagebionetworks.table.query.util.SimpleAggregateQueryException;
 import org.sagebionetworks.table.query.util.SqlElementUntils;
 import org.sagebionetworks.util.ValidateArgument;
 import org.sagebionetworks.util.csv.CSVWriterStream;
 import org.sagebionetworks.workers.util.semaphore.LockUnavilableException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.transaction.TransactionTimedOutException;
+
+import com.amazonaws.services.cloudwatch.model.StandardUnit;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -54,24 +60,68 @@ import java.util.Date;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 public class TableQueryManagerImpl implements TableQueryManager {
 
 	public static final long MAX_ROWS_PER_CALL = 100;
+	
+	public static final String METRIC_NAME_SUB_QUERY_LATENCY = "Sub-query latency";
+	public static final String DIMENSION_SUB_QUERY_TYPE = "SubQueryType";
+	public static final String SUB_QUERY_COUNT = "count";
+	public static final String SUB_QUERY_FACET = "facet";
+	public static final String SUB_QUERY_SUM_FILE_SIZES = "sumFileSizes";
 
 	@Autowired
 	TableManagerSupport tableManagerSupport;
 	@Autowired
 	ConnectionFactory tableConnectionFactory;
+	@Autowired
+	Consumer consumer;
+	@Autowired
+	FacetQueryCache facetQueryCache;
+	@Autowired
+	ParsedQueryCache parsedQueryCache;
 
 	/**
 	 * Injected via spring
 	 */
 	long maxBytesPerRequest;
+	
+	/**
+	 * When provided, the count, facet and sum file size queries are run on this
+	 * executor concurrently with the main query. When null, all of the queries
+	 * are run one after another on the caller's thread. The executor is not
+	 * expected to queue, so a sub-query that is rejected because all of the
+	 * threads are busy is run on the caller's thread. Injected via spring.
+	 */
+	ExecutorService subQueryExecutorService;
+	
+	/**
+	 * The maximum amount of time each sub-query statement is allowed to run in
+	 * the database. The timeout starts when the statement starts. When zero the
+	 * sub-queries are not limited. Injected via spring.
+	 */
+	long subQueryTimeoutMS;
 
 	public void setMaxBytesPerRequest(long maxBytesPerRequest) {
 		this.maxBytesPerRequest = maxBytesPerRequest;
 	}
+	
+	public void setSubQueryExecutorService(ExecutorService subQueryExecutorService) {
+		this.subQueryExecutorService = subQueryExecutorService;
+	}
+	
+	public void setSubQueryTimeoutMS(long subQueryTimeoutMS) {
+		this.subQueryTimeoutMS = subQueryTimeoutMS;
+	}
 
 	/*
 	 * (non-Javadoc)
@@ -87,13 +137,13 @@ public class TableQueryManagerImpl implements TableQueryManager {
 		try {
 			// Set the default values
 			TableQueryManagerImpl.setDefaultsValues(query);
-			// handler will capture the results of the query.
+			// pre-flight includes parsing and authorization
+			SqlQuery sqlQuery = queryPreflight(user, query, this.maxBytesPerRequest);
+			// handler will capture the results of the query, sized for a single page.
 			SinglePageRowHandler rowHandler = null;
 			if (options.runQuery()) {
-				rowHandler = new SinglePageRowHandler();
+				rowHandler = new SinglePageRowHandler(sqlQuery.getMaxRowsPerPage());
 			}
-			// pre-flight includes parsing and authorization
-			SqlQuery sqlQuery = queryPreflight(user, query, this.maxBytesPerRequest);
 
 			// run the query as a stream.
 			QueryResultBundle bundle = queryAsStream(progressCallback, user, sqlQuery, rowHandler, options);
@@ -146,9 +196,8 @@ public class TableQueryManagerImpl implements TableQueryManager {
 		ValidateArgument.required(user, "UserInfo");
 		ValidateArgument.required(query, "Query");
 		ValidateArgument.required(query.getSql(), "Query");
-		// 1. Parse the SQL string
-
-		QuerySpecification model = parserQuery(query.getSql());
+		// 1. Parse the SQL string. The cache provides a copy that can be modified.
+		QuerySpecification model = parsedQueryCache.parseQuery(query.getSql());
 		// We now have the table's ID.
 		String tableId = model.getTableName();
 		IdAndVersion idAndVersion = IdAndVersion.parse(tableId);
@@ -201,9 +250,10 @@ public class TableQueryManagerImpl implements TableQueryManager {
 		return tryRunWithTableReadLock(progressCallback, idAndVersion, (ProgressCallback callback) -> {
 					// We can only run this query if the table is available.
 					final TableStatus status = validateTableIsAvailable(query.getTableId());
+					String facetCacheEtag = getFacetCacheEtag(status, query.getTableType());
 					// run the query
 					QueryResultBundle bundle = queryAsStreamAfterAuthorization(progressCallback, query,
-							rowHandler, options);
+							rowHandler, options, facetCacheEtag);
 					// add the status to the result
 					if (rowHandler != null) {
 						// the etag is only returned for consistent queries.
@@ -260,6 +310,28 @@ public class TableQueryManagerImpl implements TableQueryManager {
 	QueryResultBundle queryAsStreamAfterAuthorization(ProgressCallback progressCallback, SqlQuery query,
 			RowHandler rowHandler, final QueryOptions options)
 			throws TableUnavailableException, TableFailedException, LockUnavilableException {
+		return queryAsStreamAfterAuthorization(progressCallback, query, rowHandler, options, null);
+	}
+
+	/**
+	 * Run a query as a stream after all authorization checks have been performed
+	 * and any any required row-level filtering has been applied.
+	 * 
+	 * @param progressCallback
+	 * @param query
+	 * @param rowHandler
+	 * @param options
+	 * @param tableEtag        See {@link #getFacetCacheEtag(TableStatus, EntityType)}.
+	 *                         When provided, the facet results can be served
+	 *                         from the {@link FacetQueryCache}.
+	 * @return
+	 * @throws TableUnavailableException
+	 * @throws TableFailedException
+	 * @throws LockUnavilableException
+	 */
+	QueryResultBundle queryAsStreamAfterAuthorization(ProgressCallback progressCallback, SqlQuery query,
+			RowHandler rowHandler, final QueryOptions options, final String tableEtag)
+			throws TableUnavailableException, TableFailedException, LockUnavilableException {
 		// build up the response.
 		QueryResultBundle bundle = new QueryResultBundle();
 		if(options.returnColumnModels()) {
@@ -275,40 +347,63 @@ public class TableQueryManagerImpl implements TableQueryManager {
 		FacetModel facetModel = new FacetModel(query.getSelectedFacets(), query, options.returnFacets());
 
 		// determine whether or not to run with facet filters
-		SqlQuery queryToRun;
-		if (facetModel.hasFiltersApplied()) {
-			queryToRun = facetModel.getFacetFilteredQuery();
-		} else {
-			queryToRun = query;
-		}
+		final SqlQuery queryToRun = facetModel.hasFiltersApplied() ? facetModel.getFacetFilteredQuery() : query;
 
-		// run the actual query if needed.
-		if (rowHandler != null) {
-			// run the query
-			RowSet rowSet = runQueryAsStream(progressCallback, queryToRun, rowHandler, indexDao);
-			QueryResult queryResult = new QueryResult();
-			queryResult.setQueryResults(rowSet);
-			bundle.setQueryResult(queryResult);
-		}
-
-		// run the count query if needed.
+		// The sub-queries are independent of the main query so they are started first.
+		List<Future<?>> allSubQueries = new ArrayList<>();
+		Future<Long> countFuture = null;
 		if (options.runCount()) {
-			// count requested.
-			Long count = runCountQuery(queryToRun, indexDao);
-			bundle.setQueryCount(count);
+			countFuture = submitSubQuery(SUB_QUERY_COUNT, () -> runWithStatementTimeout(SUB_QUERY_COUNT, indexDao,
+					() -> runCountQuery(queryToRun, indexDao)));
+			allSubQueries.add(countFuture);
 		}
-
-		// run the facet counts if needed
+		List<Future<FacetColumnResult>> facetFutures = null;
 		if (options.returnFacets()) {
 			// use original query instead of queryToRun because need the where clause that
 			// was not modified by any facets
-			List<FacetColumnResult> facetResults = runFacetQueries(facetModel, indexDao);
-			bundle.setFacets(facetResults);
+			facetFutures = new ArrayList<>();
+			for (FacetTransformer facetQueryTransformer : facetModel.getFacetInformationQueries()) {
+				facetFutures.add(submitSubQuery(SUB_QUERY_FACET, () -> runFacetQuery(idAndVersion, tableEtag, facetQueryTransformer, indexDao)));
+			}
+			allSubQueries.addAll(facetFutures);
 		}
-		
-		if(options.runSumFileSizes()) {
-			SumFileSizes sumFileSizes = runSumFileSize(queryToRun, indexDao);
-			bundle.setSumFileSizes(sumFileSizes);
+		Future<SumFileSizes> sumFileSizesFuture = null;
+		if (options.runSumFileSizes()) {
+			sumFileSizesFuture = submitSubQuery(SUB_QUERY_SUM_FILE_SIZES, () -> runWithStatementTimeout(
+					SUB_QUERY_SUM_FILE_SIZES, indexDao, () -> runSumFileSize(queryToRun, indexDao)));
+			allSubQueries.add(sumFileSizesFuture);
+		}
+
+		try {
+			// run the actual query if needed.
+			if (rowHandler != null) {
+				// run the query
+				RowSet rowSet = runQueryAsStream(progressCallback, queryToRun, rowHandler, indexDao);
+				QueryResult queryResult = new QueryResult();
+				queryResult.setQueryResults(rowSet);
+				bundle.setQueryResult(queryResult);
+			}
+
+			// gather the results of the sub-queries while the table lock is still held.
+			if (countFuture != null) {
+				bundle.setQueryCount(getSubQueryResult(SUB_QUERY_COUNT, countFuture));
+			}
+			if (facetFutures != null) {
+				List<FacetColumnResult> facetResults = new ArrayList<>(facetFutures.size());
+				for (Future<FacetColumnResult> facetFuture : facetFutures) {
+					facetResults.add(getSubQueryResult(SUB_QUERY_FACET, facetFuture));
+				}
+				bundle.setFacets(facetResults);
+			}
+			if (sumFileSizesFuture != null) {
+				bundle.setSumFileSizes(getSubQueryResult(SUB_QUERY_SUM_FILE_SIZES, sumFileSizesFuture));
+			}
+		} catch (RuntimeException e) {
+			// Cancelling only stops the sub-queries that have not started. Interrupting a
+			// thread does not cancel its JDBC statement, so a statement that is already
+			// running is ended by its query timeout (see runWithStatementTimeout()).
+			allSubQueries.forEach(f -> f.cancel(true));
+			throw e;
 		}
 		
 		if(options.returnLastUpdatedOn()) {
@@ -335,11 +430,150 @@ public class TableQueryManagerImpl implements TableQueryManager {
 
 		List<FacetColumnResult> facetResults = new ArrayList<>();
 		for (FacetTransformer facetQueryTransformer : facetModel.getFacetInformationQueries()) {
-			RowSet rowSet = indexDao.query(null, facetQueryTransformer.getFacetSqlQuery());
-			facetResults.add(facetQueryTransformer.translateToResult(rowSet));
+			facetResults.add(runFacetQuery(facetQueryTransformer, indexDao));
 		}
 		return facetResults;
 	}
+	
+	/**
+	 * Run a single facet query.
+	 * 
+	 * @param facetQueryTransformer
+	 * @param indexDao
+	 * @return
+	 */
+	FacetColumnResult runFacetQuery(FacetTransformer facetQueryTransformer, TableIndexDAO indexDao) {
+		RowSet rowSet = indexDao.query(null, facetQueryTransformer.getFacetSqlQuery());
+		return facetQueryTransformer.translateToResult(rowSet);
+	}
+	
+	/**
+	 * Run a single facet query using the {@link FacetQueryCache} when the etag of
+	 * the table is known. The cached results are raw rows, so each call still
+	 * translates them into a new {@link FacetColumnResult}.
+	 * 
+	 * @param idAndVersion
+	 * @param tableEtag             Null to bypass the cache.
+	 * @param facetQueryTransformer
+	 * @param indexDao
+	 * @return
+	 */
+	FacetColumnResult runFacetQuery(IdAndVersion idAndVersion, String tableEtag, FacetTransformer facetQueryTransformer,
+			TableIndexDAO indexDao) {
+		if (tableEtag == null) {
+			return runWithStatementTimeout(SUB_QUERY_FACET, indexDao,
+					() -> runFacetQuery(facetQueryTransformer, indexDao));
+		}
+		SqlQuery facetQuery = facetQueryTransformer.getFacetSqlQuery();
+		RowSet rowSet = facetQueryCache.getFacetResults(idAndVersion, tableEtag, facetQuery,
+				() -> runWithStatementTimeout(SUB_QUERY_FACET, indexDao, () -> indexDao.query(null, facetQuery)));
+		return facetQueryTransformer.translateToResult(rowSet);
+	}
+	
+	/**
+	 * Run the statements of a sub-query in a read transaction with the sub-query
+	 * timeout, so the database driver cancels a statement that runs past the
+	 * timeout.
+	 * 
+	 * @param type      The type of the sub-query.
+	 * @param indexDao
+	 * @param statement
+	 * @return
+	 * @throws TemporarilyUnavailableException If the sub-query did not complete
+	 *                                         within the timeout.
+	 */
+	<T> T runWithStatementTimeout(String type, TableIndexDAO indexDao, Supplier<T> statement) {
+		if (subQueryTimeoutMS <= 0) {
+			return statement.get();
+		}
+		// JDBC query timeouts are in seconds
+		int timeoutSeconds = (int) Math.max(1L, TimeUnit.MILLISECONDS.toSeconds(subQueryTimeoutMS));
+		try {
+			return indexDao.executeInReadTransaction(timeoutSeconds, status -> statement.get());
+		} catch (QueryTimeoutException | TransactionTimedOutException e) {
+			throw new TemporarilyUnavailableException(
+					"The " + type + " query did not complete within " + subQueryTimeoutMS + " MS", e);
+		}
+	}
+	
+	/**
+	 * Start a sub-query. When a sub-query executor is configured the query is
+	 * submitted to the executor, otherwise the query is run immediately on the
+	 * caller's thread and a completed future is returned. A sub-query that the
+	 * executor rejects because all of its threads are busy is also run on the
+	 * caller's thread. The latency of each sub-query is pushed as a metric.
+	 * 
+	 * @param type     The type of the sub-query used for the metric dimension.
+	 * @param subQuery
+	 * @return
+	 */
+	<T> Future<T> submitSubQuery(String type, Callable<T> subQuery) {
+		Callable<T> timed = () -> {
+			long start = System.currentTimeMillis();
+			try {
+				return subQuery.call();
+			} finally {
+				pushSubQueryLatency(type, System.currentTimeMillis() - start);
+			}
+		};
+		if (subQueryExecutorService != null) {
+			try {
+				return subQueryExecutorService.submit(timed);
+			} catch (RejectedExecutionException e) {
+				// the pool is saturated so the caller runs the sub-query.
+			}
+		}
+		CompletableFuture<T> future = new CompletableFuture<>();
+		try {
+			future.complete(timed.call());
+		} catch (Exception e) {
+			future.completeExceptionally(e);
+		}
+		return future;
+	}
+	
+	/**
+	 * Wait for the result of a sub-query started with
+	 * {@link #submitSubQuery(String, Callable)}. The wait is bounded by the
+	 * statement timeout of the sub-query itself, see
+	 * {@link #runWithStatementTimeout(String, TableIndexDAO, Supplier)}.
+	 * 
+	 * @param type
+	 * @param future
+	 * @return
+	 */
+	<T> T getSubQueryResult(String type, Future<T> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			future.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		} catch (ExecutionException e) {
+			// unwrap runtime exceptions so they are unchanged.
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new RuntimeException(e.getCause());
+		}
+	}
+	
+	/**
+	 * Push a metric for the latency of a single sub-query.
+	 * 
+	 * @param type
+	 * @param elapseMS
+	 */
+	void pushSubQueryLatency(String type, long elapseMS) {
+		ProfileData profileData = new ProfileData();
+		profileData.setNamespace(TableQueryManager.class.getName());
+		profileData.setName(METRIC_NAME_SUB_QUERY_LATENCY);
+		profileData.setValue((double) elapseMS);
+		profileData.setUnit(StandardUnit.Milliseconds.name());
+		profileData.setTimestamp(new Date());
+		profileData.setDimension(Collections.singletonMap(DIMENSION_SUB_QUERY_TYPE, type));
+		consumer.addProfileData(profileData);
+	}
 
 	/**
 	 * For the given bundle, is the number of rows equal to the maximum rows per
@@ -349,6 +583,27 @@ public class TableQueryManagerImpl implements TableQueryManager {
 	 * @param bundle
 	 * @return
 	 */
+	/**
+	 * Get the value that the facet results of a table are cached by, which must
+	 * change each time the rows of the table change. For a table this is the etag
+	 * of its last change. Views are always marked available with the same etag
+	 * and their rows are updated in place, but each in place update sets the
+	 * changed on of the view's status and each rebuild sets a new reset token.
+	 * 
+	 * @param status
+	 * @param tableType
+	 * @return Null if the facet results cannot be cached.
+	 */
+	static String getFacetCacheEtag(TableStatus status, EntityType tableType) {
+		if (!EntityTypeUtils.isViewType(tableType)) {
+			return status.getLastTableChangeEtag();
+		}
+		if (status.getChangedOn() == null) {
+			return null;
+		}
+		return status.getResetToken() + "-" + status.getChangedOn().getTime();
+	}
+
 	public static boolean isRowCountEqualToMaxRowsPerPage(QueryResultBundle bundle, int maxRowsPerPage) {
 		if (bundle != null) {
 			if (bundle.getQueryResult() != null) {
@@ -556,20 +811,6 @@ public class TableQueryManagerImpl implements TableQueryManager {
 	
 	
 
-	/**
-	 * Parser a query and convert ParseExceptions to IllegalArgumentExceptions
-	 * 
-	 * @param sql
-	 * @return
-	 */
-	private QuerySpecification parserQuery(String sql) {
-		try {
-			return TableQueryParser.parserQuery(sql);
-		} catch (ParseException e) {
-			throw new IllegalArgumentException(e);
-		}
-	}
-
 	@Override
 	public Long getMaxRowsPerPage(List<ColumnModel> models) {
 		// Calculate the size
@@ -673,8 +914,10 @@ public class TableQueryManagerImpl implements TableQueryManager {
 	}
 
 	/**
-	 * Build a new query with a benefactor filter applied to the SQL from the passed
-	 * query.
+	 * Apply a benefactor filter to the passed query. The filter is added directly
+	 * to the model so neither the query nor the (potentially large) list of
+	 * benefactor IDs is written to SQL and parsed again. Note: The passed query is
+	 * modified and returned.
 	 * 
 	 * @param originalQuery
 	 * @param accessibleBenefactors
@@ -690,36 +933,13 @@ public class TableQueryManagerImpl implements TableQueryManager {
 			// matches no rows
 			accessibleBenefactors = Collections.singleton(-1L);
 		}
-		// copy the original model
-		try {
-			QuerySpecification modelCopy = new TableQueryParser(originalQuery.toSql()).querySpecification();
-			WhereClause where = originalQuery.getTableExpression().getWhereClause();
-			StringBuilder filterBuilder = new StringBuilder();
-			filterBuilder.append("WHERE ");
-			if (where != null) {
-				filterBuilder.append("(");
-				filterBuilder.append(where.getSearchCondition().toSql());
-				filterBuilder.append(") AND ");
-			}
-			filterBuilder.append(TableConstants.ROW_BENEFACTOR);
-			filterBuilder.append(" IN (");
-			boolean isFirst = true;
-			for (Long id : accessibleBenefactors) {
-				if (!isFirst) {
-					filterBuilder.append(",");
-				}
-				filterBuilder.append(id);
-				isFirst = false;
-			}
-			filterBuilder.append(")");
-			// create the new where
-			where = new TableQueryParser(filterBuilder.toString()).whereClause();
-			modelCopy.getTableExpression().replaceWhere(where);
-			// return a copy
-			return modelCopy;
-		} catch (ParseException e) {
-			throw new RuntimeException(e);
-		}
+		Predicate benefactorFilter = new Predicate(
+				SqlElementUntils.createInPredicate(TableConstants.ROW_BENEFACTOR, accessibleBenefactors));
+		TableExpression tableExpression = originalQuery.getTableExpression();
+		tableExpression.replaceWhere(
+				SqlElementUntils.appendPredicateToWhereClause(tableExpression.getWhereClause(), benefactorFilter));
+		originalQuery.recursiveSetParent();
+		return originalQuery;
 	}
 
 	@Override
@@ -0,0 +1,160 @@
+package org.sagebionetworks.repo.manager.table.change;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.sagebionetworks.repo.model.table.TableChangeType;
+import org.sagebionetworks.repo.web.NotFoundException;
+import org.sagebionetworks.table.model.ChangeData;
+import org.sagebionetworks.table.model.SparseChangeSet;
+import org.sagebionetworks.table.model.TableChange;
+import org.sagebionetworks.util.ValidateArgument;
+
+/**
+ * An iterator of table changes that starts loading the data of the next row
+ * changes on the provided executor while the caller is still working on the
+ * current change. Row changes are stored in S3, so loading each change in turn
+ * is dominated by the latency of each download.
+ * <p>
+ * At most readAhead changes are buffered in addition to the change last
+ * returned by {@link #next()}, so memory use is bounded by the maximum size of
+ * a change set. Any load that has not been consumed should be canceled with
+ * {@link #cancel()} when the caller stops early.
+ *
+ */
+public class PrefetchingTableChangeIterator implements Iterator<TableChangeMetaData> {
+
+	private final Iterator<TableChangeMetaData> source;
+	private final ExecutorService executorService;
+	private final int readAhead;
+	private final Deque<PrefetchedChange> buffer;
+
+	/**
+	 *
+	 * @param source          The changes to iterate over.
+	 * @param executorService Used to load the data of each row change.
+	 * @param readAhead       The maximum number of changes to load ahead of the
+	 *                        caller.
+	 */
+	public PrefetchingTableChangeIterator(Iterator<TableChangeMetaData> source, ExecutorService executorService,
+			int readAhead) {
+		ValidateArgument.required(source, "source");
+		ValidateArgument.required(executorService, "executorService");
+		ValidateArgument.requirement(readAhead > 0, "readAhead must be greater than zero");
+		this.source = source;
+		this.executorService = executorService;
+		this.readAhead = readAhead;
+		this.buffer = new ArrayDeque<>(readAhead);
+	}
+
+	@Override
+	public boolean hasNext() {
+		fillBuffer();
+		return !buffer.isEmpty();
+	}
+
+	@Override
+	public TableChangeMetaData next() {
+		fillBuffer();
+		if (buffer.isEmpty()) {
+			throw new NoSuchElementException();
+		}
+		PrefetchedChange next = buffer.removeFirst();
+		// keep loading ahead while the caller works on this change.
+		fillBuffer();
+		return next;
+	}
+
+	/**
+	 * Cancel the loading of all buffered changes.
+	 */
+	public void cancel() {
+		for (PrefetchedChange change : buffer) {
+			change.cancel();
+		}
+		buffer.clear();
+	}
+
+	private void fillBuffer() {
+		while (buffer.size() < readAhead && source.hasNext()) {
+			buffer.addLast(new PrefetchedChange(source.next()));
+		}
+	}
+
+	/**
+	 * A change with its data loading in the background. Only row changes are
+	 * loaded ahead, all other changes are loaded on demand.
+	 *
+	 */
+	private class PrefetchedChange implements TableChangeMetaData {
+
+		private final TableChangeMetaData wrapped;
+		private final Future<ChangeData<SparseChangeSet>> rowChange;
+
+		PrefetchedChange(TableChangeMetaData wrapped) {
+			this.wrapped = wrapped;
+			if (TableChangeType.ROW.equals(wrapped.getChangeType())) {
+				this.rowChange = executorService.submit(() -> wrapped.loadChangeData(SparseChangeSet.class));
+			} else {
+				this.rowChange = null;
+			}
+		}
+
+		@Override
+		public Long getChangeNumber() {
+			return wrapped.getChangeNumber();
+		}
+
+		@Override
+		public TableChangeType getChangeType() {
+			return wrapped.getChangeType();
+		}
+
+		@Override
+		public String getETag() {
+			return wrapped.getETag();
+		}
+
+		@Override
+		public <T extends TableChange> ChangeData<T> loadChangeData(Class<T> clazz)
+				throws NotFoundException, IOException {
+			if (rowChange == null) {
+				return wrapped.loadChangeData(clazz);
+			}
+			ChangeData<SparseChangeSet> data = getRowChange();
+			return new ChangeData<>(data.getChangeNumber(), clazz.cast(data.getChange()));
+		}
+
+		void cancel() {
+			if (rowChange != null) {
+				rowChange.cancel(true);
+			}
+		}
+
+		private ChangeData<SparseChangeSet> getRowChange() throws NotFoundException, IOException {
+			try {
+				return rowChange.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException(e);
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof IOException) {
+					throw (IOException) cause;
+				}
+				if (cause instanceof RuntimeException) {
+					// includes NotFoundException
+					throw (RuntimeException) cause;
+				}
+				throw new IllegalStateException(cause);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,24 @@
+package org.sagebionetworks.repo.manager.wiki;
+
+import java.io.IOException;
+
+import org.sagebionetworks.repo.web.NotFoundException;
+
+/**
+ * Cache of the text of wiki markdown files. Markdown file handles are never
+ * modified, so the text is cached by file handle id and never invalidated.
+ *
+ */
+public interface WikiMarkdownCache {
+
+	/**
+	 * Get the text of the given markdown file, downloading it from S3 only if
+	 * it is not already cached.
+	 *
+	 * @param markdownFileHandleId
+	 * @return
+	 * @throws IOException
+	 * @throws NotFoundException If the file handle does not exist.
+	 */
+	String getMarkdown(String markdownFileHandleId) throws IOException, NotFoundException;
+}
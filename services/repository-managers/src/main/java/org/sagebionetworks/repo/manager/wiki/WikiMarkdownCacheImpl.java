@@ -0,0 +1,324 @@
+package org.sagebionetworks.repo.manager.wiki;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Date;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.sagebionetworks.StackConfiguration;
+import org.sagebionetworks.aws.SynapseS3Client;
+import org.sagebionetworks.cloudwatch.Consumer;
+import org.sagebionetworks.cloudwatch.ProfileData;
+import org.sagebionetworks.downloadtools.FileUtils;
+import org.sagebionetworks.repo.model.dbo.file.FileHandleDao;
+import org.sagebionetworks.repo.model.file.S3FileHandle;
+import org.sagebionetworks.util.Clock;
+import org.sagebionetworks.util.ValidateArgument;
+import org.sagebionetworks.utils.ContentTypeUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.amazonaws.services.cloudwatch.model.StandardUnit;
+import com.amazonaws.services.s3.model.S3Object;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalCause;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * The markdown is kept in memory, bounded by the number of bytes of text, and
+ * optionally in a local directory, also bounded by bytes. A markdown file that
+ * is in neither tier is downloaded from S3 once, even when it is requested by
+ * many threads at the same time.
+ * <p>
+ * The disk tier is cleared when the cache is created since the files from a
+ * previous process are not accounted for.
+ */
+@Service
+public class WikiMarkdownCacheImpl implements WikiMarkdownCache {
+
+	private static final Logger log = LogManager.getLogger(WikiMarkdownCacheImpl.class);
+
+	/**
+	 * Since the smallest period supported by cloud watch is one minute, metrics
+	 * are only pushed to cloud watch once per minute.
+	 */
+	public static final long PUBLISH_PERIOD_MS = 60 * 1000;
+
+	public static final String METRIC_NAMESPACE_PREFIX = "Wiki-Markdown-Cache-";
+	public static final String METRIC_MEMORY_HIT_COUNT = "Memory Hit Count";
+	public static final String METRIC_DISK_HIT_COUNT = "Disk Hit Count";
+	public static final String METRIC_MISS_COUNT = "Miss Count";
+	public static final String METRIC_HIT_RATE = "Hit Rate";
+
+	static final String DISK_FILE_SUFFIX = ".md";
+	static final String DISK_TEMP_FILE_SUFFIX = ".tmp";
+	
+	// The markdown files and the temporary files written by this cache: <fileHandleId>.md or <fileHandleId><random>.tmp
+	static final Pattern DISK_CACHE_FILE_PATTERN = Pattern.compile("\\d+(" + Pattern.quote(DISK_FILE_SUFFIX) + "|"
+			+ Pattern.quote(DISK_TEMP_FILE_SUFFIX) + ")");
+
+	private final FileHandleDao fileHandleDao;
+	private final SynapseS3Client s3Client;
+	private final Consumer consumer;
+	private final Clock clock;
+	private final String metricNamespace;
+	private final Cache<Long, String> memoryCache;
+	// The size of each markdown file in the disk directory, null if the disk tier is disabled.
+	private final Cache<Long, Integer> diskIndex;
+	private final File diskDirectory;
+	private final AtomicLong diskHitCount;
+
+	private long lastPublishMS;
+	private CacheStats lastPublishedStats;
+	private long lastPublishedDiskHitCount;
+
+	@Autowired
+	public WikiMarkdownCacheImpl(FileHandleDao fileHandleDao, SynapseS3Client s3Client, Consumer consumer, Clock clock,
+			StackConfiguration stackConfiguration) throws IOException {
+		this(fileHandleDao, s3Client, consumer, clock, stackConfiguration,
+				stackConfiguration.getWikiMarkdownCacheMemoryMaxBytes(),
+				stackConfiguration.getWikiMarkdownCacheDiskDirectory() == null ? null
+						: new File(stackConfiguration.getWikiMarkdownCacheDiskDirectory()),
+				stackConfiguration.getWikiMarkdownCacheDiskMaxBytes());
+	}
+
+	WikiMarkdownCacheImpl(FileHandleDao fileHandleDao, SynapseS3Client s3Client, Consumer consumer, Clock clock,
+			StackConfiguration stackConfiguration, long memoryMaxBytes, File diskDirectory, long diskMaxBytes)
+			throws IOException {
+		ValidateArgument.requirement(memoryMaxBytes > 0, "The memory max bytes must be greater than zero.");
+		this.fileHandleDao = fileHandleDao;
+		this.s3Client = s3Client;
+		this.consumer = consumer;
+		this.clock = clock;
+		this.metricNamespace = METRIC_NAMESPACE_PREFIX + stackConfiguration.getStackInstance();
+		// Java strings use two bytes per character.
+		this.memoryCache = CacheBuilder.newBuilder()
+				.maximumWeight(memoryMaxBytes)
+				.weigher((Long key, String markdown) -> 2 * markdown.length())
+				.recordStats()
+				.build();
+		this.diskDirectory = diskDirectory;
+		if (diskDirectory != null) {
+			ValidateArgument.requirement(diskMaxBytes > 0, "The disk max bytes must be greater than zero.");
+			clearDiskDirectory(diskDirectory);
+			this.diskIndex = CacheBuilder.newBuilder()
+					.maximumWeight(diskMaxBytes)
+					.weigher((Long key, Integer size) -> size)
+					.removalListener(notification -> {
+						if (notification.getCause() != RemovalCause.REPLACED) {
+							deleteDiskFile(notification.getKey());
+						}
+					})
+					.build();
+		} else {
+			this.diskIndex = null;
+		}
+		this.diskHitCount = new AtomicLong();
+		this.lastPublishMS = clock.currentTimeMillis();
+		this.lastPublishedStats = memoryCache.stats();
+		this.lastPublishedDiskHitCount = 0L;
+	}
+
+	@Override
+	public String getMarkdown(String markdownFileHandleId) throws IOException {
+		ValidateArgument.required(markdownFileHandleId, "markdownFileHandleId");
+		Long fileHandleId = Long.parseLong(markdownFileHandleId);
+		try {
+			// Concurrent requests for the same file wait for a single load.
+			return memoryCache.get(fileHandleId, () -> loadMarkdown(fileHandleId));
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new RuntimeException(e.getCause());
+		} catch (UncheckedExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		} finally {
+			pushMetricsIfNeeded();
+		}
+	}
+
+	/**
+	 * Load markdown that is not in memory from the disk tier or S3.
+	 *
+	 * @param fileHandleId
+	 * @return
+	 * @throws IOException
+	 */
+	String loadMarkdown(Long fileHandleId) throws IOException {
+		String markdown = readFromDisk(fileHandleId);
+		if (markdown != null) {
+			diskHitCount.incrementAndGet();
+			return markdown;
+		}
+		markdown = downloadMarkdown(fileHandleId);
+		writeToDisk(fileHandleId, markdown);
+		return markdown;
+	}
+
+	/**
+	 * Download and unzip the markdown from S3.
+	 *
+	 * @param fileHandleId
+	 * @return
+	 * @throws IOException
+	 */
+	String downloadMarkdown(Long fileHandleId) throws IOException {
+		S3FileHandle markdownHandle = (S3FileHandle) fileHandleDao.get(fileHandleId.toString());
+		S3Object s3Object = s3Client.getObject(markdownHandle.getBucketName(), markdownHandle.getKey());
+		String contentType = s3Object.getObjectMetadata().getContentType();
+		Charset charset = ContentTypeUtil.getCharsetFromContentTypeString(contentType);
+		try (InputStream in = s3Object.getObjectContent()) {
+			return FileUtils.readStreamAsString(in, charset, /*gunzip*/true);
+		}
+	}
+
+	/**
+	 * @param fileHandleId
+	 * @return null if the markdown is not on the disk.
+	 */
+	String readFromDisk(Long fileHandleId) {
+		if (diskIndex == null || diskIndex.getIfPresent(fileHandleId) == null) {
+			return null;
+		}
+		try {
+			return new String(Files.readAllBytes(getDiskFile(fileHandleId)), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			log.warn("Failed to read cached markdown for file handle: " + fileHandleId, e);
+			diskIndex.invalidate(fileHandleId);
+			return null;
+		}
+	}
+
+	/**
+	 * Write the markdown to a temporary file that is then moved into place, so a
+	 * partially written file is never read.
+	 *
+	 * @param fileHandleId
+	 * @param markdown
+	 */
+	void writeToDisk(Long fileHandleId, String markdown) {
+		if (diskIndex == null) {
+			return;
+		}
+		byte[] bytes = markdown.getBytes(StandardCharsets.UTF_8);
+		Path temp = null;
+		try {
+			temp = Files.createTempFile(diskDirectory.toPath(), fileHandleId.toString(), DISK_TEMP_FILE_SUFFIX);
+			Files.write(temp, bytes);
+			Files.move(temp, getDiskFile(fileHandleId), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+			diskIndex.put(fileHandleId, bytes.length);
+		} catch (IOException e) {
+			// The disk tier is optional so the markdown is still returned.
+			log.warn("Failed to cache markdown for file handle: " + fileHandleId, e);
+			if (temp != null) {
+				temp.toFile().delete();
+			}
+		}
+	}
+
+	Path getDiskFile(Long fileHandleId) {
+		return new File(diskDirectory, fileHandleId + DISK_FILE_SUFFIX).toPath();
+	}
+
+	private void deleteDiskFile(Long fileHandleId) {
+		try {
+			Files.deleteIfExists(getDiskFile(fileHandleId));
+		} catch (IOException e) {
+			log.warn("Failed to delete cached markdown for file handle: " + fileHandleId, e);
+		}
+	}
+
+	/**
+	 * Delete the files left by this cache from a previous run. Any other file in
+	 * the directory is left as is.
+	 * 
+	 * @param directory
+	 * @throws IOException
+	 */
+	private static void clearDiskDirectory(File directory) throws IOException {
+		Files.createDirectories(directory.toPath());
+		File[] files = directory.listFiles(file -> file.isFile() && DISK_CACHE_FILE_PATTERN.matcher(file.getName()).matches());
+		if (files != null) {
+			for (File file : files) {
+				Files.deleteIfExists(file.toPath());
+			}
+		}
+	}
+
+	/**
+	 * Push the number of memory hits, disk hits and misses since the last push
+	 * along with the hit rate, at most once per minute.
+	 */
+	void pushMetricsIfNeeded() {
+		long nowMS = clock.currentTimeMillis();
+		CacheStats delta;
+		long diskHits;
+		synchronized (this) {
+			if (nowMS - lastPublishMS < PUBLISH_PERIOD_MS) {
+				return;
+			}
+			CacheStats stats = memoryCache.stats();
+			delta = stats.minus(lastPublishedStats);
+			lastPublishedStats = stats;
+			long currentDiskHitCount = diskHitCount.get();
+			diskHits = currentDiskHitCount - lastPublishedDiskHitCount;
+			lastPublishedDiskHitCount = currentDiskHitCount;
+			lastPublishMS = nowMS;
+		}
+		// Memory misses that were found on the disk are not misses.
+		long misses = Math.max(0L, delta.missCount() - diskHits);
+		Date timestamp = new Date(nowMS);
+		List<ProfileData> metrics = new LinkedList<>();
+		metrics.add(createProfileData(METRIC_MEMORY_HIT_COUNT, delta.hitCount(), StandardUnit.Count, timestamp));
+		metrics.add(createProfileData(METRIC_DISK_HIT_COUNT, diskHits, StandardUnit.Count, timestamp));
+		metrics.add(createProfileData(METRIC_MISS_COUNT, misses, StandardUnit.Count, timestamp));
+		long requests = delta.requestCount();
+		if (requests > 0) {
+			double hitRate = 100.0 * (requests - misses) / requests;
+			metrics.add(createProfileData(METRIC_HIT_RATE, hitRate, StandardUnit.Percent, timestamp));
+		}
+		consumer.addProfileData(metrics);
+	}
+
+	private ProfileData createProfileData(String name, double value, StandardUnit unit, Date timestamp) {
+		ProfileData profileData = new ProfileData();
+		profileData.setNamespace(metricNamespace);
+		profileData.setName(name);
+		profileData.setValue(value);
+		profileData.setUnit(unit.name());
+		profileData.setTimestamp(timestamp);
+		return profileData;
+	}
+
+	/**
+	 * The number of bytes of markdown on the disk.
+	 *
+	 * @return
+	 */
+	long diskSizeBytes() {
+		if (diskIndex == null) {
+			return 0L;
+		}
+		diskIndex.cleanUp();
+		return diskIndex.asMap().values().stream().mapToLong(Integer::longValue).sum();
+	}
+}
@@ -2,10 +2,15 @@ package org.sagebionetworks.repo.web.controller;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.Reader;
+import java.io.Writer;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
@@ -14,6 +19,7 @@ import java.util.Set;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
+import org.json.JSONTokener;
 import org.sagebionetworks.repo.model.Entity;
 import org.sagebionetworks.repo.model.ErrorResponse;
 import org.sagebionetworks.repo.model.schema.CreateSchemaRequest;
@@ -106,9 +112,16 @@ public class JSONEntityHttpMessageConverter implements	HttpMessageConverter<JSON
 			throws JSONObjectAdapterException {
 		// Validating: throws an IllegalArgumentException if the parsedEntity is missing
 		// an element from the originalJsonString
+		validateJSONEntity(parsedEntity, new JSONObject(originalJsonString));
+	}
+	
+	public static void validateJSONEntity(JSONEntity parsedEntity, JSONObject originalJsonObject) 
+			throws JSONObjectAdapterException {
+		// Validating: throws an IllegalArgumentException if the parsedEntity is missing
+		// an element from the originalJsonObject
 		JSONObject parsedEntityJsonObject = EntityFactory.createJSONObjectForEntity(parsedEntity);
 		JSONObjectAdapter parsedObject = new JSONObjectAdapterImpl(parsedEntityJsonObject);
-		JSONObjectAdapter originalObject = new JSONObjectAdapterImpl(originalJsonString);
+		JSONObjectAdapter originalObject = new JSONObjectAdapterImpl(originalJsonObject);
 		validateJSONEntityRecursive(parsedObject, originalObject);
 	}
 	
@@ -171,32 +184,30 @@ public class JSONEntityHttpMessageConverter implements	HttpMessageConverter<JSON
 	@Override
 	public JSONEntity read(Class<? extends JSONEntity> clazz, HttpInputMessage inputMessage) throws IOException,
 			HttpMessageNotReadableException, IllegalArgumentException {
-		// First read the string
+		// Parse the body directly from the stream without reading it into a string first
 		Charset charsetForDeSerializingBody = inputMessage.getHeaders().getContentType().getCharset();
 		if (charsetForDeSerializingBody==null) {
 			// HTTP 1.1 says that the default is ISO-8859-1
 			charsetForDeSerializingBody = HTTP_1_1_DEFAULT_CHARSET;
 		}
-		String jsonString = JSONEntityHttpMessageConverter.readToString(inputMessage.getBody(), charsetForDeSerializingBody);
+		JSONObject jsonObject = readToJSONObject(inputMessage.getBody(), charsetForDeSerializingBody);
 		try {
-			JSONEntity entity = EntityFactory.createEntityFromJSONString(jsonString, clazz);
+			JSONEntity entity = EntityFactory.createEntityFromJSONObject(jsonObject, clazz);
 			// validate the entity if its class is one which we should validate
 			if (classesToValidateConversion.contains(clazz)) {
-				validateJSONEntity(entity, jsonString);
+				validateJSONEntity(entity, jsonObject);
 			}
 			return entity;
 		} catch (JSONObjectAdapterException e) {
 			// Try to convert entity type to a concrete type and try again. See PLFM-2079.
 			try {
-				JSONObject jsonObject = new JSONObject(jsonString);
 				if(jsonObject.has(ENTITY_TYPE)){
 					// get the entity type so we can replace it with concrete type
 					String type = jsonObject.getString(ENTITY_TYPE);
-				jsonObject.remove(ENTITY_TYPE);
+					jsonObject.remove(ENTITY_TYPE);
 					jsonObject.put(CONCRETE_TYPE, type);
-					jsonString = jsonObject.toString();
 					// try again
-					return EntityFactory.createEntityFromJSONString(jsonString, clazz);
+					return EntityFactory.createEntityFromJSONObject(jsonObject, clazz);
 				}else{
 					// Something else went wrong
 					throw new HttpMessageNotReadableException(e.getMessage(), e);
@@ -209,6 +220,27 @@ public class JSONEntityHttpMessageConverter implements	HttpMessageConverter<JSON
 		}
 	}
 
+	/**
+	 * Parse a JSON object directly from an input stream.
+	 * 
+	 * @param in
+	 * @param charSet
+	 * @return
+	 * @throws IOException
+	 * @throws HttpMessageNotReadableException If the stream does not contain a JSON object.
+	 */
+	public static JSONObject readToJSONObject(InputStream in, Charset charSet) throws IOException {
+		if(in == null) throw new IllegalArgumentException("No content to map to Object due to end of input");
+		if(charSet == null){
+			charSet = SYNAPSE_DEFAULT_CHARSET;
+		}
+		try (Reader reader = new BufferedReader(new InputStreamReader(in, charSet))) {
+			return new JSONObject(new JSONTokener(reader));
+		} catch (JSONException e) {
+			throw new HttpMessageNotReadableException(e.getMessage(), e);
+		}
+	}
+
 	/**
 	 * Read a string from an input stream
 	 * 
@@ -303,22 +335,36 @@ public class JSONEntityHttpMessageConverter implements	HttpMessageConverter<JSON
 			}
 			HttpHeaders headers = outputMessage.getHeaders();
 			headers.setContentType(contentTypeForResponseHeader);
-			String jsonString;
-			if (contentTypeForResponseHeader.includes(MediaType.TEXT_PLAIN)) {
-				jsonString = convertEntityToPlainText(entity);
+			if (contentTypeForResponseHeader.includes(MediaType.TEXT_PLAIN) && entity instanceof ErrorResponse) {
+				JSONEntityHttpMessageConverter.writeToStream(((ErrorResponse) entity).getReason(), outputMessage.getBody(), charsetForSerializingBody);
 			} else {
-				jsonString = EntityFactory.createJSONStringForEntity(entity);
+				// The JSON is written directly to the body so the response is never held as a string or byte array.
+				JSONObject jsonObject = EntityFactory.createJSONObjectForEntity(entity);
+				writeToStream(jsonObject, outputMessage.getBody(), charsetForSerializingBody);
 			}
-			long length = JSONEntityHttpMessageConverter.writeToStream(jsonString, outputMessage.getBody(), charsetForSerializingBody);
-			if (headers.getContentLength() == -1) {
-				headers.setContentLength(length);
-			}
-		} catch (JSONObjectAdapterException e) {
+		} catch (JSONObjectAdapterException | JSONException e) {
 			throw new HttpMessageNotWritableException(e.getMessage(), e);
 		}
 
 	}
 	
+	/**
+	 * Write a JSON object directly to an output stream.
+	 * 
+	 * @param jsonObject
+	 * @param out
+	 * @param charSet
+	 * @throws IOException
+	 */
+	public static void writeToStream(JSONObject jsonObject, OutputStream out, Charset charSet) throws IOException {
+		if(charSet == null){
+			charSet = SYNAPSE_DEFAULT_CHARSET;
+		}
+		try (Writer writer = new BufferedWriter(new OutputStreamWriter(out, charSet))) {
+			jsonObject.write(writer);
+		}
+	}
+	
 	public static String convertEntityToPlainText(JSONEntity entity) throws JSONObjectAdapterException {
 		if (entity instanceof ErrorResponse) {
 			return ((ErrorResponse)entity).getReason();
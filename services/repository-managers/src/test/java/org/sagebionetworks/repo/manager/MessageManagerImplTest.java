@@ -25,6 +25,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.sagebionetworks.StackConfiguration;
 import org.sagebionetworks.ids.IdGenerator;
 import org.sagebionetworks.ids.IdType;
 import org.sagebionetworks.repo.manager.file.FileHandleManager;
@@ -79,6 +80,7 @@ import com.amazonaws.services.simpleemail.model.SendEmailRequest;
 import com.amazonaws.services.simpleemail.model.SendRawEmailRequest;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.MoreExecutors;
 
 /**
  * Tests message access requirement checking and the sending of messages
@@ -144,6 +146,9 @@ public class MessageManagerImplTest {
 	@Autowired
 	private EmailQuarantineDao emailQuarantineDao;
 	
+	@Autowired
+	private StackConfiguration stackConfiguration;
+	
 	@Mock
 	private FileHandleManager mockFileHandleManager;
 	
@@ -210,7 +215,8 @@ public class MessageManagerImplTest {
 				userProfileManager, notificationEmailDao, principalAliasDAO, 
 				authorizationManager, emailService,
 				mockFileHandleManager, nodeDAO, entityAclManager,
-				fileDAO, emailQuarantineDao);
+				fileDAO, emailQuarantineDao, MoreExecutors.newDirectExecutorService(),
+				stackConfiguration);
 		
 		aliasesToDelete = new ArrayList<PrincipalAlias>();
 		
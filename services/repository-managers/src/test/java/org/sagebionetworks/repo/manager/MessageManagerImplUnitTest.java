@@ -8,6 +8,7 @@ import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -33,9 +34,10 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
+import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.sagebionetworks.StackConfiguration;
 import org.sagebionetworks.repo.manager.file.FileHandleManager;
 import org.sagebionetworks.repo.manager.principal.SynapseEmailService;
 import org.sagebionetworks.repo.model.ACCESS_TYPE;
@@ -57,7 +59,9 @@ import org.sagebionetworks.repo.model.dbo.ses.EmailQuarantineDao;
 import org.sagebionetworks.repo.model.file.FileHandle;
 import org.sagebionetworks.repo.model.file.S3FileHandle;
 import org.sagebionetworks.repo.model.message.MessageRecipientSet;
+import org.sagebionetworks.repo.model.message.MessageStatusType;
 import org.sagebionetworks.repo.model.message.MessageToUser;
+import org.sagebionetworks.repo.model.message.Settings;
 import org.sagebionetworks.repo.model.message.multipart.MessageBody;
 import org.sagebionetworks.repo.model.principal.AliasType;
 import org.sagebionetworks.repo.model.principal.PrincipalAlias;
@@ -69,6 +73,7 @@ import org.sagebionetworks.util.SerializationUtils;
 
 import com.amazonaws.services.simpleemail.model.SendRawEmailRequest;
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.MoreExecutors;
 
 @ExtendWith(MockitoExtension.class)
 public class MessageManagerImplUnitTest {
@@ -100,8 +105,11 @@ public class MessageManagerImplUnitTest {
 	private FileHandleManager fileHandleManager;
 	@Mock
 	private EmailQuarantineDao mockEmailQuarantineDao;
+	@Mock
+	private StackConfiguration mockStackConfiguration;
+	@Captor
+	private ArgumentCaptor<List<Long>> recipientIdsCaptor;
 	
-	@InjectMocks
 	private MessageManagerImpl messageManager;
 	
 	private MessageToUser mtu;
@@ -121,6 +129,7 @@ public class MessageManagerImplUnitTest {
 	private PrincipalAlias recipientEmailAlias = null;
 	private UserProfile userProfileCreator = null;
 	private UserProfile userProfileRecipient = null;
+	private Settings recipientSettings = null;
 	
 	@BeforeEach
 	public void setUp() throws Exception {
@@ -151,6 +160,8 @@ public class MessageManagerImplUnitTest {
 		userProfileRecipient.setOwnerId(RECIPIENT_ID.toString());
 		userProfileRecipient.setUserName("bar");
 		
+		recipientSettings = new Settings();
+		
 		mtu = new MessageToUser();
 		mtu.setId(MESSAGE_ID);
 		mtu.setCreatedBy(CREATOR_ID.toString());
@@ -169,17 +180,24 @@ public class MessageManagerImplUnitTest {
 		fileHandle = new S3FileHandle();
 		fileHandle.setId(FILE_HANDLE_ID);
 
+		when(mockStackConfiguration.getMessageEmailSendRatePerSecond()).thenReturn(1000.0);
+		messageManager = new MessageManagerImpl(messageDAO, userGroupDAO, groupMembersDao, userManager,
+				userProfileManager, notificationEmailDao, principalAliasDAO, authorizationManager, sesClient,
+				fileHandleManager, nodeDAO, entityAclManager, fileHandleDAO, mockEmailQuarantineDao,
+				MoreExecutors.newDirectExecutorService(), mockStackConfiguration);
 	}
 
 	private void setupCreatorRecipientMocks(boolean overrideNotificationSettings) {
 		when(principalAliasDAO.getUserName(CREATOR_ID)).thenReturn("foo");
 		when(userManager.getUserInfo(CREATOR_ID)).thenReturn(creatorUserInfo);
-		when(notificationEmailDao.getNotificationEmailForPrincipal(RECIPIENT_ID)).thenReturn(RECIPIENT_EMAIL);
+		when(notificationEmailDao.getNotificationEmailsForPrincipals(Collections.singletonList(RECIPIENT_ID)))
+				.thenReturn(Collections.singletonMap(RECIPIENT_ID, RECIPIENT_EMAIL));
 		when(userProfileManager.getUserProfile(CREATOR_ID.toString())).thenReturn(userProfileCreator);
 		
-		// When overriding the notification settings the profile of the recipient is never fetched
+		// When overriding the notification settings the settings of the recipient are never fetched
 		if (!overrideNotificationSettings) {
-			when(userProfileManager.getUserProfile(RECIPIENT_ID.toString())).thenReturn(userProfileRecipient);
+			when(userProfileManager.getNotificationSettings(Collections.singletonList(RECIPIENT_ID)))
+					.thenReturn(Collections.singletonMap(RECIPIENT_ID.toString(), recipientSettings));
 		}
 		
 		UserGroup ug = new UserGroup();
@@ -652,11 +670,11 @@ public class MessageManagerImplUnitTest {
 		
 		when(fileHandleManager.downloadFileToString(FILE_HANDLE_ID)).thenReturn(messageBody);
 		when(fileHandleDAO.get(FILE_HANDLE_ID)).thenReturn(fileHandle);
-		when(mockEmailQuarantineDao.isQuarantined(RECIPIENT_EMAIL)).thenReturn(true);
+		when(mockEmailQuarantineDao.getQuarantinedEmails(Collections.singleton(RECIPIENT_EMAIL))).thenReturn(Collections.singleton(RECIPIENT_EMAIL));
 		
 		List<String> errors = messageManager.processMessage(MESSAGE_ID, null);
 		
-		verify(mockEmailQuarantineDao).isQuarantined(RECIPIENT_EMAIL);
+		verify(mockEmailQuarantineDao).getQuarantinedEmails(Collections.singleton(RECIPIENT_EMAIL));
 		assertEquals(ImmutableList.of("Cannot deliver message to recipient (" + RECIPIENT_ID + "). The recipient does not have a valid notification email."), errors);
 		verifyZeroInteractions(sesClient);
 	}
@@ -734,7 +752,7 @@ public class MessageManagerImplUnitTest {
 		messageManager.processMessage(MESSAGE_ID, null);
 		
 		// Verify that no call to the recipient user profile is performed
-		verify(userProfileManager, times(0)).getUserProfile(RECIPIENT_ID.toString());
+		verify(userProfileManager, never()).getNotificationSettings(anyList());
 		
 		ArgumentCaptor<SendRawEmailRequest> argument = ArgumentCaptor.forClass(SendRawEmailRequest.class);
 
@@ -755,4 +773,145 @@ public class MessageManagerImplUnitTest {
 		assertFalse(mtu.getIsNotificationMessage());
 		assertFalse(mtu.getWithUnsubscribeLink());
 	}
+	
+	@Test
+	public void testProcessMessageWithMarkEmailedMessagesAsRead() throws Exception {
+		setupCreatorRecipientMocks(false);
+		recipientSettings.setMarkEmailedMessagesAsRead(true);
+		fileHandle.setContentType("text/plain");
+		
+		when(fileHandleManager.downloadFileToString(FILE_HANDLE_ID)).thenReturn("message body");
+		when(fileHandleDAO.get(FILE_HANDLE_ID)).thenReturn(fileHandle);
+		
+		// Call under test
+		List<String> errors = messageManager.processMessage(MESSAGE_ID, null);
+		
+		assertTrue(errors.isEmpty());
+		verify(messageDAO).createMessageStatus(MESSAGE_ID, Collections.singletonList(RECIPIENT_ID.toString()), null);
+		verify(sesClient).sendRawEmail(any(SendRawEmailRequest.class));
+		verify(messageDAO).updateMessageStatus(MESSAGE_ID, Collections.singletonList(RECIPIENT_ID.toString()), MessageStatusType.READ);
+	}
+	
+	@Test
+	public void testProcessMessageWithStatusFailure() throws Exception {
+		when(principalAliasDAO.getUserName(CREATOR_ID)).thenReturn("foo");
+		when(userManager.getUserInfo(CREATOR_ID)).thenReturn(creatorUserInfo);
+		when(userProfileManager.getUserProfile(CREATOR_ID.toString())).thenReturn(userProfileCreator);
+		when(userProfileManager.getNotificationSettings(Collections.singletonList(RECIPIENT_ID)))
+				.thenReturn(Collections.singletonMap(RECIPIENT_ID.toString(), recipientSettings));
+		UserGroup ug = new UserGroup();
+		ug.setId(RECIPIENT_ID.toString());
+		ug.setIsIndividual(true);
+		when(userGroupDAO.get(RECIPIENT_ID)).thenReturn(ug);
+		when(messageDAO.getMessage(MESSAGE_ID)).thenReturn(mtu);
+		when(messageDAO.overrideNotificationSettings(MESSAGE_ID)).thenReturn(false);
+		fileHandle.setContentType("text/plain");
+		
+		when(fileHandleManager.downloadFileToString(FILE_HANDLE_ID)).thenReturn("message body");
+		when(fileHandleDAO.get(FILE_HANDLE_ID)).thenReturn(fileHandle);
+		when(messageDAO.createMessageStatus(MESSAGE_ID, Collections.singletonList(RECIPIENT_ID.toString()), null))
+				.thenReturn(Collections.singletonMap(RECIPIENT_ID.toString(), "duplicate"));
+		
+		// Call under test
+		List<String> errors = messageManager.processMessage(MESSAGE_ID, null);
+		
+		assertEquals(ImmutableList.of("Failed while processing message for recipient (" + RECIPIENT_ID + "): duplicate"), errors);
+		verifyZeroInteractions(notificationEmailDao);
+		verifyZeroInteractions(sesClient);
+		verify(messageDAO, never()).updateMessageStatus(anyString(), anyList(), any());
+	}
+	
+	@Test
+	public void testProcessMessageErrorsInRecipientOrder() throws Exception {
+		Long otherRecipientId = 777L;
+		mtu.setRecipients(new HashSet<String>(Arrays.asList(RECIPIENT_ID.toString(), otherRecipientId.toString())));
+		when(principalAliasDAO.getUserName(CREATOR_ID)).thenReturn("foo");
+		when(userManager.getUserInfo(CREATOR_ID)).thenReturn(creatorUserInfo);
+		when(userProfileManager.getUserProfile(CREATOR_ID.toString())).thenReturn(userProfileCreator);
+		for (Long recipientId : Arrays.asList(RECIPIENT_ID, otherRecipientId)) {
+			UserGroup ug = new UserGroup();
+			ug.setId(recipientId.toString());
+			ug.setIsIndividual(true);
+			when(userGroupDAO.get(recipientId)).thenReturn(ug);
+		}
+		when(messageDAO.getMessage(MESSAGE_ID)).thenReturn(mtu);
+		when(messageDAO.overrideNotificationSettings(MESSAGE_ID)).thenReturn(false);
+		// The recipient has no profile and the other recipient has no notification email
+		when(userProfileManager.getNotificationSettings(anyList()))
+				.thenReturn(Collections.singletonMap(otherRecipientId.toString(), recipientSettings));
+		when(notificationEmailDao.getNotificationEmailsForPrincipals(Collections.singletonList(otherRecipientId)))
+				.thenReturn(Collections.emptyMap());
+		fileHandle.setContentType("text/plain");
+		
+		when(fileHandleManager.downloadFileToString(FILE_HANDLE_ID)).thenReturn("message body");
+		when(fileHandleDAO.get(FILE_HANDLE_ID)).thenReturn(fileHandle);
+		
+		// Call under test
+		List<String> errors = messageManager.processMessage(MESSAGE_ID, null);
+		
+		verify(userProfileManager).getNotificationSettings(recipientIdsCaptor.capture());
+		List<String> expected = new ArrayList<String>();
+		for (Long recipientId : recipientIdsCaptor.getValue()) {
+			if (recipientId.equals(RECIPIENT_ID)) {
+				expected.add("Failed while processing message for recipient (" + RECIPIENT_ID + "): UserProfile cannot be found for: " + RECIPIENT_ID);
+			} else {
+				expected.add("Failed while processing message for recipient (" + otherRecipientId + "): Cannot find notification email for " + otherRecipientId);
+			}
+		}
+		assertEquals(expected, errors);
+		verifyZeroInteractions(sesClient);
+	}
+	
+	@Test
+	public void testProcessMessageWithSendFailure() throws Exception {
+		setupCreatorRecipientMocks(false);
+		fileHandle.setContentType("text/plain");
+		
+		when(fileHandleManager.downloadFileToString(FILE_HANDLE_ID)).thenReturn("message body");
+		when(fileHandleDAO.get(FILE_HANDLE_ID)).thenReturn(fileHandle);
+		doThrow(new IllegalStateException("Send failed")).when(sesClient).sendRawEmail(any(SendRawEmailRequest.class));
+		
+		// Call under test
+		List<String> errors = messageManager.processMessage(MESSAGE_ID, null);
+		
+		assertEquals(ImmutableList.of("Failed while processing message for recipient (" + RECIPIENT_ID + "): Send failed"), errors);
+		verify(messageDAO).updateMessageTransmissionAsComplete(MESSAGE_ID);
+	}
+	
+	@Test
+	public void testProcessMessageWithEmailLookupFailure() throws Exception {
+		setupCreatorRecipientMocks(false);
+		fileHandle.setContentType("text/plain");
+		
+		when(fileHandleManager.downloadFileToString(FILE_HANDLE_ID)).thenReturn("message body");
+		when(fileHandleDAO.get(FILE_HANDLE_ID)).thenReturn(fileHandle);
+		when(notificationEmailDao.getNotificationEmailsForPrincipals(Collections.singletonList(RECIPIENT_ID)))
+				.thenThrow(new IllegalStateException("Lookup failed"));
+		
+		// Call under test
+		List<String> errors = messageManager.processMessage(MESSAGE_ID, null);
+		
+		assertEquals(ImmutableList.of("Failed while processing message for recipient (" + RECIPIENT_ID + "): Lookup failed"), errors);
+		verifyZeroInteractions(sesClient);
+		verify(messageDAO).updateMessageTransmissionAsComplete(MESSAGE_ID);
+	}
+	
+	@Test
+	public void testProcessMessageWithMarkAsReadFailure() throws Exception {
+		setupCreatorRecipientMocks(false);
+		recipientSettings.setMarkEmailedMessagesAsRead(true);
+		fileHandle.setContentType("text/plain");
+		
+		when(fileHandleManager.downloadFileToString(FILE_HANDLE_ID)).thenReturn("message body");
+		when(fileHandleDAO.get(FILE_HANDLE_ID)).thenReturn(fileHandle);
+		doThrow(new IllegalStateException("Update failed")).when(messageDAO).updateMessageStatus(MESSAGE_ID,
+				Collections.singletonList(RECIPIENT_ID.toString()), MessageStatusType.READ);
+		
+		// Call under test
+		List<String> errors = messageManager.processMessage(MESSAGE_ID, null);
+		
+		assertEquals(ImmutableList.of("Failed while processing message for recipient (" + RECIPIENT_ID + "): Update failed"), errors);
+		verify(sesClient).sendRawEmail(any(SendRawEmailRequest.class));
+		verify(messageDAO).updateMessageTransmissionAsComplete(MESSAGE_ID);
+	}
 }
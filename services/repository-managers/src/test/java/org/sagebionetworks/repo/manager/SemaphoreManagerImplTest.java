@@ -11,25 +11,25 @@ import org.sagebionetworks.database.semaphore.CountingSemaphore;
 import org.sagebionetworks.repo.model.UnauthorizedException;
 import org.sagebionetworks.repo.model.UserInfo;
 import org.sagebionetworks.repo.model.semaphore.MemoryCountingSemaphore;
-import org.sagebionetworks.repo.model.semaphore.MemoryTimeBlockCountingSemaphore;
+import org.sagebionetworks.repo.model.semaphore.MemoryRateLimiter;
 import org.springframework.test.util.ReflectionTestUtils;
 
 public class SemaphoreManagerImplTest {
 	
 	CountingSemaphore mockSemaphoreDao;
 	MemoryCountingSemaphore mockMemoryCountingSemaphore;
-	MemoryTimeBlockCountingSemaphore mockMemoryTimeBlockCountingSemaphore;
+	MemoryRateLimiter mockMemoryRateLimiter;
 	SemaphoreManager manager;
 	
 	@Before
 	public void before(){
 		mockSemaphoreDao = Mockito.mock(CountingSemaphore.class);
 		mockMemoryCountingSemaphore = Mockito.mock(MemoryCountingSemaphore.class);
-		mockMemoryTimeBlockCountingSemaphore = Mockito.mock(MemoryTimeBlockCountingSemaphore.class);
+		mockMemoryRateLimiter = Mockito.mock(MemoryRateLimiter.class);
 		manager = new SemaphoreManagerImpl();
 		ReflectionTestUtils.setField(manager,"countingSemaphore", mockSemaphoreDao);
 		ReflectionTestUtils.setField(manager,"userThrottleMemoryCountingSemaphore", mockMemoryCountingSemaphore);
-		ReflectionTestUtils.setField(manager,"userThrottleMemoryTimeBlockSemaphore", mockMemoryTimeBlockCountingSemaphore);
+		ReflectionTestUtils.setField(manager,"userThrottleMemoryRateLimiter", mockMemoryRateLimiter);
 	}
 	
 	@Test(expected=IllegalArgumentException.class)
@@ -42,7 +42,7 @@ public class SemaphoreManagerImplTest {
 		manager.releaseAllLocksAsAdmin(new UserInfo(true));
 		verify(mockSemaphoreDao, times(1)).releaseAllLocks();
 		verify(mockMemoryCountingSemaphore, times(1)).releaseAllLocks();
-		verify(mockMemoryTimeBlockCountingSemaphore, times(1)).releaseAllLocks();
+		verify(mockMemoryRateLimiter, times(1)).releaseAllLocks();
 	}
 	
 	@Test (expected=UnauthorizedException.class)
@@ -50,7 +50,7 @@ public class SemaphoreManagerImplTest {
 		manager.releaseAllLocksAsAdmin(new UserInfo(false));
 		verify(mockSemaphoreDao, never()).releaseAllLocks();
 		verify(mockMemoryCountingSemaphore, never()).releaseAllLocks();
-		verify(mockMemoryTimeBlockCountingSemaphore, never()).releaseAllLocks();
+		verify(mockMemoryRateLimiter, never()).releaseAllLocks();
 	}
 
 }
@@ -17,15 +17,19 @@ import static org.mockito.Mockito.when;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.sagebionetworks.repo.manager.principal.PrincipalGroups;
+import org.sagebionetworks.repo.manager.principal.UserGroupsCache;
 import org.sagebionetworks.repo.manager.team.TeamConstants;
 import org.sagebionetworks.repo.model.AuthorizationConstants;
 import org.sagebionetworks.repo.model.GroupMembersDAO;
@@ -65,6 +69,8 @@ public class UserManagerImplUnitTest {
 	private PrincipalAliasDAO mockPrincipalAliasDAO;
 	@Mock
 	private NotificationEmailDAO notificationEmailDao;
+	@Mock
+	private UserGroupsCache mockUserGroupsCache;
 	
 	private UserInfo admin;
 	private UserInfo notAdmin;
@@ -91,6 +97,13 @@ public class UserManagerImplUnitTest {
 				
 		notificationEmailDao = Mockito.mock(NotificationEmailDAO.class);
 		
+		// Nothing is cached
+		mockUserGroupsCache = mock(UserGroupsCache.class);
+		when(mockUserGroupsCache.getPrincipalGroups(anyLong(), any())).thenAnswer(invocation -> {
+			Supplier<PrincipalGroups> loader = invocation.getArgument(1);
+			return loader.get();
+		});
+		
 		userManager = new UserManagerImpl();
 		ReflectionTestUtils.setField(userManager, "principalAliasDAO", mockPrincipalAliasDAO);
 		ReflectionTestUtils.setField(userManager, "userGroupDAO", mockUserGroupDAO);
@@ -99,6 +112,7 @@ public class UserManagerImplUnitTest {
 		ReflectionTestUtils.setField(userManager, "notificationEmailDao", notificationEmailDao);
 		ReflectionTestUtils.setField(userManager, "basicDAO", basicDAO);
 		ReflectionTestUtils.setField(userManager, "groupMembersDAO", mockGroupMembersDAO);
+		ReflectionTestUtils.setField(userManager, "userGroupsCache", mockUserGroupsCache);
 		
 		admin = new UserInfo(true);
 		notAdmin = new UserInfo(false);
@@ -139,6 +153,29 @@ public class UserManagerImplUnitTest {
 		assertEquals(principalId, userInfo.getId());
 	}
 	
+	@Test
+	public void testGetUserInfoCached() {
+		Long principalId = 111L;
+		Date creationDate = new Date(123L);
+		PrincipalGroups cached = new PrincipalGroups(creationDate, Sets.newHashSet(principalId, 222L));
+		when(mockUserGroupsCache.getPrincipalGroups(eq(principalId), any())).thenReturn(cached);
+		when(mockAuthDAO.hasUserAcceptedToU(principalId)).thenReturn(true);
+		
+		// method under test
+		UserInfo userInfo = userManager.getUserInfo(principalId);
+		
+		assertFalse(userInfo.isAdmin());
+		assertEquals(Sets.newHashSet(principalId, 222L), userInfo.getGroups());
+		assertEquals(creationDate, userInfo.getCreationDate());
+		assertTrue(userInfo.acceptsTermsOfUse());
+		// the groups are not loaded from the database.
+		verify(mockUserGroupDAO, never()).get(principalId);
+		verify(mockGroupMembersDAO, never()).getUsersGroups(anyString());
+		// changing the user's groups must not change the cached groups.
+		userInfo.getGroups().add(333L);
+		assertEquals(Sets.newHashSet(principalId, 222L), cached.getGroups());
+	}
+	
 	@Test
 	public void testGetAdminUserInfo() {
 		Long principalId = 111L;
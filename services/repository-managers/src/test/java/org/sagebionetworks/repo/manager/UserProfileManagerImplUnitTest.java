@@ -18,8 +18,11 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -776,4 +779,21 @@ public class UserProfileManagerImplUnitTest {
 		
 		
 	}
+
+	@Test
+	public void testGetNotificationSettings() {
+		UserProfile noSettings = new UserProfile();
+		noSettings.setOwnerId(adminUserId.toString());
+		Map<String, UserProfile> profiles = new HashMap<>();
+		profiles.put(userProfile.getOwnerId(), userProfile);
+		profiles.put(noSettings.getOwnerId(), noSettings);
+		List<Long> userIds = Arrays.asList(userId, adminUserId, 999L);
+		when(mockProfileDAO.getUserProfilesByOwnerId(userIds)).thenReturn(profiles);
+		// call under test
+		Map<String, Settings> results = userProfileManager.getNotificationSettings(userIds);
+		assertEquals(2, results.size());
+		assertEquals(userProfile.getNotificationSettings(), results.get(userId.toString()));
+		// a user that never changed the settings gets the defaults
+		assertEquals(new Settings(), results.get(adminUserId.toString()));
+	}
 }
@@ -16,6 +16,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.sagebionetworks.kinesis.AwsKinesisBufferFullPolicy;
 import org.sagebionetworks.kinesis.AwsKinesisFirehoseLogger;
 import org.sagebionetworks.repo.model.message.TransactionSynchronizationProxy;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -72,7 +73,7 @@ public class EventsCollectorAutowireTest {
 		// Simulates the background timer call
 		statsEventsCollector.flush();
 
-		verify(firehoseLogger, times(1)).logBatch(eq(event.getStreamName()), eq(Collections.singletonList(event)));
+		verify(firehoseLogger, times(1)).logBatchAsync(eq(event.getStreamName()), eq(Collections.singletonList(event)), eq(AwsKinesisBufferFullPolicy.SEND_FROM_CALLER));
 
 	}
 
@@ -89,7 +90,7 @@ public class EventsCollectorAutowireTest {
 		statsEventsCollector.flush();
 
 		// Verifies that the logger is invoked only once
-		verify(firehoseLogger, times(1)).logBatch(eq(event1.getStreamName()), eq(events));
+		verify(firehoseLogger, times(1)).logBatchAsync(eq(event1.getStreamName()), eq(events), eq(AwsKinesisBufferFullPolicy.SEND_FROM_CALLER));
 	}
 
 	@Test
@@ -110,8 +111,8 @@ public class EventsCollectorAutowireTest {
 		statsEventsCollector.flush();
 
 		// Verifies that the logger is invoked once per stream type
-		verify(firehoseLogger, times(1)).logBatch(eq(event1.getStreamName()), eq(expectedRecords1));
-		verify(firehoseLogger, times(1)).logBatch(eq(event2.getStreamName()), eq(expectedRecords2));
+		verify(firehoseLogger, times(1)).logBatchAsync(eq(event1.getStreamName()), eq(expectedRecords1), eq(AwsKinesisBufferFullPolicy.SEND_FROM_CALLER));
+		verify(firehoseLogger, times(1)).logBatchAsync(eq(event2.getStreamName()), eq(expectedRecords2), eq(AwsKinesisBufferFullPolicy.SEND_FROM_CALLER));
 	}
 
 	@Test
@@ -125,7 +126,7 @@ public class EventsCollectorAutowireTest {
 
 		verify(transactionSynchronization, times(1)).isActualTransactionActive();
 		verify(transactionSynchronization, never()).registerSynchronization(any());
-		verify(firehoseLogger, times(1)).logBatch(any(), any());
+		verify(firehoseLogger, times(1)).logBatchAsync(any(), any(), eq(AwsKinesisBufferFullPolicy.SEND_FROM_CALLER));
 
 	}
 
@@ -140,7 +141,7 @@ public class EventsCollectorAutowireTest {
 
 		verify(transactionSynchronization, times(1)).isActualTransactionActive();
 		verify(transactionSynchronization, times(1)).registerSynchronization(any());
-		verify(firehoseLogger, times(1)).logBatch(any(), any());
+		verify(firehoseLogger, times(1)).logBatchAsync(any(), any(), eq(AwsKinesisBufferFullPolicy.SEND_FROM_CALLER));
 
 	}
 }
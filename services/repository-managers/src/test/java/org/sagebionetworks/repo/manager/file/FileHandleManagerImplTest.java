@@ -2195,7 +2195,7 @@ public class FileHandleManagerImplTest {
 		fileHandles.put("2", fileHandle);
 		when(mockFileHandleDao.getAllFileHandlesBatch(any())).thenReturn(fileHandles);
 		Long newId = 789L;
-		when(mockIdGenerator.generateNewId(IdType.FILE_IDS)).thenReturn(newId );
+		when(mockIdGenerator.generateNewIds(IdType.FILE_IDS, 1)).thenReturn(Collections.singletonList(newId));
 
 		Thread.sleep(1000);
 
@@ -2254,6 +2254,31 @@ public class FileHandleManagerImplTest {
 				record.getJsonString());
 	}
 
+	@Test
+	public void testCopyFileHandlesWithNoneFound() throws Exception {
+		BatchFileHandleCopyRequest batch = new BatchFileHandleCopyRequest();
+		FileHandleAssociation fha = new FileHandleAssociation();
+		fha.setAssociateObjectId("1");
+		fha.setAssociateObjectType(FileHandleAssociateType.FileEntity);
+		fha.setFileHandleId("1");
+		FileHandleCopyRequest request = new FileHandleCopyRequest();
+		request.setOriginalFile(fha);
+		batch.setCopyRequests(Collections.singletonList(request));
+
+		List<FileHandleAssociationAuthorizationStatus> authResults = Collections.singletonList(
+				new FileHandleAssociationAuthorizationStatus(fha, AuthorizationStatus.authorized()));
+		when(mockFileHandleAuthorizationManager.canDownLoadFile(mockUser, FileHandleCopyUtils.getOriginalFiles(batch))).thenReturn(authResults);
+		when(mockFileHandleDao.getAllFileHandlesBatch(any())).thenReturn(Collections.emptyMap());
+
+		BatchFileHandleCopyResult result = manager.copyFileHandles(mockUser, batch);
+		assertEquals(1, result.getCopyResults().size());
+		assertEquals(FileResultFailureCode.NOT_FOUND, result.getCopyResults().get(0).getFailureCode());
+		// no IDs are issued when there is nothing to copy.
+		verifyZeroInteractions(mockIdGenerator);
+		verify(mockFileHandleDao, never()).createBatch(any());
+		verifyZeroInteractions(mockObjectRecordQueue);
+	}
+
 	@Test
 	public void getUploadDestinationLocations_NoProjectSettings() {
 		// Mock dependencies.
@@ -2,12 +2,16 @@ package org.sagebionetworks.repo.manager.file;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
@@ -21,14 +25,20 @@ import static org.sagebionetworks.repo.manager.file.FileHandlePackageManagerImpl
 import static org.sagebionetworks.repo.model.file.FileHandleAssociateType.FileEntity;
 import static org.sagebionetworks.repo.model.file.FileHandleAssociateType.TableEntity;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
@@ -42,9 +52,11 @@ import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.sagebionetworks.aws.SynapseS3Client;
 import org.sagebionetworks.repo.manager.events.EventsCollector;
+import org.sagebionetworks.repo.manager.file.FileHandlePackageManagerImpl.FetchedFile;
 import org.sagebionetworks.repo.manager.statistics.StatisticsFileEvent;
 import org.sagebionetworks.repo.model.UserInfo;
 import org.sagebionetworks.repo.model.auth.AuthorizationStatus;
@@ -64,7 +76,9 @@ import org.sagebionetworks.repo.model.jdo.NameValidation;
 import org.sagebionetworks.repo.web.NotFoundException;
 
 import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.S3Object;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.MoreExecutors;
 
 @ExtendWith(MockitoExtension.class)
 public class FileHandlePackageManagerImplTest {
@@ -78,7 +92,9 @@ public class FileHandlePackageManagerImplTest {
 	@Mock
 	private FileHandleManager mockFileHandleManager;
 	@Mock
-	private File mockTempFile;
+	private InputStream mockInputStream;
+	@Mock
+	private OutputStream mockOut;
 	@Mock
 	private ZipOutputStream mockZipOut;
 	@Mock
@@ -91,6 +107,8 @@ public class FileHandlePackageManagerImplTest {
 	private ArgumentCaptor<ZipEntryNameProvider> zipEntryNameProviderCaptor;
 	@Captor
 	private ArgumentCaptor<List<StatisticsFileEvent>> statisticsFileEventCaptor;
+	@Captor
+	private ArgumentCaptor<LocalFileUploadRequest> uploadRequestCaptor;
 
 	@Spy
 	@InjectMocks
@@ -133,61 +151,27 @@ public class FileHandlePackageManagerImplTest {
 
 	@Test
 	public void testZipRoundTrip() throws IOException {
-		File one = null;
-		File two = null;
-		File zip = null;
-		FileOutputStream oneOut = null;
-		FileOutputStream twoOut = null;
-		ZipOutputStream zipOut = null;
-		ZipInputStream zipIn = null;
-		try {
-			String oneContents = "data for one";
-			String twoContents = "data for two";
-			// create one.
-			one = fileHandleSupportSpy.createTempFile("One", ".txt");
-			oneOut = new FileOutputStream(one);
-			IOUtils.write(oneContents, oneOut);
-			oneOut.close();
-			// create two
-			two = fileHandleSupportSpy.createTempFile("two", ".txt");
-			twoOut = new FileOutputStream(two);
-			IOUtils.write(twoContents, twoOut);
-			// The output zip
-			zip = fileHandleSupportSpy.createTempFile("Zip", ".zip");
-			zipOut = fileHandleSupportSpy.createZipOutputStream(zip);
-
+		String oneContents = "data for one";
+		String twoContents = "data for two";
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (ZipOutputStream zipOut = fileHandleSupportSpy.createZipOutputStream(out)) {
 			// add the files to the zip.
 			String entryNameOne = "p1/One.txt";
-			fileHandleSupportSpy.addFileToZip(zipOut, one, entryNameOne);
+			fileHandleSupportSpy.addFileToZip(zipOut, new ByteArrayInputStream(oneContents.getBytes(StandardCharsets.UTF_8)), entryNameOne);
 			String entryNameTwo = "p2/Two.txt";
-			fileHandleSupportSpy.addFileToZip(zipOut, two, entryNameTwo);
-			zipOut.close();
+			fileHandleSupportSpy.addFileToZip(zipOut, new ByteArrayInputStream(twoContents.getBytes(StandardCharsets.UTF_8)), entryNameTwo);
+		}
 
-			// unzip
-			zipIn = new ZipInputStream(new FileInputStream(zip));
+		// unzip
+		try (ZipInputStream zipIn = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
 			ZipEntry entry = zipIn.getNextEntry();
-			assertEquals(entryNameOne, entry.getName());
-			assertEquals(oneContents, IOUtils.toString(zipIn));
+			assertEquals("p1/One.txt", entry.getName());
+			assertEquals(oneContents, IOUtils.toString(zipIn, StandardCharsets.UTF_8));
 			zipIn.closeEntry();
 			entry = zipIn.getNextEntry();
-			assertEquals(entryNameTwo, entry.getName());
-			assertEquals(twoContents, IOUtils.toString(zipIn));
+			assertEquals("p2/Two.txt", entry.getName());
+			assertEquals(twoContents, IOUtils.toString(zipIn, StandardCharsets.UTF_8));
 			zipIn.closeEntry();
-
-		} finally {
-			IOUtils.closeQuietly(oneOut);
-			IOUtils.closeQuietly(twoOut);
-			IOUtils.closeQuietly(zipOut);
-			IOUtils.closeQuietly(zipIn);
-			if (one != null) {
-				one.delete();
-			}
-			if (two != null) {
-				two.delete();
-			}
-			if (zip != null) {
-				zip.delete();
-			}
 		}
 	}
 
@@ -235,10 +219,9 @@ public class FileHandlePackageManagerImplTest {
 
 	@Test
 	public void testBuildZip() throws IOException {
-		doReturn(mockTempFile).when(fileHandleSupportSpy).createTempFile(any(), any());
+		setupUploadStream();
 		doReturn(summaryResults).when(fileHandleSupportSpy).addFilesToZip(any(), any(), any(), anyBoolean());
 		doNothing().when(fileHandleSupportSpy).collectDownloadStatistics(any(), any());
-		when(mockFileHandleManager.uploadLocalFile(any())).thenReturn(resultFileHandle);
 
 		// call under test
 		BulkFileDownloadResponse response = fileHandleSupportSpy.buildZip(userInfo, request);
@@ -246,18 +229,18 @@ public class FileHandlePackageManagerImplTest {
 		BulkFileDownloadResponse expected = new BulkFileDownloadResponse().setUserId(userInfo.getId().toString())
 				.setFileSummary(summaryResults).setResultZipFileHandleId(resultFileHandle.getId());
 		assertEquals(expected, response);
-		verify(fileHandleSupportSpy).createTempFile("Job", ".zip");
-		verify(fileHandleSupportSpy).addFilesToZip(userInfo, request, mockTempFile, fileSizesChecked);
-		verify(mockFileHandleManager).uploadLocalFile(new LocalFileUploadRequest()
+		verify(fileHandleSupportSpy).addFilesToZip(userInfo, request, mockOut, fileSizesChecked);
+		verify(mockFileHandleManager).uploadStream(eq(new LocalFileUploadRequest()
 				.withFileName(request.getZipFileName()).withUserId(userInfo.getId().toString())
-				.withFileToUpload(mockTempFile).withContentType(FileHandlePackageManagerImpl.APPLICATION_ZIP));
+				.withContentType(FileHandlePackageManagerImpl.APPLICATION_ZIP)), any());
 		verify(fileHandleSupportSpy).collectDownloadStatistics(userInfo.getId(), summaryResults);
-		verify(mockTempFile).delete();
+		// nothing is staged on the local disk.
+		verify(fileHandleSupportSpy, never()).createTempFile(any(), any());
 	}
 
 	@Test
 	public void testBuildZipWithNoSuccess() throws IOException {
-		doReturn(mockTempFile).when(fileHandleSupportSpy).createTempFile(any(), any());
+		setupUploadStream();
 		
 		summaryResults =  Arrays.asList(
 				new FileDownloadSummary().setFileHandleId("11").setStatus(FileDownloadStatus.FAILURE),
@@ -272,12 +255,9 @@ public class FileHandlePackageManagerImplTest {
 		BulkFileDownloadResponse expected = new BulkFileDownloadResponse().setUserId(userInfo.getId().toString())
 				.setFileSummary(summaryResults).setResultZipFileHandleId(null);
 		assertEquals(expected, response);
-		verify(fileHandleSupportSpy).createTempFile("Job", ".zip");
-		verify(fileHandleSupportSpy).addFilesToZip(userInfo, request, mockTempFile, fileSizesChecked);
-		// the zip is empty so it should not get uploaded
-		verify(mockFileHandleManager, never()).uploadLocalFile(any());
+		// the zip is empty so the writer discards the upload
+		verify(fileHandleSupportSpy).addFilesToZip(userInfo, request, mockOut, fileSizesChecked);
 		verify(fileHandleSupportSpy).collectDownloadStatistics(userInfo.getId(), summaryResults);
-		verify(mockTempFile).delete();
 	}
 
 	@Test
@@ -289,19 +269,17 @@ public class FileHandlePackageManagerImplTest {
 		}).getMessage();
 		assertEquals(NameValidation.createInvalidMessage(request.getZipFileName()), message);
 
-		verify(fileHandleSupportSpy, never()).createTempFile(any(), any());
 		verify(fileHandleSupportSpy, never()).addFilesToZip(any(), any(), any(), anyBoolean());
-		verify(mockFileHandleManager, never()).uploadLocalFile(any());
+		verify(mockFileHandleManager, never()).uploadStream(any(), any());
 	}
 
 	@Test
 	public void testBuildZipWithNullName() throws IOException {
 		request.setZipFileName(null);
 
-		doReturn(mockTempFile).when(fileHandleSupportSpy).createTempFile(any(), any());
+		setupUploadStream();
 		doReturn(summaryResults).when(fileHandleSupportSpy).addFilesToZip(any(), any(), any(), anyBoolean());
 		doNothing().when(fileHandleSupportSpy).collectDownloadStatistics(any(), any());
-		when(mockFileHandleManager.uploadLocalFile(any())).thenReturn(resultFileHandle);
 
 		// call under test
 		BulkFileDownloadResponse response = fileHandleSupportSpy.buildZip(userInfo, request);
@@ -309,18 +287,17 @@ public class FileHandlePackageManagerImplTest {
 		BulkFileDownloadResponse expected = new BulkFileDownloadResponse().setUserId(userInfo.getId().toString())
 				.setFileSummary(summaryResults).setResultZipFileHandleId(resultFileHandle.getId());
 		assertEquals(expected, response);
-		verify(fileHandleSupportSpy).createTempFile("Job", ".zip");
-		verify(fileHandleSupportSpy).addFilesToZip(userInfo, request, mockTempFile, fileSizesChecked);
-		verify(mockFileHandleManager).uploadLocalFile(new LocalFileUploadRequest()
-				.withFileName(request.getZipFileName()).withUserId(userInfo.getId().toString())
-				.withFileToUpload(mockTempFile).withContentType(FileHandlePackageManagerImpl.APPLICATION_ZIP));
+		verify(fileHandleSupportSpy).addFilesToZip(userInfo, request, mockOut, fileSizesChecked);
+		verify(mockFileHandleManager).uploadStream(uploadRequestCaptor.capture(), any());
+		String fileName = uploadRequestCaptor.getValue().getFileName();
+		assertTrue(fileName.startsWith(FileHandlePackageManagerImpl.DEFAULT_ZIP_FILE_NAME_PREFIX));
+		assertTrue(fileName.endsWith(".zip"));
 		verify(fileHandleSupportSpy).collectDownloadStatistics(userInfo.getId(), summaryResults);
-		verify(mockTempFile).delete();
 	}
 
 	@Test
-	public void testBuildZipWithExceptionDeleteFile() throws IOException {
-		doReturn(mockTempFile).when(fileHandleSupportSpy).createTempFile(any(), any());
+	public void testBuildZipWithException() throws IOException {
+		setupUploadStream();
 		IllegalArgumentException exception = new IllegalArgumentException("not working");
 		doThrow(exception).when(fileHandleSupportSpy).addFilesToZip(any(), any(), any(), anyBoolean());
 		String message = assertThrows(IllegalArgumentException.class, () -> {
@@ -329,11 +306,104 @@ public class FileHandlePackageManagerImplTest {
 		}).getMessage();
 		assertEquals(exception.getMessage(), message);
 
-		verify(fileHandleSupportSpy).createTempFile("Job", ".zip");
-		verify(fileHandleSupportSpy).addFilesToZip(userInfo, request, mockTempFile, fileSizesChecked);
-		verify(mockFileHandleManager, never()).uploadLocalFile(any());
-		// the temp file still must be deleted.
-		verify(mockTempFile).delete();
+		verify(fileHandleSupportSpy).addFilesToZip(userInfo, request, mockOut, fileSizesChecked);
+		verify(fileHandleSupportSpy, never()).collectDownloadStatistics(any(), any());
+	}
+
+	/**
+	 * Stub the upload of a stream to write to the mock stream. The result file
+	 * handle is returned unless the writer discards the file.
+	 * 
+	 * @throws IOException
+	 */
+	void setupUploadStream() throws IOException {
+		when(mockFileHandleManager.uploadStream(any(), any())).thenAnswer((InvocationOnMock invocation) -> {
+			StreamUploadWriter writer = invocation.getArgument(1);
+			return writer.write(mockOut) ? Optional.of(resultFileHandle) : Optional.empty();
+		});
+	}
+
+	@Test
+	public void testAddFilesToZipWithFetchAhead() throws IOException {
+		fileHandleSupportSpy = new FileHandlePackageManagerImpl(mockFileHandleDao, mockS3client,
+				mockFileHandleAuthorizationManager, mockFileHandleManager, mockStatisticsCollector,
+				MoreExecutors.newDirectExecutorService());
+		authResults = Arrays.asList(
+				new FileHandleAssociationAuthorizationStatus(associations.get(0), AuthorizationStatus.authorized()),
+				new FileHandleAssociationAuthorizationStatus(associations.get(1), AuthorizationStatus.authorized()),
+				// duplicates are only fetched once.
+				new FileHandleAssociationAuthorizationStatus(associations.get(0), AuthorizationStatus.authorized()));
+		when(mockFileHandleAuthorizationManager.canDownLoadFile(any(), any())).thenReturn(authResults);
+		S3FileHandle small = new S3FileHandle().setId("11").setFileName("small.txt").setBucketName("bucket")
+				.setKey("small").setContentSize(5L);
+		// too large to be held in memory so it is streamed when it is written.
+		S3FileHandle large = new S3FileHandle().setId("22").setFileName("large.txt").setBucketName("bucket")
+				.setKey("large").setContentSize(FileHandlePackageManagerImpl.MAX_FETCH_AHEAD_BYTES + 1);
+		when(mockFileHandleDao.get("11")).thenReturn(small);
+		when(mockFileHandleDao.get("22")).thenReturn(large);
+		when(mockS3client.getObject("bucket", "small")).thenReturn(createS3Object("small data"));
+		when(mockS3client.getObject("bucket", "large")).thenReturn(createS3Object("large data"));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		// call under test
+		List<FileDownloadSummary> summary = fileHandleSupportSpy.addFilesToZip(userInfo, request, out, fileSizesChecked);
+
+		assertEquals(FileDownloadStatus.SUCCESS, summary.get(0).getStatus());
+		assertEquals(FileDownloadStatus.SUCCESS, summary.get(1).getStatus());
+		assertEquals(FileDownloadCode.DUPLICATE, summary.get(2).getFailureCode());
+		verify(mockFileHandleDao).get("11");
+		verify(mockFileHandleDao).get("22");
+		verify(mockS3client).getObject("bucket", "small");
+		verify(mockS3client).getObject("bucket", "large");
+
+		try (ZipInputStream zipIn = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+			assertEquals("small.txt", zipIn.getNextEntry().getName());
+			assertEquals("small data", IOUtils.toString(zipIn, StandardCharsets.UTF_8));
+			assertEquals("large.txt", zipIn.getNextEntry().getName());
+			assertEquals("large data", IOUtils.toString(zipIn, StandardCharsets.UTF_8));
+		}
+	}
+
+	@Test
+	public void testWriteOneFileToZipWithFetch() throws IOException {
+		doNothing().when(fileHandleSupportSpy).addFileToZip(any(), any(), any());
+		FileHandleAssociationAuthorizationStatus fhas = new FileHandleAssociationAuthorizationStatus(
+				associations.get(0), AuthorizationStatus.authorized());
+		String entryName = "anEntry.txt";
+		when(mockZipEntryNameProvider.createZipEntryName(any(), any())).thenReturn(entryName);
+		Future<FetchedFile> fetch = CompletableFuture.completedFuture(new FetchedFile(resultFileHandle, new byte[] { 1, 2 }));
+
+		// call under test
+		String filename = fileHandleSupportSpy.writeOneFileToZip(mockZipOut, 100L, fhas, Collections.emptySet(),
+				mockZipEntryNameProvider, fileSizesChecked, fetch);
+
+		assertEquals(entryName, filename);
+		// the file was already fetched.
+		verify(fileHandleSupportSpy, never()).getS3FileHandle(any());
+		verify(mockS3client, never()).getObject(anyString(), anyString());
+		verify(fileHandleSupportSpy).addFileToZip(eq(mockZipOut), any(ByteArrayInputStream.class), eq(entryName));
+	}
+
+	@Test
+	public void testWriteOneFileToZipWithFetchFailure() throws IOException {
+		FileHandleAssociationAuthorizationStatus fhas = new FileHandleAssociationAuthorizationStatus(
+				associations.get(0), AuthorizationStatus.authorized());
+		NotFoundException error = new NotFoundException("gone");
+		CompletableFuture<FetchedFile> fetch = new CompletableFuture<>();
+		fetch.completeExceptionally(error);
+
+		NotFoundException thrown = assertThrows(NotFoundException.class, () -> {
+			// call under test
+			fileHandleSupportSpy.writeOneFileToZip(mockZipOut, 100L, fhas, Collections.emptySet(),
+					mockZipEntryNameProvider, fileSizesChecked, fetch);
+		});
+		assertSame(error, thrown);
+	}
+
+	private static S3Object createS3Object(String contents) {
+		S3Object object = new S3Object();
+		object.setObjectContent(new ByteArrayInputStream(contents.getBytes(StandardCharsets.UTF_8)));
+		return object;
 	}
 
 	@Test
@@ -341,11 +411,10 @@ public class FileHandlePackageManagerImplTest {
 		doReturn(mockZipOut).when(fileHandleSupportSpy).createZipOutputStream(any());
 		when(mockFileHandleAuthorizationManager.canDownLoadFile(any(), any())).thenReturn(authResults);
 		doReturn("one.txt", "two.txt").when(fileHandleSupportSpy).writeOneFileToZip(any(), anyLong(), any(), any(),
-				any(), anyBoolean());
-		when(mockTempFile.length()).thenReturn(25L,125L);
+				any(), anyBoolean(), any());
 
 		// call under test
-		List<FileDownloadSummary> summary = fileHandleSupportSpy.addFilesToZip(userInfo, request, mockTempFile, fileSizesChecked);
+		List<FileDownloadSummary> summary = fileHandleSupportSpy.addFilesToZip(userInfo, request, mockOut, fileSizesChecked);
 		// @formatter:off
 		List<FileDownloadSummary> expected = Arrays.asList(
 				createSummary(associations.get(0)).setZipEntryName("one.txt").setStatus(FileDownloadStatus.SUCCESS),
@@ -354,9 +423,9 @@ public class FileHandlePackageManagerImplTest {
 		// @formatter:on
 		assertEquals(expected, summary);
 
-		verify(fileHandleSupportSpy).createZipOutputStream(mockTempFile);
-		verify(fileHandleSupportSpy).writeOneFileToZip(eq(mockZipOut), eq(25L), eq(authResults.get(0)), filesInZipCaptor.capture(), zipEntryNameProviderCaptor.capture(), eq(fileSizesChecked));
-		verify(fileHandleSupportSpy).writeOneFileToZip(eq(mockZipOut), eq(125L), eq(authResults.get(1)), filesInZipCaptor.capture(), zipEntryNameProviderCaptor.capture(), eq(fileSizesChecked));
+		verify(fileHandleSupportSpy).createZipOutputStream(any());
+		verify(fileHandleSupportSpy).writeOneFileToZip(eq(mockZipOut), eq(0L), eq(authResults.get(0)), filesInZipCaptor.capture(), zipEntryNameProviderCaptor.capture(), eq(fileSizesChecked), isNull());
+		verify(fileHandleSupportSpy).writeOneFileToZip(eq(mockZipOut), eq(0L), eq(authResults.get(1)), filesInZipCaptor.capture(), zipEntryNameProviderCaptor.capture(), eq(fileSizesChecked), isNull());
 		assertEquals(Sets.newHashSet("11","22"),  filesInZipCaptor.getValue());
 		assertTrue(zipEntryNameProviderCaptor.getValue() instanceof FlatZipEntryNameProvider);
 		verify(mockZipOut).close();
@@ -370,20 +439,19 @@ public class FileHandlePackageManagerImplTest {
 		when(mockFileHandleAuthorizationManager.canDownLoadFile(any(), any())).thenReturn(authResults);
 
 		BulkFileException exception = new BulkFileException("not found", FileDownloadCode.NOT_FOUND);
-		doThrow(exception).when(fileHandleSupportSpy).writeOneFileToZip(any(), anyLong(), any(), any(), any(), anyBoolean());
-		when(mockTempFile.length()).thenReturn(25L, 125L);
+		doThrow(exception).when(fileHandleSupportSpy).writeOneFileToZip(any(), anyLong(), any(), any(), any(), anyBoolean(), any());
 
 		// call under test
-		List<FileDownloadSummary> summary = fileHandleSupportSpy.addFilesToZip(userInfo, request, mockTempFile, fileSizesChecked);
+		List<FileDownloadSummary> summary = fileHandleSupportSpy.addFilesToZip(userInfo, request, mockOut, fileSizesChecked);
 
 		List<FileDownloadSummary> expected = Arrays
 				.asList(createSummary(associations.get(0)).setStatus(FileDownloadStatus.FAILURE)
 						.setFailureMessage(exception.getMessage()).setFailureCode(FileDownloadCode.NOT_FOUND));
 		assertEquals(expected, summary);
 
-		verify(fileHandleSupportSpy).createZipOutputStream(mockTempFile);
-		verify(fileHandleSupportSpy).writeOneFileToZip(eq(mockZipOut), eq(25L), eq(authResults.get(0)),
-				filesInZipCaptor.capture(), zipEntryNameProviderCaptor.capture(), eq(fileSizesChecked));
+		verify(fileHandleSupportSpy).createZipOutputStream(any());
+		verify(fileHandleSupportSpy).writeOneFileToZip(eq(mockZipOut), eq(0L), eq(authResults.get(0)),
+				filesInZipCaptor.capture(), zipEntryNameProviderCaptor.capture(), eq(fileSizesChecked), isNull());
 		assertEquals(Collections.emptySet(), filesInZipCaptor.getValue());
 		assertTrue(zipEntryNameProviderCaptor.getValue() instanceof FlatZipEntryNameProvider);
 		verify(mockZipOut).close();
@@ -397,20 +465,19 @@ public class FileHandlePackageManagerImplTest {
 		when(mockFileHandleAuthorizationManager.canDownLoadFile(any(), any())).thenReturn(authResults);
 
 		NotFoundException exception = new NotFoundException("not found");
-		doThrow(exception).when(fileHandleSupportSpy).writeOneFileToZip(any(), anyLong(), any(), any(), any(), anyBoolean());
-		when(mockTempFile.length()).thenReturn(25L, 125L);
+		doThrow(exception).when(fileHandleSupportSpy).writeOneFileToZip(any(), anyLong(), any(), any(), any(), anyBoolean(), any());
 
 		// call under test
-		List<FileDownloadSummary> summary = fileHandleSupportSpy.addFilesToZip(userInfo, request, mockTempFile, fileSizesChecked);
+		List<FileDownloadSummary> summary = fileHandleSupportSpy.addFilesToZip(userInfo, request, mockOut, fileSizesChecked);
 
 		List<FileDownloadSummary> expected = Arrays
 				.asList(createSummary(associations.get(0)).setStatus(FileDownloadStatus.FAILURE)
 						.setFailureMessage(exception.getMessage()).setFailureCode(FileDownloadCode.NOT_FOUND));
 		assertEquals(expected, summary);
 
-		verify(fileHandleSupportSpy).createZipOutputStream(mockTempFile);
-		verify(fileHandleSupportSpy).writeOneFileToZip(eq(mockZipOut), eq(25L), eq(authResults.get(0)),
-				filesInZipCaptor.capture(), zipEntryNameProviderCaptor.capture(), eq(fileSizesChecked));
+		verify(fileHandleSupportSpy).createZipOutputStream(any());
+		verify(fileHandleSupportSpy).writeOneFileToZip(eq(mockZipOut), eq(0L), eq(authResults.get(0)),
+				filesInZipCaptor.capture(), zipEntryNameProviderCaptor.capture(), eq(fileSizesChecked), isNull());
 		assertEquals(Collections.emptySet(), filesInZipCaptor.getValue());
 		assertTrue(zipEntryNameProviderCaptor.getValue() instanceof FlatZipEntryNameProvider);
 		verify(mockZipOut).close();
@@ -424,20 +491,19 @@ public class FileHandlePackageManagerImplTest {
 		when(mockFileHandleAuthorizationManager.canDownLoadFile(any(), any())).thenReturn(authResults);
 
 		RuntimeException exception = new RuntimeException("something else");
-		doThrow(exception).when(fileHandleSupportSpy).writeOneFileToZip(any(), anyLong(), any(), any(), any(), anyBoolean());
-		when(mockTempFile.length()).thenReturn(25L, 125L);
+		doThrow(exception).when(fileHandleSupportSpy).writeOneFileToZip(any(), anyLong(), any(), any(), any(), anyBoolean(), any());
 
 		// call under test
-		List<FileDownloadSummary> summary = fileHandleSupportSpy.addFilesToZip(userInfo, request, mockTempFile, fileSizesChecked);
+		List<FileDownloadSummary> summary = fileHandleSupportSpy.addFilesToZip(userInfo, request, mockOut, fileSizesChecked);
 
 		List<FileDownloadSummary> expected = Arrays
 				.asList(createSummary(associations.get(0)).setStatus(FileDownloadStatus.FAILURE)
 						.setFailureMessage(exception.getMessage()).setFailureCode(FileDownloadCode.UNKNOWN_ERROR));
 		assertEquals(expected, summary);
 
-		verify(fileHandleSupportSpy).createZipOutputStream(mockTempFile);
-		verify(fileHandleSupportSpy).writeOneFileToZip(eq(mockZipOut), eq(25L), eq(authResults.get(0)),
-				filesInZipCaptor.capture(), zipEntryNameProviderCaptor.capture(), eq(fileSizesChecked));
+		verify(fileHandleSupportSpy).createZipOutputStream(any());
+		verify(fileHandleSupportSpy).writeOneFileToZip(eq(mockZipOut), eq(0L), eq(authResults.get(0)),
+				filesInZipCaptor.capture(), zipEntryNameProviderCaptor.capture(), eq(fileSizesChecked), isNull());
 		assertEquals(Collections.emptySet(), filesInZipCaptor.getValue());
 		assertTrue(zipEntryNameProviderCaptor.getValue() instanceof FlatZipEntryNameProvider);
 		verify(mockZipOut).close();
@@ -452,7 +518,7 @@ public class FileHandlePackageManagerImplTest {
 	@Test
 	public void testWriteOneFileToZip() throws IOException {
 		doReturn(resultFileHandle).when(fileHandleSupportSpy).getS3FileHandle(any());
-		doReturn(mockTempFile).when(fileHandleSupportSpy).downloadToTempFile(any());
+		doReturn(mockInputStream).when(fileHandleSupportSpy).openFile(any());
 		doNothing().when(fileHandleSupportSpy).addFileToZip(any(), any(), any());
 		long zipFileSize = 100L;
 		FileHandleAssociationAuthorizationStatus fhas = new FileHandleAssociationAuthorizationStatus(
@@ -462,14 +528,14 @@ public class FileHandlePackageManagerImplTest {
 		when(mockZipEntryNameProvider.createZipEntryName(any(), any())).thenReturn(entryName);
 
 		// call under test
-		String filename = fileHandleSupportSpy.writeOneFileToZip(mockZipOut, zipFileSize, fhas, fileIdsInZip, mockZipEntryNameProvider, fileSizesChecked);
+		String filename = fileHandleSupportSpy.writeOneFileToZip(mockZipOut, zipFileSize, fhas, fileIdsInZip, mockZipEntryNameProvider, fileSizesChecked, null);
 		
 		assertEquals(entryName, filename);
 		verify(fileHandleSupportSpy).getS3FileHandle(fhas.getAssociation().getFileHandleId());
-		verify(fileHandleSupportSpy).downloadToTempFile(resultFileHandle);
-		verify(fileHandleSupportSpy).addFileToZip(mockZipOut, mockTempFile, entryName);
+		verify(fileHandleSupportSpy).openFile(argThat(file -> file.getFileHandle() == resultFileHandle));
+		verify(fileHandleSupportSpy).addFileToZip(mockZipOut, mockInputStream, entryName);
 		verify(mockZipEntryNameProvider).createZipEntryName(resultFileHandle.getFileName(), Long.parseLong(resultFileHandle.getId()));
-		verify(mockTempFile).delete();
+		verify(mockInputStream).close();
 	}
 	
 	@Test
@@ -481,16 +547,16 @@ public class FileHandlePackageManagerImplTest {
 
 		BulkFileException exception = assertThrows(BulkFileException.class, ()->{
 			// call under test
-			fileHandleSupportSpy.writeOneFileToZip(mockZipOut, zipFileSize, fhas, fileIdsInZip, mockZipEntryNameProvider, fileSizesChecked);
+			fileHandleSupportSpy.writeOneFileToZip(mockZipOut, zipFileSize, fhas, fileIdsInZip, mockZipEntryNameProvider, fileSizesChecked, null);
 		});
 		assertEquals(FileDownloadCode.UNAUTHORIZED, exception.getFailureCode());
 		assertEquals("nope", exception.getMessage());
 		
 		verify(fileHandleSupportSpy, never()).getS3FileHandle(any());
-		verify(fileHandleSupportSpy, never()).downloadToTempFile(any());
+		verify(fileHandleSupportSpy, never()).openFile(any());
 		verify(fileHandleSupportSpy, never()).addFileToZip(any(), any(), any());
 		verify(mockZipEntryNameProvider, never()).createZipEntryName(any(), any());
-		verifyNoMoreInteractions(mockTempFile);
+		verifyNoMoreInteractions(mockInputStream);
 	}
 	
 	@Test
@@ -502,22 +568,22 @@ public class FileHandlePackageManagerImplTest {
 
 		BulkFileException exception = assertThrows(BulkFileException.class, ()->{
 			// call under test
-			fileHandleSupportSpy.writeOneFileToZip(mockZipOut, zipFileSize, fhas, fileIdsInZip, mockZipEntryNameProvider, fileSizesChecked);
+			fileHandleSupportSpy.writeOneFileToZip(mockZipOut, zipFileSize, fhas, fileIdsInZip, mockZipEntryNameProvider, fileSizesChecked, null);
 		});
 		assertEquals(FileDownloadCode.DUPLICATE, exception.getFailureCode());
 		assertEquals(FILE_ALREADY_ADDED, exception.getMessage());
 		
 		verify(fileHandleSupportSpy, never()).getS3FileHandle(any());
-		verify(fileHandleSupportSpy, never()).downloadToTempFile(any());
+		verify(fileHandleSupportSpy, never()).openFile(any());
 		verify(fileHandleSupportSpy, never()).addFileToZip(any(), any(), any());
 		verify(mockZipEntryNameProvider, never()).createZipEntryName(any(), any());
-		verifyNoMoreInteractions(mockTempFile);
+		verifyNoMoreInteractions(mockInputStream);
 	}
 	
 	@Test
 	public void testWriteOneFileToZipWithZipAtMaxSize() throws IOException {
 		doReturn(resultFileHandle).when(fileHandleSupportSpy).getS3FileHandle(any());
-		doReturn(mockTempFile).when(fileHandleSupportSpy).downloadToTempFile(any());
+		doReturn(mockInputStream).when(fileHandleSupportSpy).openFile(any());
 		doNothing().when(fileHandleSupportSpy).addFileToZip(any(), any(), any());
 		long zipFileSize = FileConstants.BULK_FILE_DOWNLOAD_MAX_SIZE_BYTES;
 		FileHandleAssociationAuthorizationStatus fhas = new FileHandleAssociationAuthorizationStatus(
@@ -527,21 +593,21 @@ public class FileHandlePackageManagerImplTest {
 		when(mockZipEntryNameProvider.createZipEntryName(any(), any())).thenReturn(entryName);
 
 		// call under test
-		String filename = fileHandleSupportSpy.writeOneFileToZip(mockZipOut, zipFileSize, fhas, fileIdsInZip, mockZipEntryNameProvider, fileSizesChecked);
+		String filename = fileHandleSupportSpy.writeOneFileToZip(mockZipOut, zipFileSize, fhas, fileIdsInZip, mockZipEntryNameProvider, fileSizesChecked, null);
 		
 		assertEquals(entryName, filename);
 		verify(fileHandleSupportSpy).getS3FileHandle(fhas.getAssociation().getFileHandleId());
-		verify(fileHandleSupportSpy).downloadToTempFile(resultFileHandle);
-		verify(fileHandleSupportSpy).addFileToZip(mockZipOut, mockTempFile, entryName);
+		verify(fileHandleSupportSpy).openFile(argThat(file -> file.getFileHandle() == resultFileHandle));
+		verify(fileHandleSupportSpy).addFileToZip(mockZipOut, mockInputStream, entryName);
 		verify(mockZipEntryNameProvider).createZipEntryName(resultFileHandle.getFileName(), Long.parseLong(resultFileHandle.getId()));
-		verify(mockTempFile).delete();
+		verify(mockInputStream).close();
 	}
 	
 	@Test
 	public void testWriteOneFileToZipWithZipOverMaxMaxSizeAndFileSizeChecked() throws IOException {
 		fileSizesChecked = true;
 		doReturn(resultFileHandle).when(fileHandleSupportSpy).getS3FileHandle(any());
-		doReturn(mockTempFile).when(fileHandleSupportSpy).downloadToTempFile(any());
+		doReturn(mockInputStream).when(fileHandleSupportSpy).openFile(any());
 		doNothing().when(fileHandleSupportSpy).addFileToZip(any(), any(), any());
 		long zipFileSize = FileConstants.BULK_FILE_DOWNLOAD_MAX_SIZE_BYTES + 1;
 		FileHandleAssociationAuthorizationStatus fhas = new FileHandleAssociationAuthorizationStatus(
@@ -551,14 +617,14 @@ public class FileHandlePackageManagerImplTest {
 		when(mockZipEntryNameProvider.createZipEntryName(any(), any())).thenReturn(entryName);
 
 		// call under test
-		String filename = fileHandleSupportSpy.writeOneFileToZip(mockZipOut, zipFileSize, fhas, fileIdsInZip, mockZipEntryNameProvider, fileSizesChecked);
+		String filename = fileHandleSupportSpy.writeOneFileToZip(mockZipOut, zipFileSize, fhas, fileIdsInZip, mockZipEntryNameProvider, fileSizesChecked, null);
 		
 		assertEquals(entryName, filename);
 		verify(fileHandleSupportSpy).getS3FileHandle(fhas.getAssociation().getFileHandleId());
-		verify(fileHandleSupportSpy).downloadToTempFile(resultFileHandle);
-		verify(fileHandleSupportSpy).addFileToZip(mockZipOut, mockTempFile, entryName);
+		verify(fileHandleSupportSpy).openFile(argThat(file -> file.getFileHandle() == resultFileHandle));
+		verify(fileHandleSupportSpy).addFileToZip(mockZipOut, mockInputStream, entryName);
 		verify(mockZipEntryNameProvider).createZipEntryName(resultFileHandle.getFileName(), Long.parseLong(resultFileHandle.getId()));
-		verify(mockTempFile).delete();
+		verify(mockInputStream).close();
 	}
 	
 	@Test
@@ -570,23 +636,23 @@ public class FileHandlePackageManagerImplTest {
 
 		BulkFileException exception = assertThrows(BulkFileException.class, ()->{
 			// call under test
-			fileHandleSupportSpy.writeOneFileToZip(mockZipOut, zipFileSize, fhas, fileIdsInZip, mockZipEntryNameProvider, fileSizesChecked);
+			fileHandleSupportSpy.writeOneFileToZip(mockZipOut, zipFileSize, fhas, fileIdsInZip, mockZipEntryNameProvider, fileSizesChecked, null);
 		});
 		assertEquals(FileDownloadCode.EXCEEDS_SIZE_LIMIT, exception.getFailureCode());
 		assertEquals(RESULT_FILE_HAS_REACHED_THE_MAXIMUM_SIZE, exception.getMessage());
 		
 		verify(fileHandleSupportSpy, never()).getS3FileHandle(any());
-		verify(fileHandleSupportSpy, never()).downloadToTempFile(any());
+		verify(fileHandleSupportSpy, never()).openFile(any());
 		verify(fileHandleSupportSpy, never()).addFileToZip(any(), any(), any());
 		verify(mockZipEntryNameProvider, never()).createZipEntryName(any(), any());
-		verifyNoMoreInteractions(mockTempFile);
+		verifyNoMoreInteractions(mockInputStream);
 	}
 	
 	@Test
 	public void testWriteOneFileToZipWithFileAtMaxSize() throws IOException {
 		resultFileHandle.setContentSize(FileConstants.BULK_FILE_DOWNLOAD_MAX_SIZE_BYTES);
 		doReturn(resultFileHandle).when(fileHandleSupportSpy).getS3FileHandle(any());
-		doReturn(mockTempFile).when(fileHandleSupportSpy).downloadToTempFile(any());
+		doReturn(mockInputStream).when(fileHandleSupportSpy).openFile(any());
 		doNothing().when(fileHandleSupportSpy).addFileToZip(any(), any(), any());
 		long zipFileSize = 100L;
 		FileHandleAssociationAuthorizationStatus fhas = new FileHandleAssociationAuthorizationStatus(
@@ -596,14 +662,14 @@ public class FileHandlePackageManagerImplTest {
 		when(mockZipEntryNameProvider.createZipEntryName(any(), any())).thenReturn(entryName);
 
 		// call under test
-		String filename = fileHandleSupportSpy.writeOneFileToZip(mockZipOut, zipFileSize, fhas, fileIdsInZip, mockZipEntryNameProvider, fileSizesChecked);
+		String filename = fileHandleSupportSpy.writeOneFileToZip(mockZipOut, zipFileSize, fhas, fileIdsInZip, mockZipEntryNameProvider, fileSizesChecked, null);
 		
 		assertEquals(entryName, filename);
 		verify(fileHandleSupportSpy).getS3FileHandle(fhas.getAssociation().getFileHandleId());
-		verify(fileHandleSupportSpy).downloadToTempFile(resultFileHandle);
-		verify(fileHandleSupportSpy).addFileToZip(mockZipOut, mockTempFile, entryName);
+		verify(fileHandleSupportSpy).openFile(argThat(file -> file.getFileHandle() == resultFileHandle));
+		verify(fileHandleSupportSpy).addFileToZip(mockZipOut, mockInputStream, entryName);
 		verify(mockZipEntryNameProvider).createZipEntryName(resultFileHandle.getFileName(), Long.parseLong(resultFileHandle.getId()));
-		verify(mockTempFile).delete();
+		verify(mockInputStream).close();
 	}
 	
 	@Test
@@ -617,16 +683,16 @@ public class FileHandlePackageManagerImplTest {
 
 		BulkFileException exception = assertThrows(BulkFileException.class, ()->{
 			// call under test
-			fileHandleSupportSpy.writeOneFileToZip(mockZipOut, zipFileSize, fhas, fileIdsInZip, mockZipEntryNameProvider, fileSizesChecked);
+			fileHandleSupportSpy.writeOneFileToZip(mockZipOut, zipFileSize, fhas, fileIdsInZip, mockZipEntryNameProvider, fileSizesChecked, null);
 		});
 		assertEquals(FileDownloadCode.EXCEEDS_SIZE_LIMIT, exception.getFailureCode());
 		assertEquals(FILE_EXCEEDS_THE_MAXIMUM_SIZE_LIMIT, exception.getMessage());
 		
 		verify(fileHandleSupportSpy).getS3FileHandle(fhas.getAssociation().getFileHandleId());
-		verify(fileHandleSupportSpy, never()).downloadToTempFile(any());
+		verify(fileHandleSupportSpy, never()).openFile(any());
 		verify(fileHandleSupportSpy, never()).addFileToZip(any(), any(), any());
 		verify(mockZipEntryNameProvider, never()).createZipEntryName(any(), any());
-		verifyNoMoreInteractions(mockTempFile);
+		verifyNoMoreInteractions(mockInputStream);
 	}
 	
 	@Test
@@ -634,7 +700,7 @@ public class FileHandlePackageManagerImplTest {
 		fileSizesChecked = true;
 		resultFileHandle.setContentSize(FileConstants.BULK_FILE_DOWNLOAD_MAX_SIZE_BYTES+1);
 		doReturn(resultFileHandle).when(fileHandleSupportSpy).getS3FileHandle(any());
-		doReturn(mockTempFile).when(fileHandleSupportSpy).downloadToTempFile(any());
+		doReturn(mockInputStream).when(fileHandleSupportSpy).openFile(any());
 		doNothing().when(fileHandleSupportSpy).addFileToZip(any(), any(), any());
 		long zipFileSize = 100L;
 		FileHandleAssociationAuthorizationStatus fhas = new FileHandleAssociationAuthorizationStatus(
@@ -644,14 +710,14 @@ public class FileHandlePackageManagerImplTest {
 		when(mockZipEntryNameProvider.createZipEntryName(any(), any())).thenReturn(entryName);
 
 		// call under test
-		String filename = fileHandleSupportSpy.writeOneFileToZip(mockZipOut, zipFileSize, fhas, fileIdsInZip, mockZipEntryNameProvider, fileSizesChecked);
+		String filename = fileHandleSupportSpy.writeOneFileToZip(mockZipOut, zipFileSize, fhas, fileIdsInZip, mockZipEntryNameProvider, fileSizesChecked, null);
 		
 		assertEquals(entryName, filename);
 		verify(fileHandleSupportSpy).getS3FileHandle(fhas.getAssociation().getFileHandleId());
-		verify(fileHandleSupportSpy).downloadToTempFile(resultFileHandle);
-		verify(fileHandleSupportSpy).addFileToZip(mockZipOut, mockTempFile, entryName);
+		verify(fileHandleSupportSpy).openFile(argThat(file -> file.getFileHandle() == resultFileHandle));
+		verify(fileHandleSupportSpy).addFileToZip(mockZipOut, mockInputStream, entryName);
 		verify(mockZipEntryNameProvider).createZipEntryName(resultFileHandle.getFileName(), Long.parseLong(resultFileHandle.getId()));
-		verify(mockTempFile).delete();
+		verify(mockInputStream).close();
 	}
 
 	@Test
@@ -0,0 +1,231 @@
+package org.sagebionetworks.repo.manager.file;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.sagebionetworks.aws.SynapseS3Client;
+
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+
+@ExtendWith(MockitoExtension.class)
+public class S3MultipartUploadOutputStreamTest {
+
+	@Mock
+	private SynapseS3Client mockS3Client;
+	@Captor
+	private ArgumentCaptor<UploadPartRequest> partCaptor;
+	@Captor
+	private ArgumentCaptor<CompleteMultipartUploadRequest> completeCaptor;
+	@Captor
+	private ArgumentCaptor<AbortMultipartUploadRequest> abortCaptor;
+
+	private InitiateMultipartUploadRequest initiateRequest;
+	private int partSize;
+
+	@BeforeEach
+	public void before() {
+		initiateRequest = new InitiateMultipartUploadRequest("bucket", "key");
+		partSize = S3MultipartUploadOutputStream.MIN_PART_SIZE_BYTES;
+	}
+
+	void setupInitiate() {
+		InitiateMultipartUploadResult initiateResult = new InitiateMultipartUploadResult();
+		initiateResult.setUploadId("uploadId");
+		when(mockS3Client.initiateMultipartUpload(initiateRequest)).thenReturn(initiateResult);
+	}
+
+	void setupUploadPart() {
+		setupInitiate();
+		when(mockS3Client.uploadPart(any())).thenAnswer(invocation -> {
+			UploadPartRequest request = invocation.getArgument(0);
+			UploadPartResult result = new UploadPartResult();
+			result.setPartNumber(request.getPartNumber());
+			result.setETag("etag" + request.getPartNumber());
+			return result;
+		});
+	}
+
+	@Test
+	public void testWriteAndClose() throws IOException {
+		setupUploadPart();
+		byte[] bytes = new byte[partSize * 2 + 10];
+		Arrays.fill(bytes, (byte) 7);
+		S3MultipartUploadOutputStream out = new S3MultipartUploadOutputStream(mockS3Client, initiateRequest, partSize);
+		// call under test
+		out.write(bytes, 0, partSize - 1);
+		out.write(bytes[0]);
+		out.write(bytes, partSize, bytes.length - partSize);
+		// only the full parts are uploaded before close
+		verify(mockS3Client, times(2)).uploadPart(any());
+		assertNull(out.getContentMd5());
+		// call under test
+		out.close();
+		verify(mockS3Client, times(3)).uploadPart(partCaptor.capture());
+		List<UploadPartRequest> parts = partCaptor.getAllValues();
+		assertEquals(1, parts.get(0).getPartNumber());
+		assertEquals(partSize, parts.get(0).getPartSize());
+		assertEquals(2, parts.get(1).getPartNumber());
+		assertEquals(partSize, parts.get(1).getPartSize());
+		assertEquals(3, parts.get(2).getPartNumber());
+		assertEquals(10L, parts.get(2).getPartSize());
+		assertEquals("uploadId", parts.get(2).getUploadId());
+
+		verify(mockS3Client).completeMultipartUpload(completeCaptor.capture());
+		CompleteMultipartUploadRequest complete = completeCaptor.getValue();
+		assertEquals("bucket", complete.getBucketName());
+		assertEquals("key", complete.getKey());
+		assertEquals("uploadId", complete.getUploadId());
+		assertEquals(3, complete.getPartETags().size());
+		assertEquals("etag3", complete.getPartETags().get(2).getETag());
+
+		assertEquals(bytes.length, out.getContentSize());
+		assertEquals(DigestUtils.md5Hex(bytes), out.getContentMd5());
+		verify(mockS3Client, never()).abortMultipartUpload(any());
+	}
+
+	@Test
+	public void testWriteAndCloseWithUploadExecutor() throws IOException {
+		setupUploadPart();
+		byte[] bytes = new byte[partSize * 3 + 10];
+		Arrays.fill(bytes, (byte) 7);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			S3MultipartUploadOutputStream out = new S3MultipartUploadOutputStream(mockS3Client, initiateRequest,
+					partSize, executor, 1);
+			// call under test
+			out.write(bytes, 0, bytes.length);
+			out.close();
+			verify(mockS3Client, times(4)).uploadPart(any());
+			verify(mockS3Client).completeMultipartUpload(completeCaptor.capture());
+			CompleteMultipartUploadRequest complete = completeCaptor.getValue();
+			// the parts are completed in order
+			assertEquals(4, complete.getPartETags().size());
+			for (int i = 0; i < 4; i++) {
+				assertEquals(i + 1, complete.getPartETags().get(i).getPartNumber());
+				assertEquals("etag" + (i + 1), complete.getPartETags().get(i).getETag());
+			}
+			assertEquals(bytes.length, out.getContentSize());
+			assertEquals(DigestUtils.md5Hex(bytes), out.getContentMd5());
+			verify(mockS3Client, never()).abortMultipartUpload(any());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testWriteWithUploadExecutorFailure() throws IOException {
+		setupInitiate();
+		IllegalStateException exception = new IllegalStateException("nope");
+		when(mockS3Client.uploadPart(any())).thenThrow(exception);
+		byte[] bytes = new byte[partSize * 2];
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			S3MultipartUploadOutputStream out = new S3MultipartUploadOutputStream(mockS3Client, initiateRequest,
+					partSize, executor, 1);
+			IllegalStateException result = assertThrows(IllegalStateException.class, () -> {
+				// call under test
+				out.write(bytes, 0, bytes.length);
+			});
+			// the failure of the first part is thrown once the second part waits for it.
+			assertEquals(exception, result);
+			out.abort();
+			verify(mockS3Client).abortMultipartUpload(any());
+			verify(mockS3Client, never()).completeMultipartUpload(any());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testCloseWithEmpty() throws IOException {
+		setupUploadPart();
+		S3MultipartUploadOutputStream out = new S3MultipartUploadOutputStream(mockS3Client, initiateRequest, partSize);
+		// call under test
+		out.close();
+		verify(mockS3Client).uploadPart(partCaptor.capture());
+		assertEquals(0L, partCaptor.getValue().getPartSize());
+		verify(mockS3Client).completeMultipartUpload(any());
+		assertEquals(0L, out.getContentSize());
+		assertEquals(DigestUtils.md5Hex(new byte[0]), out.getContentMd5());
+	}
+
+	@Test
+	public void testCloseWithCompleteFailure() throws IOException {
+		setupUploadPart();
+		IllegalStateException exception = new IllegalStateException("nope");
+		when(mockS3Client.completeMultipartUpload(any())).thenThrow(exception);
+		S3MultipartUploadOutputStream out = new S3MultipartUploadOutputStream(mockS3Client, initiateRequest, partSize);
+		out.write(new byte[] { 1, 2, 3 });
+		IllegalStateException result = assertThrows(IllegalStateException.class, () -> {
+			// call under test
+			out.close();
+		});
+		assertEquals(exception, result);
+		verify(mockS3Client).abortMultipartUpload(abortCaptor.capture());
+		assertEquals("uploadId", abortCaptor.getValue().getUploadId());
+	}
+
+	@Test
+	public void testAbort() throws IOException {
+		setupInitiate();
+		S3MultipartUploadOutputStream out = new S3MultipartUploadOutputStream(mockS3Client, initiateRequest, partSize);
+		out.write(new byte[] { 1, 2, 3 });
+		// call under test
+		out.abort();
+		verify(mockS3Client).abortMultipartUpload(abortCaptor.capture());
+		assertEquals("bucket", abortCaptor.getValue().getBucketName());
+		assertEquals("key", abortCaptor.getValue().getKey());
+		assertEquals("uploadId", abortCaptor.getValue().getUploadId());
+		// a second abort or a close after an abort does nothing.
+		out.abort();
+		out.close();
+		verify(mockS3Client).abortMultipartUpload(any());
+		verify(mockS3Client, never()).uploadPart(any());
+		verify(mockS3Client, never()).completeMultipartUpload(any());
+		assertThrows(IOException.class, () -> {
+			// call under test
+			out.write(1);
+		});
+	}
+
+	@Test
+	public void testConstructorWithSmallPartSize() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			new S3MultipartUploadOutputStream(mockS3Client, initiateRequest, partSize - 1);
+		});
+	}
+
+	@Test
+	public void testConstructorWithNoPartsInFlight() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			new S3MultipartUploadOutputStream(mockS3Client, initiateRequest, partSize, null, 0);
+		});
+	}
+}
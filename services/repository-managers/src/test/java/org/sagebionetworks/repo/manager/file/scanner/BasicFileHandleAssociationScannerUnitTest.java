@@ -3,18 +3,20 @@ package org.sagebionetworks.repo.manager.file.scanner;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
-import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.sagebionetworks.repo.manager.file.scanner.BasicFileHandleAssociationScanner.DEFAULT_BATCH_SIZE;
 import static org.sagebionetworks.repo.manager.file.scanner.FileHandleAssociationScannerTestUtils.generateMapping;
 
+import java.sql.ResultSet;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -29,6 +31,7 @@ import org.sagebionetworks.repo.model.IdRange;
 import org.sagebionetworks.repo.model.dbo.DMLUtils;
 import org.sagebionetworks.repo.model.dbo.FieldColumn;
 import org.sagebionetworks.repo.model.dbo.TableMapping;
+import org.sagebionetworks.repo.model.dbo.migration.KeysetQueryStreamIterable;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
@@ -48,6 +51,9 @@ public class BasicFileHandleAssociationScannerUnitTest {
 	@Mock
 	private RowMapperSupplier mockRowMapperSupplier;
 	
+	@Mock
+	private ResultSet mockResultSet;
+	
 	private static final String FILE_HANDLE_ID_COLUMN = "FILE_HANDLE_ID";
 	
 	@BeforeEach
@@ -236,7 +242,7 @@ public class BasicFileHandleAssociationScannerUnitTest {
 		
 		ArgumentCaptor<Map<String, Object>> paramsCaptor = ArgumentCaptor.forClass(Map.class);
 		
-		verify(mockParamaterizedJdbcTemplate).query(eq("SELECT `ID`, `FILE_HANDLE_ID` FROM SOME_TABLE WHERE `ID` BETWEEN :BMINID AND :BMAXID AND FILE_HANDLE_ID IS NOT NULL ORDER BY `ID` LIMIT :KEY_LIMIT OFFSET :KEY_OFFSET"), paramsCaptor.capture(), any(RowMapper.class));
+		verify(mockParamaterizedJdbcTemplate).query(eq("SELECT `ID`, `FILE_HANDLE_ID` FROM SOME_TABLE WHERE `ID` BETWEEN :BMINID AND :BMAXID AND FILE_HANDLE_ID IS NOT NULL ORDER BY `ID` LIMIT :KEY_LIMIT"), paramsCaptor.capture(), any(RowMapper.class));
 		
 		assertEquals(idRange.getMinId(), paramsCaptor.getAllValues().get(0).get(DMLUtils.BIND_MIN_ID));
 		assertEquals(idRange.getMaxId(), paramsCaptor.getAllValues().get(0).get(DMLUtils.BIND_MAX_ID));
@@ -268,46 +274,48 @@ public class BasicFileHandleAssociationScannerUnitTest {
 		
 		ArgumentCaptor<Map<String, Object>> paramsCaptor = ArgumentCaptor.forClass(Map.class);
 		
-		verify(mockParamaterizedJdbcTemplate).query(eq("SELECT `ID`, `FILE_HANDLE_ID` FROM SOME_TABLE WHERE `ID` BETWEEN :BMINID AND :BMAXID AND FILE_HANDLE_ID IS NOT NULL ORDER BY `ID`, `VERSION` LIMIT :KEY_LIMIT OFFSET :KEY_OFFSET"), paramsCaptor.capture(), any(RowMapper.class));
+		verify(mockParamaterizedJdbcTemplate).query(eq("SELECT `ID`, `FILE_HANDLE_ID`, `VERSION` FROM SOME_TABLE WHERE `ID` BETWEEN :BMINID AND :BMAXID AND FILE_HANDLE_ID IS NOT NULL ORDER BY `ID`, `VERSION` LIMIT :KEY_LIMIT"), paramsCaptor.capture(), any(RowMapper.class));
 		
 		assertEquals(idRange.getMinId(), paramsCaptor.getAllValues().get(0).get(DMLUtils.BIND_MIN_ID));
 		assertEquals(idRange.getMaxId(), paramsCaptor.getAllValues().get(0).get(DMLUtils.BIND_MAX_ID));
 	}
 	
 	@Test
-	public void testScanRangeWithMultiPage() {
+	public void testScanRangeWithMultiPage() throws Exception {
 		TableMapping<Object> mapping = generateMapping("SOME_TABLE", 
 				new FieldColumn("id", "ID", true).withIsBackupId(true),
 				new FieldColumn("fileHandleId", FILE_HANDLE_ID_COLUMN).withHasFileHandleRef(true)
 		);
 		
-		when(mockRowMapperSupplier.getRowMapper(any(), any())).thenReturn(mockRowMapper);
-		when(mockParamaterizedJdbcTemplate.query(anyString(), anyMap(), any(RowMapper.class))).thenReturn(
-				// First batch
-				Arrays.asList(
-					new ScannedFileHandleAssociation(1L, 1L),
-					new ScannedFileHandleAssociation(2L, 2L)
-				),
-				// Second batch
-				Arrays.asList(
-					new ScannedFileHandleAssociation(3L, 3L)
-				),
-				// No more restuls
-				Collections.emptyList()
+		List<ScannedFileHandleAssociation> expected = Arrays.asList(
+			new ScannedFileHandleAssociation(1L, 1L),
+			new ScannedFileHandleAssociation(2L, 2L),
+			new ScannedFileHandleAssociation(3L, 3L)
 		);
 		
+		when(mockRowMapperSupplier.getRowMapper(any(), any())).thenReturn(mockRowMapper);
+		when(mockResultSet.getObject("ID")).thenReturn(1L, 2L, 3L);
+		when(mockRowMapper.mapRow(any(), anyInt())).thenReturn(expected.get(0), expected.get(1), expected.get(2));
+		
+		// First batch is full, the second batch is the last one
+		Iterator<Integer> pageSizes = Arrays.asList(2, 1).iterator();
+		
+		when(mockParamaterizedJdbcTemplate.query(anyString(), anyMap(), any(RowMapper.class))).thenAnswer(invocation -> {
+			RowMapper<ScannedFileHandleAssociation> rowMapper = invocation.getArgument(2);
+			List<ScannedFileHandleAssociation> page = new ArrayList<>();
+			int pageSize = pageSizes.next();
+			for (int i = 0; i < pageSize; i++) {
+				page.add(rowMapper.mapRow(mockResultSet, i));
+			}
+			return page;
+		});
+		
 		long batchSize = 2;
 		
 		FileHandleAssociationScanner scanner = new BasicFileHandleAssociationScanner(mockParamaterizedJdbcTemplate, mapping, batchSize, mockRowMapperSupplier);
 		
 		IdRange idRange = new IdRange(1, 3);
 		
-		List<ScannedFileHandleAssociation> expected = Arrays.asList(
-			new ScannedFileHandleAssociation(1L, 1L),
-			new ScannedFileHandleAssociation(2L, 2L),
-			new ScannedFileHandleAssociation(3L, 3L)
-		);
-		
 		List<ScannedFileHandleAssociation> result = new ArrayList<>();
 		
 		// Call under test
@@ -317,10 +325,13 @@ public class BasicFileHandleAssociationScannerUnitTest {
 		
 		ArgumentCaptor<Map<String, Object>> paramsCaptor = ArgumentCaptor.forClass(Map.class);
 		
-		verify(mockParamaterizedJdbcTemplate, times(3)).query(eq("SELECT `ID`, `FILE_HANDLE_ID` FROM SOME_TABLE WHERE `ID` BETWEEN :BMINID AND :BMAXID AND FILE_HANDLE_ID IS NOT NULL ORDER BY `ID` LIMIT :KEY_LIMIT OFFSET :KEY_OFFSET"), paramsCaptor.capture(), eq(mockRowMapper));
+		verify(mockParamaterizedJdbcTemplate).query(eq("SELECT `ID`, `FILE_HANDLE_ID` FROM SOME_TABLE WHERE `ID` BETWEEN :BMINID AND :BMAXID AND FILE_HANDLE_ID IS NOT NULL ORDER BY `ID` LIMIT :KEY_LIMIT"), paramsCaptor.capture(), any(RowMapper.class));
+		// The second batch seeks after the last id of the first batch
+		verify(mockParamaterizedJdbcTemplate).query(eq("SELECT `ID`, `FILE_HANDLE_ID` FROM SOME_TABLE WHERE `ID` BETWEEN :BMINID AND :BMAXID AND FILE_HANDLE_ID IS NOT NULL AND `ID` > :KEY_LAST_0 ORDER BY `ID` LIMIT :KEY_LIMIT"), paramsCaptor.capture(), any(RowMapper.class));
 		
 		assertEquals(idRange.getMinId(), paramsCaptor.getAllValues().get(0).get(DMLUtils.BIND_MIN_ID));
 		assertEquals(idRange.getMaxId(), paramsCaptor.getAllValues().get(0).get(DMLUtils.BIND_MAX_ID));
+		assertEquals(2L, paramsCaptor.getAllValues().get(1).get(KeysetQueryStreamIterable.KEY_LAST_PREFIX + 0));
 	}
 	
 	@Test
@@ -349,7 +360,7 @@ public class BasicFileHandleAssociationScannerUnitTest {
 		
 		assertEquals(Collections.emptyList(), result);
 
-		verify(mockParamaterizedJdbcTemplate).query(eq("SELECT `ID`, `FILE_HANDLE_ID` FROM SOME_TABLE WHERE `ID` BETWEEN :BMINID AND :BMAXID AND FILE_HANDLE_ID IS NOT NULL ORDER BY `ID`, `VERSION` LIMIT :KEY_LIMIT OFFSET :KEY_OFFSET"), anyMap(), eq(mockRowMapper));
+		verify(mockParamaterizedJdbcTemplate).query(eq("SELECT `ID`, `FILE_HANDLE_ID`, `VERSION` FROM SOME_TABLE WHERE `ID` BETWEEN :BMINID AND :BMAXID AND FILE_HANDLE_ID IS NOT NULL ORDER BY `ID`, `VERSION` LIMIT :KEY_LIMIT"), anyMap(), any(RowMapper.class));
 		verify(mockRowMapperSupplier).getRowMapper("ID", FILE_HANDLE_ID_COLUMN);		
 	}
 	
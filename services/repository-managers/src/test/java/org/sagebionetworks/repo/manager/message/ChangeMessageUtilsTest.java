@@ -80,4 +80,56 @@ public class ChangeMessageUtilsTest {
 		assertEquals(Arrays.asList(four), groupPartitions.get(0));
 	}
 
+	@Test
+	public void testCoalesce() {
+		ChangeMessage one = createMessage(1L, "one", ChangeType.UPDATE);
+		ChangeMessage two = createMessage(2L, "two", ChangeType.UPDATE);
+		// duplicate of one
+		ChangeMessage three = createMessage(3L, "one", ChangeType.UPDATE);
+		// newer change of one with a different change type
+		ChangeMessage four = createMessage(4L, "one", ChangeType.DELETE);
+		// different version
+		ChangeMessage five = createMessage(5L, "two", ChangeType.UPDATE);
+		five.setObjectVersion(2L);
+		// older duplicate of two
+		ChangeMessage six = createMessage(0L, "two", ChangeType.UPDATE);
+		List<ChangeMessage> batch = Arrays.asList(one, two, three, four, five, six);
+		// call under test
+		List<ChangeMessage> results = ChangeMessageUtils.coalesce(batch);
+		assertEquals(Arrays.asList(two, four, five), results);
+	}
+
+	@Test
+	public void testCoalesceUpdateDeleteUpdate() {
+		ChangeMessage update = createMessage(1L, "one", ChangeType.UPDATE);
+		ChangeMessage delete = createMessage(2L, "one", ChangeType.DELETE);
+		ChangeMessage recreate = createMessage(3L, "one", ChangeType.UPDATE);
+		ChangeMessage other = createMessage(4L, "two", ChangeType.UPDATE);
+		List<ChangeMessage> batch = Arrays.asList(other, update, delete, recreate);
+		// call under test
+		List<ChangeMessage> results = ChangeMessageUtils.coalesce(batch);
+		// the delete is superseded by the newer update and the result is in change number order.
+		assertEquals(Arrays.asList(recreate, other), results);
+	}
+
+	@Test
+	public void testCoalesceWithoutChangeNumber() {
+		ChangeMessage noNumber = createMessage(null, "one", ChangeType.UPDATE);
+		ChangeMessage two = createMessage(2L, "two", ChangeType.UPDATE);
+		ChangeMessage three = createMessage(3L, "three", ChangeType.UPDATE);
+		List<ChangeMessage> batch = Arrays.asList(noNumber, three, two);
+		// call under test
+		List<ChangeMessage> results = ChangeMessageUtils.coalesce(batch);
+		assertEquals(Arrays.asList(two, three, noNumber), results);
+	}
+
+	private static ChangeMessage createMessage(Long changeNumber, String objectId, ChangeType changeType) {
+		ChangeMessage message = new ChangeMessage();
+		message.setChangeNumber(changeNumber);
+		message.setObjectId(objectId);
+		message.setObjectType(ObjectType.ENTITY);
+		message.setChangeType(changeType);
+		return message;
+	}
+
 }
@@ -4,6 +4,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -17,6 +18,7 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.sagebionetworks.repo.model.ObjectType;
 import org.sagebionetworks.repo.model.dbo.dao.DBOChangeDAO;
@@ -126,7 +128,7 @@ public class RepositoryMessagePublisherImplAutowireTest {
 	@Test
 	public void testFireStaggaredMessage() throws InterruptedException, JSONObjectAdapterException{
 		// Fire multiple messages
-		List<String> messageBodyList = new LinkedList<String>();
+		List<ChangeMessage> firedMessages = new LinkedList<ChangeMessage>();
 		for(int i=0; i<5; i++){
 			ChangeMessage message = new ChangeMessage();
 			message.setChangeType(ChangeType.CREATE);
@@ -137,23 +139,26 @@ public class RepositoryMessagePublisherImplAutowireTest {
 			message = changeDao.replaceChange(message);
 			messagePublisher.fireChangeMessage(message);
 			
-			// Keep this body for the check
-			ChangeMessages messages = new ChangeMessages();
-			messages.setList(Arrays.asList(message));
-			String json = EntityFactory.createJSONStringForEntity(messages);
-			messageBodyList.add(json);
+			// Keep this message for the check
+			firedMessages.add(message);
 			// Sleep between messages.
 			Thread.sleep(50);
 		}
 
 		// The message will be published on a timer, so we wait for that to occur.
 		Thread.sleep(2000);
-		// Validate that all of the messages were fired.
-		for(String messageBody: messageBodyList){
-			System.out.println("Checking for message body: "+messageBody);
-			// The message should be published once and only once.
-			verify(mockSNSClient, times(1)).publish(new PublishRequest(messagePublisher.getTopicArn(ObjectType.ENTITY), messageBody));
+		// Messages drained by the same timer fire are published in a single batch.
+		ArgumentCaptor<PublishRequest> requestCaptor = ArgumentCaptor.forClass(PublishRequest.class);
+		verify(mockSNSClient, atLeastOnce()).publish(requestCaptor.capture());
+		List<ChangeMessage> publishedMessages = new LinkedList<ChangeMessage>();
+		for(PublishRequest request: requestCaptor.getAllValues()){
+			assertEquals(messagePublisher.getTopicArn(ObjectType.ENTITY), request.getTopicArn());
+			ChangeMessages messages = EntityFactory.createEntityFromJSONString(request.getMessage(), ChangeMessages.class);
+			publishedMessages.addAll(messages.getList());
 		}
+		// Validate that all of the messages were fired once and only once.
+		assertEquals(firedMessages.size(), publishedMessages.size());
+		assertTrue(publishedMessages.containsAll(firedMessages));
 	}
 
 }
@@ -1,19 +1,41 @@
 package org.sagebionetworks.repo.manager.message;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.sagebionetworks.StackConfiguration;
+import org.sagebionetworks.cloudwatch.Consumer;
+import org.sagebionetworks.cloudwatch.ProfileData;
 import org.sagebionetworks.repo.model.ObjectType;
 import org.sagebionetworks.repo.model.message.ChangeMessage;
 import org.sagebionetworks.repo.model.message.ChangeType;
 import org.sagebionetworks.repo.model.message.TransactionalMessenger;
+import org.sagebionetworks.util.Clock;
 
 import com.amazonaws.services.sns.AmazonSNS;
+import com.amazonaws.services.sns.model.CreateTopicRequest;
+import com.amazonaws.services.sns.model.CreateTopicResult;
+import com.amazonaws.services.sns.model.PublishRequest;
+import com.google.common.util.concurrent.MoreExecutors;
 
 /**
  * Unit test for RepositoryMessagePublisherImpl.
@@ -29,10 +51,21 @@ public class RepositoryMessagePublisherImplTest {
 	TransactionalMessenger mockTransactionalMessanger;
 	@Mock
 	AmazonSNS mockAwsSNSClient;
+	@Mock
+	StackConfiguration mockStackConfiguration;
+	@Mock
+	Consumer mockConsumer;
+	@Mock
+	Clock mockClock;
+	@Captor
+	ArgumentCaptor<List<ProfileData>> profileCaptor;
 
 	@InjectMocks
 	RepositoryMessagePublisherImpl messagePublisher;
 	
+	ChangeMessage newerMessage;
+	ChangeMessage fileMessage;
+	
 	@Before
 	public void before(){
 		message = new ChangeMessage();
@@ -41,6 +74,31 @@ public class RepositoryMessagePublisherImplTest {
 		message.setChangeType(ChangeType.CREATE);
 		message.setObjectId("syn456");
 		message.setObjectType(ObjectType.ENTITY);
+		
+		newerMessage = new ChangeMessage();
+		newerMessage.setChangeNumber(125L);
+		newerMessage.setTimestamp(new Date(2000));
+		newerMessage.setChangeType(ChangeType.CREATE);
+		newerMessage.setObjectId("syn456");
+		newerMessage.setObjectType(ObjectType.ENTITY);
+		
+		fileMessage = new ChangeMessage();
+		fileMessage.setChangeNumber(124L);
+		fileMessage.setTimestamp(new Date(1000));
+		fileMessage.setChangeType(ChangeType.UPDATE);
+		fileMessage.setObjectId("789");
+		fileMessage.setObjectType(ObjectType.FILE);
+	}
+	
+	void setupPublish() {
+		when(mockStackConfiguration.getShouldMessagesBePublishedToTopic()).thenReturn(true);
+		when(mockStackConfiguration.getStackInstance()).thenReturn("1a");
+		when(mockStackConfiguration.getRepositoryChangeTopic(any(String.class))).thenAnswer(invocation -> "topic-" + invocation.getArgument(0));
+		when(mockAwsSNSClient.createTopic(any(CreateTopicRequest.class))).thenAnswer(invocation -> {
+			CreateTopicRequest request = invocation.getArgument(0);
+			return new CreateTopicResult().withTopicArn("arn-" + request.getName());
+		});
+		when(mockClock.currentTimeMillis()).thenReturn(5000L);
 	}
 	
 	@Test (expected=IllegalArgumentException.class)
@@ -78,4 +136,101 @@ public class RepositoryMessagePublisherImplTest {
 		messagePublisher.fireChangeMessage(message);
 	}
 	
+	@Test
+	public void testTimerFired(){
+		setupPublish();
+		messagePublisher.fireChangeMessage(message);
+		messagePublisher.fireChangeMessage(fileMessage);
+		messagePublisher.fireChangeMessage(newerMessage);
+		// call under test
+		messagePublisher.timerFired();
+		// the duplicate message is coalesced into the newer message.
+		verify(mockTransactionalMessanger).registerMessagesSent(ObjectType.ENTITY, Arrays.asList(newerMessage));
+		verify(mockTransactionalMessanger).registerMessagesSent(ObjectType.FILE, Arrays.asList(fileMessage));
+		verify(mockAwsSNSClient, times(2)).publish(any(PublishRequest.class));
+		
+		verify(mockConsumer).addProfileData(profileCaptor.capture());
+		List<ProfileData> metrics = profileCaptor.getValue();
+		assertEquals(2, metrics.size());
+		assertEquals(RepositoryMessagePublisherImpl.METRIC_QUEUE_DEPTH, metrics.get(0).getName());
+		assertEquals("Message-Publisher-1a", metrics.get(0).getNamespace());
+		// all three messages were drained from the queue.
+		assertEquals(new Double(3), metrics.get(0).getValue());
+		assertEquals(RepositoryMessagePublisherImpl.METRIC_PUBLISH_LAG, metrics.get(1).getName());
+		// the oldest message was created at 1000 MS.
+		assertEquals(new Double(4000), metrics.get(1).getValue());
+	}
+	
+	@Test
+	public void testTimerFiredWithExecutor(){
+		setupPublish();
+		messagePublisher.setPublishExecutorService(MoreExecutors.newDirectExecutorService());
+		messagePublisher.fireChangeMessage(message);
+		messagePublisher.fireChangeMessage(fileMessage);
+		// call under test
+		messagePublisher.timerFired();
+		verify(mockTransactionalMessanger).registerMessagesSent(ObjectType.ENTITY, Arrays.asList(message));
+		verify(mockTransactionalMessanger).registerMessagesSent(ObjectType.FILE, Arrays.asList(fileMessage));
+		verify(mockAwsSNSClient, times(2)).publish(any(PublishRequest.class));
+	}
+	
+	@Test
+	public void testTimerFiredWithFailure(){
+		setupPublish();
+		doThrow(new IllegalStateException("failed")).when(mockTransactionalMessanger).registerMessagesSent(ObjectType.ENTITY, Arrays.asList(message));
+		messagePublisher.fireChangeMessage(message);
+		messagePublisher.fireChangeMessage(fileMessage);
+		// call under test
+		messagePublisher.timerFired();
+		// a failure of one batch must not stop the others.
+		verify(mockTransactionalMessanger).registerMessagesSent(ObjectType.FILE, Arrays.asList(fileMessage));
+		verify(mockAwsSNSClient).publish(any(PublishRequest.class));
+		verify(mockConsumer).addProfileData(any(List.class));
+	}
+	
+	@Test
+	public void testTimerFiredEmpty(){
+		when(mockStackConfiguration.getShouldMessagesBePublishedToTopic()).thenReturn(true);
+		when(mockStackConfiguration.getStackInstance()).thenReturn("1a");
+		when(mockClock.currentTimeMillis()).thenReturn(5000L);
+		// call under test
+		messagePublisher.timerFired();
+		verify(mockAwsSNSClient, never()).publish(any(PublishRequest.class));
+		verify(mockConsumer).addProfileData(profileCaptor.capture());
+		List<ProfileData> metrics = profileCaptor.getValue();
+		// there is no lag without messages.
+		assertEquals(1, metrics.size());
+		assertEquals(new Double(0), metrics.get(0).getValue());
+	}
+	
+	@Test
+	public void testTimerFiredShouldNotPublish(){
+		when(mockStackConfiguration.getShouldMessagesBePublishedToTopic()).thenReturn(false);
+		messagePublisher.fireChangeMessage(message);
+		// call under test
+		messagePublisher.timerFired();
+		verifyZeroInteractions(mockAwsSNSClient, mockConsumer);
+		verify(mockTransactionalMessanger, never()).registerMessagesSent(any(ObjectType.class), any(List.class));
+	}
+	
+	@Test
+	public void testGetOldestTimestamp(){
+		ChangeMessage newer = new ChangeMessage();
+		newer.setTimestamp(new Date(2000L));
+		ChangeMessage older = new ChangeMessage();
+		older.setTimestamp(new Date(1000L));
+		// call under test
+		assertEquals(new Date(1000L), RepositoryMessagePublisherImpl.getOldestTimestamp(Arrays.asList(newer, older)));
+	}
+	
+	@Test
+	public void testGetOldestTimestampWithNullTimestamp(){
+		ChangeMessage noTimestamp = new ChangeMessage();
+		ChangeMessage older = new ChangeMessage();
+		older.setTimestamp(new Date(1000L));
+		// call under test
+		assertEquals(new Date(1000L), RepositoryMessagePublisherImpl.getOldestTimestamp(Arrays.asList(noTimestamp, older)));
+		assertNull(RepositoryMessagePublisherImpl.getOldestTimestamp(Arrays.asList(noTimestamp)));
+	}
+	
 }
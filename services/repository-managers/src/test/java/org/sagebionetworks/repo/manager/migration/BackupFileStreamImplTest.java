@@ -47,6 +47,7 @@ import org.springframework.test.util.ReflectionTestUtils;
 
 import com.amazonaws.util.StringInputStream;
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.thoughtworks.xstream.XStream;
 import com.thoughtworks.xstream.io.StreamException;
 
@@ -86,6 +87,7 @@ public class BackupFileStreamImplTest {
 	public void before() {
 		backupFileStream = new BackupFileStreamImpl();
 		ReflectionTestUtils.setField(backupFileStream, "typeProvider", mockTypeProvider);
+		ReflectionTestUtils.setField(backupFileStream, "decodeExecutorService", MoreExecutors.newDirectExecutorService());
 		
 		when(mockTypeProvider.getObjectForType(MigrationType.ACL)).thenReturn(new DBOAccessControlList());
 		when(mockTypeProvider.getObjectForType(MigrationType.ACL_ACCESS)).thenReturn(new DBOResourceAccess());
@@ -534,4 +536,110 @@ public class BackupFileStreamImplTest {
 		assertEquals(credentialTwo, results.get(1));
 	}
 	
+	/**
+	 * Set a value for every column so the rows are unchanged by a round trip
+	 * through their table mapping.
+	 */
+	void setAllColumns() {
+		for (DBONode node : Lists.newArrayList(dboNodeOne, dboNodeTwo)) {
+			node.setName("name" + node.getId());
+			node.setParentId(1L);
+			node.setCurrentRevNumber(1L);
+			node.setMaxRevNumber(2L);
+			node.seteTag("etag");
+			node.setCreatedBy(3L);
+			node.setCreatedOn(4L);
+			node.setType("file");
+			node.setAlias("alias" + node.getId());
+		}
+		for (DBORevision revision : Lists.newArrayList(dboRevisionOne, dboRevisionTwo)) {
+			revision.setActivityId(5L);
+			revision.setLabel("label");
+			revision.setComment("comment");
+			revision.setModifiedBy(6L);
+			revision.setModifiedOn(7L);
+			revision.setFileHandleId(8L);
+			revision.setUserAnnotationsJSON("{}");
+		}
+	}
+	
+	@Test
+	public void testWriteBackupFileBinary() throws IOException {
+		setAllColumns();
+		int maximumRowsPerFile = 100;
+		// call under test
+		backupFileStream.writeBackupFile(byteArrayOutputStream, rowsToWrite, BackupAliasType.BINARY, maximumRowsPerFile);
+		ZipInputStream zipIn = new ZipInputStream(new ByteArrayInputStream(byteArrayOutputStream.toByteArray()));
+		ZipEntry entry = zipIn.getNextEntry();
+		assertNotNull(entry);
+		assertEquals("NODE.0.bin", entry.getName());
+		entry = zipIn.getNextEntry();
+		assertNotNull(entry);
+		assertEquals("NODE_REVISION.1.bin", entry.getName());
+		// no more files
+		entry = zipIn.getNextEntry();
+		assertEquals(null, entry);
+	}
+	
+	@Test
+	public void testWriteThenReadBinarySmallMax() throws IOException {
+		setAllColumns();
+		backupAliasType = BackupAliasType.BINARY;
+		// more files than the read ahead limit
+		List<MigratableDatabaseObject<?,?>> rows = new LinkedList<>(rowsToWrite);
+		rows.addAll(credentials);
+		int maximumRowsPerFile = 1;
+		// call under test
+		backupFileStream.writeBackupFile(byteArrayOutputStream, rows, backupAliasType, maximumRowsPerFile);
+		ByteArrayInputStream input = new ByteArrayInputStream(byteArrayOutputStream.toByteArray());
+		// call under test
+		Iterable<MigratableDatabaseObject<?, ?>> resultIterator = backupFileStream.readBackupFile(input, backupAliasType);
+		List<MigratableDatabaseObject<?, ?>> allResults = new LinkedList<>();
+		for(MigratableDatabaseObject<?, ?> row: resultIterator) {
+			allResults.add(row);
+		}
+		assertEquals(rows, allResults);
+	}
+	
+	@Test
+	public void testWriteThenReadBinaryLargeMax() throws IOException {
+		setAllColumns();
+		backupAliasType = BackupAliasType.BINARY;
+		int maximumRowsPerFile = 1000;
+		// call under test
+		backupFileStream.writeBackupFile(byteArrayOutputStream, rowsToWrite, backupAliasType, maximumRowsPerFile);
+		ByteArrayInputStream input = new ByteArrayInputStream(byteArrayOutputStream.toByteArray());
+		// call under test
+		Iterable<MigratableDatabaseObject<?, ?>> resultIterator = backupFileStream.readBackupFile(input, backupAliasType);
+		List<MigratableDatabaseObject<?, ?>> allResults = new LinkedList<>();
+		for(MigratableDatabaseObject<?, ?> row: resultIterator) {
+			allResults.add(row);
+		}
+		assertEquals(rowsToWrite, allResults);
+	}
+	
+	@Test
+	public void testReadBinaryFileMigrationTypeDoesNotExist() throws Exception {
+		// Call under test
+		List<MigratableDatabaseObject<?, ?>> results = backupFileStream.readBinaryFile(new byte[0], "DOES_NOT_EXIST.0.bin");
+		assertEquals(new LinkedList<>(), results);
+	}
+	
+	@Test
+	public void testReadBinaryFileCorrupt() throws Exception {
+		// Call under test
+		try {
+			backupFileStream.readBinaryFile(new byte[] { 1 }, "NODE.0.bin");
+			fail();
+		} catch (RuntimeException e) {
+			assertTrue(e.getCause() instanceof IOException);
+		}
+	}
+	
+	@Test
+	public void testCreateFileNameBinary() {
+		assertEquals("NODE.3.bin", BackupFileStreamImpl.createFileName(MigrationType.NODE, 3, BackupAliasType.BINARY));
+		assertEquals("NODE.3.xml", BackupFileStreamImpl.createFileName(MigrationType.NODE, 3, BackupAliasType.TABLE_NAME));
+	}
+	
 }
@@ -12,6 +12,7 @@ import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -53,6 +54,7 @@ import org.sagebionetworks.repo.model.daemon.BackupAliasType;
 import org.sagebionetworks.repo.model.dbo.DatabaseObject;
 import org.sagebionetworks.repo.model.dbo.MigratableDatabaseObject;
 import org.sagebionetworks.repo.model.dbo.migration.ForeignKeyInfo;
+import org.sagebionetworks.repo.model.dbo.migration.KeysetQueryStreamIterable;
 import org.sagebionetworks.repo.model.dbo.migration.MigratableTableDAO;
 import org.sagebionetworks.repo.model.dbo.persistence.DBONode;
 import org.sagebionetworks.repo.model.dbo.persistence.DBORevision;
@@ -387,6 +389,32 @@ public class MigrationManagerImplTest {
 		assertEquals(allObjects,results);
 	}
 	
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testBackupRangeRequestWithFailure() throws IOException {
+		when(mockFileProvider.createTempFile(any(), any())).thenReturn(mockFile);
+		when(mockFileProvider.createFileOutputStream(any())).thenReturn(mockOutputStream);
+		when(mockUser.isAdmin()).thenReturn(true);
+		when(mockDao.getObjectForType(any())).thenReturn(new DBONode());
+		KeysetQueryStreamIterable<MigratableDatabaseObject<?, ?>> mockNodeStream = mock(KeysetQueryStreamIterable.class);
+		KeysetQueryStreamIterable<MigratableDatabaseObject<?, ?>> mockRevisionStream = mock(KeysetQueryStreamIterable.class);
+		when(mockDao.streamDatabaseObjects(MigrationType.NODE, rangeRequest.getMinimumId(), rangeRequest.getMaximumId(),
+				batchSize)).thenReturn(mockNodeStream);
+		when(mockDao.streamDatabaseObjects(MigrationType.NODE_REVISION, rangeRequest.getMinimumId(),
+				rangeRequest.getMaximumId(), batchSize)).thenReturn(mockRevisionStream);
+		IllegalStateException exception = new IllegalStateException("nope");
+		doThrow(exception).when(mockBackupFileStream).writeBackupFile(any(), any(), any(), anyLong());
+		
+		IllegalStateException result = assertThrows(IllegalStateException.class, ()->{
+	 		// call under test
+			manager.backupRequest(mockUser, rangeRequest);
+		});
+		assertEquals(exception, result);
+		// the pages read ahead are no longer needed
+		verify(mockNodeStream).close();
+		verify(mockRevisionStream).close();
+	}
+	
 	@Test
 	public void testBackupRangeRequestNonAdmin() throws IOException {
 		when(mockUser.isAdmin()).thenReturn(false);
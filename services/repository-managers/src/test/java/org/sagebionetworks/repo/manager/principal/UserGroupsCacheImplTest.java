@@ -0,0 +1,234 @@
+package org.sagebionetworks.repo.manager.principal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.sagebionetworks.StackConfiguration;
+import org.sagebionetworks.cloudwatch.Consumer;
+import org.sagebionetworks.cloudwatch.ProfileData;
+import org.sagebionetworks.repo.model.GroupMembersDAO;
+import org.sagebionetworks.repo.model.ObjectType;
+import org.sagebionetworks.repo.model.message.ChangeMessage;
+import org.sagebionetworks.repo.model.message.TransactionalMessenger;
+import org.sagebionetworks.util.Clock;
+
+import com.google.common.collect.Sets;
+
+@ExtendWith(MockitoExtension.class)
+public class UserGroupsCacheImplTest {
+
+	@Mock
+	private TransactionalMessenger mockTransactionalMessenger;
+	@Mock
+	private GroupMembersDAO mockGroupMembersDao;
+	@Mock
+	private Consumer mockConsumer;
+	@Mock
+	private Clock mockClock;
+	@Mock
+	private StackConfiguration mockStackConfiguration;
+	@Captor
+	private ArgumentCaptor<List<ProfileData>> profileCaptor;
+
+	private UserGroupsCacheImpl cache;
+
+	private Long userId;
+	private Long groupId;
+	private PrincipalGroups groups;
+	private AtomicInteger loadCount;
+	private Supplier<PrincipalGroups> loader;
+
+	@BeforeEach
+	public void before() {
+		when(mockStackConfiguration.getStackInstance()).thenReturn("1a");
+		when(mockClock.currentTimeMillis()).thenReturn(0L);
+		cache = new UserGroupsCacheImpl(mockTransactionalMessenger, mockGroupMembersDao, mockConsumer, mockClock,
+				mockStackConfiguration, 2L);
+		userId = 123L;
+		groupId = 456L;
+		groups = new PrincipalGroups(new Date(1L), Sets.newHashSet(userId, groupId));
+		loadCount = new AtomicInteger();
+		loader = () -> {
+			loadCount.incrementAndGet();
+			return groups;
+		};
+	}
+
+	@Test
+	public void testInitialize() {
+		// call under test
+		cache.initialize();
+		InOrder inOrder = Mockito.inOrder(mockTransactionalMessenger);
+		inOrder.verify(mockTransactionalMessenger).removeObserver(cache);
+		inOrder.verify(mockTransactionalMessenger).registerObserver(cache);
+	}
+
+	@Test
+	public void testGetPrincipalGroups() {
+		// call under test
+		assertSame(groups, cache.getPrincipalGroups(userId, loader));
+		assertSame(groups, cache.getPrincipalGroups(userId, loader));
+		// only loaded once.
+		assertEquals(1, loadCount.get());
+		verify(mockConsumer, never()).addProfileData(any(List.class));
+	}
+
+	@Test
+	public void testGetPrincipalGroupsWithLoaderFailure() {
+		Supplier<PrincipalGroups> failingLoader = () -> {
+			throw new IllegalArgumentException("Principal: 123 is not a User");
+		};
+		assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			cache.getPrincipalGroups(userId, failingLoader);
+		});
+		assertEquals(0L, cache.size());
+	}
+
+	@Test
+	public void testGetPrincipalGroupsWithInvalidationDuringLoad() {
+		Supplier<PrincipalGroups> invalidatingLoader = () -> {
+			loadCount.incrementAndGet();
+			// another thread invalidates the user while the groups are loaded.
+			cache.invalidate(userId);
+			return groups;
+		};
+		// call under test
+		assertSame(groups, cache.getPrincipalGroups(userId, invalidatingLoader));
+		// the groups might be stale so they are not kept.
+		assertEquals(0L, cache.size());
+		cache.getPrincipalGroups(userId, loader);
+		assertEquals(2, loadCount.get());
+		assertEquals(1L, cache.size());
+	}
+
+	@Test
+	public void testGetPrincipalGroupsWithNullId() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			cache.getPrincipalGroups(null, loader);
+		});
+	}
+
+	@Test
+	public void testMaxSize() {
+		cache.getPrincipalGroups(1L, loader);
+		cache.getPrincipalGroups(2L, loader);
+		cache.getPrincipalGroups(3L, loader);
+		assertEquals(2L, cache.size());
+	}
+
+	@Test
+	public void testInvalidate() {
+		cache.getPrincipalGroups(userId, loader);
+		// call under test
+		cache.invalidate(userId);
+		cache.getPrincipalGroups(userId, loader);
+		assertEquals(2, loadCount.get());
+	}
+
+	@Test
+	public void testFireChangeMessageForCachedUser() {
+		Long otherUserId = 789L;
+		cache.getPrincipalGroups(userId, loader);
+		cache.getPrincipalGroups(otherUserId, loader);
+		// call under test
+		cache.fireChangeMessage(createMessage(userId, ObjectType.PRINCIPAL));
+		// only the changed user is removed.
+		assertEquals(1L, cache.size());
+		cache.getPrincipalGroups(otherUserId, loader);
+		assertEquals(2, loadCount.get());
+		verify(mockGroupMembersDao, never()).getMemberIds(any());
+	}
+
+	@Test
+	public void testFireChangeMessageForGroupWithRemovedMember() {
+		Long otherUserId = 789L;
+		cache.getPrincipalGroups(userId, loader);
+		cache.getPrincipalGroups(otherUserId, () -> new PrincipalGroups(new Date(1L), Sets.newHashSet(otherUserId)));
+		// the user was removed from the group.
+		when(mockGroupMembersDao.getMemberIds(groupId)).thenReturn(Collections.emptySet());
+		// call under test
+		cache.fireChangeMessage(createMessage(groupId, ObjectType.PRINCIPAL));
+		// only the cached member of the group is removed.
+		assertEquals(1L, cache.size());
+		cache.getPrincipalGroups(otherUserId, loader);
+		assertEquals(1, loadCount.get());
+	}
+
+	@Test
+	public void testFireChangeMessageForGroupWithAddedMember() {
+		Long otherUserId = 789L;
+		cache.getPrincipalGroups(userId, loader);
+		cache.getPrincipalGroups(otherUserId, () -> new PrincipalGroups(new Date(1L), Sets.newHashSet(otherUserId)));
+		// the other user was added to a new group.
+		Long newGroupId = 999L;
+		when(mockGroupMembersDao.getMemberIds(newGroupId)).thenReturn(Sets.newHashSet(otherUserId));
+		// call under test
+		cache.fireChangeMessage(createMessage(newGroupId, ObjectType.PRINCIPAL));
+		// only the new member of the group is removed.
+		assertEquals(1L, cache.size());
+		cache.getPrincipalGroups(userId, loader);
+		assertEquals(1, loadCount.get());
+	}
+
+	@Test
+	public void testFireChangeMessageForOtherType() {
+		cache.getPrincipalGroups(userId, loader);
+		ChangeMessage message = createMessage(userId, ObjectType.ENTITY);
+		// call under test
+		cache.fireChangeMessage(message);
+		assertEquals(1L, cache.size());
+	}
+
+	@Test
+	public void testPushMetrics() {
+		cache.getPrincipalGroups(userId, loader);
+		cache.getPrincipalGroups(userId, loader);
+		when(mockClock.currentTimeMillis()).thenReturn(UserGroupsCacheImpl.PUBLISH_PERIOD_MS);
+		// call under test
+		cache.getPrincipalGroups(userId, loader);
+		verify(mockConsumer).addProfileData(profileCaptor.capture());
+		List<ProfileData> metrics = profileCaptor.getValue();
+		assertEquals(2, metrics.size());
+		assertEquals(UserGroupsCacheImpl.METRIC_HIT_COUNT, metrics.get(0).getName());
+		assertEquals(new Double(2), metrics.get(0).getValue());
+		assertEquals(UserGroupsCacheImpl.METRIC_MISS_COUNT, metrics.get(1).getName());
+		assertEquals(new Double(1), metrics.get(1).getValue());
+		assertEquals("User-Groups-Cache-1a", metrics.get(0).getNamespace());
+		// the next push only includes the new hits and misses.
+		when(mockClock.currentTimeMillis()).thenReturn(UserGroupsCacheImpl.PUBLISH_PERIOD_MS * 2);
+		cache.getPrincipalGroups(userId, loader);
+		verify(mockConsumer, Mockito.times(2)).addProfileData(profileCaptor.capture());
+		metrics = profileCaptor.getValue();
+		assertEquals(new Double(1), metrics.get(0).getValue());
+		assertEquals(new Double(0), metrics.get(1).getValue());
+	}
+
+	private static ChangeMessage createMessage(Long objectId, ObjectType type) {
+		ChangeMessage message = new ChangeMessage();
+		message.setObjectId(objectId.toString());
+		message.setObjectType(type);
+		return message;
+	}
+}
@@ -218,14 +218,14 @@ public class ReplicationManagerTest {
 		List<Long> expectedDeleteIds = ImmutableList.of(333L);
 		List<Long> expectedCreateOrUpdateIds = ImmutableList.of(111L, 222L);
 		
-		when(mockIndexConnectionFactory.connectToFirstIndex()).thenReturn(mockTableIndexManager);
+		when(mockIndexConnectionFactory.connectToAllIndices()).thenReturn(Collections.singletonList(mockTableIndexManager));
 		when(mockObjectDataProviderFactory.getObjectDataProvider(any())).thenReturn(mockObjectDataProvider);
 		when(mockObjectDataProvider.getObjectData(any(), anyInt())).thenReturn(entityData.iterator());
 		
 		// call under test
 		manager.replicate(changes);
 		
-		verify(mockIndexConnectionFactory).connectToFirstIndex();
+		verify(mockIndexConnectionFactory).connectToAllIndices();
 		verify(mockObjectDataProviderFactory).getObjectDataProvider(mainType);
 		verify(mockObjectDataProvider).getObjectData(expectedCreateOrUpdateIds, ReplicationManagerImpl.MAX_ANNOTATION_CHARS);
 		verify(mockTableIndexManager).deleteObjectData(mainType, expectedDeleteIds);
@@ -244,7 +244,7 @@ public class ReplicationManagerTest {
 		
 		List<Long> expectedDeleteIds = Collections.emptyList();
 
-		when(mockIndexConnectionFactory.connectToFirstIndex()).thenReturn(mockTableIndexManager);
+		when(mockIndexConnectionFactory.connectToAllIndices()).thenReturn(Collections.singletonList(mockTableIndexManager));
 		when(mockObjectDataProviderFactory.getObjectDataProvider(any())).thenReturn(mockObjectDataProvider);
 		when(mockObjectDataProvider.getObjectData(any(), anyInt())).thenReturn(entityData.iterator());
 
@@ -252,7 +252,7 @@ public class ReplicationManagerTest {
 		// call under test
 		manager.replicate(mainType, entityId);
 		
-		verify(mockIndexConnectionFactory).connectToFirstIndex();
+		verify(mockIndexConnectionFactory).connectToAllIndices();
 		verify(mockObjectDataProviderFactory).getObjectDataProvider(mainType);
 		verify(mockObjectDataProvider).getObjectData(entityids, ReplicationManagerImpl.MAX_ANNOTATION_CHARS);
 		verify(mockTableIndexManager).deleteObjectData(mainType, expectedDeleteIds);
@@ -261,6 +261,30 @@ public class ReplicationManagerTest {
 		assertEquals(entityData, actualList);
 	}
 	
+	@Test
+	public void testReplicateWithMultipleIndices() {
+		String entityId = "syn123";
+		List<Long> entityids = Collections.singletonList(KeyFactory.stringToKey(entityId));
+		
+		List<ObjectDataDTO> entityData = createEntityDtos(1);
+		
+		List<Long> expectedDeleteIds = Collections.emptyList();
+
+		when(mockIndexConnectionFactory.connectToAllIndices()).thenReturn(ImmutableList.of(mockTableIndexManager, mockTableIndexManager));
+		when(mockObjectDataProviderFactory.getObjectDataProvider(any())).thenReturn(mockObjectDataProvider);
+		when(mockObjectDataProvider.getObjectData(any(), anyInt())).thenReturn(entityData.iterator(), entityData.iterator());
+
+		// call under test
+		manager.replicate(mainType, entityId);
+		
+		verify(mockObjectDataProvider, times(2)).getObjectData(entityids, ReplicationManagerImpl.MAX_ANNOTATION_CHARS);
+		verify(mockTableIndexManager, times(2)).deleteObjectData(mainType, expectedDeleteIds);
+		verify(mockTableIndexManager, times(2)).updateObjectReplication(eq(mainType), iteratorCaptor.capture());
+		for (Iterator<ObjectDataDTO> iterator : iteratorCaptor.getAllValues()) {
+			assertEquals(entityData, ImmutableList.copyOf(iterator));
+		}
+	}
+	
 	@Test
 	public void testCompareCheckSums(){
 		when(mockObjectDataProvider.getReplicationType()).thenReturn(mainType);
@@ -1,18 +1,24 @@
 package org.sagebionetworks.repo.manager.search;
 
 import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.sagebionetworks.repo.model.ObjectType;
 import org.sagebionetworks.repo.model.dao.WikiPageKey;
@@ -74,90 +80,102 @@ public class ChangeMessageToSearchDocumentTranslatorTest{
 
 		docOne = new Document();
 		docOne.setId(synapseId);
-		when(mockSearchDocumentDriver.formulateSearchDocument(synapseId)).thenReturn(docOne);
-		
-		when(mockSearchDocumentDriver.doesEntityExistInRepository(synapseId)).thenReturn(true);
-		when(mockSearchDao.doesDocumentExistInSearchIndex(synapseId, etag)).thenReturn(false);
 		
 		wikiId = "987";
 		wikiKey = WikiPageKeyHelper.createWikiPageKey(synapseId, ObjectType.ENTITY, wikiId);
-		when(mockWikiPageDao.lookupWikiKey(wikiId)).thenReturn(wikiKey);
 		when(mockRecordLogger.startRecordForChangeMessage(any(ChangeMessage.class))).thenReturn(mocKRecord);
 	}
 	
 	@Test
-	public void testEntityChange() {
+	public void testGenerateSearchDocumentsIfNecessaryEntity() {
+		when(mockSearchDocumentDriver.formulateSearchDocuments(Collections.singletonList(synapseId)))
+				.thenReturn(Collections.singletonMap(synapseId, docOne));
 		// call under test
-		Document doc = translator.entityChange(synapseId, mocKRecord);
-		assertEquals(docOne, doc);
+		List<Document> docs = translator.generateSearchDocumentsIfNecessary(Collections.singletonList(message));
+		assertEquals(Collections.singletonList(docOne), docs);
+		verify(mockRecordLogger).startRecordForChangeMessage(message);
 		verify(mocKRecord).withAction(DocumentAction.CREATE_OR_UPDATE);
-		verify(mockSearchDocumentDriver).formulateSearchDocument(synapseId);
+		verify(mockWikiPageDao, never()).lookupWikiKey(anyString());
 	}
 	
 	@Test
-	public void testEntityChangeEntityDoesNotExist() {
-		// documents that do not exist do not have an etag.
-		when(mockSearchDocumentDriver.doesEntityExistInRepository(synapseId)).thenReturn(false);
+	public void testGenerateSearchDocumentsIfNecessaryEntityDoesNotExist() {
+		// entities that do not exist are not included in the results.
+		when(mockSearchDocumentDriver.formulateSearchDocuments(Collections.singletonList(synapseId)))
+				.thenReturn(Collections.emptyMap());
 		// call under test
-		Document doc = translator.entityChange(synapseId, mocKRecord);
+		List<Document> docs = translator.generateSearchDocumentsIfNecessary(Collections.singletonList(message));
 		Document expectedDocument = new Document();
 		expectedDocument.setId(message.getObjectId());
 		expectedDocument.setType(DocumentTypeNames.delete);
-		assertEquals(expectedDocument, doc);
+		assertEquals(Collections.singletonList(expectedDocument), docs);
 		verify(mocKRecord).withAction(DocumentAction.DELETE);
-		verify(mockSearchDocumentDriver, never()).formulateSearchDocument(anyString());
 	}
 	
 	@Test
-	public void testWikiChange() {
-		//when a wiki is updated, the entity to which it is associated may still have the same etag
-		when(mockSearchDao.doesDocumentExistInSearchIndex(synapseId, etag)).thenReturn(true);
-
-		String wikiId = "987";
-		WikiPageKey key = WikiPageKeyHelper.createWikiPageKey(synapseId, ObjectType.ENTITY, wikiId);
-		when(mockWikiPageDao.lookupWikiKey(wikiId)).thenReturn(key);
-		
+	public void testGenerateSearchDocumentsIfNecessaryWiki() {
+		when(mockWikiPageDao.lookupWikiKey(wikiId)).thenReturn(wikiKey);
+		when(mockSearchDocumentDriver.formulateSearchDocuments(Collections.singletonList(synapseId)))
+				.thenReturn(Collections.singletonMap(synapseId, docOne));
+		message.setObjectId(wikiId);
+		message.setObjectType(ObjectType.WIKI);
 		// call under test
-		Document doc = translator.wikiChange(wikiId, mocKRecord);
-		assertEquals(docOne, doc);
+		List<Document> docs = translator.generateSearchDocumentsIfNecessary(Collections.singletonList(message));
+		assertEquals(Collections.singletonList(docOne), docs);
+		verify(mockRecordLogger).startRecordForChangeMessage(message);
 		verify(mockWikiPageDao).lookupWikiKey(wikiId);
-		verify(mocKRecord).withAction(DocumentAction.CREATE_OR_UPDATE);
 		verify(mocKRecord).withWikiOwner(synapseId);
-		verify(mockSearchDocumentDriver).formulateSearchDocument(synapseId);
+		verify(mocKRecord).withAction(DocumentAction.CREATE_OR_UPDATE);
 	}
-
+	
 	@Test
-	public void testWikiChangeWikiNotFound() {
-		String wikiId = "987";
+	public void testGenerateSearchDocumentsIfNecessaryWikiNotFound() {
 		when(mockWikiPageDao.lookupWikiKey(wikiId)).thenThrow(new NotFoundException());
-
+		when(mockSearchDocumentDriver.formulateSearchDocuments(Collections.emptyList())).thenReturn(Collections.emptyMap());
+		message.setObjectId(wikiId);
+		message.setObjectType(ObjectType.WIKI);
 		// call under test
-		Document doc = translator.wikiChange(wikiId, mocKRecord);
-		assertNull(doc);
+		List<Document> docs = translator.generateSearchDocumentsIfNecessary(Collections.singletonList(message));
+		assertEquals(Collections.emptyList(), docs);
 		verify(mocKRecord).withAction(DocumentAction.IGNORE);
-		verify(mockSearchDocumentDriver, never()).formulateSearchDocument(anyString());
 	}
 	
 	@Test
-	public void testGenerateSearchDocumentIfNecessaryEntity() {
+	public void testGenerateSearchDocumentsIfNecessaryBatch() {
+		// the entity and its wiki both changed.
+		ChangeMessage wikiMessage = new ChangeMessage();
+		wikiMessage.setObjectId(wikiId);
+		wikiMessage.setObjectType(ObjectType.WIKI);
+		when(mockWikiPageDao.lookupWikiKey(wikiId)).thenReturn(wikiKey);
+		ChangeMessage deletedMessage = new ChangeMessage();
+		deletedMessage.setObjectId("445566");
+		deletedMessage.setObjectType(ObjectType.ENTITY);
+		CloudSearchDocumentLogRecord mockDeletedRecord = Mockito.mock(CloudSearchDocumentLogRecord.class);
+		when(mockRecordLogger.startRecordForChangeMessage(deletedMessage)).thenReturn(mockDeletedRecord);
+		when(mockSearchDocumentDriver.formulateSearchDocuments(Arrays.asList(synapseId, "445566")))
+				.thenReturn(Collections.singletonMap(synapseId, docOne));
 		// call under test
-		Document doc = translator.generateSearchDocumentIfNecessary(message);
-		assertEquals(docOne, doc);
-		verify(mockRecordLogger).startRecordForChangeMessage(message);
-		verify(mockWikiPageDao, never()).lockForUpdate(anyString());
+		List<Document> docs = translator
+				.generateSearchDocumentsIfNecessary(Arrays.asList(message, wikiMessage, deletedMessage));
+		Document expectedDelete = new Document();
+		expectedDelete.setId("445566");
+		expectedDelete.setType(DocumentTypeNames.delete);
+		// a single document for each entity
+		assertEquals(Arrays.asList(docOne, expectedDelete), docs);
+		verify(mockSearchDocumentDriver).formulateSearchDocuments(Arrays.asList(synapseId, "445566"));
+		verify(mocKRecord, times(2)).withAction(DocumentAction.CREATE_OR_UPDATE);
+		verify(mockDeletedRecord).withAction(DocumentAction.DELETE);
 	}
 	
 	@Test
-	public void testGenerateSearchDocumentIfNecessaryWiki() {
-		String wikiId = "987";
-		WikiPageKey key = WikiPageKeyHelper.createWikiPageKey(synapseId, ObjectType.ENTITY, wikiId);
-		when(mockWikiPageDao.lookupWikiKey(wikiId)).thenReturn(key);
-		message.setObjectId(wikiId);
-		message.setObjectType(ObjectType.WIKI);
-		// call under test
-		Document doc = translator.generateSearchDocumentIfNecessary(message);
-		assertEquals(docOne, doc);
-		verify(mockRecordLogger).startRecordForChangeMessage(message);
-		verify(mockWikiPageDao).lookupWikiKey(wikiId);
+	public void testGenerateSearchDocumentsIfNecessaryUnknownType() {
+		message.setObjectType(ObjectType.ACTIVITY);
+		try {
+			// call under test
+			translator.generateSearchDocumentsIfNecessary(Collections.singletonList(message));
+			fail();
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
 	}
 }
@@ -11,10 +11,12 @@ import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.junit.After;
@@ -292,6 +294,17 @@ public class SearchDocumentDriverImplAutowireTest {
 		resultText = searchDocumentDriver.getAllWikiPageText("-123");
 		assertEquals(null, resultText);
 	}
+	
+	@Test
+	public void testFormulateSearchDocuments() throws Exception {
+		Document expected = searchDocumentDriver.formulateSearchDocument(project.getId());
+		String doesNotExist = "-123";
+		// call under test
+		Map<String, Document> results = searchDocumentDriver.formulateSearchDocuments(Arrays.asList(project.getId(), doesNotExist));
+		assertEquals(1, results.size());
+		// the batch document should match the single document
+		assertEquals(expected, results.get(project.getId()));
+	}
 
 
 	// http://stackoverflow.com/questions/326390/how-to-create-a-java-string-from-the-contents-of-a-file
@@ -3,23 +3,35 @@ package org.sagebionetworks.repo.manager.search;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
 import static org.sagebionetworks.search.SearchConstants.FIELD_CONSORTIUM;
 import static org.sagebionetworks.search.SearchConstants.FIELD_DIAGNOSIS;
 import static org.sagebionetworks.search.SearchConstants.FIELD_ORGAN;
 import static org.sagebionetworks.search.SearchConstants.FIELD_TISSUE;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
+import org.junit.After;
+
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -27,13 +39,20 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.sagebionetworks.repo.model.AccessControlList;
+import org.sagebionetworks.repo.model.AccessControlListDAO;
 import org.sagebionetworks.repo.model.EntityType;
 import org.sagebionetworks.repo.model.Node;
+import org.sagebionetworks.repo.model.NodeDAO;
+import org.sagebionetworks.repo.model.ObjectType;
 import org.sagebionetworks.repo.model.annotation.v2.Annotations;
 import org.sagebionetworks.repo.model.annotation.v2.AnnotationsV2TestUtils;
 import org.sagebionetworks.repo.model.annotation.v2.AnnotationsValueType;
 import org.sagebionetworks.repo.model.search.Document;
 import org.sagebionetworks.repo.model.search.DocumentFields;
+import org.sagebionetworks.repo.model.v2.dao.V2WikiPageDao;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.MoreExecutors;
 
 @RunWith(MockitoJUnitRunner.class)
 public class SearchDocumentDriverImplTest {
@@ -49,6 +68,21 @@ public class SearchDocumentDriverImplTest {
 	@Mock
 	private AccessControlList mockAcl;
 
+	@Mock
+	private NodeDAO mockNodeDao;
+
+	@Mock
+	private AccessControlListDAO mockAclDao;
+
+	@Mock
+	private V2WikiPageDao mockWikiPageDao;
+
+	@Mock
+	private Document mockDocumentOne;
+
+	@Mock
+	private Document mockDocumentTwo;
+
 	private Node node;
 
 	private final String annoKey1 = "annoKey1";
@@ -71,7 +105,12 @@ public class SearchDocumentDriverImplTest {
 		annotationsV2 = new Annotations();
 
 		documentFields = new DocumentFields();
-		spySearchDocumentDriver = Mockito.spy(new SearchDocumentDriverImpl());
+		SearchDocumentDriverImpl driver = new SearchDocumentDriverImpl();
+		driver.nodeDao = mockNodeDao;
+		driver.aclDAO = mockAclDao;
+		driver.wikiPageDao = mockWikiPageDao;
+		driver.wikiTextExecutorService = MoreExecutors.newDirectExecutorService();
+		spySearchDocumentDriver = Mockito.spy(driver);
 
 		annoValuesMap = new HashMap<>();
 
@@ -91,6 +130,11 @@ public class SearchDocumentDriverImplTest {
 
 	}
 
+	@After
+	public void after() {
+		spySearchDocumentDriver.wikiTextExecutorService.shutdownNow();
+	}
+
 
 	@Test
 	public void getFirsAnnotationValues__multipleValues(){
@@ -192,4 +236,95 @@ public class SearchDocumentDriverImplTest {
 		assertEquals(sanitizedString, result.getFields().getDescription());
 	}
 
+	/**
+	 * Setup two available entities.
+	 * @param benefactors
+	 * @return the two nodes
+	 */
+	List<Node> setupFormulateSearchDocuments(Map<Long, Long> benefactors) {
+		Node nodeOne = new Node();
+		nodeOne.setId("syn1");
+		Node nodeTwo = new Node();
+		nodeTwo.setId("syn2");
+		Annotations annotationsTwo = new Annotations();
+		when(mockNodeDao.getAvailableNodes(Arrays.asList(1L, 2L, 3L))).thenReturn(ImmutableSet.of(1L, 2L));
+		when(mockNodeDao.getNodes(anyList())).thenReturn(Arrays.asList(nodeOne, nodeTwo));
+		when(mockNodeDao.getBenefactors(anyList())).thenReturn(benefactors);
+		Map<Long, Annotations> annotations = new HashMap<>();
+		annotations.put(1L, annotationsV2);
+		annotations.put(2L, annotationsTwo);
+		when(mockNodeDao.getUserAnnotationsForCurrentVersions(anyList())).thenReturn(annotations);
+		doReturn("wiki one").when(spySearchDocumentDriver).getAllWikiPageText("syn1");
+		doReturn(null).when(spySearchDocumentDriver).getAllWikiPageText("syn2");
+		return Arrays.asList(nodeOne, nodeTwo);
+	}
+
+	@Test
+	public void testFormulateSearchDocuments(){
+		// both entities have the same benefactor
+		Map<Long, Long> benefactors = new HashMap<>();
+		benefactors.put(1L, 1L);
+		benefactors.put(2L, 1L);
+		List<Node> nodes = setupFormulateSearchDocuments(benefactors);
+		when(mockAclDao.get("syn1", ObjectType.ENTITY)).thenReturn(mockAcl);
+		doReturn(mockDocumentOne).when(spySearchDocumentDriver).formulateSearchDocument(nodes.get(0), annotationsV2, mockAcl, "wiki one");
+		doReturn(mockDocumentTwo).when(spySearchDocumentDriver).formulateSearchDocument(eq(nodes.get(1)), any(Annotations.class), eq(mockAcl), isNull());
+
+		//method under test
+		Map<String, Document> results = spySearchDocumentDriver.formulateSearchDocuments(Arrays.asList("syn1", "2", "syn3"));
+
+		Map<String, Document> expected = new LinkedHashMap<>();
+		expected.put("syn1", mockDocumentOne);
+		expected.put("2", mockDocumentTwo);
+		assertEquals(expected, results);
+		// the ACL of the shared benefactor is only loaded once.
+		verify(mockAclDao, times(1)).get("syn1", ObjectType.ENTITY);
+		verifyNoMoreInteractions(mockAclDao);
+	}
+
+	@Test
+	public void testFormulateSearchDocumentsEntityDeleted(){
+		// the second entity was deleted after its availability was checked
+		List<Node> nodes = setupFormulateSearchDocuments(Collections.singletonMap(1L, 1L));
+		when(mockAclDao.get("syn1", ObjectType.ENTITY)).thenReturn(mockAcl);
+		doReturn(mockDocumentOne).when(spySearchDocumentDriver).formulateSearchDocument(nodes.get(0), annotationsV2, mockAcl, "wiki one");
+
+		//method under test
+		Map<String, Document> results = spySearchDocumentDriver.formulateSearchDocuments(Arrays.asList("syn1", "2", "syn3"));
+
+		assertEquals(Collections.singletonMap("syn1", mockDocumentOne), results);
+	}
+
+	@Test
+	public void testFormulateSearchDocumentsWikiFailure(){
+		when(mockNodeDao.getAvailableNodes(Arrays.asList(1L))).thenReturn(ImmutableSet.of(1L));
+		IllegalStateException exception = new IllegalStateException("S3 failure");
+		doThrow(exception).when(spySearchDocumentDriver).getAllWikiPageText("syn1");
+		Node nodeOne = new Node();
+		nodeOne.setId("syn1");
+		when(mockNodeDao.getNodes(anyList())).thenReturn(Collections.singletonList(nodeOne));
+		when(mockNodeDao.getBenefactors(anyList())).thenReturn(Collections.singletonMap(1L, 1L));
+		when(mockNodeDao.getUserAnnotationsForCurrentVersions(anyList())).thenReturn(Collections.singletonMap(1L, annotationsV2));
+		when(mockAclDao.get("syn1", ObjectType.ENTITY)).thenReturn(mockAcl);
+		try {
+			//method under test
+			spySearchDocumentDriver.formulateSearchDocuments(Collections.singletonList("syn1"));
+			fail();
+		} catch (IllegalStateException e) {
+			assertEquals(exception, e);
+		}
+	}
+
+	@Test
+	public void testFormulateSearchDocumentsNoneAvailable(){
+		when(mockNodeDao.getAvailableNodes(Arrays.asList(1L))).thenReturn(Collections.emptySet());
+
+		//method under test
+		Map<String, Document> results = spySearchDocumentDriver.formulateSearchDocuments(Collections.singletonList("syn1"));
+
+		assertTrue(results.isEmpty());
+		verify(mockNodeDao, never()).getNodes(anyList());
+		verify(spySearchDocumentDriver, never()).getAllWikiPageText(anyString());
+	}
+
 }
@@ -0,0 +1,108 @@
+package org.sagebionetworks.repo.manager.table;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.sagebionetworks.repo.model.dbo.dao.table.TableModelTestUtils;
+import org.sagebionetworks.repo.model.entity.IdAndVersion;
+import org.sagebionetworks.repo.model.table.ColumnModel;
+import org.sagebionetworks.repo.model.table.Row;
+import org.sagebionetworks.repo.model.table.RowSet;
+import org.sagebionetworks.table.cluster.SqlQuery;
+import org.sagebionetworks.table.cluster.SqlQueryBuilder;
+
+import com.google.common.collect.Lists;
+
+@ExtendWith(MockitoExtension.class)
+public class FacetQueryCacheImplTest {
+
+	@Mock
+	private Supplier<RowSet> mockLoader;
+
+	private FacetQueryCacheImpl cache;
+	private IdAndVersion tableId;
+	private SqlQuery facetQuery;
+	private RowSet rowSet;
+
+	@BeforeEach
+	public void before() throws Exception {
+		cache = new FacetQueryCacheImpl();
+		tableId = IdAndVersion.parse("syn123");
+		List<ColumnModel> schema = TableModelTestUtils.createOneOfEachType(true);
+		facetQuery = new SqlQueryBuilder("select i0, count(*) from syn123 group by i0", schema, 1L).build();
+		rowSet = new RowSet();
+		rowSet.setRows(Collections.singletonList(new Row().setValues(Lists.newArrayList("a", "1"))));
+	}
+
+	@Test
+	public void testGetFacetResultsWithHit() {
+		when(mockLoader.get()).thenReturn(rowSet);
+		// call under test
+		assertSame(rowSet, cache.getFacetResults(tableId, "etag1", facetQuery, mockLoader));
+		assertSame(rowSet, cache.getFacetResults(tableId, "etag1", facetQuery, mockLoader));
+		// the second call must not run the query.
+		verify(mockLoader, times(1)).get();
+		assertEquals(1L, cache.size());
+	}
+
+	@Test
+	public void testGetFacetResultsWithEtagChange() {
+		when(mockLoader.get()).thenReturn(rowSet);
+		cache.getFacetResults(tableId, "etag1", facetQuery, mockLoader);
+		// call under test
+		cache.getFacetResults(tableId, "etag2", facetQuery, mockLoader);
+		verify(mockLoader, times(2)).get();
+		// the results for the old etag must be removed.
+		assertEquals(1L, cache.size());
+	}
+
+	@Test
+	public void testGetFacetResultsWithDifferentTables() {
+		when(mockLoader.get()).thenReturn(rowSet);
+		cache.getFacetResults(tableId, "etag1", facetQuery, mockLoader);
+		// call under test
+		cache.getFacetResults(IdAndVersion.parse("syn123.2"), "etag2", facetQuery, mockLoader);
+		verify(mockLoader, times(2)).get();
+		assertEquals(2L, cache.size());
+	}
+
+	@Test
+	public void testEvict() {
+		when(mockLoader.get()).thenReturn(rowSet);
+		cache.getFacetResults(tableId, "etag1", facetQuery, mockLoader);
+		// call under test
+		cache.evict(tableId);
+		assertEquals(0L, cache.size());
+	}
+
+	@Test
+	public void testGetFacetResultsOverMaxWeight() {
+		cache = new FacetQueryCacheImpl(1L);
+		when(mockLoader.get()).thenReturn(rowSet);
+		// call under test
+		assertSame(rowSet, cache.getFacetResults(tableId, "etag1", facetQuery, mockLoader));
+		// too large to be cached.
+		assertEquals(0L, cache.size());
+	}
+
+	@Test
+	public void testGetFacetResultsWithNullEtag() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			cache.getFacetResults(tableId, null, facetQuery, mockLoader);
+		});
+	}
+}
@@ -0,0 +1,74 @@
+package org.sagebionetworks.repo.manager.table;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.sagebionetworks.table.query.model.QuerySpecification;
+
+public class ParsedQueryCacheImplTest {
+
+	private ParsedQueryCacheImpl cache;
+	private String sql;
+
+	@BeforeEach
+	public void before() {
+		cache = new ParsedQueryCacheImpl();
+		sql = "select foo from syn123 where bar = 1";
+	}
+
+	@Test
+	public void testParseQuery() {
+		// call under test
+		QuerySpecification model = cache.parseQuery(sql);
+		assertEquals("SELECT foo FROM syn123 WHERE bar = 1", model.toSql());
+		assertEquals(1L, cache.size());
+	}
+
+	@Test
+	public void testParseQueryWithHit() {
+		QuerySpecification first = cache.parseQuery(sql);
+		// call under test
+		QuerySpecification second = cache.parseQuery(sql);
+		// each caller must get its own copy.
+		assertNotSame(first, second);
+		assertEquals(first.toSql(), second.toSql());
+		assertEquals(1L, cache.size());
+	}
+
+	@Test
+	public void testParseQueryWithModifiedCopy() {
+		QuerySpecification first = cache.parseQuery(sql);
+		// changes to a copy must not change the cached model.
+		first.getTableExpression().replaceWhere(null);
+		// call under test
+		QuerySpecification second = cache.parseQuery(sql);
+		assertEquals("SELECT foo FROM syn123 WHERE bar = 1", second.toSql());
+	}
+
+	@Test
+	public void testParseQueryWithMaxSize() {
+		cache = new ParsedQueryCacheImpl(1L);
+		cache.parseQuery(sql);
+		// call under test
+		cache.parseQuery("select bar from syn123");
+		assertEquals(1L, cache.size());
+	}
+
+	@Test
+	public void testParseQueryWithParseException() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			cache.parseQuery("this is not sql");
+		});
+		assertEquals(0L, cache.size());
+	}
+
+	@Test
+	public void testParseQueryWithNullSql() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			cache.parseQuery(null);
+		});
+	}
+}
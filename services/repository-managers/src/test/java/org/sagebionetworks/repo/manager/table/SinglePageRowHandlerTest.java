@@ -0,0 +1,41 @@
+package org.sagebionetworks.repo.manager.table;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.sagebionetworks.repo.model.table.Row;
+
+public class SinglePageRowHandlerTest {
+
+	@Test
+	public void testNextRow() {
+		Row one = new Row().setRowId(1L);
+		Row two = new Row().setRowId(2L);
+		SinglePageRowHandler handler = new SinglePageRowHandler(10L);
+		// call under test
+		handler.nextRow(one);
+		handler.nextRow(two);
+		assertEquals(Arrays.asList(one, two), handler.getRows());
+	}
+
+	@Test
+	public void testNextRowWithNullMaxRowsPerPage() {
+		Row one = new Row().setRowId(1L);
+		SinglePageRowHandler handler = new SinglePageRowHandler(null);
+		// call under test
+		handler.nextRow(one);
+		assertEquals(Arrays.asList(one), handler.getRows());
+	}
+
+	@Test
+	public void testNextRowWithPageLargerThanInitialCapacity() {
+		SinglePageRowHandler handler = new SinglePageRowHandler(SinglePageRowHandler.MAX_INITIAL_CAPACITY * 10L);
+		for (long i = 0; i < SinglePageRowHandler.MAX_INITIAL_CAPACITY + 1; i++) {
+			// call under test
+			handler.nextRow(new Row().setRowId(i));
+		}
+		assertEquals(SinglePageRowHandler.MAX_INITIAL_CAPACITY + 1, handler.getRows().size());
+	}
+}
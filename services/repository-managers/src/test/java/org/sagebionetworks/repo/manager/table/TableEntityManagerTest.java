@@ -157,6 +157,8 @@ public class TableEntityManagerTest {
 	NodeManager mockNodeManager;
 	@Mock
 	EventsCollector mockStatisticsCollector;
+	@Mock
+	TableIndexCheckpointManager mockCheckpointManager;
 	@InjectMocks
 	TableEntityManagerImpl manager;
 	
@@ -1091,6 +1093,7 @@ public class TableEntityManagerTest {
 		verify(mockColumModelManager).unbindAllColumnsAndOwnerFromObject(tableId);
 		verify(mockTruthDao).deleteAllRowDataForTable(tableId);
 		verify(mockTableTransactionDao).deleteTable(tableId);
+		verify(mockCheckpointManager).deleteCheckpoints(123L);
 	}
 	
 	@Test
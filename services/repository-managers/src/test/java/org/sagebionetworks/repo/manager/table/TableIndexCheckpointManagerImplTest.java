@@ -0,0 +1,244 @@
+package org.sagebionetworks.repo.manager.table;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.sagebionetworks.StackConfiguration;
+import org.sagebionetworks.aws.SynapseS3Client;
+import org.sagebionetworks.repo.model.dbo.dao.table.TableModelTestUtils;
+import org.sagebionetworks.repo.model.table.ColumnModel;
+import org.sagebionetworks.repo.model.table.ColumnType;
+import org.sagebionetworks.table.cluster.utils.TableModelUtils;
+import org.sagebionetworks.util.FileProviderImpl;
+import org.sagebionetworks.util.csv.CSVWriterStream;
+
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.google.common.collect.Lists;
+
+@ExtendWith(MockitoExtension.class)
+public class TableIndexCheckpointManagerImplTest {
+
+	@Mock
+	private SynapseS3Client mockS3Client;
+	@Mock
+	private ColumnModelManager mockColumnModelManager;
+	@Mock
+	private StackConfiguration mockConfig;
+	@Captor
+	private ArgumentCaptor<ListObjectsRequest> listRequestCaptor;
+	@Captor
+	private ArgumentCaptor<PutObjectRequest> putRequestCaptor;
+
+	private TableIndexCheckpointManagerImpl manager;
+
+	private String bucket;
+	private Long tableId;
+	private List<ColumnModel> schema;
+	private String schemaMD5Hex;
+	private File uploaded;
+
+	@BeforeEach
+	public void before() throws Exception {
+		bucket = "snapshot.bucket";
+		when(mockConfig.getViewSnapshotBucketName()).thenReturn(bucket);
+		when(mockConfig.getStackInstance()).thenReturn("prod-400");
+		manager = new TableIndexCheckpointManagerImpl(mockS3Client, new FileProviderImpl(), mockColumnModelManager,
+				mockConfig);
+		tableId = 123L;
+		schema = Lists.newArrayList(TableModelTestUtils.createColumn(1L, "one", ColumnType.STRING),
+				TableModelTestUtils.createColumn(2L, "two", ColumnType.INTEGER));
+		schemaMD5Hex = TableModelUtils.createSchemaMD5Hex(Lists.newArrayList("1", "2"));
+		uploaded = File.createTempFile("TableIndexCheckpointManagerImplTest", ".csv.gzip");
+	}
+
+	@AfterEach
+	public void after() {
+		uploaded.delete();
+	}
+
+	@Test
+	public void testCreateKey() {
+		assertEquals("checkpoint/prod-400/123/abc/2000.csv.gzip", manager.createKey(tableId, "abc", 2000L));
+	}
+
+	@Test
+	public void testGetChangeNumber() {
+		assertEquals(2000L, TableIndexCheckpointManagerImpl.getChangeNumber("checkpoint/prod-400/123/abc/2000.csv.gzip"));
+	}
+
+	@Test
+	public void testGetLatestCheckpoint() {
+		ObjectListing pageOne = createListing(true, "next", "checkpoint/prod-400/123/abc/1000.csv.gzip",
+				"checkpoint/prod-400/123/abc/3000.csv.gzip");
+		ObjectListing pageTwo = createListing(false, null, "checkpoint/prod-400/123/abc/2000.csv.gzip",
+				"checkpoint/prod-400/123/abc/other.txt");
+		when(mockS3Client.listObjects(any(ListObjectsRequest.class))).thenReturn(pageOne, pageTwo);
+		// call under test
+		Optional<Long> latest = manager.getLatestCheckpoint(tableId, "abc", 2500L);
+		assertEquals(Optional.of(2000L), latest);
+		verify(mockS3Client, times(2)).listObjects(listRequestCaptor.capture());
+		assertEquals(bucket, listRequestCaptor.getValue().getBucketName());
+		assertEquals("checkpoint/prod-400/123/abc/", listRequestCaptor.getValue().getPrefix());
+	}
+
+	@Test
+	public void testGetLatestCheckpointWithNone() {
+		when(mockS3Client.listObjects(any(ListObjectsRequest.class))).thenReturn(createListing(false, null));
+		// call under test
+		Optional<Long> latest = manager.getLatestCheckpoint(tableId, "abc", 2500L);
+		assertFalse(latest.isPresent());
+	}
+
+	@Test
+	public void testDeleteCheckpoints() {
+		when(mockS3Client.listObjects(any(ListObjectsRequest.class))).thenReturn(
+				createListing(false, null, "checkpoint/prod-400/123/abc/1000.csv.gzip", "checkpoint/prod-400/123/def/2000.csv.gzip"));
+		// call under test
+		manager.deleteCheckpoints(tableId);
+		verify(mockS3Client).listObjects(listRequestCaptor.capture());
+		assertEquals("checkpoint/prod-400/123/", listRequestCaptor.getValue().getPrefix());
+		verify(mockS3Client).deleteObject(bucket, "checkpoint/prod-400/123/abc/1000.csv.gzip");
+		verify(mockS3Client).deleteObject(bucket, "checkpoint/prod-400/123/def/2000.csv.gzip");
+	}
+
+	@Test
+	public void testCreateAndReadCheckpoint() throws Exception {
+		String newKey = "checkpoint/prod-400/123/" + schemaMD5Hex + "/2000.csv.gzip";
+		String previousKey = "checkpoint/prod-400/123/" + schemaMD5Hex + "/1500.csv.gzip";
+		when(mockS3Client.listObjects(any(ListObjectsRequest.class))).thenReturn(
+				createListing(false, null, "checkpoint/prod-400/123/abc/1000.csv.gzip", newKey, previousKey));
+		doAnswer((InvocationOnMock invocation) -> {
+			PutObjectRequest request = invocation.getArgument(0);
+			Files.copy(request.getFile().toPath(), uploaded.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			return null;
+		}).when(mockS3Client).putObject(any(PutObjectRequest.class));
+		List<String[]> rows = Lists.newArrayList(new String[] { "ROW_ID", "_C1_", "_C2_" },
+				new String[] { "1", null, "3" }, new String[] { "2", "", "4" }, new String[] { "3", "\\N", null });
+		// call under test
+		manager.createCheckpoint(tableId, 2000L, "etag2000", schema, (CSVWriterStream writer) -> {
+			rows.forEach(writer::writeNext);
+		});
+		verify(mockS3Client).putObject(putRequestCaptor.capture());
+		assertEquals(newKey, putRequestCaptor.getValue().getKey());
+		assertEquals("etag2000", putRequestCaptor.getValue().getMetadata()
+				.getUserMetaDataOf(TableIndexCheckpointManagerImpl.CHANGE_ETAG_METADATA));
+		// only the latest checkpoints are kept, regardless of their schema.
+		verify(mockS3Client).deleteObject(bucket, "checkpoint/prod-400/123/abc/1000.csv.gzip");
+		verify(mockS3Client, never()).deleteObject(bucket, newKey);
+		verify(mockS3Client, never()).deleteObject(bucket, previousKey);
+
+		doAnswer((InvocationOnMock invocation) -> {
+			File destination = invocation.getArgument(1);
+			Files.copy(uploaded.toPath(), destination.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			return null;
+		}).when(mockS3Client).getObject(any(GetObjectRequest.class), any(File.class));
+		when(mockS3Client.getObjectMetadata(bucket, newKey)).thenReturn(putRequestCaptor.getValue().getMetadata());
+		when(mockColumnModelManager.getAndValidateColumnModels(Lists.newArrayList("1", "2"))).thenReturn(schema);
+		List<String[]> read = new ArrayList<>();
+		// call under test
+		manager.readCheckpoint(tableId, schemaMD5Hex, 2000L, "etag2000", (List<ColumnModel> readSchema, Iterator<String[]> readRows) -> {
+			assertEquals(schema, readSchema);
+			readRows.forEachRemaining(read::add);
+		});
+		assertEquals(rows.size(), read.size());
+		for (int i = 0; i < rows.size(); i++) {
+			assertArrayEquals(rows.get(i), read.get(i));
+		}
+	}
+
+	@Test
+	public void testReadCheckpointWithOtherEtag() {
+		ObjectMetadata metadata = new ObjectMetadata();
+		metadata.addUserMetadata(TableIndexCheckpointManagerImpl.CHANGE_ETAG_METADATA, "otherEtag");
+		when(mockS3Client.getObjectMetadata(bucket, "checkpoint/prod-400/123/abc/2000.csv.gzip")).thenReturn(metadata);
+		assertThrows(IllegalStateException.class, () -> {
+			// call under test
+			manager.readCheckpoint(tableId, "abc", 2000L, "etag2000", (List<ColumnModel> readSchema,
+					Iterator<String[]> readRows) -> {
+			});
+		});
+		// the checkpoint of another change is never downloaded.
+		verify(mockS3Client, never()).getObject(any(GetObjectRequest.class), any(File.class));
+	}
+
+	@Test
+	public void testCheckpointsOfTwoStackInstancesInOneBucket() {
+		when(mockConfig.getStackInstance()).thenReturn("prod-401");
+		TableIndexCheckpointManagerImpl otherManager = new TableIndexCheckpointManagerImpl(mockS3Client,
+				new FileProviderImpl(), mockColumnModelManager, mockConfig);
+		when(mockS3Client.listObjects(any(ListObjectsRequest.class))).thenAnswer((InvocationOnMock invocation) -> {
+			// S3 only lists the keys with the prefix of the request.
+			ListObjectsRequest request = invocation.getArgument(0);
+			ObjectListing listing = createListing(false, null, "checkpoint/prod-400/123/abc/1000.csv.gzip",
+					"checkpoint/prod-401/123/abc/2000.csv.gzip");
+			listing.getObjectSummaries().removeIf((S3ObjectSummary summary) -> !summary.getKey().startsWith(request.getPrefix()));
+			return listing;
+		});
+		// call under test
+		assertEquals(Optional.of(1000L), manager.getLatestCheckpoint(tableId, "abc", 2500L));
+		assertEquals(Optional.of(2000L), otherManager.getLatestCheckpoint(tableId, "abc", 2500L));
+		// call under test
+		otherManager.deleteCheckpoints(tableId);
+		verify(mockS3Client).deleteObject(bucket, "checkpoint/prod-401/123/abc/2000.csv.gzip");
+		verify(mockS3Client, never()).deleteObject(bucket, "checkpoint/prod-400/123/abc/1000.csv.gzip");
+	}
+
+	@Test
+	public void testCreateCheckpointWithNullSchema() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			manager.createCheckpoint(tableId, 2000L, "etag2000", null, (CSVWriterStream writer) -> {
+			});
+		});
+	}
+
+	@Test
+	public void testEncodeAndDecodeRow() {
+		String[] row = new String[] { null, "", "\\N", "\\", "a\\b", "plain" };
+		String[] encoded = TableIndexCheckpointManagerImpl.encodeRow(row);
+		assertArrayEquals(new String[] { "\\N", "", "\\\\N", "\\\\", "a\\b", "plain" }, encoded);
+		// call under test
+		assertArrayEquals(row, TableIndexCheckpointManagerImpl.decodeRow(encoded));
+	}
+
+	private static ObjectListing createListing(boolean truncated, String nextMarker, String... keys) {
+		ObjectListing listing = new ObjectListing();
+		listing.setTruncated(truncated);
+		listing.setNextMarker(nextMarker);
+		for (String key : keys) {
+			S3ObjectSummary summary = new S3ObjectSummary();
+			summary.setKey(key);
+			listing.getObjectSummaries().add(summary);
+		}
+		return listing;
+	}
+}
@@ -1,9 +1,15 @@
 package org.sagebionetworks.repo.manager.table;
 
 import static org.junit.Assert.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.when;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -29,6 +35,12 @@ public class TableIndexConnectionFactoryImplTest {
 	private MetadataIndexProviderFactory mockMetaDataIndexProviderFactory;
 	@Mock
 	private ObjectFieldModelResolverFactory mockObjectFieldModelResolverFactory;
+	@Mock
+	private ExecutorService mockChangePrefetchExecutorService;
+	@Mock
+	private TableIndexCheckpointManager mockCheckpointManager;
+	@Mock
+	private ScheduledExecutorService mockCheckpointExecutorService;
 	
 	@InjectMocks
 	private TableIndexConnectionFactoryImpl indexFactory;
@@ -70,4 +82,12 @@ public class TableIndexConnectionFactoryImplTest {
 		assertNotNull(manager);
 	}
 
+	
+	@Test
+	public void testConnectToAllIndices(){
+		when(mockDaoConnectionFactory.getAllConnections()).thenReturn(Arrays.asList(mockTableIndexDAO, mockTableIndexDAO));
+		List<TableIndexManager> managers = indexFactory.connectToAllIndices();
+		assertEquals(2, managers.size());
+	}
+
 }
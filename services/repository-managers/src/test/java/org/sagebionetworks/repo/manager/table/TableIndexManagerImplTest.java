@@ -16,6 +16,8 @@ import static org.mockito.ArgumentMatchers.anySet;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -32,6 +34,10 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -95,6 +101,7 @@ import org.springframework.transaction.support.TransactionCallback;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.MoreExecutors;
 
 @ExtendWith(MockitoExtension.class)
 public class TableIndexManagerImplTest {
@@ -102,6 +109,10 @@ public class TableIndexManagerImplTest {
 	@Mock
 	private TableIndexDAO mockIndexDao;
 	@Mock
+	private TableIndexCheckpointManager mockCheckpointManager;
+	@Mock
+	private ScheduledExecutorService mockCheckpointExecutorService;
+	@Mock
 	private TransactionStatus mockTransactionStatus;
 	@Mock
 	private TableManagerSupport mockManagerSupport;
@@ -126,6 +137,11 @@ public class TableIndexManagerImplTest {
 
 	@Captor
 	ArgumentCaptor<List<ColumnChangeDetails>> changeCaptor;
+	@Captor
+	ArgumentCaptor<Runnable> runnableCaptor;
+
+	// load the table changes on the calling thread.
+	ExecutorService changePrefetchExecutorService = MoreExecutors.newDirectExecutorService();
 
 	TableIndexManagerImpl manager;
 	TableIndexManagerImpl managerSpy;
@@ -164,7 +180,7 @@ public class TableIndexManagerImplTest {
 		objectType = ViewObjectType.ENTITY;
 		tableId = IdAndVersion.parse("syn123");
 		manager = new TableIndexManagerImpl(mockIndexDao, mockManagerSupport, mockMetadataProviderFactory,
-				mockObjectFieldModelResolverFactory);
+				mockObjectFieldModelResolverFactory, changePrefetchExecutorService, mockCheckpointManager, mockCheckpointExecutorService);
 		managerSpy = Mockito.spy(manager);
 		versionNumber = 99L;
 		schema = Arrays.asList(TableModelTestUtils.createColumn(99L, "aString", ColumnType.STRING),
@@ -219,7 +235,7 @@ public class TableIndexManagerImplTest {
 	public void testNullDao() {
 		assertThrows(IllegalArgumentException.class, () -> {
 			new TableIndexManagerImpl(null, mockManagerSupport, mockMetadataProviderFactory,
-					mockObjectFieldModelResolverFactory);
+					mockObjectFieldModelResolverFactory, changePrefetchExecutorService, mockCheckpointManager, mockCheckpointExecutorService);
 		});
 	}
 
@@ -227,21 +243,45 @@ public class TableIndexManagerImplTest {
 	public void testNullSupport() {
 		assertThrows(IllegalArgumentException.class, () -> {
 			new TableIndexManagerImpl(mockIndexDao, null, mockMetadataProviderFactory,
-					mockObjectFieldModelResolverFactory);
+					mockObjectFieldModelResolverFactory, changePrefetchExecutorService, mockCheckpointManager, mockCheckpointExecutorService);
 		});
 	}
 
 	@Test
 	public void testNullProviderFactory() {
 		assertThrows(IllegalArgumentException.class, () -> {
-			new TableIndexManagerImpl(mockIndexDao, mockManagerSupport, null, mockObjectFieldModelResolverFactory);
+			new TableIndexManagerImpl(mockIndexDao, mockManagerSupport, null, mockObjectFieldModelResolverFactory, changePrefetchExecutorService, mockCheckpointManager, mockCheckpointExecutorService);
 		});
 	}
 
 	@Test
 	public void testNullObjectFieldFactory() {
 		assertThrows(IllegalArgumentException.class, () -> {
-			new TableIndexManagerImpl(mockIndexDao, mockManagerSupport, mockMetadataProviderFactory, null);
+			new TableIndexManagerImpl(mockIndexDao, mockManagerSupport, mockMetadataProviderFactory, null, changePrefetchExecutorService, mockCheckpointManager, mockCheckpointExecutorService);
+		});
+	}
+
+	@Test
+	public void testNullChangePrefetchExecutorService() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			new TableIndexManagerImpl(mockIndexDao, mockManagerSupport, mockMetadataProviderFactory,
+					mockObjectFieldModelResolverFactory, null, mockCheckpointManager, mockCheckpointExecutorService);
+		});
+	}
+
+	@Test
+	public void testNullCheckpointManager() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			new TableIndexManagerImpl(mockIndexDao, mockManagerSupport, mockMetadataProviderFactory,
+					mockObjectFieldModelResolverFactory, changePrefetchExecutorService, null, mockCheckpointExecutorService);
+		});
+	}
+
+	@Test
+	public void testNullCheckpointExecutorService() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			new TableIndexManagerImpl(mockIndexDao, mockManagerSupport, mockMetadataProviderFactory,
+					mockObjectFieldModelResolverFactory, changePrefetchExecutorService, mockCheckpointManager, null);
 		});
 	}
 
@@ -1117,6 +1157,247 @@ public class TableIndexManagerImplTest {
 		verify(mockManagerSupport).getTableSchema(tableId);
 	}
 
+	@Test
+	public void testGetPendingChanges() throws Exception {
+		List<TableChangeMetaData> list = Lists.newArrayList(setupMockRowChange(0L), setupMockRowChange(1L),
+				setupMockColumnChange(2L), setupMockRowChange(3L), setupMockRowChange(4L));
+		long currentVersion = 0L;
+		long targetChangeNumber = 3L;
+		// call under test
+		List<TableChangeMetaData> pending = Lists
+				.newArrayList(TableIndexManagerImpl.getPendingChanges(list.iterator(), currentVersion, targetChangeNumber));
+		assertEquals(list.subList(1, 4), pending);
+	}
+
+	@Test
+	public void testBuildIndexToLatestChangeWithCheckpointRestore() throws Exception {
+		when(mockIndexDao.getMaxCurrentCompleteVersionForTable(tableId)).thenReturn(-1L);
+		doReturn(0L).when(managerSpy).restoreFromCheckpoint(tableId, 0L);
+		when(mockManagerSupport.getTableSchema(tableId)).thenReturn(schema);
+		List<TableChangeMetaData> list = setupMockChanges();
+		long targetChangeNumber = 1L;
+		String resetToken = "resetToken";
+		// call under test
+		String lastEtag = managerSpy.buildIndexToLatestChange(tableId, list.iterator(), targetChangeNumber, resetToken);
+		assertEquals(list.get(1).getETag(), lastEtag);
+		// only the change after the checkpoint is applied.
+		verify(mockManagerSupport).attemptToUpdateTableProgress(tableId, resetToken, "Applying change: 1", 1L, 1L);
+		verify(mockManagerSupport, times(1)).attemptToUpdateTableProgress(any(IdAndVersion.class), anyString(),
+				anyString(), anyLong(), anyLong());
+		verify(mockIndexDao, never()).createOrUpdateOrDeleteRows(any(IdAndVersion.class), any(Grouping.class));
+		verify(mockCheckpointExecutorService, never()).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+	}
+
+	@Test
+	public void testBuildIndexToLatestChangeWithCheckpointNeeded() throws Exception {
+		setupExecuteInWriteTransaction();
+		when(mockIndexDao.getMaxCurrentCompleteVersionForTable(tableId)).thenReturn(998L);
+		when(mockManagerSupport.getTableSchema(tableId)).thenReturn(schema);
+		List<TableChangeMetaData> list = Lists.newArrayList(setupMockRowChange(999L), setupMockRowChange(1000L));
+		long targetChangeNumber = 1000L;
+		String resetToken = "resetToken";
+		// call under test
+		manager.buildIndexToLatestChange(tableId, list.iterator(), targetChangeNumber, resetToken);
+		// the checkpoint is created in the background.
+		verify(mockCheckpointExecutorService).schedule(any(Runnable.class),
+				eq(TableIndexManagerImpl.CHECKPOINT_LOCK_RETRY_DELAY_MS), eq(TimeUnit.MILLISECONDS));
+		verify(mockCheckpointManager, never()).createCheckpoint(anyLong(), anyLong(), anyString(), anyList(), any());
+	}
+
+	@Test
+	public void testBuildIndexToLatestChangeWithCheckpointNotNeeded() throws Exception {
+		setupExecuteInWriteTransaction();
+		when(mockIndexDao.getMaxCurrentCompleteVersionForTable(tableId)).thenReturn(1000L);
+		when(mockManagerSupport.getTableSchema(tableId)).thenReturn(schema);
+		List<TableChangeMetaData> list = Lists.newArrayList(setupMockRowChange(1001L));
+		long targetChangeNumber = 1001L;
+		String resetToken = "resetToken";
+		// call under test
+		manager.buildIndexToLatestChange(tableId, list.iterator(), targetChangeNumber, resetToken);
+		verify(mockCheckpointExecutorService, never()).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+	}
+
+	@Test
+	public void testBuildIndexToLatestChangeWithCheckpointNeededWithVersion() throws Exception {
+		setupExecuteInWriteTransaction();
+		tableId = IdAndVersion.parse("syn123.1");
+		when(mockIndexDao.getMaxCurrentCompleteVersionForTable(tableId)).thenReturn(998L);
+		when(mockManagerSupport.getTableSchema(tableId)).thenReturn(schema);
+		List<TableChangeMetaData> list = Lists.newArrayList(setupMockRowChange(999L), setupMockRowChange(1000L));
+		long targetChangeNumber = 1000L;
+		String resetToken = "resetToken";
+		// call under test
+		manager.buildIndexToLatestChange(tableId, list.iterator(), targetChangeNumber, resetToken);
+		// only the table's own index is checkpointed.
+		verify(mockCheckpointExecutorService, never()).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testRestoreFromCheckpoint() {
+		ColumnModel fileColumn = TableModelTestUtils.createColumn(456L, "aFile", ColumnType.FILEHANDLEID);
+		List<ColumnModel> checkpointSchema = Lists.newArrayList(fileColumn);
+		String fileColumnName = SQLUtils.getColumnNameForId("456");
+		List<String[]> rows = Lists.newArrayList(new String[] { "ROW_ID", fileColumnName },
+				new String[] { "1", "789" }, new String[] { "2", null });
+		when(mockManagerSupport.getSchemaMD5Hex(tableId)).thenReturn(schemaMD5Hex);
+		when(mockCheckpointManager.getLatestCheckpoint(tableId.getId(), schemaMD5Hex, 5L)).thenReturn(Optional.of(3L));
+		when(mockManagerSupport.getTableChangeEtag(tableId, 3L)).thenReturn(Optional.of("etag3"));
+		doAnswer((InvocationOnMock invocation) -> {
+			BiConsumer<List<ColumnModel>, Iterator<String[]>> consumer = invocation.getArgument(4);
+			consumer.accept(checkpointSchema, rows.iterator());
+			return null;
+		}).when(mockCheckpointManager).readCheckpoint(eq(tableId.getId()), eq(schemaMD5Hex), eq(3L), eq("etag3"),
+				any(BiConsumer.class));
+		List<String[]> populated = new LinkedList<>();
+		doAnswer((InvocationOnMock invocation) -> {
+			Iterator<String[]> input = invocation.getArgument(1);
+			input.forEachRemaining(populated::add);
+			return null;
+		}).when(mockIndexDao).populateViewFromSnapshot(eq(tableId), any(), anyLong());
+		// call under test
+		long restored = manager.restoreFromCheckpoint(tableId, 5L);
+		assertEquals(3L, restored);
+		assertEquals(rows, populated);
+		verify(mockIndexDao).populateViewFromSnapshot(eq(tableId), any(),
+				eq(TableIndexManagerImpl.MAX_BYTES_PER_BATCH));
+		verify(mockIndexDao).applyFileHandleIdsToTable(tableId, Sets.newHashSet(789L));
+		verify(mockIndexDao).setMaxCurrentCompleteVersionForTable(tableId, 3L);
+	}
+
+	@Test
+	public void testRestoreFromCheckpointWithNoCheckpoint() {
+		when(mockManagerSupport.getSchemaMD5Hex(tableId)).thenReturn(schemaMD5Hex);
+		when(mockCheckpointManager.getLatestCheckpoint(tableId.getId(), schemaMD5Hex, 5L)).thenReturn(Optional.empty());
+		// call under test
+		long restored = manager.restoreFromCheckpoint(tableId, 5L);
+		assertEquals(-1L, restored);
+		verify(mockCheckpointManager, never()).readCheckpoint(anyLong(), anyString(), anyLong(), anyString(), any());
+		verify(mockIndexDao, never()).setMaxCurrentCompleteVersionForTable(any(IdAndVersion.class), anyLong());
+	}
+
+	@Test
+	public void testRestoreFromCheckpointWithMissingChange() {
+		when(mockManagerSupport.getSchemaMD5Hex(tableId)).thenReturn(schemaMD5Hex);
+		when(mockCheckpointManager.getLatestCheckpoint(tableId.getId(), schemaMD5Hex, 5L)).thenReturn(Optional.of(3L));
+		// this database does not have the last change of the checkpoint.
+		when(mockManagerSupport.getTableChangeEtag(tableId, 3L)).thenReturn(Optional.empty());
+		// call under test
+		long restored = manager.restoreFromCheckpoint(tableId, 5L);
+		assertEquals(-1L, restored);
+		verify(mockCheckpointManager, never()).readCheckpoint(anyLong(), anyString(), anyLong(), anyString(), any());
+		verify(mockIndexDao, never()).setMaxCurrentCompleteVersionForTable(any(IdAndVersion.class), anyLong());
+	}
+
+	@Test
+	public void testRestoreFromCheckpointWithFailure() {
+		when(mockManagerSupport.getSchemaMD5Hex(tableId)).thenReturn(schemaMD5Hex);
+		when(mockCheckpointManager.getLatestCheckpoint(tableId.getId(), schemaMD5Hex, 5L)).thenReturn(Optional.of(3L));
+		when(mockManagerSupport.getTableChangeEtag(tableId, 3L)).thenReturn(Optional.of("etag3"));
+		doThrow(new IllegalStateException("nope")).when(mockCheckpointManager).readCheckpoint(anyLong(), anyString(),
+				anyLong(), anyString(), any());
+		// call under test
+		long restored = manager.restoreFromCheckpoint(tableId, 5L);
+		// the index is built from the full history instead.
+		assertEquals(-1L, restored);
+		verify(mockIndexDao).deleteTable(tableId);
+		verify(mockIndexDao, never()).setMaxCurrentCompleteVersionForTable(any(IdAndVersion.class), anyLong());
+	}
+
+	@Test
+	public void testCreateCheckpointWithFailure() {
+		doThrow(new IllegalStateException("nope")).when(mockCheckpointManager).createCheckpoint(anyLong(), anyLong(),
+				anyString(), anyList(), any());
+		// call under test
+		manager.createCheckpoint(tableId, 1000L, "etag1000", schema);
+		verify(mockCheckpointManager).createCheckpoint(eq(tableId.getId()), eq(1000L), eq("etag1000"), eq(schema), any());
+	}
+
+	@Test
+	public void testScheduleCheckpoint() throws Exception {
+		doNothing().when(managerSpy).createCheckpointWithLock(tableId, 1000L, 1);
+		// call under test
+		managerSpy.scheduleCheckpoint(tableId, 1000L, 1);
+		verify(mockCheckpointExecutorService).schedule(runnableCaptor.capture(),
+				eq(TableIndexManagerImpl.CHECKPOINT_LOCK_RETRY_DELAY_MS), eq(TimeUnit.MILLISECONDS));
+		runnableCaptor.getValue().run();
+		verify(managerSpy).createCheckpointWithLock(tableId, 1000L, 1);
+	}
+
+	@Test
+	public void testCreateCheckpointWithLock() throws Exception {
+		doAnswer((InvocationOnMock invocation) -> {
+			ProgressCallback callback = invocation.getArgument(0, ProgressCallback.class);
+			ProgressingCallable callable = invocation.getArgument(2, ProgressingCallable.class);
+			callable.call(callback);
+			return null;
+		}).when(mockManagerSupport).tryRunWithTableNonexclusiveLock(any(), any(IdAndVersion.class), any());
+		doNothing().when(managerSpy).createCheckpointIfCurrent(tableId, 1000L);
+		// call under test
+		managerSpy.createCheckpointWithLock(tableId, 1000L, 1);
+		verify(mockManagerSupport).tryRunWithTableNonexclusiveLock(any(ProgressCallback.class), eq(tableId), any());
+		verify(managerSpy).createCheckpointIfCurrent(tableId, 1000L);
+		verify(managerSpy, never()).scheduleCheckpoint(any(IdAndVersion.class), anyLong(), anyInt());
+	}
+
+	@Test
+	public void testCreateCheckpointWithLockUnavailable() throws Exception {
+		doThrow(new LockUnavilableException()).when(mockManagerSupport).tryRunWithTableNonexclusiveLock(any(),
+				any(IdAndVersion.class), any());
+		doNothing().when(managerSpy).scheduleCheckpoint(tableId, 1000L, 2);
+		// call under test
+		managerSpy.createCheckpointWithLock(tableId, 1000L, 1);
+		// try again later
+		verify(managerSpy).scheduleCheckpoint(tableId, 1000L, 2);
+	}
+
+	@Test
+	public void testCreateCheckpointWithLockUnavailableLastAttempt() throws Exception {
+		doThrow(new LockUnavilableException()).when(mockManagerSupport).tryRunWithTableNonexclusiveLock(any(),
+				any(IdAndVersion.class), any());
+		// call under test
+		managerSpy.createCheckpointWithLock(tableId, 1000L, TableIndexManagerImpl.CHECKPOINT_LOCK_MAX_ATTEMPTS);
+		verify(managerSpy, never()).scheduleCheckpoint(any(IdAndVersion.class), anyLong(), anyInt());
+	}
+
+	@Test
+	public void testCreateCheckpointIfCurrent() {
+		when(mockIndexDao.getMaxCurrentCompleteVersionForTable(tableId)).thenReturn(1000L);
+		when(mockManagerSupport.getTableSchema(tableId)).thenReturn(schema);
+		when(mockIndexDao.getCurrentSchemaMD5Hex(tableId)).thenReturn(schemaMD5Hex);
+		when(mockManagerSupport.getTableChangeEtag(tableId, 1000L)).thenReturn(Optional.of("etag1000"));
+		// call under test
+		manager.createCheckpointIfCurrent(tableId, 1000L);
+		verify(mockCheckpointManager).createCheckpoint(eq(tableId.getId()), eq(1000L), eq("etag1000"), eq(schema), any());
+	}
+
+	@Test
+	public void testCreateCheckpointIfCurrentWithNewerChange() {
+		when(mockIndexDao.getMaxCurrentCompleteVersionForTable(tableId)).thenReturn(1001L);
+		// call under test
+		manager.createCheckpointIfCurrent(tableId, 1000L);
+		verify(mockCheckpointManager, never()).createCheckpoint(anyLong(), anyLong(), anyString(), anyList(), any());
+	}
+
+	@Test
+	public void testCreateCheckpointIfCurrentWithSchemaChange() {
+		when(mockIndexDao.getMaxCurrentCompleteVersionForTable(tableId)).thenReturn(1000L);
+		when(mockManagerSupport.getTableSchema(tableId)).thenReturn(schema);
+		when(mockIndexDao.getCurrentSchemaMD5Hex(tableId)).thenReturn("otherMD5");
+		// call under test
+		manager.createCheckpointIfCurrent(tableId, 1000L);
+		verify(mockCheckpointManager, never()).createCheckpoint(anyLong(), anyLong(), anyString(), anyList(), any());
+	}
+
+	@Test
+	public void testIsCheckpointNeeded() {
+		assertFalse(TableIndexManagerImpl.isCheckpointNeeded(-1L, 999L));
+		assertTrue(TableIndexManagerImpl.isCheckpointNeeded(-1L, 1000L));
+		assertTrue(TableIndexManagerImpl.isCheckpointNeeded(999L, 1000L));
+		assertFalse(TableIndexManagerImpl.isCheckpointNeeded(1000L, 1999L));
+		assertTrue(TableIndexManagerImpl.isCheckpointNeeded(1000L, 2500L));
+	}
+
 	@Test
 	public void testBuildIndexToChangeNumber() throws Exception {
 		setupTryRunWithTableExclusiveLock();
@@ -528,6 +528,26 @@ public class TableManagerSupportTest {
 		verify(mockTableTruthDao).getLastTableChangeNumber(123L, 456L);
 	}
 	
+	@Test
+	public void testGetTableChangeEtag() {
+		idAndVersion = IdAndVersion.parse("syn123");
+		TableRowChange change = new TableRowChange();
+		change.setEtag("etag12");
+		when(mockTableTruthDao.getTableRowChange("123", 12L)).thenReturn(change);
+		// call under test
+		Optional<String> result = manager.getTableChangeEtag(idAndVersion, 12L);
+		assertEquals(Optional.of("etag12"), result);
+	}
+	
+	@Test
+	public void testGetTableChangeEtagWithNoChange() {
+		idAndVersion = IdAndVersion.parse("syn123");
+		when(mockTableTruthDao.getTableRowChange("123", 12L)).thenThrow(new NotFoundException("nope"));
+		// call under test
+		Optional<String> result = manager.getTableChangeEtag(idAndVersion, 12L);
+		assertFalse(result.isPresent());
+	}
+	
 	
 	@Test
 	public void testValidateScopeSize() throws LimitExceededException{
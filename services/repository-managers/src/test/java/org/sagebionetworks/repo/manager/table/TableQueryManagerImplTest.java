@@ -10,9 +10,12 @@ import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.stubbing.Answer;
+import org.sagebionetworks.cloudwatch.Consumer;
+import org.sagebionetworks.cloudwatch.ProfileData;
 import org.sagebionetworks.common.util.progress.ProgressCallback;
 import org.sagebionetworks.common.util.progress.ProgressingCallable;
 import org.sagebionetworks.repo.model.EntityType;
@@ -54,6 +57,7 @@ import org.sagebionetworks.repo.model.table.ViewObjectType;
 import org.sagebionetworks.repo.model.table.ViewScopeType;
 import org.sagebionetworks.repo.model.table.ViewTypeMask;
 import org.sagebionetworks.repo.web.NotFoundException;
+import org.sagebionetworks.repo.web.TemporarilyUnavailableException;
 import org.sagebionetworks.table.cluster.ConnectionFactory;
 import org.sagebionetworks.table.cluster.SqlQuery;
 import org.sagebionetworks.table.cluster.SqlQueryBuilder;
@@ -64,7 +68,9 @@ import org.sagebionetworks.table.query.TableQueryParser;
 import org.sagebionetworks.table.query.model.QuerySpecification;
 import org.sagebionetworks.util.csv.CSVWriterStream;
 import org.sagebionetworks.workers.util.semaphore.LockUnavilableException;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.transaction.support.TransactionCallback;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -74,6 +80,13 @@ import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -83,6 +96,7 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
@@ -114,6 +128,14 @@ public class TableQueryManagerImplTest {
 	ProgressCallback mockProgressCallbackVoid;
 	@Mock
 	ProgressCallback mockProgressCallback2;
+	@Mock
+	Consumer mockConsumer;
+	@Mock
+	Future<Long> mockFuture;
+	@Mock
+	FacetQueryCache mockFacetQueryCache;
+	@Spy
+	ParsedQueryCache parsedQueryCache = new ParsedQueryCacheImpl();
 	@InjectMocks
 	TableQueryManagerImpl manager;
 	
@@ -223,6 +245,13 @@ public class TableQueryManagerImplTest {
 		});
 	}
 
+	@SuppressWarnings("unchecked")
+	void setupFacetQueryCacheMiss() {
+		// Always load the results.
+		when(mockFacetQueryCache.getFacetResults(any(IdAndVersion.class), anyString(), any(SqlQuery.class), any(Supplier.class)))
+				.thenAnswer((InvocationOnMock invocation) -> ((Supplier<RowSet>) invocation.getArgument(3)).get());
+	}
+
 	void setupNonExclusiveLock() throws Exception {
 		// Just call the caller.
 		when(mockTableManagerSupport.tryRunWithTableNonexclusiveLock(any(ProgressCallback.class),
@@ -851,6 +880,7 @@ public class TableQueryManagerImplTest {
 		when(mockTableManagerSupport.validateTableReadAccess(user, idAndVersion)).thenReturn(EntityType.table);
 		
 		when(mockTableIndexDAO.query(isNull(), any(SqlQuery.class))).thenReturn(enumerationFacetResults, rangeFacetResults, enumerationFacetResults);
+		setupFacetQueryCacheMiss();
 		
 		Query query = new Query();
 		query.setSql("select * from " + tableId);
@@ -871,6 +901,58 @@ public class TableQueryManagerImplTest {
 		assertEquals(expectedRangeResult, bundle.getFacets().get(1));
 	}
 	
+	@Test
+	public void testQueryAsStreamFacetsWithUpdatedView() throws Exception {
+		when(mockTableManagerSupport.getTableStatusOrCreateIfNotExists(idAndVersion)).thenReturn(status);
+		setupNonExclusiveLock();
+		when(mockTableConnectionFactory.getConnection(idAndVersion)).thenReturn(mockTableIndexDAO);
+		RowSet updatedRangeFacetResults = createRowSetForTest(
+				Lists.newArrayList(FacetTransformerRange.MIN_ALIAS, FacetTransformerRange.MAX_ALIAS),
+				Lists.newArrayList("100", "456"));
+		when(mockTableIndexDAO.query(isNull(), any(SqlQuery.class))).thenReturn(enumerationFacetResults,
+				rangeFacetResults, enumerationFacetResults, enumerationFacetResults, updatedRangeFacetResults,
+				enumerationFacetResults);
+		manager.facetQueryCache = new FacetQueryCacheImpl();
+		
+		queryOptions = new QueryOptions().withReturnFacets(true);
+		SqlQuery query = new SqlQueryBuilder("select * from " + tableId, models, user.getId())
+				.tableType(EntityType.entityview).build();
+		QueryResultBundle before = manager.queryAsStream(mockProgressCallbackVoid, user, query, null, queryOptions);
+		// call under test
+		QueryResultBundle cached = manager.queryAsStream(mockProgressCallbackVoid, user, query, null, queryOptions);
+		// The view is updated in place so only its changed on moves.
+		status.setChangedOn(new Date(456));
+		// call under test
+		QueryResultBundle after = manager.queryAsStream(mockProgressCallbackVoid, user, query, null, queryOptions);
+		
+		assertEquals("123", ((FacetColumnResultRange) before.getFacets().get(1)).getColumnMax());
+		assertEquals("123", ((FacetColumnResultRange) cached.getFacets().get(1)).getColumnMax());
+		assertEquals("456", ((FacetColumnResultRange) after.getFacets().get(1)).getColumnMax());
+		// the second query is served from the cache.
+		verify(mockTableIndexDAO, times(6)).query(isNull(), any(SqlQuery.class));
+	}
+	
+	@Test
+	public void testGetFacetCacheEtagWithTable() {
+		status.setResetToken("reset");
+		// call under test
+		assertEquals("etag", TableQueryManagerImpl.getFacetCacheEtag(status, EntityType.table));
+	}
+	
+	@Test
+	public void testGetFacetCacheEtagWithView() {
+		status.setResetToken("reset");
+		// call under test
+		assertEquals("reset-123", TableQueryManagerImpl.getFacetCacheEtag(status, EntityType.entityview));
+	}
+	
+	@Test
+	public void testGetFacetCacheEtagWithViewWithoutChangedOn() {
+		status.setChangedOn(null);
+		// call under test
+		assertNull(TableQueryManagerImpl.getFacetCacheEtag(status, EntityType.entityview));
+	}
+	
 	@Test
 	public void testQueryBundleSumFileSizes() throws LockUnavilableException, TableUnavailableException, TableFailedException {
 		QueryBundleRequest queryBundle = new QueryBundleRequest();
@@ -1776,6 +1858,171 @@ public class TableQueryManagerImplTest {
 
 	}
 	
+	@Test
+	public void testQueryAsStreamAfterAuthorizationWithSubQueryExecutor() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			manager.setSubQueryExecutorService(executor);
+			manager.setSubQueryTimeoutMS(10_000L);
+			when(mockTableConnectionFactory.getConnection(idAndVersion)).thenReturn(mockTableIndexDAO);
+			setupQueryCallback();
+			Long count = 201L;
+			when(mockTableIndexDAO.countQuery(anyString(), anyMap())).thenReturn(count);
+			when(mockTableIndexDAO.getRowIds(any(), any())).thenReturn(Lists.newArrayList(1L, 2L));
+			when(mockTableIndexDAO.getSumOfFileSizes(any(), any())).thenReturn(sumFilesizes);
+			when(mockTableIndexDAO.executeInReadTransaction(anyInt(), any())).thenAnswer(invocation -> {
+				TransactionCallback<?> callback = invocation.getArgument(1);
+				return callback.doInTransaction(null);
+			});
+
+			RowHandler rowHandler = new SinglePageRowHandler();
+			queryOptions = new QueryOptions().withRunQuery(true).withRunCount(true).withRunSumFileSizes(true);
+			SqlQuery query = new SqlQueryBuilder("select * from " + tableId, models, user.getId())
+					.tableType(EntityType.entityview).build();
+			// call under test
+			QueryResultBundle results = manager.queryAsStreamAfterAuthorization(mockProgressCallbackVoid, query,
+					rowHandler, queryOptions);
+			assertNotNull(results.getQueryResult());
+			assertEquals(count, results.getQueryCount());
+			assertEquals(sumFilesizes, results.getSumFileSizes().getSumFileSizesBytes());
+			// one metric for each sub-query.
+			verify(mockConsumer, times(2)).addProfileData(any(ProfileData.class));
+			// each sub-query statement is limited to 10 seconds.
+			verify(mockTableIndexDAO, times(2)).executeInReadTransaction(eq(10), any());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	@Test
+	public void testRunFacetQueryWithEtag() throws Exception {
+		when(mockFacetQueryCache.getFacetResults(any(IdAndVersion.class), anyString(), any(SqlQuery.class), any()))
+				.thenReturn(rangeFacetResults);
+		SqlQuery query = new SqlQueryBuilder("select * from " + tableId, models, user.getId()).build();
+		FacetTransformerRange transformer = new FacetTransformerRange(facetColumnName, new ArrayList<>(), query, null, null);
+		// call under test
+		FacetColumnResult result = manager.runFacetQuery(idAndVersion, "etag", transformer, mockTableIndexDAO);
+		FacetColumnResultRange range = (FacetColumnResultRange) result;
+		assertEquals(expectedRangeResult.getColumnMin(), range.getColumnMin());
+		assertEquals(expectedRangeResult.getColumnMax(), range.getColumnMax());
+		verify(mockFacetQueryCache).getFacetResults(eq(idAndVersion), eq("etag"), eq(transformer.getFacetSqlQuery()), any());
+		verify(mockTableIndexDAO, never()).query(any(), any());
+	}
+	
+	@Test
+	public void testRunFacetQueryWithNullEtag() throws Exception {
+		when(mockTableIndexDAO.query(isNull(), any(SqlQuery.class))).thenReturn(rangeFacetResults);
+		SqlQuery query = new SqlQueryBuilder("select * from " + tableId, models, user.getId()).build();
+		FacetTransformerRange transformer = new FacetTransformerRange(facetColumnName, new ArrayList<>(), query, null, null);
+		// call under test
+		FacetColumnResult result = manager.runFacetQuery(idAndVersion, null, transformer, mockTableIndexDAO);
+		assertEquals(expectedRangeResult.getColumnMax(), ((FacetColumnResultRange) result).getColumnMax());
+		verify(mockTableIndexDAO).query(null, transformer.getFacetSqlQuery());
+		verifyNoMoreInteractions(mockFacetQueryCache);
+	}
+	
+	@Test
+	public void testSubmitSubQueryWithoutExecutor() throws Exception {
+		// call under test
+		Future<Long> future = manager.submitSubQuery(TableQueryManagerImpl.SUB_QUERY_COUNT, () -> 12L);
+		assertTrue(future.isDone());
+		assertEquals(new Long(12), manager.getSubQueryResult(TableQueryManagerImpl.SUB_QUERY_COUNT, future));
+		ArgumentCaptor<ProfileData> captor = ArgumentCaptor.forClass(ProfileData.class);
+		verify(mockConsumer).addProfileData(captor.capture());
+		assertEquals(TableQueryManagerImpl.METRIC_NAME_SUB_QUERY_LATENCY, captor.getValue().getName());
+		assertEquals(TableQueryManagerImpl.SUB_QUERY_COUNT,
+				captor.getValue().getDimension().get(TableQueryManagerImpl.DIMENSION_SUB_QUERY_TYPE));
+	}
+	
+	@Test
+	public void testSubmitSubQueryWithoutExecutorWithRuntimeException() throws Exception {
+		IllegalArgumentException exception = new IllegalArgumentException("bad query");
+		Future<Long> future = manager.submitSubQuery(TableQueryManagerImpl.SUB_QUERY_COUNT, () -> {
+			throw exception;
+		});
+		IllegalArgumentException result = assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			manager.getSubQueryResult(TableQueryManagerImpl.SUB_QUERY_COUNT, future);
+		});
+		assertEquals(exception, result);
+	}
+	
+	@Test
+	public void testSubmitSubQueryWithSaturatedExecutor() throws Exception {
+		ExecutorService executor = Mockito.mock(ExecutorService.class);
+		manager.setSubQueryExecutorService(executor);
+		when(executor.submit(any(Callable.class))).thenThrow(new RejectedExecutionException());
+		Thread caller = Thread.currentThread();
+		// call under test
+		Future<Boolean> future = manager.submitSubQuery(TableQueryManagerImpl.SUB_QUERY_COUNT,
+				() -> Thread.currentThread() == caller);
+		// the caller ran the sub-query
+		assertTrue(future.isDone());
+		assertTrue(manager.getSubQueryResult(TableQueryManagerImpl.SUB_QUERY_COUNT, future));
+	}
+	
+	@Test
+	public void testRunWithStatementTimeout() throws Exception {
+		manager.setSubQueryTimeoutMS(15_000L);
+		when(mockTableIndexDAO.executeInReadTransaction(anyInt(), any())).thenAnswer(invocation -> {
+			TransactionCallback<?> callback = invocation.getArgument(1);
+			return callback.doInTransaction(null);
+		});
+		// call under test
+		Long result = manager.runWithStatementTimeout(TableQueryManagerImpl.SUB_QUERY_COUNT, mockTableIndexDAO, () -> 12L);
+		assertEquals(new Long(12), result);
+		verify(mockTableIndexDAO).executeInReadTransaction(eq(15), any());
+	}
+	
+	@Test
+	public void testRunWithStatementTimeoutWithSubSecondTimeout() throws Exception {
+		manager.setSubQueryTimeoutMS(100L);
+		when(mockTableIndexDAO.executeInReadTransaction(anyInt(), any())).thenReturn(12L);
+		// call under test
+		manager.runWithStatementTimeout(TableQueryManagerImpl.SUB_QUERY_COUNT, mockTableIndexDAO, () -> 12L);
+		// JDBC timeouts are at least one second
+		verify(mockTableIndexDAO).executeInReadTransaction(eq(1), any());
+	}
+	
+	@Test
+	public void testRunWithStatementTimeoutWithQueryTimeout() throws Exception {
+		manager.setSubQueryTimeoutMS(15_000L);
+		QueryTimeoutException timeout = new QueryTimeoutException("timeout");
+		when(mockTableIndexDAO.executeInReadTransaction(anyInt(), any())).thenThrow(timeout);
+		TemporarilyUnavailableException result = assertThrows(TemporarilyUnavailableException.class, () -> {
+			// call under test
+			manager.runWithStatementTimeout(TableQueryManagerImpl.SUB_QUERY_COUNT, mockTableIndexDAO, () -> 12L);
+		});
+		assertEquals("The count query did not complete within 15000 MS", result.getMessage());
+		assertEquals(timeout, result.getCause());
+	}
+	
+	@Test
+	public void testRunWithStatementTimeoutWithoutTimeout() throws Exception {
+		manager.setSubQueryTimeoutMS(0L);
+		// call under test
+		Long result = manager.runWithStatementTimeout(TableQueryManagerImpl.SUB_QUERY_COUNT, mockTableIndexDAO, () -> 12L);
+		assertEquals(new Long(12), result);
+		verify(mockTableIndexDAO, never()).executeInReadTransaction(anyInt(), any());
+	}
+	
+	@Test
+	public void testGetSubQueryResultWithExecutionException() throws Exception {
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			manager.setSubQueryExecutorService(executor);
+			IllegalArgumentException exception = new IllegalArgumentException("bad query");
+			when(mockFuture.get()).thenThrow(new ExecutionException(exception));
+			IllegalArgumentException result = assertThrows(IllegalArgumentException.class, () -> {
+				// call under test
+				manager.getSubQueryResult(TableQueryManagerImpl.SUB_QUERY_COUNT, mockFuture);
+			});
+			assertEquals(exception, result);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+	
 	@Test
 	public void testRunSumFileSize() throws Exception {
 		when(mockTableIndexDAO.getRowIds(any(), any())).thenReturn(Lists.newArrayList(1L,2L));
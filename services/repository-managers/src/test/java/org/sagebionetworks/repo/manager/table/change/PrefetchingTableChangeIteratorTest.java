@@ -0,0 +1,200 @@
+package org.sagebionetworks.repo.manager.table.change;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.sagebionetworks.repo.model.table.TableChangeType;
+import org.sagebionetworks.table.model.ChangeData;
+import org.sagebionetworks.table.model.SchemaChange;
+import org.sagebionetworks.table.model.SparseChangeSet;
+
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.MoreExecutors;
+
+@ExtendWith(MockitoExtension.class)
+public class PrefetchingTableChangeIteratorTest {
+
+	@Mock
+	private TableChangeMetaData mockRowChangeOne;
+	@Mock
+	private TableChangeMetaData mockRowChangeTwo;
+	@Mock
+	private TableChangeMetaData mockColumnChange;
+	@Mock
+	private SparseChangeSet mockSparseChangeSet;
+	@Mock
+	private SchemaChange mockSchemaChange;
+	@Mock
+	private ExecutorService mockExecutorService;
+	@Mock
+	private Future<ChangeData<SparseChangeSet>> mockFuture;
+
+	private ExecutorService executorService;
+	private int readAhead;
+
+	@BeforeEach
+	public void before() {
+		executorService = MoreExecutors.newDirectExecutorService();
+		readAhead = 1;
+	}
+
+	@Test
+	public void testIterate() throws Exception {
+		when(mockRowChangeOne.getChangeType()).thenReturn(TableChangeType.ROW);
+		when(mockRowChangeOne.getChangeNumber()).thenReturn(1L);
+		when(mockRowChangeOne.loadChangeData(SparseChangeSet.class))
+				.thenReturn(new ChangeData<>(1L, mockSparseChangeSet));
+		when(mockColumnChange.getChangeType()).thenReturn(TableChangeType.COLUMN);
+		when(mockColumnChange.loadChangeData(SchemaChange.class)).thenReturn(new ChangeData<>(2L, mockSchemaChange));
+
+		PrefetchingTableChangeIterator iterator = new PrefetchingTableChangeIterator(
+				Lists.newArrayList(mockRowChangeOne, mockColumnChange).iterator(), executorService, readAhead);
+		// call under test
+		assertTrue(iterator.hasNext());
+		TableChangeMetaData first = iterator.next();
+		assertEquals(Long.valueOf(1L), first.getChangeNumber());
+		assertEquals(TableChangeType.ROW, first.getChangeType());
+		ChangeData<SparseChangeSet> rowData = first.loadChangeData(SparseChangeSet.class);
+		assertEquals(1L, rowData.getChangeNumber());
+		assertSame(mockSparseChangeSet, rowData.getChange());
+
+		assertTrue(iterator.hasNext());
+		TableChangeMetaData second = iterator.next();
+		assertEquals(TableChangeType.COLUMN, second.getChangeType());
+		assertSame(mockSchemaChange, second.loadChangeData(SchemaChange.class).getChange());
+		assertFalse(iterator.hasNext());
+		assertThrows(NoSuchElementException.class, () -> {
+			iterator.next();
+		});
+	}
+
+	@Test
+	public void testNextLoadsAhead() throws Exception {
+		when(mockRowChangeOne.getChangeType()).thenReturn(TableChangeType.ROW);
+		when(mockRowChangeTwo.getChangeType()).thenReturn(TableChangeType.ROW);
+		when(mockRowChangeTwo.loadChangeData(SparseChangeSet.class))
+				.thenReturn(new ChangeData<>(2L, mockSparseChangeSet));
+
+		PrefetchingTableChangeIterator iterator = new PrefetchingTableChangeIterator(
+				Lists.newArrayList(mockRowChangeOne, mockRowChangeTwo).iterator(), executorService, readAhead);
+		// call under test
+		iterator.next();
+		// the next change is loaded before the caller asks for it.
+		verify(mockRowChangeTwo).loadChangeData(SparseChangeSet.class);
+	}
+
+	@Test
+	public void testReadAheadLimit() throws Exception {
+		when(mockRowChangeOne.getChangeType()).thenReturn(TableChangeType.ROW);
+		Iterator<TableChangeMetaData> source = Iterators.cycle(mockRowChangeOne);
+		readAhead = 3;
+		PrefetchingTableChangeIterator iterator = new PrefetchingTableChangeIterator(source, executorService,
+				readAhead);
+		// call under test
+		assertTrue(iterator.hasNext());
+		// only the read ahead is loaded from an unbounded source.
+		verify(mockRowChangeOne, times(3)).loadChangeData(SparseChangeSet.class);
+	}
+
+	@Test
+	public void testColumnChangeLoadedOnDemand() throws Exception {
+		when(mockColumnChange.getChangeType()).thenReturn(TableChangeType.COLUMN);
+
+		PrefetchingTableChangeIterator iterator = new PrefetchingTableChangeIterator(
+				Lists.newArrayList(mockColumnChange).iterator(), executorService, readAhead);
+		// call under test
+		iterator.next();
+		verify(mockColumnChange, never()).loadChangeData(any());
+	}
+
+	@Test
+	public void testLoadChangeDataWithIOException() throws Exception {
+		when(mockRowChangeOne.getChangeType()).thenReturn(TableChangeType.ROW);
+		IOException error = new IOException("nope");
+		when(mockRowChangeOne.loadChangeData(SparseChangeSet.class)).thenThrow(error);
+
+		PrefetchingTableChangeIterator iterator = new PrefetchingTableChangeIterator(
+				Lists.newArrayList(mockRowChangeOne).iterator(), executorService, readAhead);
+		TableChangeMetaData change = iterator.next();
+		// call under test
+		IOException thrown = assertThrows(IOException.class, () -> {
+			change.loadChangeData(SparseChangeSet.class);
+		});
+		assertSame(error, thrown);
+	}
+
+	@Test
+	public void testLoadChangeDataWithRuntimeException() throws Exception {
+		when(mockRowChangeOne.getChangeType()).thenReturn(TableChangeType.ROW);
+		IllegalArgumentException error = new IllegalArgumentException("nope");
+		when(mockRowChangeOne.loadChangeData(SparseChangeSet.class)).thenThrow(error);
+
+		PrefetchingTableChangeIterator iterator = new PrefetchingTableChangeIterator(
+				Lists.newArrayList(mockRowChangeOne).iterator(), executorService, readAhead);
+		TableChangeMetaData change = iterator.next();
+		// call under test
+		IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, () -> {
+			change.loadChangeData(SparseChangeSet.class);
+		});
+		assertSame(error, thrown);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testCancel() throws Exception {
+		when(mockRowChangeOne.getChangeType()).thenReturn(TableChangeType.ROW);
+		when(mockExecutorService.submit(any(Callable.class))).thenReturn(mockFuture);
+		List<TableChangeMetaData> changes = Lists.newArrayList(mockRowChangeOne);
+
+		PrefetchingTableChangeIterator iterator = new PrefetchingTableChangeIterator(changes.iterator(),
+				mockExecutorService, readAhead);
+		assertTrue(iterator.hasNext());
+		// call under test
+		iterator.cancel();
+		verify(mockFuture).cancel(true);
+		assertFalse(iterator.hasNext());
+	}
+
+	@Test
+	public void testNullSource() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			new PrefetchingTableChangeIterator(null, executorService, readAhead);
+		});
+	}
+
+	@Test
+	public void testNullExecutorService() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			new PrefetchingTableChangeIterator(Lists.<TableChangeMetaData>newArrayList().iterator(), null, readAhead);
+		});
+	}
+
+	@Test
+	public void testZeroReadAhead() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			new PrefetchingTableChangeIterator(Lists.<TableChangeMetaData>newArrayList().iterator(), executorService, 0);
+		});
+	}
+}
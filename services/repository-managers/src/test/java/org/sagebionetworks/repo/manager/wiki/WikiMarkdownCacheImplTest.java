@@ -0,0 +1,212 @@
+package org.sagebionetworks.repo.manager.wiki;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.sagebionetworks.StackConfiguration;
+import org.sagebionetworks.aws.SynapseS3Client;
+import org.sagebionetworks.cloudwatch.Consumer;
+import org.sagebionetworks.cloudwatch.ProfileData;
+import org.sagebionetworks.downloadtools.FileUtils;
+import org.sagebionetworks.repo.model.dbo.file.FileHandleDao;
+import org.sagebionetworks.repo.model.file.S3FileHandle;
+import org.sagebionetworks.repo.web.NotFoundException;
+import org.sagebionetworks.util.Clock;
+
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
+
+@ExtendWith(MockitoExtension.class)
+public class WikiMarkdownCacheImplTest {
+
+	@Mock
+	private FileHandleDao mockFileHandleDao;
+	@Mock
+	private SynapseS3Client mockS3Client;
+	@Mock
+	private Consumer mockConsumer;
+	@Mock
+	private Clock mockClock;
+	@Mock
+	private StackConfiguration mockStackConfiguration;
+	@Captor
+	private ArgumentCaptor<List<ProfileData>> profileCaptor;
+
+	@TempDir
+	File diskDirectory;
+
+	private String markdown;
+	private byte[] compressedMarkdown;
+
+	@BeforeEach
+	public void before() throws IOException {
+		when(mockStackConfiguration.getStackInstance()).thenReturn("1a");
+		when(mockClock.currentTimeMillis()).thenReturn(0L);
+		markdown = "some markdown";
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		FileUtils.writeString(markdown, StandardCharsets.UTF_8, /*gzip*/true, out);
+		compressedMarkdown = out.toByteArray();
+	}
+
+	WikiMarkdownCacheImpl createCache(long memoryMaxBytes, File diskDirectory, long diskMaxBytes) throws IOException {
+		return new WikiMarkdownCacheImpl(mockFileHandleDao, mockS3Client, mockConsumer, mockClock,
+				mockStackConfiguration, memoryMaxBytes, diskDirectory, diskMaxBytes);
+	}
+
+	/**
+	 * Each markdown file handle is stored in S3 under a key of its id.
+	 *
+	 * @param fileHandleIds
+	 */
+	void setupS3(String... fileHandleIds) {
+		for (String fileHandleId : fileHandleIds) {
+			S3FileHandle handle = new S3FileHandle();
+			handle.setId(fileHandleId);
+			handle.setBucketName("bucket");
+			handle.setKey(fileHandleId);
+			when(mockFileHandleDao.get(fileHandleId)).thenReturn(handle);
+		}
+		when(mockS3Client.getObject(any(String.class), any(String.class))).thenAnswer(invocation -> {
+			S3Object s3Object = new S3Object();
+			ObjectMetadata metadata = new ObjectMetadata();
+			metadata.setContentType("text/plain; charset=utf-8");
+			s3Object.setObjectMetadata(metadata);
+			s3Object.setObjectContent(new ByteArrayInputStream(compressedMarkdown));
+			return s3Object;
+		});
+	}
+
+	@Test
+	public void testGetMarkdownFromMemory() throws IOException {
+		setupS3("123");
+		WikiMarkdownCacheImpl cache = createCache(1024L, null, 0L);
+		// call under test
+		assertEquals(markdown, cache.getMarkdown("123"));
+		assertEquals(markdown, cache.getMarkdown("123"));
+		// only downloaded once.
+		verify(mockS3Client, times(1)).getObject("bucket", "123");
+		verify(mockConsumer, never()).addProfileData(any(List.class));
+	}
+
+	@Test
+	public void testGetMarkdownFromDisk() throws IOException {
+		setupS3("123");
+		// too small to keep the markdown in memory.
+		WikiMarkdownCacheImpl cache = createCache(10L, diskDirectory, 1024L);
+		// call under test
+		assertEquals(markdown, cache.getMarkdown("123"));
+		assertEquals(markdown, cache.getMarkdown("123"));
+		// the second read is from the disk.
+		verify(mockS3Client, times(1)).getObject("bucket", "123");
+		assertTrue(new File(diskDirectory, "123" + WikiMarkdownCacheImpl.DISK_FILE_SUFFIX).exists());
+		assertEquals(markdown.length(), cache.diskSizeBytes());
+	}
+
+	@Test
+	public void testGetMarkdownWithDiskEviction() throws IOException {
+		setupS3("123", "456");
+		// only one markdown fits on the disk.
+		WikiMarkdownCacheImpl cache = createCache(10L, diskDirectory, 19L);
+		// call under test
+		cache.getMarkdown("123");
+		cache.getMarkdown("456");
+		assertFalse(new File(diskDirectory, "123" + WikiMarkdownCacheImpl.DISK_FILE_SUFFIX).exists());
+		assertTrue(new File(diskDirectory, "456" + WikiMarkdownCacheImpl.DISK_FILE_SUFFIX).exists());
+		assertEquals(markdown.length(), cache.diskSizeBytes());
+		// the evicted markdown is downloaded again.
+		assertEquals(markdown, cache.getMarkdown("123"));
+		verify(mockS3Client, times(2)).getObject("bucket", "123");
+	}
+
+	@Test
+	public void testCreateClearsDiskDirectory() throws IOException {
+		File stale = new File(diskDirectory, "789" + WikiMarkdownCacheImpl.DISK_FILE_SUFFIX);
+		Files.write(stale.toPath(), "stale".getBytes(StandardCharsets.UTF_8));
+		File staleTemp = new File(diskDirectory, "7891234" + WikiMarkdownCacheImpl.DISK_TEMP_FILE_SUFFIX);
+		Files.write(staleTemp.toPath(), "stale".getBytes(StandardCharsets.UTF_8));
+		// files that were not written by the cache are kept
+		File other = new File(diskDirectory, "notes.md");
+		Files.write(other.toPath(), "other".getBytes(StandardCharsets.UTF_8));
+		File otherWithNumber = new File(diskDirectory, "789.txt");
+		Files.write(otherWithNumber.toPath(), "other".getBytes(StandardCharsets.UTF_8));
+		// call under test
+		WikiMarkdownCacheImpl cache = createCache(10L, diskDirectory, 1024L);
+		assertFalse(stale.exists());
+		assertFalse(staleTemp.exists());
+		assertTrue(other.exists());
+		assertTrue(otherWithNumber.exists());
+		assertEquals(0L, cache.diskSizeBytes());
+	}
+
+	@Test
+	public void testGetMarkdownNotFound() throws IOException {
+		when(mockFileHandleDao.get("123")).thenThrow(new NotFoundException("Does not exist"));
+		WikiMarkdownCacheImpl cache = createCache(1024L, diskDirectory, 1024L);
+		assertThrows(NotFoundException.class, () -> {
+			// call under test
+			cache.getMarkdown("123");
+		});
+		// failures are not cached.
+		assertThrows(NotFoundException.class, () -> {
+			cache.getMarkdown("123");
+		});
+		verify(mockFileHandleDao, times(2)).get("123");
+		assertEquals(0L, cache.diskSizeBytes());
+	}
+
+	@Test
+	public void testGetMarkdownWithNullId() throws IOException {
+		WikiMarkdownCacheImpl cache = createCache(1024L, null, 0L);
+		assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			cache.getMarkdown(null);
+		});
+	}
+
+	@Test
+	public void testPushMetrics() throws IOException {
+		setupS3("123", "456");
+		WikiMarkdownCacheImpl cache = createCache(10L, diskDirectory, 1024L);
+		// one miss then one disk hit for 123, one miss for 456
+		cache.getMarkdown("123");
+		cache.getMarkdown("123");
+		when(mockClock.currentTimeMillis()).thenReturn(WikiMarkdownCacheImpl.PUBLISH_PERIOD_MS);
+		// call under test
+		cache.getMarkdown("456");
+		verify(mockConsumer).addProfileData(profileCaptor.capture());
+		List<ProfileData> metrics = profileCaptor.getValue();
+		assertEquals(4, metrics.size());
+		assertEquals(WikiMarkdownCacheImpl.METRIC_MEMORY_HIT_COUNT, metrics.get(0).getName());
+		assertEquals(new Double(0), metrics.get(0).getValue());
+		assertEquals(WikiMarkdownCacheImpl.METRIC_DISK_HIT_COUNT, metrics.get(1).getName());
+		assertEquals(new Double(1), metrics.get(1).getValue());
+		assertEquals(WikiMarkdownCacheImpl.METRIC_MISS_COUNT, metrics.get(2).getName());
+		assertEquals(new Double(2), metrics.get(2).getValue());
+		assertEquals(WikiMarkdownCacheImpl.METRIC_HIT_RATE, metrics.get(3).getName());
+		assertEquals(100.0 / 3, metrics.get(3).getValue(), 0.0001);
+		assertEquals("Wiki-Markdown-Cache-1a", metrics.get(0).getNamespace());
+	}
+}
@@ -44,6 +44,7 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpInputMessage;
 import org.springframework.http.HttpOutputMessage;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.http.converter.HttpMessageNotWritableException;
 
 import com.amazonaws.util.StringInputStream;
@@ -121,6 +122,36 @@ public class JSONEntityHttpMessageConverterTest {
 		assertEquals(project, results);
 	}
 	
+	@Test
+	public void testRoundTripWithCharset() throws HttpMessageNotWritableException, IOException{
+		project.setDescription("\u00e9\u4e2d\"quoted\"\n");
+		MediaType utf16 = new MediaType("application", "json", Charset.forName("UTF-16"));
+		// Write it out.
+		converter.write(project, utf16, mockOutMessage);
+		
+		ByteArrayInputStream in  = new ByteArrayInputStream(outStream.toByteArray());
+		Mockito.when(mockInMessage.getBody()).thenReturn(in);
+		Mockito.when(mockHeaders.getContentType()).thenReturn(utf16);
+		// Make sure we can read it back
+		JSONEntity results = converter.read(Project.class, mockInMessage);
+		assertEquals(project, results);
+	}
+	
+	@Test
+	public void testReadWithMalformedJSON() throws IOException{
+		Mockito.when(mockInMessage.getBody()).thenReturn(new StringInputStream("{\"name\":"));
+		assertThrows(HttpMessageNotReadableException.class, () -> {
+			// call under test
+			converter.read(Project.class, mockInMessage);
+		});
+	}
+	
+	@Test
+	public void testReadToJSONObject() throws IOException{
+		JSONObject result = JSONEntityHttpMessageConverter.readToJSONObject(new StringInputStream("{\"name\":\"foo\"}"), null);
+		assertEquals("foo", result.getString("name"));
+	}
+	
 	@Test
 	public void testErrorResponseRoundTripWithPlainTextMediaType() throws HttpMessageNotWritableException, IOException{
 		ErrorResponse error = new ErrorResponse();
@@ -5,8 +5,6 @@ import static org.sagebionetworks.downloadtools.FileUtils.DEFAULT_FILE_CHARSET;
 import java.io.ByteArrayOutputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStream;
-import java.nio.charset.Charset;
 import java.util.Date;
 
 import org.apache.http.entity.ContentType;
@@ -14,6 +12,7 @@ import org.sagebionetworks.aws.SynapseS3Client;
 import org.sagebionetworks.downloadtools.FileUtils;
 import org.sagebionetworks.ids.IdGenerator;
 import org.sagebionetworks.repo.manager.file.FileHandleManager;
+import org.sagebionetworks.repo.manager.wiki.WikiMarkdownCache;
 import org.sagebionetworks.repo.model.DatastoreException;
 import org.sagebionetworks.repo.model.UserInfo;
 import org.sagebionetworks.repo.model.dbo.file.FileHandleDao;
@@ -22,11 +21,8 @@ import org.sagebionetworks.repo.model.v2.wiki.V2WikiPage;
 import org.sagebionetworks.repo.model.wiki.WikiPage;
 import org.sagebionetworks.repo.transactions.WriteTransaction;
 import org.sagebionetworks.util.FileProvider;
-import org.sagebionetworks.utils.ContentTypeUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 
-import com.amazonaws.services.s3.model.S3Object;
-
 /**
  * Utility for converting between the WikiPage and V2WikiPage models.
  * @author hso
@@ -43,6 +39,8 @@ public class WikiModelTranslationHelper implements WikiModelTranslator {
 	FileProvider tempFileProvider;
 	@Autowired
 	IdGenerator idGenerator;
+	@Autowired
+	WikiMarkdownCache markdownCache;
 	
 	public static final String APPLICATION_OCTET_STREAM = "application/octet-stream";
 
@@ -113,18 +111,9 @@ public class WikiModelTranslationHelper implements WikiModelTranslator {
 		wiki.setTitle(from.getTitle());
 		wiki.setAttachmentFileHandleIds(from.getAttachmentFileHandleIds());
 		
-		S3FileHandle markdownHandle = (S3FileHandle) fileMetadataDao.get(from.getMarkdownFileHandleId());
 		// Retrieve uploaded markdown
-		S3Object s3Object = s3Client.getObject(markdownHandle.getBucketName(), markdownHandle.getKey());
-		String contentTypeString = s3Object.getObjectMetadata().getContentType();
-		Charset charset = ContentTypeUtil.getCharsetFromContentTypeString(contentTypeString);
-		
-		try (InputStream in = s3Object.getObjectContent()) {
-			// Read the file as a string
-			String markdownString = FileUtils.readStreamAsString(in, charset, /*gunzip*/true);
-			wiki.setMarkdown(markdownString);
-			return wiki;
-		}
+		wiki.setMarkdown(markdownCache.getMarkdown(from.getMarkdownFileHandleId()));
+		return wiki;
 
 	}
 
@@ -0,0 +1,91 @@
+package org.sagebionetworks.repo.web.filter.throttle;
+
+import static org.sagebionetworks.repo.web.filter.throttle.ThrottleUtils.generateCloudwatchProfiledata;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.sagebionetworks.cloudwatch.ProfileData;
+import org.sagebionetworks.common.util.PathNormalizer;
+import org.sagebionetworks.repo.model.semaphore.MemoryRateLimiter;
+import org.sagebionetworks.repo.model.throttle.ThrottleLimit;
+import org.sagebionetworks.repo.web.HttpRequestIdentifier;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * This is a filter that throttles non-anonymous user requests by limiting the
+ * rate of their requests. Each request is checked against the rule for its API
+ * (see {@link ThrottleRulesCache}), if any, and against the overall rate
+ * allowed for each user. Both limits are enforced with a
+ * {@link MemoryRateLimiter} so a user's allowance replenishes continuously
+ * instead of being reset at fixed time boundaries.
+ *
+ * It will throw an unavailable exception when either rate is exceeded.
+ *
+ */
+public class UserRequestRateThrottler implements RequestThrottler {
+	//From usage data in redash, normal users would not be affected with an average send 1 request per 1 second
+	//Set to 600 requests / 60 seconds so that the filter could tolerate infrequent high bursts of request from users
+	public static final long REQUEST_FREQUENCY_PERIOD_SEC = 60; //60 seconds
+	public static final int MAX_REQUESTS_PER_PERIOD = 600;
+
+	public static final String REASON_USER_THROTTLED_FREQ =
+			"{\"reason\": \"Requests are too frequent. Allowed "+MAX_REQUESTS_PER_PERIOD+" requests every "+REQUEST_FREQUENCY_PERIOD_SEC+" seconds.\"}";
+	public static final String REASON_USER_THROTTLED_API_FORMAT =
+			"{\"reason\": \"Requests are too frequent for API call: %s. Allowed %d requests every %d seconds.\"}";
+	public static final String CLOUDWATCH_EVENT_NAME = "RequestFrequencyLockUnavailable";
+	public static final String CLOUDWATCH_API_EVENT_NAME = "apiFrequencyLockUnavaliable";
+
+	private static final RequestThrottlerCleanup NO_OP_THROTTLER_CLEANUP = new RequestThrottlerCleanupNoOpImpl();
+
+	@Autowired
+	ThrottleRulesCache throttleRulesCache;
+
+	@Autowired
+	MemoryRateLimiter userThrottleMemoryRateLimiter;
+
+	@Override
+	public RequestThrottlerCleanup doThrottle(HttpRequestIdentifier httpRequestIdentifier) throws RequestThrottledException {
+		String userMachineIdentifierString = httpRequestIdentifier.getUserMachineIdentifierString();
+		String normalizedPath = PathNormalizer.normalizeMethodSignature(httpRequestIdentifier.getRequestPath());
+
+		// The API specific rule is checked first so a call rejected by that rule does not count against the overall rate.
+		ThrottleLimit limit = throttleRulesCache.getThrottleLimit(normalizedPath);
+		String apiKey = userMachineIdentifierString + ":" + normalizedPath;
+		if (limit != null && !userThrottleMemoryRateLimiter.attemptToAcquire(apiKey,
+				limit.getMaxCallsPerUserPerPeriod(), limit.getCallPeriodSec())) {
+			//add extra dimensions for recording the throttled API
+			Map<String, String> dimensions = createDimensions(httpRequestIdentifier);
+			dimensions.put("ThrottledAPI", normalizedPath);
+			ProfileData report = generateCloudwatchProfiledata(CLOUDWATCH_API_EVENT_NAME, this.getClass().getName(), dimensions);
+			throw new RequestThrottledException(String.format(REASON_USER_THROTTLED_API_FORMAT, normalizedPath,
+					limit.getMaxCallsPerUserPerPeriod(), limit.getCallPeriodSec()), report);
+		}
+
+		if (!userThrottleMemoryRateLimiter.attemptToAcquire(userMachineIdentifierString, MAX_REQUESTS_PER_PERIOD, REQUEST_FREQUENCY_PERIOD_SEC)) {
+			if (limit != null) {
+				// A call rejected by the overall rate must not count against the API specific rule either.
+				userThrottleMemoryRateLimiter.release(apiKey, limit.getMaxCallsPerUserPerPeriod(), limit.getCallPeriodSec());
+			}
+			ProfileData report = generateCloudwatchProfiledata(CLOUDWATCH_EVENT_NAME, this.getClass().getName(), createDimensions(httpRequestIdentifier));
+			throw new RequestThrottledException(REASON_USER_THROTTLED_FREQ, report);
+		}
+
+		return NO_OP_THROTTLER_CLEANUP;
+	}
+
+	/**
+	 * The dimensions recorded for every throttled request.
+	 *
+	 * @param httpRequestIdentifier
+	 * @return
+	 */
+	static Map<String, String> createDimensions(HttpRequestIdentifier httpRequestIdentifier) {
+		Map<String, String> dimensions = new HashMap<>();
+		dimensions.put("UserId", String.valueOf(httpRequestIdentifier.getUserId()));
+		dimensions.put("IpAddress", httpRequestIdentifier.getIpAddress());
+		dimensions.put("sessionId", httpRequestIdentifier.getSessionId());
+		return dimensions;
+	}
+
+}
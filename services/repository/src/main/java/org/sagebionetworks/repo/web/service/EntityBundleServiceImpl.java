@@ -5,6 +5,11 @@ import static org.apache.commons.lang3.BooleanUtils.isTrue;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 import org.sagebionetworks.repo.manager.UserManager;
 import org.sagebionetworks.repo.manager.dataaccess.AccessRequirementManager;
@@ -30,16 +35,20 @@ import org.sagebionetworks.repo.model.UnauthorizedException;
 import org.sagebionetworks.repo.model.VersionableEntity;
 import org.sagebionetworks.repo.model.annotation.v2.Annotations;
 import org.sagebionetworks.repo.model.annotation.v2.AnnotationsV2Translator;
+import org.sagebionetworks.repo.model.auth.UserEntityPermissions;
 import org.sagebionetworks.repo.model.dao.WikiPageKey;
 import org.sagebionetworks.repo.model.discussion.EntityThreadCounts;
+import org.sagebionetworks.repo.model.doi.v2.DoiAssociation;
 import org.sagebionetworks.repo.model.entity.IdAndVersion;
 import org.sagebionetworks.repo.model.file.FileHandle;
 import org.sagebionetworks.repo.model.jdo.KeyFactory;
 import org.sagebionetworks.repo.model.table.Table;
+import org.sagebionetworks.repo.model.table.TableBundle;
 import org.sagebionetworks.repo.queryparser.ParseException;
 import org.sagebionetworks.repo.transactions.WriteTransaction;
 import org.sagebionetworks.repo.web.NotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 public class EntityBundleServiceImpl implements EntityBundleService {
 	
@@ -52,6 +61,16 @@ public class EntityBundleServiceImpl implements EntityBundleService {
 	@Autowired
 	AccessRequirementManager accessRequirementManager;
 
+	/**
+	 * Used to fetch the independent parts of a bundle concurrently.
+	 */
+	ExecutorService bundleExecutorService;
+	
+	/**
+	 * When false, the parts of a bundle are always fetched on the calling thread.
+	 */
+	boolean parallelEnabled;
+
 	public EntityBundleServiceImpl() {}
 
 	/**
@@ -63,6 +82,24 @@ public class EntityBundleServiceImpl implements EntityBundleService {
 		this.serviceProvider = serviceProvider;
 	}
 
+	/**
+	 * Injected.
+	 * 
+	 * @param bundleExecutorService
+	 */
+	public void setBundleExecutorService(ExecutorService bundleExecutorService) {
+		this.bundleExecutorService = bundleExecutorService;
+	}
+
+	/**
+	 * Injected.
+	 * 
+	 * @param parallelEnabled
+	 */
+	public void setParallelEnabled(boolean parallelEnabled) {
+		this.parallelEnabled = parallelEnabled;
+	}
+
 	@Override
 	public EntityBundle getEntityBundle(Long userId, String entityId, EntityBundleRequest request)
 			throws NotFoundException, DatastoreException, UnauthorizedException, ACLInheritanceException, ParseException {
@@ -75,103 +112,175 @@ public class EntityBundleServiceImpl implements EntityBundleService {
 			throws NotFoundException, DatastoreException,
 			UnauthorizedException, ACLInheritanceException, ParseException {
 
-		EntityBundle eb = new EntityBundle();
-		Entity entity = null;
+		ExecutorService executor = null;
+		// Reads on other threads would not see the uncommitted changes of the current transaction.
+		if (parallelEnabled && !TransactionSynchronizationManager.isActualTransactionActive()) {
+			executor = bundleExecutorService;
+		}
+		BundleParts parts = new BundleParts(executor);
+		try {
+			return getEntityBundle(userId, entityId, versionNumber, request, parts);
+		} finally {
+			// Parts that have not started are not needed after a failure.
+			parts.cancel();
+		}
+	}
+
+	/**
+	 * Fetch each requested part of the bundle. When the parts have an executor,
+	 * the parts that do not depend on each other are fetched concurrently.
+	 * 
+	 * @param userId
+	 * @param entityId
+	 * @param versionNumber
+	 * @param request
+	 * @param parts         Used to start and wait for each part.
+	 * @return
+	 */
+	EntityBundle getEntityBundle(Long userId, String entityId, Long versionNumber, EntityBundleRequest request,
+			BundleParts parts) throws ACLInheritanceException, ParseException {
+		EntityService entityService = serviceProvider.getEntityService();
 		IdAndVersion idAndVersion = KeyFactory.idAndVersion(entityId, versionNumber);
+		Future<Entity> entityPart = null;
 		if (isTrue(request.getIncludeEntity()) || isTrue(request.getIncludeFileName())) {
-			if(versionNumber == null) {
-				entity = serviceProvider.getEntityService().getEntity(userId, entityId);
-			} else {
-				entity = serviceProvider.getEntityService().getEntityForVersion(userId, entityId, versionNumber);
-			}
-			if (isTrue(request.getIncludeEntity())) {
-				eb.setEntity(entity);
-				eb.setEntityType(EntityTypeUtils.getEntityTypeForClass(entity.getClass()));
-			}
+			entityPart = parts.start(() -> {
+				if (versionNumber == null) {
+					return entityService.getEntity(userId, entityId);
+				}
+				return entityService.getEntityForVersion(userId, entityId, versionNumber);
+			});
 		}
+		Future<Annotations> annotationsPart = null;
 		if (isTrue(request.getIncludeAnnotations())) {
-			if(versionNumber == null) {
-				eb.setAnnotations(serviceProvider.getEntityService().getEntityAnnotations(userId, entityId));
-			} else {
-				eb.setAnnotations(serviceProvider.getEntityService().getEntityAnnotationsForVersion(userId, entityId, versionNumber));
-			}
+			annotationsPart = parts.start(() -> {
+				if (versionNumber == null) {
+					return entityService.getEntityAnnotations(userId, entityId);
+				}
+				return entityService.getEntityAnnotationsForVersion(userId, entityId, versionNumber);
+			});
 		}
+		Future<UserEntityPermissions> permissionsPart = null;
 		if (isTrue(request.getIncludePermissions())) {
-			eb.setPermissions(serviceProvider.getEntityService().getUserEntityPermissions(userId, entityId));
+			permissionsPart = parts.start(() -> entityService.getUserEntityPermissions(userId, entityId));
 		}
+		Future<List<EntityHeader>> pathPart = null;
 		if (isTrue(request.getIncludeEntityPath())) {
-			List<EntityHeader> path = serviceProvider.getEntityService().getEntityPath(userId, entityId);
-			EntityPath ep = new EntityPath();
-			ep.setPath(path);
-			eb.setPath(ep);
+			pathPart = parts.start(() -> entityService.getEntityPath(userId, entityId));
 		}
+		Future<Boolean> hasChildrenPart = null;
 		if (isTrue(request.getIncludeHasChildren())) {
-			eb.setHasChildren(serviceProvider.getEntityService().doesEntityHaveChildren(userId, entityId));
-		}
-		if (isTrue(request.getIncludeAccessControlList())) {
-			try {
-				eb.setAccessControlList(serviceProvider.getEntityService().getEntityACL(entityId, userId));
-			} catch (ACLInheritanceException e) {
-				// ACL is inherited from benefactor. Set ACL to null.
-				eb.setAccessControlList(null);
-			}
+			hasChildrenPart = parts.start(() -> entityService.doesEntityHaveChildren(userId, entityId));
 		}
-		if (isTrue(request.getIncludeBenefactorACL())) {
-			try {
-				// If this entity is its own benefactor then we just get the ACL
-				eb.setBenefactorAcl(serviceProvider.getEntityService().getEntityACL(entityId, userId));
-			} catch (ACLInheritanceException e) {
-				// ACL is inherited from benefactor. So get the benefactor's ACL
-				eb.setBenefactorAcl(serviceProvider.getEntityService().getEntityACL(e.getBenefactorId(), userId));
-			}
+		Future<BundleAcls> aclsPart = null;
+		if (isTrue(request.getIncludeAccessControlList()) || isTrue(request.getIncludeBenefactorACL())) {
+			// The ACL and benefactor ACL share a single ACL lookup.
+			boolean includeBenefactorAcl = isTrue(request.getIncludeBenefactorACL());
+			aclsPart = parts.start(() -> getAcls(entityService, userId, entityId, includeBenefactorAcl));
 		}
-		List<FileHandle> fileHandles = null;
+		Future<List<FileHandle>> fileHandlesPart = null;
 		if (isTrue(request.getIncludeFileHandles()) || isTrue(request.getIncludeFileName())) {
-			try {
-				if (versionNumber == null) {
-					fileHandles = serviceProvider.getEntityService().
-							getEntityFileHandlesForCurrentVersion(userId, entityId).getList();
-				} else{
-					fileHandles = serviceProvider.getEntityService().
-							getEntityFileHandlesForVersion(userId, entityId, versionNumber).getList();
+			fileHandlesPart = parts.start(() -> {
+				try {
+					if (versionNumber == null) {
+						return entityService.getEntityFileHandlesForCurrentVersion(userId, entityId).getList();
+					}
+					return entityService.getEntityFileHandlesForVersion(userId, entityId, versionNumber).getList();
+				} catch (NotFoundException | UnauthorizedException e) {
+					// If there are no file handle(s) or if the user does not have permission to see the handles then set them to be an empty list.
+					return new LinkedList<FileHandle>();
 				}
-			}catch (NotFoundException | UnauthorizedException e) {
-				// If there are no file handle(s) or if the user does not have permission to see the handles then set them to be an empty list.
-				fileHandles = new LinkedList<FileHandle>();
-			}
-			if (isTrue(request.getIncludeFileHandles())) {
-				eb.setFileHandles(fileHandles);
-			}
+			});
 		}
+		Future<TableBundle> tableBundlePart = null;
 		if (isTrue(request.getIncludeTableBundle())) {
 			// This mask only has meaning for implementations of tables.
-			eb.setTableBundle(serviceProvider.getTableServices().getTableBundle(idAndVersion));
-		}
-		if(isTrue(request.getIncludeRootWikiId())){
-			try {
-				WikiPageKey rootKey = serviceProvider.getWikiService().getRootWikiKey(userId, entityId, ObjectType.ENTITY);
-				eb.setRootWikiId(rootKey.getWikiPageId());
-			} catch (NotFoundException e) {
-				// does not exist
-				eb.setRootWikiId(null);
-			}
+			tableBundlePart = parts.start(() -> serviceProvider.getTableServices().getTableBundle(idAndVersion));
 		}
-		if(isTrue(request.getIncludeDOIAssociation()) ){
-			try {
-				if (versionNumber == null && (entity instanceof FileEntity)) {
+		Future<String> rootWikiIdPart = null;
+		if (isTrue(request.getIncludeRootWikiId())) {
+			rootWikiIdPart = parts.start(() -> {
+				try {
+					WikiPageKey rootKey = serviceProvider.getWikiService().getRootWikiKey(userId, entityId, ObjectType.ENTITY);
+					return rootKey.getWikiPageId();
+				} catch (NotFoundException e) {
+					// does not exist
+					return null;
+				}
+			});
+		}
+		Future<Long> threadCountPart = null;
+		if (isTrue(request.getIncludeThreadCount())) {
+			threadCountPart = parts.start(() -> getThreadCount(userId, entityId));
+		}
+		Future<RestrictionInformationResponse> restrictionInformationPart = null;
+		if (isTrue(request.getIncludeRestrictionInformation())) {
+			restrictionInformationPart = parts.start(() -> {
+				RestrictionInformationRequest restrictionInfoRequest = new RestrictionInformationRequest();
+				restrictionInfoRequest.setObjectId(entityId);
+				restrictionInfoRequest.setRestrictableObjectType(RestrictableObjectType.ENTITY);
+				return serviceProvider.getDataAccessService().getRestrictionInformation(userId, restrictionInfoRequest);
+			});
+		}
+
+		EntityBundle eb = new EntityBundle();
+		Entity entity = parts.get(entityPart);
+		if (isTrue(request.getIncludeEntity())) {
+			eb.setEntity(entity);
+			eb.setEntityType(EntityTypeUtils.getEntityTypeForClass(entity.getClass()));
+		}
+		// The DOI of a file depends on the current version of the entity.
+		Future<DoiAssociation> doiPart = null;
+		if (isTrue(request.getIncludeDOIAssociation())) {
+			Long doiVersionNumber = versionNumber == null && (entity instanceof FileEntity)
+					? ((VersionableEntity) entity).getVersionNumber() : versionNumber;
+			doiPart = parts.start(() -> {
+				try {
 					// For File Entities, we assume that the user wants the DOI of the most recent version, if it exists.
-					Long currentVersionNumber = ((VersionableEntity) entity).getVersionNumber();
-					eb.setDoiAssociation(serviceProvider.getDoiServiceV2().getDoiAssociation(entityId, ObjectType.ENTITY, currentVersionNumber));
-				} else { // Handle non-versionable entities and other types of versionable entities
 					// For other versionable entity types (e.g. tables), the 'current version' is mutable.
 					// In this case, we get the DOI of the specified version, which may be null.
-					eb.setDoiAssociation(serviceProvider.getDoiServiceV2().getDoiAssociation(entityId, ObjectType.ENTITY, versionNumber));
+					return serviceProvider.getDoiServiceV2().getDoiAssociation(entityId, ObjectType.ENTITY, doiVersionNumber);
+				} catch (NotFoundException e) {
+					// does not exist
+					return null;
 				}
-			} catch (NotFoundException e) {
-				// does not exist
-				eb.setDoiAssociation(null);
+			});
+		}
+		if (annotationsPart != null) {
+			eb.setAnnotations(parts.get(annotationsPart));
+		}
+		if (permissionsPart != null) {
+			eb.setPermissions(parts.get(permissionsPart));
+		}
+		if (pathPart != null) {
+			EntityPath ep = new EntityPath();
+			ep.setPath(parts.get(pathPart));
+			eb.setPath(ep);
+		}
+		if (hasChildrenPart != null) {
+			eb.setHasChildren(parts.get(hasChildrenPart));
+		}
+		if (aclsPart != null) {
+			BundleAcls acls = parts.get(aclsPart);
+			if (isTrue(request.getIncludeAccessControlList())) {
+				eb.setAccessControlList(acls.acl);
+			}
+			if (isTrue(request.getIncludeBenefactorACL())) {
+				eb.setBenefactorAcl(acls.benefactorAcl);
 			}
 		}
+		List<FileHandle> fileHandles = parts.get(fileHandlesPart);
+		if (isTrue(request.getIncludeFileHandles())) {
+			eb.setFileHandles(fileHandles);
+		}
+		if (tableBundlePart != null) {
+			eb.setTableBundle(parts.get(tableBundlePart));
+		}
+		if (rootWikiIdPart != null) {
+			eb.setRootWikiId(parts.get(rootWikiIdPart));
+		}
+		if (doiPart != null) {
+			eb.setDoiAssociation(parts.get(doiPart));
+		}
 		if(isTrue(request.getIncludeFileName()) && (entity instanceof FileEntity)){
 			FileEntity fileEntity = (FileEntity)entity;
 			if (fileEntity.getFileNameOverride()==null) {
@@ -185,28 +294,170 @@ public class EntityBundleServiceImpl implements EntityBundleService {
 				eb.setFileName(fileEntity.getFileNameOverride());
 			}
 		}
-		if (isTrue(request.getIncludeThreadCount())) {
-			EntityIdList entityIdList = new EntityIdList();
-			entityIdList.setIdList(Arrays.asList(entityId));
-			EntityThreadCounts result = serviceProvider.getDiscussionService().getThreadCounts(userId, entityIdList );
-			if (result.getList().isEmpty()) {
-				eb.setThreadCount(0L);
-			} else if (result.getList().size() == 1) {
-				eb.setThreadCount(result.getList().get(0).getCount());
-			} else {
-				throw new IllegalStateException("Unexpected EntityThreadCount list size: "+result.getList().size());
-			}
+		if (threadCountPart != null) {
+			eb.setThreadCount(parts.get(threadCountPart));
 		}
-		if (isTrue(request.getIncludeRestrictionInformation())) {
-			RestrictionInformationRequest restrictionInfoRequest = new RestrictionInformationRequest();
-			restrictionInfoRequest.setObjectId(entityId);
-			restrictionInfoRequest.setRestrictableObjectType(RestrictableObjectType.ENTITY);
-			RestrictionInformationResponse restrictionInfo = serviceProvider.getDataAccessService().getRestrictionInformation(userId, restrictionInfoRequest);
-			eb.setRestrictionInformation(restrictionInfo);
+		if (restrictionInformationPart != null) {
+			eb.setRestrictionInformation(parts.get(restrictionInformationPart));
 		}
 		return eb;
 	}
 
+	/**
+	 * Lookup the ACL of the entity and, if requested, the ACL of its benefactor.
+	 * 
+	 * @param entityService
+	 * @param userId
+	 * @param entityId
+	 * @param includeBenefactorAcl
+	 * @return
+	 * @throws ACLInheritanceException
+	 */
+	static BundleAcls getAcls(EntityService entityService, Long userId, String entityId, boolean includeBenefactorAcl)
+			throws ACLInheritanceException {
+		try {
+			// If this entity is its own benefactor then its ACL is also the benefactor ACL
+			AccessControlList acl = entityService.getEntityACL(entityId, userId);
+			return new BundleAcls(acl, acl);
+		} catch (ACLInheritanceException e) {
+			// ACL is inherited from benefactor. Set ACL to null and get the benefactor's ACL
+			AccessControlList benefactorAcl = null;
+			if (includeBenefactorAcl) {
+				benefactorAcl = entityService.getEntityACL(e.getBenefactorId(), userId);
+			}
+			return new BundleAcls(null, benefactorAcl);
+		}
+	}
+
+	private Long getThreadCount(Long userId, String entityId) {
+		EntityIdList entityIdList = new EntityIdList();
+		entityIdList.setIdList(Arrays.asList(entityId));
+		EntityThreadCounts result = serviceProvider.getDiscussionService().getThreadCounts(userId, entityIdList );
+		if (result.getList().isEmpty()) {
+			return 0L;
+		} else if (result.getList().size() == 1) {
+			return result.getList().get(0).getCount();
+		} else {
+			throw new IllegalStateException("Unexpected EntityThreadCount list size: "+result.getList().size());
+		}
+	}
+
+	/**
+	 * The parts of a single bundle. A started part is only handed to the executor
+	 * once the next part is started, so the last part started before waiting is
+	 * fetched on the calling thread instead of leaving that thread idle.
+	 *
+	 */
+	static class BundleParts {
+		private final ExecutorService executor;
+		private final List<Future<?>> started = new LinkedList<>();
+		private FutureTask<?> pending;
+
+		/**
+		 * 
+		 * @param executor When null, each part is fetched in order on the calling
+		 *                 thread.
+		 */
+		BundleParts(ExecutorService executor) {
+			this.executor = executor;
+		}
+
+		/**
+		 * Start fetching a single part of a bundle. Without an executor the part is
+		 * fetched immediately and any failure is thrown.
+		 * 
+		 * @param part
+		 * @return
+		 */
+		<T> Future<T> start(Callable<T> part) throws ACLInheritanceException, ParseException {
+			FutureTask<T> task = new FutureTask<>(part);
+			started.add(task);
+			if (executor == null) {
+				task.run();
+				getPart(task);
+				return task;
+			}
+			if (pending != null) {
+				executor.execute(pending);
+			}
+			pending = task;
+			return task;
+		}
+
+		/**
+		 * Wait for a part of a bundle. The last started part is first fetched on
+		 * the calling thread.
+		 * 
+		 * @param part
+		 * @return The value of the part or null if the part was not started.
+		 */
+		<T> T get(Future<T> part) throws ACLInheritanceException, ParseException {
+			if (pending != null) {
+				FutureTask<?> task = pending;
+				pending = null;
+				task.run();
+			}
+			return getPart(part);
+		}
+
+		/**
+		 * Cancel all parts that have not started.
+		 */
+		void cancel() {
+			for (Future<?> part : started) {
+				part.cancel(false);
+			}
+		}
+	}
+
+	/**
+	 * Wait for a part of a bundle, throwing the original exception of a failed
+	 * part.
+	 * 
+	 * @param part
+	 * @return The value of the part or null if the part was not started.
+	 */
+	static <T> T getPart(Future<T> part) throws ACLInheritanceException, ParseException {
+		if (part == null) {
+			return null;
+		}
+		try {
+			return part.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			if (cause instanceof ACLInheritanceException) {
+				throw (ACLInheritanceException) cause;
+			}
+			if (cause instanceof ParseException) {
+				throw (ParseException) cause;
+			}
+			throw new RuntimeException(cause);
+		}
+	}
+
+	/**
+	 * The ACL and benefactor ACL of an entity.
+	 *
+	 */
+	static class BundleAcls {
+		private final AccessControlList acl;
+		private final AccessControlList benefactorAcl;
+
+		BundleAcls(AccessControlList acl, AccessControlList benefactorAcl) {
+			this.acl = acl;
+			this.benefactorAcl = benefactorAcl;
+		}
+	}
+
 
 	@WriteTransaction
 	@Override
@@ -0,0 +1,136 @@
+package org.sagebionetworks.repo.web.filter.throttle;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+import static org.sagebionetworks.repo.web.filter.throttle.UserRequestRateThrottler.CLOUDWATCH_API_EVENT_NAME;
+import static org.sagebionetworks.repo.web.filter.throttle.UserRequestRateThrottler.CLOUDWATCH_EVENT_NAME;
+import static org.sagebionetworks.repo.web.filter.throttle.UserRequestRateThrottler.MAX_REQUESTS_PER_PERIOD;
+import static org.sagebionetworks.repo.web.filter.throttle.UserRequestRateThrottler.REQUEST_FREQUENCY_PERIOD_SEC;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.sagebionetworks.common.util.PathNormalizer;
+import org.sagebionetworks.repo.model.semaphore.MemoryRateLimiter;
+import org.sagebionetworks.repo.model.throttle.ThrottleLimit;
+import org.sagebionetworks.repo.web.HttpRequestIdentifier;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@RunWith(MockitoJUnitRunner.class)
+public class UserRequestRateThrottlerTest {
+
+	private UserRequestRateThrottler throttler;
+
+	@Mock
+	private ThrottleRulesCache throttleRulesCache;
+
+	@Mock
+	private MemoryRateLimiter mockRateLimiter;
+
+	private static final String userId = "123";
+	private static final String sessionId = "session-id";
+	private static final String ipAddress = "123.123.123.123";
+	private static final String path = "/repo/v1/the/path/is/a/lie/12345/";
+	private static final String normalizedPath = PathNormalizer.normalizeMethodSignature(path);
+	private static final ThrottleLimit throttleLimit = new ThrottleLimit(123, 456);
+
+	private HttpRequestIdentifier requestIdentifier = new HttpRequestIdentifier(Long.valueOf(userId), sessionId, ipAddress, path);
+	private final String userMachineIdentifierString = requestIdentifier.getUserMachineIdentifierString();
+	private final String apiKey = userMachineIdentifierString + ":" + normalizedPath;
+
+	@Before
+	public void setUp() throws Exception {
+		throttler = new UserRequestRateThrottler();
+		ReflectionTestUtils.setField(throttler, "userThrottleMemoryRateLimiter", mockRateLimiter);
+		ReflectionTestUtils.setField(throttler, "throttleRulesCache", throttleRulesCache);
+	}
+
+	@Test
+	public void testNoThrottleForPath() throws Exception {
+		when(throttleRulesCache.getThrottleLimit(normalizedPath)).thenReturn(null);
+		when(mockRateLimiter.attemptToAcquire(userMachineIdentifierString, MAX_REQUESTS_PER_PERIOD, REQUEST_FREQUENCY_PERIOD_SEC)).thenReturn(true);
+
+		//method under test
+		RequestThrottlerCleanup cleanup = throttler.doThrottle(requestIdentifier);
+
+		verify(throttleRulesCache).getThrottleLimit(normalizedPath);
+		verify(mockRateLimiter).attemptToAcquire(userMachineIdentifierString, MAX_REQUESTS_PER_PERIOD, REQUEST_FREQUENCY_PERIOD_SEC);
+		verifyNoMoreInteractions(mockRateLimiter);
+		assertEquals(RequestThrottlerCleanupNoOpImpl.class, cleanup.getClass());
+	}
+
+	@Test
+	public void testUserUnderThrottleLimit() throws Exception {
+		when(throttleRulesCache.getThrottleLimit(normalizedPath)).thenReturn(throttleLimit);
+		when(mockRateLimiter.attemptToAcquire(apiKey, throttleLimit.getMaxCallsPerUserPerPeriod(), throttleLimit.getCallPeriodSec())).thenReturn(true);
+		when(mockRateLimiter.attemptToAcquire(userMachineIdentifierString, MAX_REQUESTS_PER_PERIOD, REQUEST_FREQUENCY_PERIOD_SEC)).thenReturn(true);
+
+		//method under test
+		RequestThrottlerCleanup cleanup = throttler.doThrottle(requestIdentifier);
+
+		verify(mockRateLimiter).attemptToAcquire(apiKey, throttleLimit.getMaxCallsPerUserPerPeriod(), throttleLimit.getCallPeriodSec());
+		verify(mockRateLimiter).attemptToAcquire(userMachineIdentifierString, MAX_REQUESTS_PER_PERIOD, REQUEST_FREQUENCY_PERIOD_SEC);
+		assertEquals(RequestThrottlerCleanupNoOpImpl.class, cleanup.getClass());
+	}
+
+	@Test
+	public void testOverApiLimit() throws Exception {
+		when(throttleRulesCache.getThrottleLimit(normalizedPath)).thenReturn(throttleLimit);
+		when(mockRateLimiter.attemptToAcquire(apiKey, throttleLimit.getMaxCallsPerUserPerPeriod(), throttleLimit.getCallPeriodSec())).thenReturn(false);
+
+		try {
+			//method under test
+			throttler.doThrottle(requestIdentifier);
+			fail("Expected RequestThrottledException to be thrown");
+		} catch (RequestThrottledException e) { //expected
+			assertEquals(CLOUDWATCH_API_EVENT_NAME, e.getProfileData().getName());
+			assertEquals(normalizedPath, e.getProfileData().getDimension().get("ThrottledAPI"));
+		}
+
+		verify(mockRateLimiter).attemptToAcquire(apiKey, throttleLimit.getMaxCallsPerUserPerPeriod(), throttleLimit.getCallPeriodSec());
+		// the rejected call must not count against the overall rate.
+		verifyNoMoreInteractions(mockRateLimiter);
+	}
+
+	@Test
+	public void testOverOverallLimit() throws Exception {
+		when(throttleRulesCache.getThrottleLimit(normalizedPath)).thenReturn(null);
+		when(mockRateLimiter.attemptToAcquire(userMachineIdentifierString, MAX_REQUESTS_PER_PERIOD, REQUEST_FREQUENCY_PERIOD_SEC)).thenReturn(false);
+
+		try {
+			//method under test
+			throttler.doThrottle(requestIdentifier);
+			fail("Expected RequestThrottledException to be thrown");
+		} catch (RequestThrottledException e) { //expected
+			assertEquals(CLOUDWATCH_EVENT_NAME, e.getProfileData().getName());
+		}
+
+		verify(mockRateLimiter).attemptToAcquire(userMachineIdentifierString, MAX_REQUESTS_PER_PERIOD, REQUEST_FREQUENCY_PERIOD_SEC);
+	}
+
+	@Test
+	public void testUnderApiLimitOverOverallLimit() throws Exception {
+		when(throttleRulesCache.getThrottleLimit(normalizedPath)).thenReturn(throttleLimit);
+		when(mockRateLimiter.attemptToAcquire(apiKey, throttleLimit.getMaxCallsPerUserPerPeriod(), throttleLimit.getCallPeriodSec())).thenReturn(true);
+		when(mockRateLimiter.attemptToAcquire(userMachineIdentifierString, MAX_REQUESTS_PER_PERIOD, REQUEST_FREQUENCY_PERIOD_SEC)).thenReturn(false);
+
+		try {
+			//method under test
+			throttler.doThrottle(requestIdentifier);
+			fail("Expected RequestThrottledException to be thrown");
+		} catch (RequestThrottledException e) { //expected
+			assertEquals(CLOUDWATCH_EVENT_NAME, e.getProfileData().getName());
+		}
+
+		verify(mockRateLimiter).attemptToAcquire(apiKey, throttleLimit.getMaxCallsPerUserPerPeriod(), throttleLimit.getCallPeriodSec());
+		verify(mockRateLimiter).attemptToAcquire(userMachineIdentifierString, MAX_REQUESTS_PER_PERIOD, REQUEST_FREQUENCY_PERIOD_SEC);
+		// the rejected call must not count against the API rule.
+		verify(mockRateLimiter).release(apiKey, throttleLimit.getMaxCallsPerUserPerPeriod(), throttleLimit.getCallPeriodSec());
+		verifyNoMoreInteractions(mockRateLimiter);
+	}
+}
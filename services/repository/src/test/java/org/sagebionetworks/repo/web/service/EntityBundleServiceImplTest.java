@@ -24,6 +24,8 @@ import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -65,6 +67,7 @@ import org.sagebionetworks.repo.web.NotFoundException;
 import org.sagebionetworks.repo.web.service.dataaccess.DataAccessService;
 import org.sagebionetworks.repo.web.service.discussion.DiscussionService;
 import org.sagebionetworks.repo.web.service.table.TableServices;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @ExtendWith(MockitoExtension.class)
 public class EntityBundleServiceImplTest {
@@ -562,4 +565,155 @@ public class EntityBundleServiceImplTest {
 		assertSame(entityBundleV2.getThreadCount(), v1Bundle.getThreadCount());
 		assertSame(entityBundleV2.getRestrictionInformation(), v1Bundle.getRestrictionInformation());
 	}
+
+	@Test
+	public void testGetEntityBundleConcurrent() throws Exception {
+		String entityId = "syn123";
+		EntityBundleRequest request = new EntityBundleRequest();
+		request.setIncludeEntity(true);
+		request.setIncludeAnnotations(true);
+		request.setIncludePermissions(true);
+		request.setIncludeHasChildren(true);
+		request.setIncludeAccessControlList(true);
+		request.setIncludeBenefactorACL(true);
+		request.setIncludeThreadCount(true);
+		request.setIncludeRestrictionInformation(true);
+		when(mockEntityService.getEntity(TEST_USER1, entityId)).thenReturn(file);
+		when(mockEntityService.getEntityAnnotations(TEST_USER1, entityId)).thenReturn(annotationsV2);
+		UserEntityPermissions permissions = new UserEntityPermissions();
+		when(mockEntityService.getUserEntityPermissions(TEST_USER1, entityId)).thenReturn(permissions);
+		when(mockEntityService.doesEntityHaveChildren(TEST_USER1, entityId)).thenReturn(true);
+		when(mockEntityService.getEntityACL(entityId, TEST_USER1)).thenReturn(acl);
+		threadCounts = new EntityThreadCounts();
+		threadCounts.setList(new LinkedList<EntityThreadCount>());
+		when(mockDiscussionService.getThreadCounts(eq(TEST_USER1), any(EntityIdList.class))).thenReturn(threadCounts);
+		RestrictionInformationResponse restrictionInfo = new RestrictionInformationResponse();
+		when(mockDataAccessService.getRestrictionInformation(eq(TEST_USER1), any(RestrictionInformationRequest.class))).thenReturn(restrictionInfo);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			((EntityBundleServiceImpl) entityBundleService).setBundleExecutorService(executor);
+			((EntityBundleServiceImpl) entityBundleService).setParallelEnabled(true);
+			// call under test
+			EntityBundle bundle = entityBundleService.getEntityBundle(TEST_USER1, entityId, request);
+			assertEquals(file, bundle.getEntity());
+			assertEquals(annotationsV2, bundle.getAnnotations());
+			assertEquals(permissions, bundle.getPermissions());
+			assertTrue(bundle.getHasChildren());
+			assertEquals(acl, bundle.getAccessControlList());
+			assertEquals(acl, bundle.getBenefactorAcl());
+			assertEquals(new Long(0), bundle.getThreadCount());
+			assertEquals(restrictionInfo, bundle.getRestrictionInformation());
+			// the ACL is shared with the benefactor ACL.
+			verify(mockEntityService).getEntityACL(entityId, TEST_USER1);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testGetEntityBundleConcurrentWithFailure() throws Exception {
+		String entityId = "syn123";
+		EntityBundleRequest request = new EntityBundleRequest();
+		request.setIncludeEntity(true);
+		request.setIncludeHasChildren(true);
+		NotFoundException notFound = new NotFoundException("does not exist");
+		when(mockEntityService.getEntity(TEST_USER1, entityId)).thenThrow(notFound);
+		lenient().when(mockEntityService.doesEntityHaveChildren(TEST_USER1, entityId)).thenReturn(true);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			((EntityBundleServiceImpl) entityBundleService).setBundleExecutorService(executor);
+			((EntityBundleServiceImpl) entityBundleService).setParallelEnabled(true);
+			NotFoundException thrown = assertThrows(NotFoundException.class, () -> {
+				// call under test
+				entityBundleService.getEntityBundle(TEST_USER1, entityId, request);
+			});
+			// the original exception is thrown.
+			assertSame(notFound, thrown);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testGetEntityBundleInTransaction() throws Exception {
+		String entityId = "syn123";
+		EntityBundleRequest request = new EntityBundleRequest();
+		request.setIncludeHasChildren(true);
+		when(mockEntityService.doesEntityHaveChildren(TEST_USER1, entityId)).thenReturn(true);
+		ExecutorService mockExecutor = mock(ExecutorService.class);
+		((EntityBundleServiceImpl) entityBundleService).setBundleExecutorService(mockExecutor);
+		((EntityBundleServiceImpl) entityBundleService).setParallelEnabled(true);
+		request.setIncludePermissions(true);
+		when(mockEntityService.getUserEntityPermissions(TEST_USER1, entityId)).thenReturn(new UserEntityPermissions());
+		TransactionSynchronizationManager.setActualTransactionActive(true);
+		try {
+			// call under test
+			EntityBundle bundle = entityBundleService.getEntityBundle(TEST_USER1, entityId, request);
+			assertTrue(bundle.getHasChildren());
+			// parts are not fetched on other threads within a transaction.
+			verify(mockExecutor, never()).execute(any(Runnable.class));
+		} finally {
+			TransactionSynchronizationManager.setActualTransactionActive(false);
+		}
+	}
+
+	@Test
+	public void testGetEntityBundleParallelDisabled() throws Exception {
+		String entityId = "syn123";
+		EntityBundleRequest request = new EntityBundleRequest();
+		request.setIncludeHasChildren(true);
+		request.setIncludePermissions(true);
+		when(mockEntityService.doesEntityHaveChildren(TEST_USER1, entityId)).thenReturn(true);
+		UserEntityPermissions permissions = new UserEntityPermissions();
+		when(mockEntityService.getUserEntityPermissions(TEST_USER1, entityId)).thenReturn(permissions);
+		ExecutorService mockExecutor = mock(ExecutorService.class);
+		((EntityBundleServiceImpl) entityBundleService).setBundleExecutorService(mockExecutor);
+		((EntityBundleServiceImpl) entityBundleService).setParallelEnabled(false);
+		// call under test
+		EntityBundle bundle = entityBundleService.getEntityBundle(TEST_USER1, entityId, request);
+		assertTrue(bundle.getHasChildren());
+		assertEquals(permissions, bundle.getPermissions());
+		verify(mockExecutor, never()).execute(any(Runnable.class));
+	}
+
+	@Test
+	public void testGetEntityBundleLastPartOnCallerThread() throws Exception {
+		String entityId = "syn123";
+		EntityBundleRequest request = new EntityBundleRequest();
+		request.setIncludePermissions(true);
+		request.setIncludeHasChildren(true);
+		UserEntityPermissions permissions = new UserEntityPermissions();
+		when(mockEntityService.getUserEntityPermissions(TEST_USER1, entityId)).thenReturn(permissions);
+		Thread caller = Thread.currentThread();
+		List<Thread> hasChildrenThreads = new LinkedList<>();
+		when(mockEntityService.doesEntityHaveChildren(TEST_USER1, entityId)).thenAnswer(invocation -> {
+			hasChildrenThreads.add(Thread.currentThread());
+			return true;
+		});
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			((EntityBundleServiceImpl) entityBundleService).setBundleExecutorService(executor);
+			((EntityBundleServiceImpl) entityBundleService).setParallelEnabled(true);
+			// call under test
+			EntityBundle bundle = entityBundleService.getEntityBundle(TEST_USER1, entityId, request);
+			assertEquals(permissions, bundle.getPermissions());
+			assertTrue(bundle.getHasChildren());
+			// the last part is fetched by the caller.
+			assertEquals(Collections.singletonList(caller), hasChildrenThreads);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testGetAclsInherited() throws Exception {
+		String entityId = "syn123";
+		String benefactorId = "syn456";
+		when(mockEntityService.getEntityACL(entityId, TEST_USER1)).thenThrow(new ACLInheritanceException("Has a benefactor", benefactorId));
+		// call under test
+		EntityBundleServiceImpl.BundleAcls acls = EntityBundleServiceImpl.getAcls(mockEntityService, TEST_USER1, entityId, false);
+		assertNotNull(acls);
+		// the benefactor ACL is not needed.
+		verify(mockEntityService, never()).getEntityACL(benefactorId, TEST_USER1);
+	}
 }
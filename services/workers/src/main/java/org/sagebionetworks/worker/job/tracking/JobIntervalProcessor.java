@@ -32,6 +32,10 @@ public class JobIntervalProcessor {
 	public static final String METRIC_NAME_PERCENT_TIMET_RUNNING = "% Time Running";
 	public static final String METRIC_CUMULATIVE_RUNTIME = "Cumulative runtime";
 	public static final String METRIC_COMPLETED_JOB_COUNT = "Completed Job Count";
+	public static final String METRIC_IN_FLIGHT_JOB_COUNT = "In-flight Job Count";
+	public static final String METRIC_LATENCY_P50 = "Job Latency p50";
+	public static final String METRIC_LATENCY_P99 = "Job Latency p99";
+	public static final String METRIC_LATENCY_MAX = "Job Latency Max";
 	public static final String NAMESPACE_WORKER_STATISTICS = "Worker-Statistics-"+ StackConfigurationSingleton.singleton().getStackInstance();
 
 	@Autowired
@@ -51,6 +55,7 @@ public class JobIntervalProcessor {
 	Map<String, IntervalStatistics> percentTimeRunningStatistics = new HashMap<>();
 	Map<String, IntervalStatistics> cumulativeRuntimeStatisitsics= new HashMap<>();
 	Map<String, IntervalStatistics> completedJobCountStatistics= new HashMap<>();
+	Map<String, IntervalStatistics> inFlightJobCountStatistics= new HashMap<>();
 
 	/**
 	 * Called from a timer to gather statistics at a regular interval.
@@ -91,6 +96,8 @@ public class JobIntervalProcessor {
 		calculateCumulativeRuntime(consumedData, now);
 		// The number of completed jobs
 		calculateCompletedJobCount(consumedData);
+		// The number of running jobs
+		calculateInFlightJobCount(consumedData);
 	}
 
 	/**
@@ -125,10 +132,12 @@ public class JobIntervalProcessor {
 		for(String jobName: consumedData.getAllKnownJobNames()){
 			// if no jobs of this type are currently running then the runtime is zero.
 			long runtime = 0;
-			Long startTime = consumedData.getStartedJobTimes().get(jobName);
-			if(startTime != null){
-				// A job of this type is running.  How long has it been running?
-				runtime = now - startTime;
+			List<Long> startTimes = consumedData.getStartedJobTimes().get(jobName);
+			if(startTimes != null){
+				// Jobs of this type are running.  How long has each been running?
+				for(Long startTime: startTimes){
+					runtime += now - startTime;
+				}
 			}
 			addValueToIntervalMap(jobName, runtime, cumulativeRuntimeStatisitsics);
 		}
@@ -147,10 +156,10 @@ public class JobIntervalProcessor {
 				interval = new IntervalStatistics(0);
 				completedJobCountStatistics.put(jobName, interval);
 			}
-			List<Long> completedJobs = consumedData.getFinishedJobElapsTimes().get(jobName);
+			Long completedJobs = consumedData.getFinishedJobCounts().get(jobName);
 			if(completedJobs != null){
 				// count each completed job
-				for(Long elapseTimeMs: completedJobs){
+				for(long i=0; i<completedJobs; i++){
 					// add one for each completed job
 					addValueToIntervalMap(jobName, 1, completedJobCountStatistics);
 				}
@@ -158,6 +167,19 @@ public class JobIntervalProcessor {
 		}
 	}
 	
+	/**
+	 * Calculate the number of jobs of each type that are currently running.
+	 * 
+	 * @param consumedData
+	 */
+	public void calculateInFlightJobCount(TrackedData consumedData){
+		for(String jobName: consumedData.getAllKnownJobNames()){
+			List<Long> startTimes = consumedData.getStartedJobTimes().get(jobName);
+			int running = startTimes == null ? 0 : startTimes.size();
+			addValueToIntervalMap(jobName, running, inFlightJobCountStatistics);
+		}
+	}
+	
 	/**
 	 * Add a value to the IntervalStatistics for the given job name.
 	 * @param jobName
@@ -204,6 +226,40 @@ public class JobIntervalProcessor {
 				METRIC_COMPLETED_JOB_COUNT,
 				StandardUnit.Count.name(),
 				timestamp);
+		// running jobs
+		publishAndClearStatistics(
+				inFlightJobCountStatistics, 
+				NAMESPACE_WORKER_STATISTICS,
+				METRIC_IN_FLIGHT_JOB_COUNT,
+				StandardUnit.Count.name(),
+				timestamp);
+		// latency of the jobs completed since the last push
+		publishLatencies(jobTracker.consumeLatencies(), timestamp);
+	}
+	
+	/**
+	 * Publish the latency percentiles of each job that completed at least once.
+	 * 
+	 * @param latencies
+	 * @param timestamp
+	 */
+	public void publishLatencies(Map<String, LatencyHistogram.Snapshot> latencies, Date timestamp){
+		List<ProfileData> results = new LinkedList<>();
+		for(String jobName: latencies.keySet()){
+			LatencyHistogram.Snapshot latency = latencies.get(jobName);
+			if(latency.getCount() < 1){
+				continue;
+			}
+			results.add(createProfileData(NAMESPACE_WORKER_STATISTICS, StandardUnit.Milliseconds.name(), METRIC_LATENCY_P50,
+					new IntervalStatistics(latency.getValueAtPercentile(50)), jobName, timestamp));
+			results.add(createProfileData(NAMESPACE_WORKER_STATISTICS, StandardUnit.Milliseconds.name(), METRIC_LATENCY_P99,
+					new IntervalStatistics(latency.getValueAtPercentile(99)), jobName, timestamp));
+			results.add(createProfileData(NAMESPACE_WORKER_STATISTICS, StandardUnit.Milliseconds.name(), METRIC_LATENCY_MAX,
+					new IntervalStatistics(latency.getMax()), jobName, timestamp));
+		}
+		if(!results.isEmpty()){
+			consumer.addProfileData(results);
+		}
 	}
 	
 	/**
@@ -1,7 +1,10 @@
 package org.sagebionetworks.worker.job.tracking;
 
+import java.util.Map;
+
 /**
- * Abstraction for a simple job tracker.
+ * Abstraction for a simple job tracker. Each invocation of a job is tracked
+ * separately, so many instances of the same job can run at the same time.
  *
  */
 public interface JobTracker {
@@ -9,18 +12,27 @@ public interface JobTracker {
 	/**
 	 * To track a job, call this method when the job starts.
 	 * @param jobName
+	 * @return The ID of this invocation of the job.
 	 */
-	public void jobStarted(String jobName);
+	public long jobStarted(String jobName);
 	
 	/**
 	 * To track a job, call this method when the job ends.
 	 * @param jobName
+	 * @param invocationId The ID returned when the job started.
 	 */
-	public void jobEnded(String jobName);
+	public void jobEnded(String jobName, long invocationId);
 
 	/**
 	 * Consume all of the currently tracked data.
 	 * @return
 	 */
 	public TrackedData consumeTrackedData();
+
+	/**
+	 * Consume the latencies (MS) of the jobs that completed since the last call,
+	 * for each job name.
+	 * @return
+	 */
+	public Map<String, LatencyHistogram.Snapshot> consumeLatencies();
 }
@@ -1,19 +1,21 @@
 package org.sagebionetworks.worker.job.tracking;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.sagebionetworks.util.Clock;
 import org.springframework.beans.factory.annotation.Autowired;
 
 /**
- * This is a thread-safe implementation of a {@link JobTracker}. <b> All methods
- * must be synchronized.</b> Since all methods are synchronized,
- * non-synchronized collections are used internally.
+ * This is a thread-safe implementation of a {@link JobTracker}. Starting and
+ * ending a job never blocks, so jobs do not contend with each other or with
+ * the thread consuming the tracked data.
  * 
  */
 public class JobTrackerImpl implements JobTracker {
@@ -22,19 +24,14 @@ public class JobTrackerImpl implements JobTracker {
 	Clock clock;
 
 	/**
-	 * The names of all known jobs.
+	 * The tracked data of each job name.
 	 */
-	private Set<String> allKnownJobNames = new HashSet<String>();
+	private final ConcurrentMap<String, JobStatistics> jobs = new ConcurrentHashMap<>();
 
 	/**
-	 * Tracks the start times (MS) of jobs that are currently running.
+	 * Issues the ID of each invocation.
 	 */
-	private Map<String, Long> startedJobTimes = new HashMap<String, Long>();
-
-	/**
-	 * Tracks the elapse times (MS) of jobs that have completed.
-	 */
-	private Map<String, List<Long>> finishedJobElapsTimes = new HashMap<String, List<Long>>();
+	private final AtomicLong invocationSequence = new AtomicLong();
 
 	/*
 	 * (non-Javadoc)
@@ -43,29 +40,26 @@ public class JobTrackerImpl implements JobTracker {
 	 * org.sagebionetworks.worker.utils.JobTracker#jobStarted(java.lang.String)
 	 */
 	@Override
-	public synchronized void jobStarted(String jobName) {
-		allKnownJobNames.add(jobName);
-		startedJobTimes.put(jobName, clock.currentTimeMillis());
+	public long jobStarted(String jobName) {
+		long invocationId = invocationSequence.incrementAndGet();
+		getJobStatistics(jobName).startedJobTimes.put(invocationId, clock.currentTimeMillis());
+		return invocationId;
 	}
 
 	/*
 	 * (non-Javadoc)
 	 * 
 	 * @see
-	 * org.sagebionetworks.worker.utils.JobTracker#jobEnded(java.lang.String)
+	 * org.sagebionetworks.worker.utils.JobTracker#jobEnded(java.lang.String, long)
 	 */
 	@Override
-	public synchronized void jobEnded(String jobName) {
-		// this job is no longer active
-		Long startTime = startedJobTimes.remove(jobName);
+	public void jobEnded(String jobName, long invocationId) {
+		JobStatistics statistics = getJobStatistics(jobName);
+		// this invocation is no longer active
+		Long startTime = statistics.startedJobTimes.remove(invocationId);
 		if (startTime != null) {
-			long jobElapseTimeMs = clock.currentTimeMillis() - startTime;
-			List<Long> elapseList = finishedJobElapsTimes.get(jobName);
-			if(elapseList == null){
-				elapseList = new LinkedList<Long>();
-				finishedJobElapsTimes.put(jobName, elapseList);
-			}
-			elapseList.add(jobElapseTimeMs);
+			statistics.latency.record(clock.currentTimeMillis() - startTime);
+			statistics.finishedJobCount.incrementAndGet();
 		}
 	}
 
@@ -75,19 +69,68 @@ public class JobTrackerImpl implements JobTracker {
 	 * @see org.sagebionetworks.worker.utils.JobTracker#consumeTrackedData()
 	 */
 	@Override
-	public synchronized TrackedData consumeTrackedData() {
-		// Create a copy of the known job names
-		Set<String> copyOfAllKnownJobNames = new HashSet<>(allKnownJobNames);
-		// Create a copy of the started job times.
-		Map<String, Long> copyStartedJobTimes = new HashMap<>(startedJobTimes);
-		/*
-		 * Consume the finished jobs. The current map is returned while the
-		 * local map is replaced with a new empty map.
+	public TrackedData consumeTrackedData() {
+		Map<String, List<Long>> copyStartedJobTimes = new HashMap<>();
+		Map<String, Long> finishedJobCounts = new HashMap<>();
+		for (Map.Entry<String, JobStatistics> entry : jobs.entrySet()) {
+			JobStatistics statistics = entry.getValue();
+			List<Long> startTimes = new ArrayList<>(statistics.startedJobTimes.values());
+			if (!startTimes.isEmpty()) {
+				copyStartedJobTimes.put(entry.getKey(), startTimes);
+			}
+			// Consume the jobs that finished since the last call.
+			long finished = statistics.finishedJobCount.getAndSet(0L);
+			if (finished > 0) {
+				finishedJobCounts.put(entry.getKey(), finished);
+			}
+		}
+		return new TrackedData(new HashSet<>(jobs.keySet()), copyStartedJobTimes, finishedJobCounts);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.sagebionetworks.worker.job.tracking.JobTracker#consumeLatencies()
+	 */
+	@Override
+	public synchronized Map<String, LatencyHistogram.Snapshot> consumeLatencies() {
+		Map<String, LatencyHistogram.Snapshot> results = new HashMap<>();
+		for (Map.Entry<String, JobStatistics> entry : jobs.entrySet()) {
+			JobStatistics statistics = entry.getValue();
+			long[] counts = statistics.latency.getCounts();
+			results.put(entry.getKey(), LatencyHistogram.snapshot(counts, statistics.consumedLatencyCounts));
+			// the next snapshot starts from the counts included in this snapshot.
+			statistics.consumedLatencyCounts = counts;
+		}
+		return results;
+	}
+
+	private JobStatistics getJobStatistics(String jobName) {
+		return jobs.computeIfAbsent(jobName, (String name) -> new JobStatistics());
+	}
+
+	/**
+	 * The statistics tracked for a single job name.
+	 *
+	 */
+	private static class JobStatistics {
+		/**
+		 * The start times (MS) of each running invocation.
+		 */
+		final ConcurrentMap<Long, Long> startedJobTimes = new ConcurrentHashMap<>();
+		/**
+		 * The number of invocations that finished since the data was last consumed.
+		 */
+		final AtomicLong finishedJobCount = new AtomicLong();
+		/**
+		 * The elapse times (MS) of all finished invocations.
+		 */
+		final LatencyHistogram latency = new LatencyHistogram();
+		/**
+		 * The latency counts that have already been consumed. Guarded by
+		 * {@link JobTrackerImpl#consumeLatencies()}.
 		 */
-		Map<String, List<Long>> copyFinishedJobElapsTimes = finishedJobElapsTimes;
-		finishedJobElapsTimes = new HashMap<>(copyFinishedJobElapsTimes.size());
-		return new TrackedData(copyOfAllKnownJobNames, copyStartedJobTimes,
-				copyFinishedJobElapsTimes);
+		long[] consumedLatencyCounts;
 	}
 
 }
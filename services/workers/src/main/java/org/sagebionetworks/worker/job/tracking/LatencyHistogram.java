@@ -0,0 +1,160 @@
+package org.sagebionetworks.worker.job.tracking;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of latencies (MS) with a bounded relative error in the
+ * style of an HDR histogram. Values below {@link #SUB_BUCKET_COUNT} are
+ * counted exactly, larger values are counted in buckets that split each power
+ * of two into {@link #SUB_BUCKET_COUNT} equal parts, so any value read from the
+ * histogram is within about 3% of a recorded value.
+ * <p>
+ * The counts only ever increase, so the values recorded during an interval are
+ * found by subtracting the counts at the start of the interval with
+ * {@link #snapshot(long[], long[])}.
+ *
+ */
+public class LatencyHistogram {
+
+	public static final int SUB_BUCKET_BITS = 5;
+	public static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	/**
+	 * Enough buckets for any positive long.
+	 */
+	public static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+	/**
+	 * Record a single value. Negative values are recorded as zero.
+	 *
+	 * @param value
+	 */
+	public void record(long value) {
+		counts.incrementAndGet(getBucketIndex(Math.max(0L, value)));
+	}
+
+	/**
+	 * Get a copy of the current count of each bucket.
+	 *
+	 * @return
+	 */
+	public long[] getCounts() {
+		long[] copy = new long[BUCKET_COUNT];
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			copy[i] = counts.get(i);
+		}
+		return copy;
+	}
+
+	/**
+	 * Create a snapshot of the values recorded between two calls to
+	 * {@link #getCounts()}.
+	 *
+	 * @param counts         The counts at the end of the interval.
+	 * @param previousCounts The counts at the start of the interval, or null to
+	 *                       include all values recorded before the end of the
+	 *                       interval.
+	 * @return
+	 */
+	public static Snapshot snapshot(long[] counts, long[] previousCounts) {
+		long[] delta = counts.clone();
+		if (previousCounts != null) {
+			for (int i = 0; i < BUCKET_COUNT; i++) {
+				delta[i] -= previousCounts[i];
+			}
+		}
+		return new Snapshot(delta);
+	}
+
+	static int getBucketIndex(long value) {
+		if (value < SUB_BUCKET_COUNT) {
+			return (int) value;
+		}
+		int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+		int shift = exponent - SUB_BUCKET_BITS;
+		int subBucket = (int) (value >>> shift) - SUB_BUCKET_COUNT;
+		return (shift + 1) * SUB_BUCKET_COUNT + subBucket;
+	}
+
+	/**
+	 * The largest value that is counted in the given bucket.
+	 *
+	 * @param index
+	 * @return
+	 */
+	static long getBucketUpperBound(int index) {
+		if (index < SUB_BUCKET_COUNT) {
+			return index;
+		}
+		int shift = index / SUB_BUCKET_COUNT - 1;
+		long subBucket = SUB_BUCKET_COUNT + index % SUB_BUCKET_COUNT;
+		long lowerBound = subBucket << shift;
+		return lowerBound + ((1L << shift) - 1);
+	}
+
+	/**
+	 * The values recorded by a histogram during an interval.
+	 *
+	 */
+	public static class Snapshot {
+
+		private final long[] counts;
+		private final long totalCount;
+
+		Snapshot(long[] counts) {
+			this.counts = counts;
+			long total = 0L;
+			for (long count : counts) {
+				total += count;
+			}
+			this.totalCount = total;
+		}
+
+		/**
+		 * The number of values recorded.
+		 *
+		 * @return
+		 */
+		public long getCount() {
+			return totalCount;
+		}
+
+		/**
+		 * Get the value at the given percentile.
+		 *
+		 * @param percentile A value between 0 and 100.
+		 * @return The largest value counted in the bucket of the percentile or zero
+		 *         if no values were recorded.
+		 */
+		public long getValueAtPercentile(double percentile) {
+			if (totalCount == 0) {
+				return 0L;
+			}
+			double bounded = Math.min(100.0, Math.max(0.0, percentile));
+			long rank = Math.max(1L, (long) Math.ceil(bounded / 100.0 * totalCount));
+			long seen = 0L;
+			for (int i = 0; i < counts.length; i++) {
+				seen += counts[i];
+				if (seen >= rank) {
+					return getBucketUpperBound(i);
+				}
+			}
+			return getMax();
+		}
+
+		/**
+		 * The largest value recorded, within the precision of the histogram.
+		 *
+		 * @return
+		 */
+		public long getMax() {
+			for (int i = counts.length - 1; i >= 0; i--) {
+				if (counts[i] > 0) {
+					return getBucketUpperBound(i);
+				}
+			}
+			return 0L;
+		}
+	}
+}
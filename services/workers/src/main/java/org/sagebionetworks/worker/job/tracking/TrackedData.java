@@ -16,28 +16,29 @@ public class TrackedData {
 	private Set<String> allKnownJobNames;
 
 	/**
-	 * Tracks the start times (MS) of jobs that are currently running.
+	 * Tracks the start times (MS) of each invocation of the jobs that are
+	 * currently running.
 	 */
-	private Map<String, Long> startedJobTimes;
+	private Map<String, List<Long>> startedJobTimes;
 	/**
-	 * Tracks the elapse times (MS) of jobs that have completed.
+	 * Tracks the number of jobs that have completed.
 	 */
-	private Map<String, List<Long>> finishedJobElapsTimes;
+	private Map<String, Long> finishedJobCounts;
 
 	/**
 	 * Create a new
 	 * 
 	 * @param allKnownJobNames
 	 * @param startedJobTimes
-	 * @param finishedJobElapsTimes
+	 * @param finishedJobCounts
 	 */
 	public TrackedData(Set<String> allKnownJobNames,
-			Map<String, Long> startedJobTimes,
-			Map<String, List<Long>> finishedJobElapsTimes) {
+			Map<String, List<Long>> startedJobTimes,
+			Map<String, Long> finishedJobCounts) {
 		super();
 		this.allKnownJobNames = allKnownJobNames;
 		this.startedJobTimes = startedJobTimes;
-		this.finishedJobElapsTimes = finishedJobElapsTimes;
+		this.finishedJobCounts = finishedJobCounts;
 	}
 
 	/**
@@ -50,21 +51,24 @@ public class TrackedData {
 	}
 
 	/**
-	 * Tracks the start times (MS) of jobs that are currently running.
+	 * Tracks the start times (MS) of each invocation of the jobs that are
+	 * currently running. Only jobs with at least one running invocation are
+	 * included.
 	 * 
 	 * @return
 	 */
-	public Map<String, Long> getStartedJobTimes() {
+	public Map<String, List<Long>> getStartedJobTimes() {
 		return startedJobTimes;
 	}
 
 	/**
-	 * Tracks the elapse times (MS) of jobs that have completed.
+	 * Tracks the number of jobs that have completed. Only jobs with at least one
+	 * completed invocation are included.
 	 * 
 	 * @return
 	 */
-	public Map<String, List<Long>> getFinishedJobElapsTimes() {
-		return finishedJobElapsTimes;
+	public Map<String, Long> getFinishedJobCounts() {
+		return finishedJobCounts;
 	}
 
 }
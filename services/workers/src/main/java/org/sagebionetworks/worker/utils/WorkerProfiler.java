@@ -44,12 +44,13 @@ public class WorkerProfiler {
 		final String targetClassName = pjp.getTarget().getClass()
 				.getSimpleName();
 		Object result = null;
+		// each invocation is tracked separately so concurrent workers of the same class do not collide.
+		long invocationId = jobTracker.jobStarted(targetClassName);
 		try {
-			jobTracker.jobStarted(targetClassName);
 			// the actual call.
 			result = pjp.proceed();
 		} finally {
-			jobTracker.jobEnded(targetClassName);
+			jobTracker.jobEnded(targetClassName, invocationId);
 		}
 		return result;
 	}
@@ -30,6 +30,8 @@ public class WorkerProfilerTest {
 	
 	String workerName;
 	
+	long invocationId;
+	
 	@Before
 	public void before() throws Throwable{
 		profiler = new WorkerProfiler();
@@ -38,6 +40,8 @@ public class WorkerProfilerTest {
 		workerName = this.getClass().getSimpleName();
 		mockResponse = new Object();
 		when(mockProceedingJoinPoint.proceed()).thenReturn(mockResponse);
+		invocationId = 123L;
+		when(mockJobTracker.jobStarted(workerName)).thenReturn(invocationId);
 	}
 	
 	@Test
@@ -46,7 +50,7 @@ public class WorkerProfilerTest {
 		Object result = profiler.profileMessageDrivenRunner(mockProceedingJoinPoint);
 		assertEquals(mockResponse, result);
 		verify(mockJobTracker).jobStarted(workerName);
-		verify(mockJobTracker).jobEnded(workerName);
+		verify(mockJobTracker).jobEnded(workerName, invocationId);
 	}
 	
 	@Test
@@ -63,7 +67,7 @@ public class WorkerProfilerTest {
 		}
 		// the job should start and stop even with a failure
 		verify(mockJobTracker).jobStarted(workerName);
-		verify(mockJobTracker).jobEnded(workerName);
+		verify(mockJobTracker).jobEnded(workerName, invocationId);
 	}
 
 }
@@ -60,8 +60,8 @@ public class JobIntervalProcessorTest {
 	Map<String, IntervalStatistics> intervalMap;
 	
 	Set<String> allKnownJobNames;
-	Map<String, Long> startedJobTimes;
-	Map<String, List<Long>> finishedJobElapsTimes;
+	Map<String, List<Long>> startedJobTimes;
+	Map<String, Long> finishedJobCounts;
 	
 	TrackedData consumedData;
 	
@@ -91,11 +91,11 @@ public class JobIntervalProcessorTest {
 		intervalMap.put(workerNameTwo, statsTwo);	
 		
 		allKnownJobNames = Sets.newHashSet(workerName, workerNameTwo);
-		startedJobTimes = new HashMap<String, Long>();
-		startedJobTimes.put(workerName, 2L);
-		finishedJobElapsTimes = new HashMap<String, List<Long>>();
-		finishedJobElapsTimes.put(workerNameTwo, Lists.newArrayList(3L,4L));
-		consumedData = new TrackedData(allKnownJobNames, startedJobTimes, finishedJobElapsTimes);
+		startedJobTimes = new HashMap<String, List<Long>>();
+		startedJobTimes.put(workerName, Lists.newArrayList(2L));
+		finishedJobCounts = new HashMap<String, Long>();
+		finishedJobCounts.put(workerNameTwo, 2L);
+		consumedData = new TrackedData(allKnownJobNames, startedJobTimes, finishedJobCounts);
 		
 		when(mockJobTracker.consumeTrackedData()).thenReturn(consumedData);
 	}
@@ -203,6 +203,66 @@ public class JobIntervalProcessorTest {
 		assertEquals(1L, stats.getValueCount());
 	}
 	
+	@Test
+	public void testCalculateCumulativeRuntimeConcurrent(){
+		startedJobTimes.put(workerName, Lists.newArrayList(2L, 4L));
+		long now = 5L;
+		// call under test
+		processor.calculateCumulativeRuntime(consumedData, now);
+		IntervalStatistics stats = processor.cumulativeRuntimeStatisitsics.get(workerName);
+		// the runtime of each running job is included.
+		assertEquals(new Double(4), new Double(stats.getValueSum()));
+		assertEquals(1L, stats.getValueCount());
+	}
+	
+	@Test
+	public void testCalculateInFlightJobCount(){
+		startedJobTimes.put(workerName, Lists.newArrayList(2L, 4L));
+		// call under test
+		processor.calculateInFlightJobCount(consumedData);
+		assertEquals(2, processor.inFlightJobCountStatistics.size());
+		IntervalStatistics stats = processor.inFlightJobCountStatistics.get(workerName);
+		assertEquals(new Double(2), new Double(stats.getValueSum()));
+		assertEquals(1L, stats.getValueCount());
+		
+		stats = processor.inFlightJobCountStatistics.get(workerNameTwo);
+		// the second worker is not running
+		assertEquals(new Double(0), new Double(stats.getValueSum()));
+		assertEquals(1L, stats.getValueCount());
+	}
+	
+	@Test
+	public void testPublishLatencies(){
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(10);
+		histogram.record(20);
+		Map<String, LatencyHistogram.Snapshot> latencies = new HashMap<>();
+		latencies.put(workerName, LatencyHistogram.snapshot(histogram.getCounts(), null));
+		// no jobs completed
+		latencies.put(workerNameTwo, LatencyHistogram.snapshot(new LatencyHistogram().getCounts(), null));
+		// call under test
+		processor.publishLatencies(latencies, timestamp);
+		verify(mockConsumer).addProfileData(profileCaptor.capture());
+		List<ProfileData> results = profileCaptor.getValue();
+		assertEquals(3, results.size());
+		assertEquals(JobIntervalProcessor.METRIC_LATENCY_P50, results.get(0).getName());
+		assertEquals(new Double(10), results.get(0).getMetricStats().getMaximum());
+		assertEquals(JobIntervalProcessor.METRIC_LATENCY_P99, results.get(1).getName());
+		assertEquals(new Double(20), results.get(1).getMetricStats().getMaximum());
+		assertEquals(JobIntervalProcessor.METRIC_LATENCY_MAX, results.get(2).getName());
+		assertEquals(new Double(20), results.get(2).getMetricStats().getMaximum());
+		assertEquals(workerName, results.get(0).getDimension().get(JobIntervalProcessor.DIMENSION_WORKER_NAME));
+	}
+	
+	@Test
+	public void testPublishLatenciesNoCompletedJobs(){
+		Map<String, LatencyHistogram.Snapshot> latencies = new HashMap<>();
+		latencies.put(workerName, LatencyHistogram.snapshot(new LatencyHistogram().getCounts(), null));
+		// call under test
+		processor.publishLatencies(latencies, timestamp);
+		verifyNoMoreInteractions(mockConsumer);
+	}
+	
 	@Test
 	public void testCalculatePercentTimeRunning(){
 		// call under test
@@ -228,6 +288,7 @@ public class JobIntervalProcessorTest {
 		assertEquals(2, processor.percentTimeRunningStatistics.size());
 		assertEquals(2, processor.cumulativeRuntimeStatisitsics.size());
 		assertEquals(2, processor.completedJobCountStatistics.size());
+		assertEquals(2, processor.inFlightJobCountStatistics.size());
 		// data should be be pushed
 		verifyNoMoreInteractions(mockConsumer);
 	}
@@ -242,7 +303,9 @@ public class JobIntervalProcessorTest {
 		assertEquals(0, processor.percentTimeRunningStatistics.size());
 		assertEquals(0, processor.cumulativeRuntimeStatisitsics.size());
 		assertEquals(0, processor.completedJobCountStatistics.size());
-		// data should be pushed three times (once for each type).
-		verify(mockConsumer, times(3)).addProfileData(anyListOf(ProfileData.class));
+		assertEquals(0, processor.inFlightJobCountStatistics.size());
+		// data should be pushed four times (once for each type). No jobs completed so there are no latencies.
+		verify(mockConsumer, times(4)).addProfileData(anyListOf(ProfileData.class));
+		verify(mockJobTracker).consumeLatencies();
 	}
 }
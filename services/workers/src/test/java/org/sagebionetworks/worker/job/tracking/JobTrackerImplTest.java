@@ -1,11 +1,14 @@
 package org.sagebionetworks.worker.job.tracking;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.when;
 
 import java.util.List;
+import java.util.Map;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -15,6 +18,9 @@ import org.mockito.junit.MockitoJUnitRunner;
 import org.sagebionetworks.util.Clock;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
 @RunWith(MockitoJUnitRunner.class)
 public class JobTrackerImplTest {
 	
@@ -36,45 +42,85 @@ public class JobTrackerImplTest {
 		String jobOne =  "one";
 		String jobTwo =  "two";
 		// call under test
-		tracker.jobStarted(jobOne);
-		tracker.jobStarted(jobTwo);
+		long invocationOne = tracker.jobStarted(jobOne);
+		long invocationTwo = tracker.jobStarted(jobTwo);
+		assertNotEquals(invocationOne, invocationTwo);
 		TrackedData data = tracker.consumeTrackedData();
 		assertNotNull(data);
 		assertNotNull(data.getStartedJobTimes());
-		Long startTime = data.getStartedJobTimes().get(jobOne);
-		assertEquals(new Long(1), startTime);
-		startTime = data.getStartedJobTimes().get(jobTwo);
-		assertEquals(new Long(2), startTime);
+		assertEquals(Lists.newArrayList(1L), data.getStartedJobTimes().get(jobOne));
+		assertEquals(Lists.newArrayList(2L), data.getStartedJobTimes().get(jobTwo));
 		
-		assertEquals(2, data.getAllKnownJobNames().size());
-		assertTrue(data.getAllKnownJobNames().contains(jobOne));
-		assertTrue(data.getAllKnownJobNames().contains(jobTwo));
+		assertEquals(Sets.newHashSet(jobOne, jobTwo), data.getAllKnownJobNames());
 		// there are no finished jobs.
-		assertEquals(0, data.getFinishedJobElapsTimes().size());
+		assertEquals(0, data.getFinishedJobCounts().size());
+	}
+	
+	@Test
+	public void testStartJobConcurrent(){
+		String jobOne =  "one";
+		// call under test
+		long invocationOne = tracker.jobStarted(jobOne);
+		tracker.jobStarted(jobOne);
+		// the second start must not replace the first.
+		TrackedData data = tracker.consumeTrackedData();
+		List<Long> startTimes = data.getStartedJobTimes().get(jobOne);
+		assertEquals(2, startTimes.size());
+		assertTrue(startTimes.containsAll(Lists.newArrayList(1L, 2L)));
+		
+		// call under test
+		tracker.jobEnded(jobOne, invocationOne);
+		data = tracker.consumeTrackedData();
+		assertEquals(Lists.newArrayList(2L), data.getStartedJobTimes().get(jobOne));
+		assertEquals(new Long(1), data.getFinishedJobCounts().get(jobOne));
+		// the first invocation ran from 1 to 3.
+		LatencyHistogram.Snapshot latency = tracker.consumeLatencies().get(jobOne);
+		assertEquals(1L, latency.getCount());
+		assertEquals(2L, latency.getMax());
 	}
 	
 	@Test
 	public void testEndJob(){
 		String jobOne =  "one";
 		String jobTwo =  "two";
-		tracker.jobStarted(jobTwo);
+		long invocationTwo = tracker.jobStarted(jobTwo);
 		tracker.jobStarted(jobOne);
 		// call under test
-		tracker.jobEnded(jobTwo);
-		tracker.jobStarted(jobTwo);
+		tracker.jobEnded(jobTwo, invocationTwo);
+		invocationTwo = tracker.jobStarted(jobTwo);
 		// call under test
-		tracker.jobEnded(jobTwo);
+		tracker.jobEnded(jobTwo, invocationTwo);
 		
 		TrackedData data = tracker.consumeTrackedData();
 		assertNotNull(data);
 		assertNotNull(data.getStartedJobTimes());
-		assertEquals(1, data.getFinishedJobElapsTimes().size());
-		List<Long> elapseTimes = data.getFinishedJobElapsTimes().get(jobTwo);
-		assertNotNull(elapseTimes);
-		assertEquals(2, elapseTimes.size());
+		assertFalse(data.getStartedJobTimes().containsKey(jobTwo));
+		assertEquals(1, data.getFinishedJobCounts().size());
+		assertEquals(new Long(2), data.getFinishedJobCounts().get(jobTwo));
+		// finished jobs are consumed
+		data = tracker.consumeTrackedData();
+		assertEquals(0, data.getFinishedJobCounts().size());
 		
-		assertEquals(new Long(2), elapseTimes.get(0));
-		assertEquals(new Long(1), elapseTimes.get(1));
+		Map<String, LatencyHistogram.Snapshot> latencies = tracker.consumeLatencies();
+		LatencyHistogram.Snapshot latency = latencies.get(jobTwo);
+		// elapse times were 2 and 1
+		assertEquals(2L, latency.getCount());
+		assertEquals(1L, latency.getValueAtPercentile(50));
+		assertEquals(2L, latency.getMax());
+		assertEquals(0L, latencies.get(jobOne).getCount());
+		// latencies are consumed
+		assertEquals(0L, tracker.consumeLatencies().get(jobTwo).getCount());
+	}
+	
+	@Test
+	public void testEndJobUnknownInvocation(){
+		String jobOne =  "one";
+		tracker.jobStarted(jobOne);
+		// call under test
+		tracker.jobEnded(jobOne, -1L);
+		TrackedData data = tracker.consumeTrackedData();
+		assertEquals(1, data.getStartedJobTimes().get(jobOne).size());
+		assertEquals(0, data.getFinishedJobCounts().size());
 	}
 
 }
@@ -0,0 +1,66 @@
+package org.sagebionetworks.worker.job.tracking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+	@Test
+	public void testGetBucketIndexExact(){
+		for(int i=0; i<LatencyHistogram.SUB_BUCKET_COUNT; i++){
+			assertEquals(i, LatencyHistogram.getBucketIndex(i));
+			assertEquals(i, LatencyHistogram.getBucketUpperBound(i));
+		}
+	}
+	
+	@Test
+	public void testGetBucketIndexRelativeError(){
+		long[] values = new long[]{32, 33, 63, 64, 65, 1000, 12345, 1_000_000_007L, Long.MAX_VALUE};
+		for(long value: values){
+			int index = LatencyHistogram.getBucketIndex(value);
+			assertTrue(index < LatencyHistogram.BUCKET_COUNT);
+			long upper = LatencyHistogram.getBucketUpperBound(index);
+			assertTrue(upper >= value);
+			// within 1/32 of the value
+			assertTrue("value: "+value+" upper: "+upper, upper - value <= value / LatencyHistogram.SUB_BUCKET_COUNT);
+			if(index > 0){
+				// the previous bucket ends below the value.
+				assertTrue(LatencyHistogram.getBucketUpperBound(index-1) < value);
+			}
+		}
+	}
+	
+	@Test
+	public void testSnapshot(){
+		LatencyHistogram histogram = new LatencyHistogram();
+		for(long i=1; i<=100; i++){
+			histogram.record(i);
+		}
+		long[] previous = histogram.getCounts();
+		histogram.record(5000);
+		histogram.record(-1);
+		// call under test
+		LatencyHistogram.Snapshot all = LatencyHistogram.snapshot(histogram.getCounts(), null);
+		assertEquals(102L, all.getCount());
+		assertEquals(50L, all.getValueAtPercentile(50));
+		assertEquals(101L, all.getValueAtPercentile(99));
+		assertEquals(5119L, all.getMax());
+		// call under test
+		LatencyHistogram.Snapshot delta = LatencyHistogram.snapshot(histogram.getCounts(), previous);
+		assertEquals(2L, delta.getCount());
+		assertEquals(0L, delta.getValueAtPercentile(50));
+		assertEquals(5119L, delta.getMax());
+	}
+	
+	@Test
+	public void testEmptySnapshot(){
+		LatencyHistogram histogram = new LatencyHistogram();
+		// call under test
+		LatencyHistogram.Snapshot snapshot = LatencyHistogram.snapshot(histogram.getCounts(), null);
+		assertEquals(0L, snapshot.getCount());
+		assertEquals(0L, snapshot.getValueAtPercentile(99));
+		assertEquals(0L, snapshot.getMax());
+	}
+}